@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.chaos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.Acquisition;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.StatementFault;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Makes the database slow or flaky on purpose, to check timeouts, pool sizing and retries
+ * under load. Off unless {@code petclinic.chaos.enabled} is set, which the {@code chaos}
+ * profile does.
+ * <p>
+ * Connection acquisition faults are configured with
+ * {@code petclinic.chaos.acquire.failure-rate}, {@code .stall-rate} and {@code .stall}.
+ * The statement faults are listed in {@code petclinic.chaos.statements}, each configured
+ * with {@code petclinic.chaos.statement.<name>.sql} (a regular expression found in the
+ * SQL), {@code .latency} (see {@link Latency#parse(String)}), {@code .latency-rate},
+ * {@code .transient-rate} and {@code .deadlock-rate}. The faults can be replaced at
+ * runtime through the {@link DatabaseChaos} bean and paused through the
+ * {@link ChaosEndpoint}. Injection starts once the application accepts traffic, so that
+ * migrations, the warm-up and the rebuilds on startup are left alone. The injections are
+ * counted in {@code petclinic.chaos.injected}, tagged {@code fault}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.chaos.enabled")
+class ChaosConfiguration {
+
+	@Bean
+	static BeanPostProcessor chaosDataSourcePostProcessor(ObjectProvider<DatabaseChaos> chaos) {
+		// not ordered, so it runs after the bulkheads and wraps their partitions too
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+				if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+					return new ChaosDataSource(dataSource, chaos.getObject());
+				}
+				return bean;
+			}
+
+		};
+	}
+
+	@Bean
+	DatabaseChaos databaseChaos(Environment environment) {
+		DatabaseChaos chaos = new DatabaseChaos();
+		String stall = environment.getProperty("petclinic.chaos.acquire.stall");
+		Acquisition acquisition = new Acquisition(
+				environment.getProperty("petclinic.chaos.acquire.failure-rate", Double.class, 0.0),
+				environment.getProperty("petclinic.chaos.acquire.stall-rate", Double.class, 0.0),
+				(stall != null) ? Latency.parse(stall) : null);
+		List<StatementFault> statements = new ArrayList<>();
+		for (String name : environment.getProperty("petclinic.chaos.statements", String[].class, new String[0])) {
+			String prefix = "petclinic.chaos.statement." + name.strip() + ".";
+			String latency = environment.getProperty(prefix + "latency");
+			statements.add(new StatementFault(name.strip(),
+					Pattern.compile(environment.getRequiredProperty(prefix + "sql"), Pattern.CASE_INSENSITIVE),
+					(latency != null) ? Latency.parse(latency) : null,
+					environment.getProperty(prefix + "latency-rate", Double.class, 1.0),
+					environment.getProperty(prefix + "transient-rate", Double.class, 0.0),
+					environment.getProperty(prefix + "deadlock-rate", Double.class, 0.0)));
+		}
+		chaos.configure(acquisition, statements);
+		chaos.setEnabled(false);
+		return chaos;
+	}
+
+	@Bean
+	ApplicationListener<AvailabilityChangeEvent<ReadinessState>> chaosStarter(DatabaseChaos chaos) {
+		return event -> {
+			if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+				chaos.setEnabled(true);
+			}
+		};
+	}
+
+	@Bean
+	ChaosEndpoint chaosEndpoint(DatabaseChaos chaos) {
+		return new ChaosEndpoint(chaos);
+	}
+
+	@Bean
+	MeterBinder chaosMetrics(DatabaseChaos chaos) {
+		return registry -> {
+			FunctionCounter.builder("petclinic.chaos.injected", chaos, DatabaseChaos::stalls)
+				.description("Database faults injected")
+				.tag("fault", "stall")
+				.register(registry);
+			FunctionCounter.builder("petclinic.chaos.injected", chaos, DatabaseChaos::delays)
+				.description("Database faults injected")
+				.tag("fault", "delay")
+				.register(registry);
+			FunctionCounter.builder("petclinic.chaos.injected", chaos, DatabaseChaos::failures)
+				.description("Database faults injected")
+				.tag("fault", "transient")
+				.register(registry);
+			FunctionCounter.builder("petclinic.chaos.injected", chaos, DatabaseChaos::deadlocks)
+				.description("Database faults injected")
+				.tag("fault", "deadlock")
+				.register(registry);
+		};
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.chaos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Wraps the application {@link DataSource} and lets {@link DatabaseChaos} inject faults
+ * into connection acquisition and into every statement run on the connections handed out.
+ * <p>
+ * Closing this data source closes the one it wraps, and with it the pools underneath.
+ */
+class ChaosDataSource extends DelegatingDataSource implements Closeable {
+
+	private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+			"executeBatch", "executeLargeBatch");
+
+	private final DatabaseChaos chaos;
+
+	ChaosDataSource(DataSource target, DatabaseChaos chaos) {
+		super(target);
+		this.chaos = chaos;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		this.chaos.beforeAcquire();
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		this.chaos.beforeAcquire();
+		return wrap(super.getConnection(username, password));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (obtainTargetDataSource() instanceof Closeable closeable) {
+			closeable.close();
+		}
+	}
+
+	private Connection wrap(Connection connection) {
+		return proxy(Connection.class, connection, (proxy, method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (result instanceof CallableStatement callable) {
+				return statement(CallableStatement.class, callable, (String) args[0]);
+			}
+			if (result instanceof PreparedStatement prepared) {
+				return statement(PreparedStatement.class, prepared, (String) args[0]);
+			}
+			if (result instanceof Statement statement) {
+				return statement(Statement.class, statement, null);
+			}
+			return result;
+		});
+	}
+
+	private <S extends Statement> S statement(Class<S> type, S statement, String preparedSql) {
+		String[] batchSql = { preparedSql };
+		return proxy(type, statement, (proxy, method, args) -> {
+			String name = method.getName();
+			if (preparedSql == null && name.equals("addBatch") && args != null) {
+				batchSql[0] = (String) args[0];
+			}
+			else if (EXECUTE.contains(name)) {
+				boolean withSql = args != null && args.length > 0 && args[0] instanceof String;
+				this.chaos.beforeExecute(withSql ? (String) args[0] : batchSql[0]);
+			}
+			return invoke(statement, method, args);
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(ChaosDataSource.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> switch (method.getName()) {
+					case "equals" -> proxy == args[0];
+					case "hashCode" -> System.identityHashCode(proxy);
+					default -> handler.invoke(proxy, method, args);
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.chaos;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.Acquisition;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.StatementFault;
+
+/**
+ * Actuator endpoint to watch and steer the injected database faults during a load run.
+ * <p>
+ * {@code GET /actuator/chaos} shows the configured faults and how often each kind was
+ * injected. {@code POST /actuator/chaos} with {@code {"enabled": false}} pauses the
+ * injection and {@code {"enabled": true}} resumes it, so a JMeter run can measure a
+ * baseline and the faulty database against the same running application.
+ * </p>
+ */
+@Endpoint(id = "chaos")
+public class ChaosEndpoint {
+
+	private final DatabaseChaos chaos;
+
+	public ChaosEndpoint(DatabaseChaos chaos) {
+		this.chaos = chaos;
+	}
+
+	@ReadOperation
+	public Map<String, Object> chaos() {
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("enabled", this.chaos.isEnabled());
+		Acquisition acquisition = this.chaos.getAcquisition();
+		report.put("acquisition", Map.of("failureRate", acquisition.failureRate(), "stallRate", acquisition.stallRate(),
+				"stall", String.valueOf(acquisition.stall())));
+		List<Map<String, Object>> statements = this.chaos.getStatements()
+			.stream()
+			.map(ChaosEndpoint::describe)
+			.toList();
+		report.put("statements", statements);
+		report.put("injected", Map.of("stalls", this.chaos.stalls(), "delays", this.chaos.delays(), "failures",
+				this.chaos.failures(), "deadlocks", this.chaos.deadlocks()));
+		return report;
+	}
+
+	@WriteOperation
+	public void enable(boolean enabled) {
+		this.chaos.setEnabled(enabled);
+	}
+
+	private static Map<String, Object> describe(StatementFault fault) {
+		Map<String, Object> description = new LinkedHashMap<>();
+		description.put("name", fault.name());
+		description.put("sql", fault.sql().pattern());
+		description.put("latency", String.valueOf(fault.latency()));
+		description.put("latencyRate", fault.latencyRate());
+		description.put("transientRate", fault.transientRate());
+		description.put("deadlockRate", fault.deadlockRate());
+		return description;
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.chaos;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * The faults a {@link ChaosDataSource} injects, changeable at runtime. Acquiring a
+ * connection can stall or fail; running a statement whose SQL matches a
+ * {@link StatementFault} can be delayed, fail with a transient connection error or be
+ * chosen as a deadlock victim. The errors carry the SQL states a real database would
+ * report ({@code 08006} and {@code 40001}), so they are translated like the real thing.
+ */
+public class DatabaseChaos {
+
+	/**
+	 * No faults at all.
+	 */
+	public static final Acquisition NO_ACQUISITION_FAULTS = new Acquisition(0, 0, null);
+
+	private volatile boolean enabled = true;
+
+	private volatile Acquisition acquisition = NO_ACQUISITION_FAULTS;
+
+	private volatile List<StatementFault> statements = List.of();
+
+	private final LongAdder stalls = new LongAdder();
+
+	private final LongAdder delays = new LongAdder();
+
+	private final LongAdder failures = new LongAdder();
+
+	private final LongAdder deadlocks = new LongAdder();
+
+	/**
+	 * Faults injected when a connection is acquired.
+	 *
+	 * @param failureRate the share of acquisitions that fail
+	 * @param stallRate the share of acquisitions that are delayed first
+	 * @param stall the delay, or {@code null} for none
+	 */
+	public record Acquisition(double failureRate, double stallRate, @Nullable Latency stall) {
+	}
+
+	/**
+	 * Faults injected into the statements whose SQL matches a pattern.
+	 *
+	 * @param name the name of the fault, for reporting
+	 * @param sql the pattern to find in the SQL
+	 * @param latency the delay, or {@code null} for none
+	 * @param latencyRate the share of matching statements that are delayed
+	 * @param transientRate the share of matching statements that fail with a transient
+	 * connection error
+	 * @param deadlockRate the share of matching statements that fail as deadlock victims
+	 */
+	public record StatementFault(String name, Pattern sql, @Nullable Latency latency, double latencyRate,
+			double transientRate, double deadlockRate) {
+
+		boolean matches(String statement) {
+			return this.sql.matcher(statement).find();
+		}
+
+	}
+
+	/**
+	 * Replace the injected faults.
+	 * @param acquisition the faults on acquiring a connection
+	 * @param statements the faults on running statements, the first match applies
+	 */
+	public void configure(Acquisition acquisition, List<StatementFault> statements) {
+		this.acquisition = acquisition;
+		this.statements = List.copyOf(statements);
+	}
+
+	/**
+	 * Remove all faults.
+	 */
+	public void reset() {
+		configure(NO_ACQUISITION_FAULTS, List.of());
+	}
+
+	/**
+	 * Pause or resume injecting the configured faults.
+	 * @param enabled whether faults are injected
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public Acquisition getAcquisition() {
+		return this.acquisition;
+	}
+
+	public List<StatementFault> getStatements() {
+		return this.statements;
+	}
+
+	void beforeAcquire() throws SQLException {
+		if (!this.enabled) {
+			return;
+		}
+		Acquisition faults = this.acquisition;
+		Random random = ThreadLocalRandom.current();
+		if (faults.stall() != null && random.nextDouble() < faults.stallRate()) {
+			this.stalls.increment();
+			sleep(faults.stall().sample(random));
+		}
+		if (random.nextDouble() < faults.failureRate()) {
+			this.failures.increment();
+			throw new SQLTransientConnectionException("Connection is not available (injected)", "08001");
+		}
+	}
+
+	void beforeExecute(@Nullable String sql) throws SQLException {
+		if (!this.enabled || sql == null) {
+			return;
+		}
+		for (StatementFault fault : this.statements) {
+			if (fault.matches(sql)) {
+				inject(fault);
+				return;
+			}
+		}
+	}
+
+	private void inject(StatementFault fault) throws SQLException {
+		Random random = ThreadLocalRandom.current();
+		if (fault.latency() != null && random.nextDouble() < fault.latencyRate()) {
+			this.delays.increment();
+			sleep(fault.latency().sample(random));
+		}
+		if (random.nextDouble() < fault.deadlockRate()) {
+			this.deadlocks.increment();
+			throw new SQLTransactionRollbackException("Deadlock detected (injected by " + fault.name() + ")", "40001");
+		}
+		if (random.nextDouble() < fault.transientRate()) {
+			this.failures.increment();
+			throw new SQLTransientConnectionException("Connection reset (injected by " + fault.name() + ")", "08006");
+		}
+	}
+
+	private static void sleep(long millis) throws SQLException {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while injecting latency", "08006", ex);
+		}
+	}
+
+	/**
+	 * @return the connection acquisitions stalled
+	 */
+	public long stalls() {
+		return this.stalls.sum();
+	}
+
+	/**
+	 * @return the statements delayed
+	 */
+	public long delays() {
+		return this.delays.sum();
+	}
+
+	/**
+	 * @return the acquisitions and statements failed with a transient error
+	 */
+	public long failures() {
+		return this.failures.sum();
+	}
+
+	/**
+	 * @return the statements failed as deadlock victims
+	 */
+	public long deadlocks() {
+		return this.deadlocks.sum();
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.chaos;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Random;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * A distribution of injected delays around a mean.
+ *
+ * @param distribution the shape of the distribution
+ * @param mean the mean delay
+ */
+public record Latency(Distribution distribution, Duration mean) {
+
+	/**
+	 * Shapes of latency distributions.
+	 */
+	public enum Distribution {
+
+		/** Always the mean. */
+		FIXED,
+
+		/** Evenly spread between zero and twice the mean. */
+		UNIFORM,
+
+		/** Mostly short with a long tail, capped at ten times the mean. */
+		EXPONENTIAL
+
+	}
+
+	/**
+	 * Parse a latency such as {@code 50ms}, {@code uniform:50ms} or
+	 * {@code exponential:PT0.05S}. Without a prefix the latency is fixed.
+	 * @param text the latency to parse
+	 * @return the latency
+	 */
+	public static Latency parse(String text) {
+		int colon = text.indexOf(':');
+		if (colon < 0) {
+			return new Latency(Distribution.FIXED, DurationStyle.detectAndParse(text.strip()));
+		}
+		Distribution distribution = Distribution.valueOf(text.substring(0, colon).strip().toUpperCase(Locale.ROOT));
+		return new Latency(distribution, DurationStyle.detectAndParse(text.substring(colon + 1).strip()));
+	}
+
+	/**
+	 * Draw a delay.
+	 * @param random the source of randomness
+	 * @return the delay in milliseconds
+	 */
+	public long sample(Random random) {
+		long mean = this.mean.toMillis();
+		return switch (this.distribution) {
+			case FIXED -> mean;
+			case UNIFORM -> (long) (random.nextDouble() * 2 * mean);
+			case EXPONENTIAL -> Math.min((long) (-mean * Math.log(1 - random.nextDouble())), 10 * mean);
+		};
+	}
+
+	@Override
+	public String toString() {
+		return this.distribution.name().toLowerCase(Locale.ROOT) + ":" + this.mean.toMillis() + "ms";
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that adapts to latency, after the gradient algorithm. Two moving
+ * averages of the response time are kept, a long one as the baseline and a short one for
+ * the current load. While the limit is in use it moves by their ratio: it grows as long
+ * as recent latency stays within {@code 1.5} times the baseline and shrinks once requests
+ * start to queue behind a saturated resource. A failed request cuts the limit by ten per
+ * cent.
+ * <p>
+ * The limit stays between the given minimum and maximum. Methods are synchronized; each
+ * call does a few arithmetic operations.
+ */
+public class AdaptiveLimit {
+
+	private static final double TOLERANCE = 1.5;
+
+	private static final double SMOOTHING = 0.2;
+
+	private static final double BACKOFF = 0.9;
+
+	private static final int SHORT_WINDOW = 10;
+
+	private static final int LONG_WINDOW = 600;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final LongAdder rejected = new LongAdder();
+
+	private double limit;
+
+	private int inFlight;
+
+	private double shortNanos;
+
+	private double longNanos;
+
+	public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = clamp(initialLimit);
+	}
+
+	/**
+	 * Admit a request if fewer than the limit are in flight. Every admitted request must
+	 * be {@link #release released}.
+	 * @return whether the request was admitted
+	 */
+	public synchronized boolean tryAcquire() {
+		if (this.inFlight >= (int) this.limit) {
+			this.rejected.increment();
+			return false;
+		}
+		this.inFlight++;
+		return true;
+	}
+
+	/**
+	 * Release an admitted request and adjust the limit to how it went.
+	 * @param nanos how long the request took
+	 * @param failed whether it failed, which lowers the limit regardless of latency
+	 */
+	public synchronized void release(long nanos, boolean failed) {
+		int concurrent = this.inFlight--;
+		if (failed) {
+			this.limit = clamp(this.limit * BACKOFF);
+			return;
+		}
+		if (this.longNanos == 0) {
+			this.shortNanos = nanos;
+			this.longNanos = nanos;
+			return;
+		}
+		this.shortNanos += (nanos - this.shortNanos) / SHORT_WINDOW;
+		this.longNanos += (nanos - this.longNanos) / LONG_WINDOW;
+		if (this.longNanos > 2 * this.shortNanos) {
+			// latency is back to normal after a spell of load, let the baseline follow
+			this.longNanos *= 0.95;
+		}
+		if (2 * concurrent < this.limit) {
+			// far below the limit, so latency says nothing about it
+			return;
+		}
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * this.longNanos / this.shortNanos));
+		double next = this.limit * gradient + Math.sqrt(this.limit);
+		this.limit = clamp(this.limit * (1 - SMOOTHING) + next * SMOOTHING);
+	}
+
+	/**
+	 * Release an admitted request without adjusting the limit, for a request that was
+	 * refused further down on purpose and so says nothing about latency or failures.
+	 */
+	public synchronized void drop() {
+		this.inFlight--;
+	}
+
+	/**
+	 * @return the number of requests admitted at the same time
+	 */
+	public synchronized int limit() {
+		return (int) this.limit;
+	}
+
+	/**
+	 * @return the number of admitted requests not released yet
+	 */
+	public synchronized int inFlight() {
+		return this.inFlight;
+	}
+
+	/**
+	 * @return the number of requests turned away so far
+	 */
+	public long rejected() {
+		return this.rejected.sum();
+	}
+
+	private double clamp(double value) {
+		return Math.max(this.minLimit, Math.min(this.maxLimit, value));
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.samples.petclinic.concurrency.PoolSizer.Decision;
+import org.springframework.samples.petclinic.concurrency.PoolSizer.Reason;
+import org.springframework.samples.petclinic.concurrency.PoolSizer.Window;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Resizes a Hikari pool every {@code interval} as its {@link PoolSizer} decides. The
+ * window is read from the pool's own meters, {@code hikaricp.connections.acquire} and
+ * {@code hikaricp.connections.usage}, and from the threads waiting on the pool.
+ * <p>
+ * The pool grows at once. It shrinks as the surplus connections are retired, after the
+ * idle timeout or the maximum lifetime, so a smaller size never closes a connection in
+ * use.
+ */
+public class AdaptivePoolSizing {
+
+	private static final Log logger = LogFactory.getLog(AdaptivePoolSizing.class);
+
+	private final HikariDataSource pool;
+
+	private final MeterRegistry registry;
+
+	private final PoolSizer sizer;
+
+	private final Duration interval;
+
+	private final int minimumIdle;
+
+	private long lastNanos = System.nanoTime();
+
+	private long lastAcquireCount;
+
+	private double lastAcquireNanos;
+
+	private long lastUsageCount;
+
+	private double lastUsageNanos;
+
+	private volatile Decision lastDecision;
+
+	private ScheduledExecutorService resizer;
+
+	public AdaptivePoolSizing(HikariDataSource pool, MeterRegistry registry, PoolSizer sizer, Duration interval) {
+		this.pool = pool;
+		this.registry = registry;
+		this.sizer = sizer;
+		this.interval = interval;
+		this.minimumIdle = pool.getMinimumIdle();
+		this.lastDecision = new Decision(pool.getMaximumPoolSize(), Reason.STEADY);
+	}
+
+	@PostConstruct
+	void start() {
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("pool-sizing-");
+		threads.setDaemon(true);
+		this.resizer = Executors.newSingleThreadScheduledExecutor(threads);
+		this.resizer.scheduleWithFixedDelay(this::adjustQuietly, this.interval.toMillis(), this.interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void stop() {
+		this.resizer.shutdownNow();
+	}
+
+	/**
+	 * Measure the interval since the last call and resize the pool accordingly.
+	 * @return the decision taken
+	 */
+	public synchronized Decision adjust() {
+		Timer acquire = timer("hikaricp.connections.acquire");
+		Timer usage = timer("hikaricp.connections.usage");
+		if (acquire == null || usage == null || this.pool.getHikariPoolMXBean() == null) {
+			return this.lastDecision;
+		}
+		long now = System.nanoTime();
+		long elapsed = Math.max(1, now - this.lastNanos);
+		long acquireCount = acquire.count() - this.lastAcquireCount;
+		double acquireNanos = acquire.totalTime(TimeUnit.NANOSECONDS) - this.lastAcquireNanos;
+		long usageCount = usage.count() - this.lastUsageCount;
+		double usageNanos = usage.totalTime(TimeUnit.NANOSECONDS) - this.lastUsageNanos;
+		this.lastNanos = now;
+		this.lastAcquireCount += acquireCount;
+		this.lastAcquireNanos += acquireNanos;
+		this.lastUsageCount += usageCount;
+		this.lastUsageNanos += usageNanos;
+
+		Window window = new Window(acquireCount, mean(acquireNanos, acquireCount), mean(usageNanos, usageCount),
+				usageNanos / elapsed, this.pool.getHikariPoolMXBean().getThreadsAwaitingConnection());
+		HikariConfigMXBean config = this.pool.getHikariConfigMXBean();
+		int size = config.getMaximumPoolSize();
+		Decision decision = this.sizer.next(size, window);
+		if (decision.size() != size) {
+			String reason = decision.reason().name().toLowerCase(Locale.ROOT);
+			config.setMaximumPoolSize(decision.size());
+			config.setMinimumIdle(Math.min(this.minimumIdle, decision.size()));
+			Counter.builder("petclinic.pool.resized")
+				.description("Changes of the connection pool size")
+				.tag("reason", reason)
+				.register(this.registry)
+				.increment();
+			logger.info("Resized " + this.pool.getPoolName() + " from " + size + " to " + decision.size() + " ("
+					+ reason + ")");
+		}
+		this.lastDecision = decision;
+		return decision;
+	}
+
+	/**
+	 * @return the decision taken last
+	 */
+	public Decision lastDecision() {
+		return this.lastDecision;
+	}
+
+	/**
+	 * @return the sizer deciding the size of the pool
+	 */
+	public PoolSizer sizer() {
+		return this.sizer;
+	}
+
+	private Timer timer(String name) {
+		return this.registry.find(name).tag("pool", this.pool.getPoolName()).timer();
+	}
+
+	private static long mean(double totalNanos, long count) {
+		return (count == 0) ? 0 : (long) (totalNanos / count);
+	}
+
+	private void adjustQuietly() {
+		try {
+			adjust();
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Could not resize " + this.pool.getPoolName(), ex);
+		}
+	}
+
+}
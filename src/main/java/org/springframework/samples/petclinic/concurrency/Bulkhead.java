@@ -0,0 +1,128 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps the requests of one traffic class that run at the same time. A request beyond
+ * {@code maxConcurrent} waits up to {@code maxWait} for a slot, as long as no more than
+ * {@code maxQueue} others are already waiting; otherwise it is rejected.
+ * <p>
+ * A waiting request parks the thread serving it, so the wait trades threads for fewer
+ * rejections. Keep {@code maxWait} well below the usual response time, where it only
+ * smooths over bursts, and {@code maxQueue} small against the thread pool. With a zero
+ * {@code maxWait} a full bulkhead rejects at once.
+ */
+public class Bulkhead {
+
+	private final String name;
+
+	private final int maxConcurrent;
+
+	private final int maxQueue;
+
+	private final Duration maxWait;
+
+	private final Semaphore permits;
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final LongAdder rejected = new LongAdder();
+
+	public Bulkhead(String name, int maxConcurrent, int maxQueue, Duration maxWait) {
+		this.name = name;
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueue = maxQueue;
+		this.maxWait = maxWait;
+		this.permits = new Semaphore(maxConcurrent, true);
+	}
+
+	/**
+	 * Take a slot, waiting for one if the bulkhead is full and its queue is not. Every
+	 * slot taken must be given back with {@link #exit()}.
+	 * @return whether a slot was taken
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean tryEnter() throws InterruptedException {
+		if (this.permits.tryAcquire()) {
+			return true;
+		}
+		if (this.maxWait.isZero()) {
+			this.rejected.increment();
+			return false;
+		}
+		if (this.queued.incrementAndGet() > this.maxQueue) {
+			this.queued.decrementAndGet();
+			this.rejected.increment();
+			return false;
+		}
+		try {
+			if (this.permits.tryAcquire(this.maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+				return true;
+			}
+			this.rejected.increment();
+			return false;
+		}
+		finally {
+			this.queued.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Give back a slot taken with {@link #tryEnter()}.
+	 */
+	public void exit() {
+		this.permits.release();
+	}
+
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return the number of requests holding a slot
+	 */
+	public int active() {
+		return this.maxConcurrent - this.permits.availablePermits();
+	}
+
+	/**
+	 * @return the number of requests waiting for a slot
+	 */
+	public int queued() {
+		return this.queued.get();
+	}
+
+	/**
+	 * @return the share of slots taken, from 0 to 1
+	 */
+	public double saturation() {
+		return (double) active() / this.maxConcurrent;
+	}
+
+	/**
+	 * @return the number of requests rejected so far
+	 */
+	public long rejected() {
+		return this.rejected.sum();
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.lang.NonNull;
+import org.springframework.samples.petclinic.concurrency.BulkheadFilter.Route;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Isolates admin pages and the API from the front desk. Each gets a {@link Bulkhead} that
+ * bounds its share of the Tomcat threads and a partition of the connection pool of its
+ * own, configured with {@code petclinic.bulkheads.<name>.patterns},
+ * {@code .max-concurrent}, {@code .max-queue}, {@code .max-wait} and {@code .pool-size}.
+ * The front desk pages keep the remaining threads and the main pool.
+ * <p>
+ * A request waiting for a slot holds on to its Tomcat thread, so by default a quarter of
+ * a bulkhead's slots may wait, for no more than 50 ms. Beyond that it is cheaper to
+ * answer 503 and let the client retry than to park threads the front desk needs.
+ * <p>
+ * Per bulkhead, {@code petclinic.bulkhead.active}, {@code .queued} and
+ * {@code .saturation} are exported as gauges and {@code petclinic.bulkhead.rejected} as a
+ * counter, tagged {@code bulkhead}. The partitions report as the Hikari pools
+ * {@code bulkhead-<name>}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.bulkheads.enabled", matchIfMissing = true)
+class BulkheadConfiguration {
+
+	private static final List<BulkheadDefaults> BULKHEADS = List.of(
+			new BulkheadDefaults("admin", "/verwaltung/**", 20, 3),
+			new BulkheadDefaults("api", "/api/**,/graphql", 40, 4));
+
+	@Bean
+	static PartitioningPostProcessor bulkheadDataSourcePostProcessor(Environment environment,
+			ObjectProvider<MeterRegistry> registry) {
+		return new PartitioningPostProcessor(environment, registry);
+	}
+
+	@Bean
+	FilterRegistrationBean<BulkheadFilter> bulkheadFilter(Environment environment, MeterRegistry registry,
+			@Value("${petclinic.bulkheads.retry-after:PT1S}") Duration retryAfter) {
+		List<Route> routes = new ArrayList<>();
+		for (BulkheadDefaults defaults : BULKHEADS) {
+			String prefix = "petclinic.bulkheads." + defaults.name() + ".";
+			String[] patterns = environment.getProperty(prefix + "patterns", String[].class,
+					defaults.patterns().split(","));
+			int maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class,
+					defaults.maxConcurrent());
+			int maxQueue = environment.getProperty(prefix + "max-queue", Integer.class, maxConcurrent / 4);
+			Duration maxWait = environment.getProperty(prefix + "max-wait", Duration.class, Duration.ofMillis(50));
+			Bulkhead bulkhead = new Bulkhead(defaults.name(), maxConcurrent, maxQueue, maxWait);
+			register(registry, bulkhead);
+			List<PathPattern> parsed = Arrays.stream(patterns)
+				.map(String::strip)
+				.map(PathPatternParser.defaultInstance::parse)
+				.toList();
+			routes.add(new Route(parsed, bulkhead));
+		}
+		FilterRegistrationBean<BulkheadFilter> registration = new FilterRegistrationBean<>(
+				new BulkheadFilter(routes, retryAfter));
+		// after the concurrency limits, so shed requests never queue in a bulkhead
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+		return registration;
+	}
+
+	private static BulkheadDataSource partition(HikariDataSource main, Environment environment,
+			MeterRegistry registry) {
+		Map<String, DataSource> partitions = new LinkedHashMap<>();
+		for (BulkheadDefaults defaults : BULKHEADS) {
+			HikariConfig config = new HikariConfig();
+			main.copyStateTo(config);
+			config.setPoolName("bulkhead-" + defaults.name());
+			config.setMaximumPoolSize(environment.getProperty("petclinic.bulkheads." + defaults.name() + ".pool-size",
+					Integer.class, defaults.poolSize()));
+			config.setMinimumIdle(1);
+			if (registry != null) {
+				config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+			}
+			partitions.put(defaults.name(), new HikariDataSource(config));
+		}
+		return new BulkheadDataSource(main, partitions);
+	}
+
+	private static void register(MeterRegistry registry, Bulkhead bulkhead) {
+		Gauge.builder("petclinic.bulkhead.active", bulkhead, Bulkhead::active)
+			.description("Requests of the bulkhead holding a slot")
+			.tag("bulkhead", bulkhead.getName())
+			.register(registry);
+		Gauge.builder("petclinic.bulkhead.queued", bulkhead, Bulkhead::queued)
+			.description("Requests of the bulkhead waiting for a slot")
+			.tag("bulkhead", bulkhead.getName())
+			.register(registry);
+		Gauge.builder("petclinic.bulkhead.saturation", bulkhead, Bulkhead::saturation)
+			.description("Share of the bulkhead's slots taken")
+			.tag("bulkhead", bulkhead.getName())
+			.register(registry);
+		FunctionCounter.builder("petclinic.bulkhead.rejected", bulkhead, Bulkhead::rejected)
+			.description("Requests of the bulkhead rejected with 503")
+			.tag("bulkhead", bulkhead.getName())
+			.register(registry);
+	}
+
+	/**
+	 * Replaces the Hikari pool with a {@link BulkheadDataSource}. Ordered ahead of the
+	 * other data source post-processors, so that it sees the pool itself before they wrap
+	 * it. The bean method returns this type rather than {@link BeanPostProcessor}, as the
+	 * order is looked up on the declared type before the post-processor exists.
+	 * <p>
+	 * The context only closes the pool it created, not the wrappers around it, so the
+	 * partitions are closed here, once the beans using them are gone.
+	 */
+	static class PartitioningPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+		private final Environment environment;
+
+		private final ObjectProvider<MeterRegistry> registry;
+
+		private final List<BulkheadDataSource> partitioned = new CopyOnWriteArrayList<>();
+
+		PartitioningPostProcessor(Environment environment, ObjectProvider<MeterRegistry> registry) {
+			this.environment = environment;
+			this.registry = registry;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+			if (bean instanceof HikariDataSource main) {
+				BulkheadDataSource dataSource = partition(main, this.environment, this.registry.getIfAvailable());
+				this.partitioned.add(dataSource);
+				return dataSource;
+			}
+			return bean;
+		}
+
+		@Override
+		public int getOrder() {
+			return Ordered.LOWEST_PRECEDENCE - 10;
+		}
+
+		@Override
+		public void destroy() throws IOException {
+			for (BulkheadDataSource dataSource : this.partitioned) {
+				dataSource.close();
+			}
+		}
+
+	}
+
+	private record BulkheadDefaults(String name, String patterns, int maxConcurrent, int poolSize) {
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Hands out connections from the pool partition of the bulkhead the current thread runs
+ * in, so a busy traffic class waits for its own connections and leaves the main pool to
+ * the front desk. Threads outside a bulkhead, including background work, use the main
+ * pool.
+ * <p>
+ * Closing this data source closes the partitions and the main pool.
+ */
+public class BulkheadDataSource extends DelegatingDataSource implements Closeable {
+
+	private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+	private final Map<String, DataSource> partitions;
+
+	public BulkheadDataSource(DataSource main, Map<String, DataSource> partitions) {
+		super(main);
+		this.partitions = Map.copyOf(partitions);
+	}
+
+	/**
+	 * Run the current thread in a bulkhead until {@link #restore} is called.
+	 * @param bulkhead the name of the bulkhead
+	 * @return the bulkhead the thread ran in before, for {@link #restore}
+	 */
+	public static String enter(String bulkhead) {
+		String previous = current.get();
+		current.set(bulkhead);
+		return previous;
+	}
+
+	/**
+	 * Undo {@link #enter}.
+	 * @param previous what {@link #enter} returned
+	 */
+	public static void restore(String previous) {
+		if (previous == null) {
+			current.remove();
+		}
+		else {
+			current.set(previous);
+		}
+	}
+
+	/**
+	 * @return the pool partition of each bulkhead, by bulkhead name
+	 */
+	public Map<String, DataSource> getPartitions() {
+		return this.partitions;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return route().getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return route().getConnection(username, password);
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (DataSource partition : this.partitions.values()) {
+			if (partition instanceof Closeable closeable) {
+				closeable.close();
+			}
+		}
+		if (obtainTargetDataSource() instanceof Closeable closeable) {
+			closeable.close();
+		}
+	}
+
+	private DataSource route() {
+		String bulkhead = current.get();
+		DataSource partition = (bulkhead != null) ? this.partitions.get(bulkhead) : null;
+		return (partition != null) ? partition : obtainTargetDataSource();
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Runs the requests of each traffic class inside its {@link Bulkhead}: a request takes a
+ * slot, or waits for one within the bulkhead's queue limit, and keeps the Tomcat thread
+ * and its {@link BulkheadDataSource} partition until it is done. Requests that find the
+ * bulkhead and its queue full get 503 with a {@code Retry-After} header. Requests of no
+ * bulkhead, the front desk pages among them, run as before on the threads and main pool
+ * the bulkheads leave over.
+ */
+public class BulkheadFilter extends OncePerRequestFilter {
+
+	private final List<Route> routes;
+
+	private final String retryAfter;
+
+	public BulkheadFilter(List<Route> routes, Duration retryAfter) {
+		this.routes = List.copyOf(routes);
+		this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		Bulkhead bulkhead = match(request.getRequestURI().substring(request.getContextPath().length()));
+		if (bulkhead == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		boolean entered;
+		try {
+			entered = bulkhead.tryEnter();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			entered = false;
+		}
+		if (!entered) {
+			ConcurrencyLimitFilter.markRefused(request);
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader(HttpHeaders.RETRY_AFTER, this.retryAfter);
+			return;
+		}
+		String previous = BulkheadDataSource.enter(bulkhead.getName());
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			BulkheadDataSource.restore(previous);
+			bulkhead.exit();
+		}
+	}
+
+	private Bulkhead match(String path) {
+		PathContainer container = PathContainer.parsePath(path);
+		for (Route route : this.routes) {
+			for (PathPattern pattern : route.patterns()) {
+				if (pattern.matches(container)) {
+					return route.bulkhead();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The paths served inside a bulkhead.
+	 *
+	 * @param patterns the paths
+	 * @param bulkhead the bulkhead
+	 */
+	public record Route(List<PathPattern> patterns, Bulkhead bulkhead) {
+	}
+
+}
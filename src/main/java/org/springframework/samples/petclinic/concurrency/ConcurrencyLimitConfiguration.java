@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.samples.petclinic.concurrency.ConcurrencyLimitFilter.Group;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Registers the {@link ConcurrencyLimitFilter} with one group per class of endpoints:
+ * interactive pages, admin pages, the REST API and heavy requests such as sync snapshots,
+ * GraphQL and Flight Recordings. Each group is configured with
+ * {@code petclinic.limits.<group>.patterns}, {@code .initial-limit}, {@code .min-limit}
+ * and {@code .max-limit}.
+ * <p>
+ * Per group, the current limit and the requests in flight are exported as the gauges
+ * {@code petclinic.concurrency.limit} and {@code petclinic.concurrency.in-flight}, and
+ * shed requests as the counter {@code petclinic.concurrency.rejected}.
+ */
+@Configuration(proxyBeanMethods = false)
+class ConcurrencyLimitConfiguration {
+
+	private static final List<GroupDefaults> GROUPS = List.of(new GroupDefaults("interactive", "/owners/**", 20, 200),
+			new GroupDefaults("admin", "/verwaltung/**", 5, 50), new GroupDefaults("api", "/api/**", 20, 200),
+			new GroupDefaults("heavy", "/api/sync/**,/graphql,/actuator/profiling/**", 2, 10));
+
+	@Bean
+	FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(Environment environment,
+			MeterRegistry registry, @Value("${petclinic.limits.enabled:true}") boolean enabled,
+			@Value("${petclinic.limits.retry-after:PT1S}") Duration retryAfter) {
+		List<Group> groups = new ArrayList<>();
+		for (GroupDefaults defaults : GROUPS) {
+			Group group = group(environment, defaults);
+			register(registry, group);
+			groups.add(group);
+		}
+		FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+				new ConcurrencyLimitFilter(groups, retryAfter));
+		registration.setEnabled(enabled);
+		// after the observation filter, so shed requests show up in http.server.requests
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+	private static Group group(Environment environment, GroupDefaults defaults) {
+		String prefix = "petclinic.limits." + defaults.name() + ".";
+		String[] patterns = environment.getProperty(prefix + "patterns", String[].class,
+				defaults.patterns().split(","));
+		int initialLimit = environment.getProperty(prefix + "initial-limit", Integer.class, defaults.initialLimit());
+		int minLimit = environment.getProperty(prefix + "min-limit", Integer.class, 1);
+		int maxLimit = environment.getProperty(prefix + "max-limit", Integer.class, defaults.maxLimit());
+		List<PathPattern> parsed = Arrays.stream(patterns)
+			.map(String::strip)
+			.map(PathPatternParser.defaultInstance::parse)
+			.toList();
+		return new Group(defaults.name(), parsed, new AdaptiveLimit(initialLimit, minLimit, maxLimit));
+	}
+
+	private static void register(MeterRegistry registry, Group group) {
+		AdaptiveLimit limit = group.limit();
+		Gauge.builder("petclinic.concurrency.limit", limit, AdaptiveLimit::limit)
+			.description("Requests of the group admitted at the same time")
+			.tag("group", group.name())
+			.register(registry);
+		Gauge.builder("petclinic.concurrency.in-flight", limit, AdaptiveLimit::inFlight)
+			.description("Admitted requests of the group still running")
+			.tag("group", group.name())
+			.register(registry);
+		FunctionCounter.builder("petclinic.concurrency.rejected", limit, AdaptiveLimit::rejected)
+			.description("Requests of the group shed with 503")
+			.tag("group", group.name())
+			.register(registry);
+	}
+
+	private record GroupDefaults(String name, String patterns, int initialLimit, int maxLimit) {
+	}
+
+}
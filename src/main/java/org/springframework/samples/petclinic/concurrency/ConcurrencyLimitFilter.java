@@ -0,0 +1,164 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.io.IOException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load per group of endpoints before it reaches the controllers. A request belongs
+ * to the group with the most specific matching pattern and is let through only while its
+ * group's {@link AdaptiveLimit} admits it. Anything beyond the limit is answered at once
+ * with 503 and a {@code Retry-After} header, instead of queueing for the connection pool
+ * until it times out. Requests that match no group, such as static resources and the
+ * actuator, are not limited.
+ * <p>
+ * A request counts as failed for the limit if it ends with 503 or 504, or throws because
+ * something timed out: a statement, a lock wait or getting a connection. Other errors are
+ * mostly about the request rather than the load, such as an owner that does not exist, so
+ * they count only through their latency. Requests {@link #markRefused refused} on purpose
+ * further down, by a full bulkhead or the open circuit breaker, are left out: their quick
+ * 503 says nothing about how the server copes, and counting them would only shrink the
+ * limit while the cause is elsewhere.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	/**
+	 * Request attribute that marks a request as refused on purpose.
+	 */
+	public static final String REFUSED_ATTRIBUTE = ConcurrencyLimitFilter.class.getName() + ".refused";
+
+	private final List<Group> groups;
+
+	private final String retryAfter;
+
+	public ConcurrencyLimitFilter(List<Group> groups, Duration retryAfter) {
+		this.groups = List.copyOf(groups);
+		this.retryAfter = Long.toString(Math.max(1, retryAfter.toSeconds()));
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		Group group = match(request.getRequestURI().substring(request.getContextPath().length()));
+		if (group == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		AdaptiveLimit limit = group.limit();
+		if (!limit.tryAcquire()) {
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader(HttpHeaders.RETRY_AFTER, this.retryAfter);
+			return;
+		}
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			filterChain.doFilter(request, response);
+			failed = response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE
+					|| response.getStatus() == HttpServletResponse.SC_GATEWAY_TIMEOUT;
+		}
+		catch (IOException | ServletException | RuntimeException ex) {
+			failed = isTimeout(ex);
+			throw ex;
+		}
+		finally {
+			if (request.getAttribute(REFUSED_ATTRIBUTE) != null) {
+				limit.drop();
+			}
+			else {
+				limit.release(System.nanoTime() - start, failed);
+			}
+		}
+	}
+
+	/**
+	 * Mark a request as refused on purpose, so that its response does not count against
+	 * the concurrency limit.
+	 * @param request the request
+	 */
+	public static void markRefused(ServletRequest request) {
+		request.setAttribute(REFUSED_ATTRIBUTE, Boolean.TRUE);
+	}
+
+	/**
+	 * Whether a request failed because the server or the database could not keep up.
+	 * @param ex the failure
+	 * @return whether a timeout caused it
+	 */
+	static boolean isTimeout(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof QueryTimeoutException || cause instanceof CannotAcquireLockException
+					|| cause instanceof CannotCreateTransactionException || cause instanceof SQLTimeoutException
+					|| cause instanceof TimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the groups requests are limited in
+	 */
+	public List<Group> getGroups() {
+		return this.groups;
+	}
+
+	private Group match(String path) {
+		PathContainer container = PathContainer.parsePath(path);
+		Group best = null;
+		PathPattern bestPattern = null;
+		for (Group group : this.groups) {
+			for (PathPattern pattern : group.patterns()) {
+				if (pattern.matches(container) && (bestPattern == null
+						|| PathPattern.SPECIFICITY_COMPARATOR.compare(pattern, bestPattern) < 0)) {
+					best = group;
+					bestPattern = pattern;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Endpoints that share a concurrency limit.
+	 *
+	 * @param name the name, used as the {@code group} tag of the metrics
+	 * @param patterns the paths of the endpoints
+	 * @param limit the limit of the group
+	 */
+	public record Group(String name, List<PathPattern> patterns, AdaptiveLimit limit) {
+	}
+
+}
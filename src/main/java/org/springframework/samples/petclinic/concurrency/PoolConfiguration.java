@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Connection pool telemetry and, with {@code petclinic.pool.sizing.enabled}, adaptive
+ * sizing of the main pool.
+ * <p>
+ * Every Hikari pool, the main one and the bulkhead partitions, is shown by the
+ * {@link PoolEndpoint}. The sizing keeps the main pool between
+ * {@code petclinic.pool.sizing.min-size} and {@code .max-size}, aiming at connection
+ * waits below {@code .target-wait} and reconsidering every {@code .interval}; its changes
+ * are counted in {@code petclinic.pool.resized}, tagged {@code reason}. The bulkhead
+ * partitions keep their configured sizes, as they are what isolates the traffic classes.
+ */
+@Configuration(proxyBeanMethods = false)
+class PoolConfiguration {
+
+	@Bean
+	PoolEndpoint poolEndpoint(DataSource dataSource, MeterRegistry registry,
+			ObjectProvider<AdaptivePoolSizing> sizing) {
+		return new PoolEndpoint(pools(dataSource), registry, sizing.getIfAvailable());
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "petclinic.pool.sizing.enabled")
+	AdaptivePoolSizing adaptivePoolSizing(DataSource dataSource, MeterRegistry registry,
+			@Value("${petclinic.pool.sizing.min-size:2}") int minSize,
+			@Value("${petclinic.pool.sizing.max-size:30}") int maxSize,
+			@Value("${petclinic.pool.sizing.target-wait:PT0.005S}") Duration targetWait,
+			@Value("${petclinic.pool.sizing.interval:PT5S}") Duration interval) throws SQLException {
+		return new AdaptivePoolSizing(dataSource.unwrap(HikariDataSource.class), registry,
+				new PoolSizer(minSize, maxSize, targetWait.toNanos()), interval);
+	}
+
+	private static Map<String, HikariDataSource> pools(DataSource dataSource) {
+		Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+		try {
+			if (dataSource.isWrapperFor(HikariDataSource.class)) {
+				HikariDataSource main = dataSource.unwrap(HikariDataSource.class);
+				pools.put(main.getPoolName(), main);
+			}
+			if (dataSource.isWrapperFor(BulkheadDataSource.class)) {
+				for (DataSource partition : dataSource.unwrap(BulkheadDataSource.class).getPartitions().values()) {
+					if (partition instanceof HikariDataSource hikari) {
+						pools.put(hikari.getPoolName(), hikari);
+					}
+				}
+			}
+		}
+		catch (SQLException ex) {
+			throw new IllegalStateException("Could not find the connection pools", ex);
+		}
+		return pools;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.samples.petclinic.concurrency.PoolSizer.Decision;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+/**
+ * Actuator endpoint to size the connection pools by measurement rather than by trial and
+ * error.
+ * <p>
+ * {@code GET /actuator/pools} shows, per Hikari pool, the connections active, idle and in
+ * total, the threads waiting for one, the configured bounds, and the time spent waiting
+ * for a connection ({@code acquire}) and holding it ({@code usage}) with the percentiles
+ * configured for {@code hikaricp.connections.acquire} and {@code .usage}. With
+ * {@link AdaptivePoolSizing} on, it also shows its bounds and last decision.
+ */
+@Endpoint(id = "pools")
+public class PoolEndpoint {
+
+	private final Map<String, HikariDataSource> pools;
+
+	private final MeterRegistry registry;
+
+	private final AdaptivePoolSizing sizing;
+
+	public PoolEndpoint(Map<String, HikariDataSource> pools, MeterRegistry registry,
+			@Nullable AdaptivePoolSizing sizing) {
+		this.pools = pools;
+		this.registry = registry;
+		this.sizing = sizing;
+	}
+
+	@ReadOperation
+	public Map<String, Object> pools() {
+		Map<String, Object> report = new LinkedHashMap<>();
+		for (HikariDataSource pool : this.pools.values()) {
+			report.put(pool.getPoolName(), describe(pool));
+		}
+		if (this.sizing != null) {
+			Decision decision = this.sizing.lastDecision();
+			report.put("sizing", Map.of("minSize", this.sizing.sizer().minSize(), "maxSize",
+					this.sizing.sizer().maxSize(), "size", decision.size(), "reason", decision.reason()));
+		}
+		return report;
+	}
+
+	private Map<String, Object> describe(HikariDataSource pool) {
+		Map<String, Object> description = new LinkedHashMap<>();
+		HikariPoolMXBean state = pool.getHikariPoolMXBean();
+		if (state != null) {
+			description.put("active", state.getActiveConnections());
+			description.put("idle", state.getIdleConnections());
+			description.put("total", state.getTotalConnections());
+			description.put("pending", state.getThreadsAwaitingConnection());
+		}
+		description.put("maximumPoolSize", pool.getHikariConfigMXBean().getMaximumPoolSize());
+		description.put("minimumIdle", pool.getHikariConfigMXBean().getMinimumIdle());
+		description.put("acquire", timing(pool, "hikaricp.connections.acquire"));
+		description.put("usage", timing(pool, "hikaricp.connections.usage"));
+		return description;
+	}
+
+	private Map<String, Object> timing(HikariDataSource pool, String name) {
+		Timer timer = this.registry.find(name).tag("pool", pool.getPoolName()).timer();
+		Map<String, Object> timing = new LinkedHashMap<>();
+		if (timer == null) {
+			return timing;
+		}
+		timing.put("count", timer.count());
+		timing.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+		timing.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+		for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+			timing.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+		}
+		return timing;
+	}
+
+}
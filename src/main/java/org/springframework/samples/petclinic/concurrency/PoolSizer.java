@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.concurrency;
+
+/**
+ * Decides the size of a connection pool from what the last interval looked like, one step
+ * at a time:
+ * <ul>
+ * <li>When connections are held much longer than usual, at least twice the long-run
+ * average, the database is taken to be saturated and the pool shrinks by a quarter, as
+ * more connections would only queue more work inside the database.</li>
+ * <li>Otherwise, when threads waited for a connection longer than the target or are
+ * waiting right now, the pool grows by a quarter.</li>
+ * <li>Otherwise, when fewer than half of the connections were busy on average, the pool
+ * shrinks by one.</li>
+ * </ul>
+ * The size stays between the given minimum and maximum. Methods are synchronized; each
+ * call does a few arithmetic operations.
+ */
+public class PoolSizer {
+
+	private static final double TOLERANCE = 2.0;
+
+	private static final int BASELINE_WINDOW = 20;
+
+	private static final double STEP = 0.25;
+
+	private final int minSize;
+
+	private final int maxSize;
+
+	private final long targetWaitNanos;
+
+	private double baselineUsageNanos;
+
+	public PoolSizer(int minSize, int maxSize, long targetWaitNanos) {
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.targetWaitNanos = targetWaitNanos;
+	}
+
+	/**
+	 * Decide the size of the pool for the next interval.
+	 * @param size the current maximum size of the pool
+	 * @param window what happened in the last interval
+	 * @return the decision
+	 */
+	public synchronized Decision next(int size, Window window) {
+		if (window.checkouts() > 0) {
+			double usage = window.usageNanos();
+			if (this.baselineUsageNanos == 0) {
+				this.baselineUsageNanos = usage;
+			}
+			boolean saturated = usage > TOLERANCE * this.baselineUsageNanos;
+			this.baselineUsageNanos += (usage - this.baselineUsageNanos) / BASELINE_WINDOW;
+			if (saturated) {
+				return decide(size - step(size), Reason.SATURATED);
+			}
+		}
+		if (window.pending() > 0 || window.acquireNanos() > this.targetWaitNanos) {
+			return decide(size + step(size), Reason.WAITING);
+		}
+		if (window.busy() < size / 2.0) {
+			return decide(size - 1, Reason.IDLE);
+		}
+		return decide(size, Reason.STEADY);
+	}
+
+	/**
+	 * @return the smallest size the pool is given
+	 */
+	public int minSize() {
+		return this.minSize;
+	}
+
+	/**
+	 * @return the largest size the pool is given
+	 */
+	public int maxSize() {
+		return this.maxSize;
+	}
+
+	private Decision decide(int size, Reason reason) {
+		return new Decision(Math.max(this.minSize, Math.min(this.maxSize, size)), reason);
+	}
+
+	private static int step(int size) {
+		return Math.max(1, (int) (size * STEP));
+	}
+
+	/**
+	 * What a pool went through during an interval.
+	 *
+	 * @param checkouts the connections handed out
+	 * @param acquireNanos the mean time a thread waited for a connection
+	 * @param usageNanos the mean time a connection was held
+	 * @param busy the connections in use on average
+	 * @param pending the threads waiting for a connection at the end of the interval
+	 */
+	public record Window(long checkouts, long acquireNanos, long usageNanos, double busy, int pending) {
+	}
+
+	/**
+	 * The size for the next interval and why.
+	 *
+	 * @param size the maximum size of the pool
+	 * @param reason why the pool got this size
+	 */
+	public record Decision(int size, Reason reason) {
+	}
+
+	/**
+	 * Why a pool got its size.
+	 */
+	public enum Reason {
+
+		/** Threads had to wait for connections. */
+		WAITING,
+
+		/** Connections were held much longer than usual. */
+		SATURATED,
+
+		/** Most connections went unused. */
+		IDLE,
+
+		/** Nothing called for a change. */
+		STEADY
+
+	}
+
+}
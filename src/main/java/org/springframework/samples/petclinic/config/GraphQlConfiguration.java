@@ -0,0 +1,63 @@
+package org.springframework.samples.petclinic.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
+
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.schema.DataFetchingEnvironment;
+
+/**
+ * Limits for the GraphQL endpoint. Both limits are checked on the parsed query, so an
+ * expensive query is rejected before any data is fetched. Per-field timings are recorded
+ * by Spring Boot's observation support as {@code graphql.datafetcher} and
+ * {@code graphql.dataloader} metrics.
+ */
+@Configuration(proxyBeanMethods = false)
+class GraphQlConfiguration {
+
+	@Bean
+	MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(@Value("${petclinic.graphql.max-depth:6}") int maxDepth) {
+		return new MaxQueryDepthInstrumentation(maxDepth);
+	}
+
+	/**
+	 * Limit the query complexity. Every field costs one, and the fields below a paged
+	 * list count once per requested element, so {@code owners(size: 100) { pets { visits
+	 * } }} costs about 300.
+	 */
+	@Bean
+	MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+			@Value("${petclinic.graphql.max-complexity:1000}") int maxComplexity) {
+		FieldComplexityCalculator calculator = (environment, childComplexity) -> {
+			Object size = environment.getArguments().get("size");
+			return size instanceof Integer elements ? Math.max(elements, 1) * (1 + childComplexity)
+					: 1 + childComplexity;
+		};
+		return new MaxQueryComplexityInstrumentation(maxComplexity, calculator);
+	}
+
+	@Bean
+	DataFetcherExceptionResolver badArgumentsExceptionResolver() {
+		return new DataFetcherExceptionResolverAdapter() {
+			@Override
+			protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+				if (ex instanceof IllegalArgumentException) {
+					return GraphqlErrorBuilder.newError(env)
+						.errorType(ErrorType.BAD_REQUEST)
+						.message(ex.getMessage())
+						.build();
+				}
+				return null;
+			}
+		};
+	}
+
+}
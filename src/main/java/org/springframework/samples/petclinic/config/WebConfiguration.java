@@ -8,6 +8,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.i18n.LocaleChangeInterceptor;
 import org.springframework.web.servlet.i18n.SessionLocaleResolver;
 import org.springframework.lang.NonNull;
+import org.springframework.samples.petclinic.profiling.TemplateRenderInterceptor;
 
 import java.util.Locale;
 
@@ -49,12 +50,14 @@ public class WebConfiguration implements WebMvcConfigurer {
 	}
 
 	/**
-	 * Registers the locale change interceptor so it can run on each request.
+	 * Registers the locale change interceptor so it can run on each request, and the
+	 * interceptor that records template renders as Flight Recorder events.
 	 * @param registry where interceptors are added
 	 */
 	@Override
 	public void addInterceptors(@NonNull InterceptorRegistry registry) {
 		registry.addInterceptor(localeChangeInterceptor());
+		registry.addInterceptor(new TemplateRenderInterceptor());
 	}
 
 }
@@ -15,12 +15,21 @@
  */
 package org.springframework.samples.petclinic.controller;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -32,11 +41,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.server.ResponseStatusException;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.resilience.TransientRetry;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.IdempotencyService;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
+import org.springframework.samples.petclinic.service.VisitWriteBehindService;
 
 /**
  * @author Juergen Hoeller
@@ -52,8 +75,35 @@ class OwnerController {
 
 	private final OwnerRepository owners;
 
-	public OwnerController(OwnerRepository owners) {
+	private final VisitRepository visits;
+
+	private final OwnerSummaryService summaries;
+
+	private final ChangeFeedService changes;
+
+	private final VisitWriteBehindService writeBehind;
+
+	private final IdempotencyService idempotency;
+
+	private final ReadCoalescingService reads;
+
+	private final TransientRetry retry;
+
+	private final int recentVisitsPerPet;
+
+	public OwnerController(OwnerRepository owners, VisitRepository visits, OwnerSummaryService summaries,
+			ChangeFeedService changes, VisitWriteBehindService writeBehind, IdempotencyService idempotency,
+			ReadCoalescingService reads, TransientRetry retry,
+			@Value("${petclinic.visits.recent-per-pet:3}") int recentVisitsPerPet) {
 		this.owners = owners;
+		this.visits = visits;
+		this.summaries = summaries;
+		this.changes = changes;
+		this.writeBehind = writeBehind;
+		this.idempotency = idempotency;
+		this.reads = reads;
+		this.retry = retry;
+		this.recentVisitsPerPet = recentVisitsPerPet;
 	}
 
 	@InitBinder
@@ -63,27 +113,52 @@ class OwnerController {
 
 	@ModelAttribute("owner")
 	public Owner findOwner(@PathVariable(name = "ownerId", required = false) Integer ownerId) {
-		return ownerId == null ? new Owner()
-				: this.owners.findById(ownerId)
-					.orElseThrow(() -> new IllegalArgumentException("Owner not found with id: " + ownerId
-							+ ". Please ensure the ID is correct " + "and the owner exists in the database."));
+		return ownerId == null ? new Owner() : this.owners.findById(ownerId)
+			.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Owner not found with id: " + ownerId
+					+ ". Please ensure the ID is correct " + "and the owner exists in the database."));
 	}
 
 	@GetMapping("/owners/new")
-	public String initCreationForm() {
+	public String initCreationForm(Model model) {
+		// a resubmitted form carries the same key, so it does not create a second owner
+		model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
 		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 	}
 
 	@PostMapping("/owners/new")
-	public String processCreationForm(@Valid Owner owner, BindingResult result, RedirectAttributes redirectAttributes) {
+	public String processCreationForm(@Valid Owner owner, BindingResult result,
+			@RequestParam(required = false) String idempotencyKey, Model model, RedirectAttributes redirectAttributes) {
+		Optional<String> replay = this.idempotency.begin("owners/new", idempotencyKey);
+		if (replay.isPresent()) {
+			redirectAttributes.addFlashAttribute("message", "New Owner Created");
+			return replay.get();
+		}
 		if (result.hasErrors()) {
+			this.idempotency.release("owners/new", idempotencyKey);
+			model.addAttribute("idempotencyKey", idempotencyKey);
 			redirectAttributes.addFlashAttribute("error", "There was an error in creating the owner.");
 			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 		}
 
-		this.owners.save(owner);
+		try {
+			this.retry.run("owners/new", () -> {
+				// a rolled back attempt may have left the generated id and version behind
+				owner.setId(null);
+				owner.setVersion(null);
+				this.owners.save(owner);
+				this.summaries.refresh(owner.getId());
+				this.reads.ownerChanged(owner.getId());
+				this.changes.record(Subject.OWNER, owner.getId(), Action.CREATED, owner.getId());
+			});
+		}
+		catch (RuntimeException ex) {
+			this.idempotency.release("owners/new", idempotencyKey);
+			throw ex;
+		}
+		String redirect = "redirect:/owners/" + owner.getId();
+		this.idempotency.complete("owners/new", idempotencyKey, redirect);
 		redirectAttributes.addFlashAttribute("message", "New Owner Created");
-		return "redirect:/owners/" + owner.getId();
+		return redirect;
 	}
 
 	@GetMapping("/owners/find")
@@ -93,14 +168,23 @@ class OwnerController {
 
 	@GetMapping("/owners")
 	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+			Model model, Locale locale) {
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
 			owner.setLastName(""); // empty string signifies broadest possible search
 		}
 
 		// find owners by last name
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
+		Page<OwnerSummary> ownersResults = findPaginatedForOwnersLastName(page, owner.getLastName());
+		if (ownersResults.isEmpty() && !owner.getLastName().isBlank()) {
+			// likely a misspelling: offer owners whose name sounds the same, and always
+			// as a list so the user confirms the match
+			Page<OwnerSummary> similar = summaries.findSimilar(owner.getLastName(), locale, pageRequest(page));
+			if (!similar.isEmpty()) {
+				model.addAttribute("similar", true);
+				return addPaginationModel(page, model, similar);
+			}
+		}
 		if (ownersResults.isEmpty()) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
@@ -109,16 +193,15 @@ class OwnerController {
 
 		if (ownersResults.getTotalElements() == 1) {
 			// 1 owner found
-			owner = ownersResults.iterator().next();
-			return "redirect:/owners/" + owner.getId();
+			return "redirect:/owners/" + ownersResults.iterator().next().getId();
 		}
 
 		// multiple owners found
 		return addPaginationModel(page, model, ownersResults);
 	}
 
-	private String addPaginationModel(int page, Model model, Page<Owner> paginated) {
-		List<Owner> listOwners = paginated.getContent();
+	private String addPaginationModel(int page, Model model, Page<OwnerSummary> paginated) {
+		List<OwnerSummary> listOwners = paginated.getContent();
 		model.addAttribute("currentPage", page);
 		model.addAttribute("totalPages", paginated.getTotalPages());
 		model.addAttribute("totalItems", paginated.getTotalElements());
@@ -126,10 +209,13 @@ class OwnerController {
 		return "owners/ownersList";
 	}
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
+	private Page<OwnerSummary> findPaginatedForOwnersLastName(int page, String lastname) {
+		return summaries.findByLastName(lastname, pageRequest(page));
+	}
+
+	private static Pageable pageRequest(int page) {
 		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastNameStartingWith(lastname, pageable);
+		return PageRequest.of(page - 1, pageSize, Sort.by("id"));
 	}
 
 	@GetMapping("/owners/{ownerId}/edit")
@@ -139,7 +225,7 @@ class OwnerController {
 
 	@PostMapping("/owners/{ownerId}/edit")
 	public String processUpdateOwnerForm(@Valid Owner owner, BindingResult result, @PathVariable("ownerId") int ownerId,
-			RedirectAttributes redirectAttributes) {
+			RedirectAttributes redirectAttributes, HttpServletResponse response) {
 		if (result.hasErrors()) {
 			redirectAttributes.addFlashAttribute("error", "There was an error in updating the owner.");
 			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
@@ -152,7 +238,22 @@ class OwnerController {
 		}
 
 		owner.setId(ownerId);
-		this.owners.save(owner);
+		try {
+			this.retry.run("owners/edit", () -> {
+				this.owners.save(owner);
+				this.summaries.refresh(ownerId);
+				this.reads.ownerChanged(ownerId);
+				this.changes.record(Subject.OWNER, ownerId, Action.UPDATED, ownerId);
+			});
+		}
+		catch (OptimisticLockingFailureException ex) {
+			// someone else saved in between: keep the submitted values, but hand out the
+			// current version so that saving again is a deliberate overwrite
+			this.owners.findById(ownerId).ifPresent(current -> owner.setVersion(current.getVersion()));
+			result.reject("concurrentModification");
+			response.setStatus(HttpServletResponse.SC_CONFLICT);
+			return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+		}
 		redirectAttributes.addFlashAttribute("message", "Owner Values Updated");
 		return "redirect:/owners/{ownerId}";
 	}
@@ -165,10 +266,25 @@ class OwnerController {
 	@GetMapping("/owners/{ownerId}")
 	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
-		Optional<Owner> optionalOwner = this.owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
+		this.writeBehind.awaitOwner(ownerId);
+		// read-only, so concurrent requests for the same owner share one load
+		Optional<Owner> optionalOwner = this.reads.owner(ownerId);
+		Owner owner = optionalOwner.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
 				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
 		mav.addObject(owner);
+		// only the latest few visits per pet, all pets in one query; the full history is
+		// paged separately
+		Map<Integer, List<Visit>> recentVisits = new HashMap<>();
+		for (Pet pet : owner.getPets()) {
+			recentVisits.put(pet.getId(), new ArrayList<>());
+		}
+		if (!recentVisits.isEmpty()) {
+			for (Visit visit : this.visits.findRecentByPetIds(recentVisits.keySet(), this.recentVisitsPerPet)) {
+				recentVisits.get(visit.getPetId()).add(visit);
+			}
+		}
+		mav.addObject("recentVisits", recentVisits);
+		this.summaries.find(ownerId).ifPresent(summary -> mav.addObject("summary", summary));
 		return mav;
 	}
 
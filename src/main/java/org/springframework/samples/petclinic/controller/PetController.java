@@ -18,7 +18,10 @@ package org.springframework.samples.petclinic.controller;
 import java.time.LocalDate;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.UUID;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.StringUtils;
@@ -30,14 +33,24 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.resilience.TransientRetry;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.IdempotencyService;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
 import org.springframework.samples.petclinic.validation.PetValidator;
 
 /**
@@ -56,9 +69,26 @@ class PetController {
 
 	private final PetTypeRepository types;
 
-	public PetController(OwnerRepository owners, PetTypeRepository types) {
+	private final OwnerSummaryService summaries;
+
+	private final ChangeFeedService changes;
+
+	private final IdempotencyService idempotency;
+
+	private final TransientRetry retry;
+
+	private final ReadCoalescingService reads;
+
+	public PetController(OwnerRepository owners, PetTypeRepository types, OwnerSummaryService summaries,
+			ChangeFeedService changes, IdempotencyService idempotency, TransientRetry retry,
+			ReadCoalescingService reads) {
 		this.owners = owners;
 		this.types = types;
+		this.summaries = summaries;
+		this.changes = changes;
+		this.idempotency = idempotency;
+		this.retry = retry;
+		this.reads = reads;
 	}
 
 	@ModelAttribute("types")
@@ -69,7 +99,7 @@ class PetController {
 	@ModelAttribute("owner")
 	public Owner findOwner(@PathVariable("ownerId") int ownerId) {
 		Optional<Owner> optionalOwner = this.owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
+		Owner owner = optionalOwner.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
 				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
 		return owner;
 	}
@@ -83,7 +113,7 @@ class PetController {
 		}
 
 		Optional<Owner> optionalOwner = this.owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
+		Owner owner = optionalOwner.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
 				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
 		return owner.getPet(petId);
 	}
@@ -102,12 +132,20 @@ class PetController {
 	public String initCreationForm(Owner owner, ModelMap model) {
 		Pet pet = new Pet();
 		owner.addPet(pet);
+		model.put("idempotencyKey", UUID.randomUUID().toString());
 		return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 	}
 
 	@PostMapping("/pets/new")
 	public String processCreationForm(Owner owner, @Valid Pet pet, BindingResult result,
+			@RequestParam(required = false) String idempotencyKey, ModelMap model,
 			RedirectAttributes redirectAttributes) {
+		String scope = "owners/" + owner.getId() + "/pets/new";
+		Optional<String> replay = this.idempotency.begin(scope, idempotencyKey);
+		if (replay.isPresent()) {
+			redirectAttributes.addFlashAttribute("message", "New Pet has been Added");
+			return replay.get();
+		}
 
 		if (StringUtils.hasText(pet.getName()) && pet.isNew() && owner.getPet(pet.getName(), true) != null)
 			result.rejectValue("name", "duplicate", "already exists");
@@ -118,11 +156,25 @@ class PetController {
 		}
 
 		if (result.hasErrors()) {
+			this.idempotency.release(scope, idempotencyKey);
+			model.put("idempotencyKey", idempotencyKey);
 			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 		}
 
-		owner.addPet(pet);
-		this.owners.save(owner);
+		try {
+			owner.addPet(pet);
+			this.retry.run("pets/new", () -> {
+				Owner saved = this.owners.save(owner);
+				this.summaries.refresh(owner.getId());
+				this.reads.ownerChanged(owner.getId());
+				this.changes.record(Subject.PET, saved.getPet(pet.getName()).getId(), Action.CREATED, owner.getId());
+			});
+		}
+		catch (RuntimeException ex) {
+			this.idempotency.release(scope, idempotencyKey);
+			throw ex;
+		}
+		this.idempotency.complete(scope, idempotencyKey, "redirect:/owners/{ownerId}");
 		redirectAttributes.addFlashAttribute("message", "New Pet has been Added");
 		return "redirect:/owners/{ownerId}";
 	}
@@ -134,7 +186,7 @@ class PetController {
 
 	@PostMapping("/pets/{petId}/edit")
 	public String processUpdateForm(Owner owner, @Valid Pet pet, BindingResult result,
-			RedirectAttributes redirectAttributes) {
+			RedirectAttributes redirectAttributes, HttpServletResponse response) {
 
 		String petName = pet.getName();
 
@@ -155,28 +207,49 @@ class PetController {
 			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
 		}
 
-		updatePetDetails(owner, pet);
+		try {
+			updatePetDetails(owner, pet);
+		}
+		catch (OptimisticLockingFailureException ex) {
+			this.owners.findById(owner.getId())
+				.map(current -> current.getPet(pet.getId()))
+				.ifPresent(current -> pet.setVersion(current.getVersion()));
+			result.reject("concurrentModification");
+			response.setStatus(HttpServletResponse.SC_CONFLICT);
+			return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+		}
 		redirectAttributes.addFlashAttribute("message", "Pet details has been edited");
 		return "redirect:/owners/{ownerId}";
 	}
 
 	/**
-	 * Updates the pet details if it exists or adds a new pet to the owner.
+	 * Updates the pet details if it exists or adds a new pet to the owner. The submitted
+	 * version is carried over so that a stale form fails with an
+	 * {@link OptimisticLockingFailureException} instead of overwriting newer data.
 	 * @param owner The owner of the pet
 	 * @param pet The pet with updated details
 	 */
 	private void updatePetDetails(Owner owner, Pet pet) {
 		Pet existingPet = owner.getPet(pet.getId());
+		Action action = existingPet != null ? Action.UPDATED : Action.CREATED;
 		if (existingPet != null) {
 			// Update existing pet's properties
 			existingPet.setName(pet.getName());
 			existingPet.setBirthDate(pet.getBirthDate());
 			existingPet.setType(pet.getType());
+			if (pet.getVersion() != null) {
+				existingPet.setVersion(pet.getVersion());
+			}
 		}
 		else {
 			owner.addPet(pet);
 		}
-		this.owners.save(owner);
+		this.retry.run("pets/edit", () -> {
+			Owner saved = this.owners.save(owner);
+			this.summaries.refresh(owner.getId());
+			this.reads.ownerChanged(owner.getId());
+			this.changes.record(Subject.PET, saved.getPet(pet.getName()).getId(), action, owner.getId());
+		});
 	}
 
 }
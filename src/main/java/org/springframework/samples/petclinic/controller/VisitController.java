@@ -15,10 +15,18 @@
  */
 package org.springframework.samples.petclinic.controller;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,13 +34,25 @@ import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
 import jakarta.validation.Valid;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.resilience.TransientRetry;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.IdempotencyService;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
+import org.springframework.samples.petclinic.service.VisitSearchService;
+import org.springframework.samples.petclinic.service.VisitWriteBehindService;
 
 /**
  * @author Juergen Hoeller
@@ -45,10 +65,42 @@ import org.springframework.samples.petclinic.repository.OwnerRepository;
 @Controller
 class VisitController {
 
+	private static final int HISTORY_PAGE_SIZE = 10;
+
 	private final OwnerRepository owners;
 
-	public VisitController(OwnerRepository owners) {
+	private final VisitRepository visits;
+
+	private final OwnerSummaryService summaries;
+
+	private final VisitSearchService visitSearch;
+
+	private final ChangeFeedService changes;
+
+	private final VisitWriteBehindService writeBehind;
+
+	private final IdempotencyService idempotency;
+
+	private final TransientRetry retry;
+
+	private final ReadCoalescingService reads;
+
+	private final int recentVisitsPerPet;
+
+	public VisitController(OwnerRepository owners, VisitRepository visits, OwnerSummaryService summaries,
+			VisitSearchService visitSearch, ChangeFeedService changes, VisitWriteBehindService writeBehind,
+			IdempotencyService idempotency, TransientRetry retry, ReadCoalescingService reads,
+			@Value("${petclinic.visits.recent-per-pet:3}") int recentVisitsPerPet) {
 		this.owners = owners;
+		this.visits = visits;
+		this.summaries = summaries;
+		this.visitSearch = visitSearch;
+		this.changes = changes;
+		this.writeBehind = writeBehind;
+		this.idempotency = idempotency;
+		this.retry = retry;
+		this.reads = reads;
+		this.recentVisitsPerPet = recentVisitsPerPet;
 	}
 
 	@InitBinder
@@ -66,23 +118,32 @@ class VisitController {
 	@ModelAttribute("visit")
 	public Visit loadPetWithVisit(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
 			Map<String, Object> model) {
+		this.writeBehind.awaitOwner(ownerId);
 		Optional<Owner> optionalOwner = owners.findById(ownerId);
-		Owner owner = optionalOwner.orElseThrow(() -> new IllegalArgumentException(
+		Owner owner = optionalOwner.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
 				"Owner not found with id: " + ownerId + ". Please ensure the ID is correct "));
 
 		Pet pet = owner.getPet(petId);
+		if (pet == null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+					"Pet " + petId + " does not belong to owner " + ownerId);
+		}
 		model.put("pet", pet);
 		model.put("owner", owner);
 
+		// the pet's visits are lazy and this pet is detached, so only link the new
+		// visit by id
 		Visit visit = new Visit();
-		pet.addVisit(visit);
+		visit.setPetId(pet.getId());
 		return visit;
 	}
 
 	// Spring MVC calls method loadPetWithVisit(...) before initNewVisitForm is
 	// called
 	@GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
-	public String initNewVisitForm() {
+	public String initNewVisitForm(@PathVariable int petId, Model model) {
+		addPreviousVisits(petId, model);
+		model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
 		return "pets/createOrUpdateVisitForm";
 	}
 
@@ -90,15 +151,68 @@ class VisitController {
 	// called
 	@PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
 	public String processNewVisitForm(@ModelAttribute Owner owner, @PathVariable int petId, @Valid Visit visit,
-			BindingResult result, RedirectAttributes redirectAttributes) {
+			BindingResult result, @RequestParam(required = false) String idempotencyKey, Model model,
+			RedirectAttributes redirectAttributes) {
+		String scope = "owners/" + owner.getId() + "/pets/" + petId + "/visits/new";
+		Optional<String> replay = this.idempotency.begin(scope, idempotencyKey);
+		if (replay.isPresent()) {
+			redirectAttributes.addFlashAttribute("message", "Your visit has been booked");
+			return replay.get();
+		}
 		if (result.hasErrors()) {
+			this.idempotency.release(scope, idempotencyKey);
+			addPreviousVisits(petId, model);
+			model.addAttribute("idempotencyKey", idempotencyKey);
 			return "pets/createOrUpdateVisitForm";
 		}
 
-		owner.addVisit(petId, visit);
-		this.owners.save(owner);
+		visit.setPetId(petId);
+		try {
+			if (this.writeBehind.isEnabled()) {
+				this.writeBehind.submit(owner.getId(), visit);
+			}
+			else {
+				this.retry.run("visits/new", () -> {
+					// a rolled back attempt may have left the generated id behind
+					visit.setId(null);
+					this.visits.save(visit);
+					this.summaries.refresh(owner.getId());
+					this.reads.ownerChanged(owner.getId());
+					this.changes.record(Subject.VISIT, visit.getId(), Action.CREATED, owner.getId());
+				});
+				this.visitSearch.index(visit);
+			}
+		}
+		catch (RuntimeException ex) {
+			this.idempotency.release(scope, idempotencyKey);
+			throw ex;
+		}
+		this.idempotency.complete(scope, idempotencyKey, "redirect:/owners/{ownerId}");
 		redirectAttributes.addFlashAttribute("message", "Your visit has been booked");
 		return "redirect:/owners/{ownerId}";
 	}
 
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	public String showVisitHistory(@PathVariable int petId, @RequestParam(defaultValue = "1") int page, Model model) {
+		int current = Math.max(page, 1);
+		Page<Visit> history = this.visits.findByPetIdOrderByDateDescIdDesc(petId,
+				PageRequest.of(current - 1, HISTORY_PAGE_SIZE));
+		if (current > Math.max(history.getTotalPages(), 1)) {
+			// past the end, show the last page instead
+			current = Math.max(history.getTotalPages(), 1);
+			history = this.visits.findByPetIdOrderByDateDescIdDesc(petId,
+					PageRequest.of(current - 1, HISTORY_PAGE_SIZE));
+		}
+		model.addAttribute("currentPage", current);
+		model.addAttribute("totalPages", history.getTotalPages());
+		model.addAttribute("totalItems", history.getTotalElements());
+		model.addAttribute("visitHistory", history.getContent());
+		return "pets/visitHistory";
+	}
+
+	private void addPreviousVisits(int petId, Model model) {
+		List<Visit> previous = this.visits.findByPetIdOrderByDateDescIdDesc(petId, Limit.of(this.recentVisitsPerPet));
+		model.addAttribute("previousVisits", previous);
+	}
+
 }
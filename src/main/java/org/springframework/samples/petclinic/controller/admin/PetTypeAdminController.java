@@ -7,8 +7,11 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
 
 import java.util.Optional;
 
@@ -18,9 +21,12 @@ public class PetTypeAdminController {
 
 	private final PetTypeRepository petTypeRepository;
 
+	private final ChangeFeedService changes;
+
 	@Autowired
-	public PetTypeAdminController(PetTypeRepository petTypeRepository) {
+	public PetTypeAdminController(PetTypeRepository petTypeRepository, ChangeFeedService changes) {
 		this.petTypeRepository = petTypeRepository;
+		this.changes = changes;
 	}
 
 	@GetMapping
@@ -43,6 +49,7 @@ public class PetTypeAdminController {
 			return "verwaltung/pettypes/form";
 		}
 		petTypeRepository.save(petType);
+		changes.record(Subject.PET_TYPE, petType.getId(), Action.CREATED, null);
 		redirectAttributes.addFlashAttribute("success", "pettype.saved");
 		return "redirect:/verwaltung/pettypes";
 	}
@@ -66,6 +73,7 @@ public class PetTypeAdminController {
 		}
 		petType.setId(id);
 		petTypeRepository.save(petType);
+		changes.record(Subject.PET_TYPE, id, Action.UPDATED, null);
 		redirectAttributes.addFlashAttribute("success", "pettype.saved");
 		return "redirect:/verwaltung/pettypes";
 	}
@@ -75,6 +83,7 @@ public class PetTypeAdminController {
 		Optional<PetType> petType = petTypeRepository.findById(id);
 		if (petType.isPresent()) {
 			petTypeRepository.delete(petType.get());
+			changes.record(Subject.PET_TYPE, id, Action.DELETED, null);
 			redirectAttributes.addFlashAttribute("success", "pettype.deleted");
 		}
 		else {
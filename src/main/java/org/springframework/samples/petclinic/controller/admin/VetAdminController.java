@@ -1,17 +1,23 @@
 package org.springframework.samples.petclinic.controller.admin;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
 
 @Controller
 @RequestMapping("/verwaltung/vets")
@@ -19,14 +25,20 @@ public class VetAdminController {
 
 	private final VetRepository vetRepository;
 
+	private final ChangeFeedService changes;
+
+	private final ReadCoalescingService reads;
+
 	@Autowired
-	public VetAdminController(VetRepository vetRepository) {
+	public VetAdminController(VetRepository vetRepository, ChangeFeedService changes, ReadCoalescingService reads) {
 		this.vetRepository = vetRepository;
+		this.changes = changes;
+		this.reads = reads;
 	}
 
 	@GetMapping
 	public String list(Model model) {
-		model.addAttribute("vets", vetRepository.findAll());
+		model.addAttribute("vets", reads.vets());
 		return "verwaltung/vets/list";
 	}
 
@@ -47,6 +59,7 @@ public class VetAdminController {
 		}
 		Vet vet = vetForm.toVet();
 		vetRepository.save(vet);
+		changes.record(Subject.VET, vet.getId(), Action.CREATED, null);
 		redirectAttributes.addFlashAttribute("success", "vet.saved");
 		return "redirect:/verwaltung/vets";
 	}
@@ -64,15 +77,32 @@ public class VetAdminController {
 
 	@PostMapping("/{id}/edit")
 	public String edit(@PathVariable Integer id, @Valid @ModelAttribute("vetForm") VetForm vetForm,
-			BindingResult result, RedirectAttributes redirectAttributes, Model model) {
+			BindingResult result, RedirectAttributes redirectAttributes, Model model, HttpServletResponse response) {
 		if (result.hasErrors()) {
 			model.addAttribute("vetForm", vetForm);
 			model.addAttribute("formAction", "/verwaltung/vets/" + id + "/edit");
 			return "verwaltung/vets/form";
 		}
-		Vet vet = vetForm.toVet();
-		vet.setId(id);
-		vetRepository.save(vet);
+		Vet vet = vetRepository.findById(id);
+		if (vet == null) {
+			redirectAttributes.addFlashAttribute("error", "vet.notfound");
+			return "redirect:/verwaltung/vets";
+		}
+		// apply the edited fields onto the loaded vet so specialties stay untouched and
+		// only changed columns are written
+		vetForm.applyTo(vet);
+		try {
+			vetRepository.save(vet);
+			changes.record(Subject.VET, id, Action.UPDATED, null);
+		}
+		catch (OptimisticLockingFailureException ex) {
+			Vet current = vetRepository.findById(id);
+			vetForm.setVersion(current != null ? current.getVersion() : null);
+			result.reject("concurrentModification");
+			response.setStatus(HttpServletResponse.SC_CONFLICT);
+			model.addAttribute("formAction", "/verwaltung/vets/" + id + "/edit");
+			return "verwaltung/vets/form";
+		}
 		redirectAttributes.addFlashAttribute("success", "vet.saved");
 		return "redirect:/verwaltung/vets";
 	}
@@ -82,6 +112,7 @@ public class VetAdminController {
 		Vet vet = vetRepository.findById(id);
 		if (vet != null) {
 			vetRepository.delete(vet);
+			changes.record(Subject.VET, id, Action.DELETED, null);
 			redirectAttributes.addFlashAttribute("success", "vet.deleted");
 		}
 		else {
@@ -105,6 +136,8 @@ public class VetAdminController {
 		@Pattern(regexp = "^\\d*$", message = "vet.telephone.digits")
 		private String telephone;
 
+		private Integer version;
+
 		// Getter/Setter ...
 		public String getFirstName() {
 			return firstName;
@@ -138,6 +171,14 @@ public class VetAdminController {
 			this.telephone = telephone;
 		}
 
+		public Integer getVersion() {
+			return version;
+		}
+
+		public void setVersion(Integer version) {
+			this.version = version;
+		}
+
 		public Vet toVet() {
 			Vet vet = new Vet();
 			vet.setFirstName(firstName);
@@ -147,12 +188,23 @@ public class VetAdminController {
 			return vet;
 		}
 
+		public void applyTo(Vet vet) {
+			vet.setFirstName(firstName);
+			vet.setLastName(lastName);
+			vet.setEmail(email);
+			vet.setTelephone(telephone);
+			if (version != null) {
+				vet.setVersion(version);
+			}
+		}
+
 		public static VetForm fromVet(Vet vet) {
 			VetForm form = new VetForm();
 			form.setFirstName(vet.getFirstName());
 			form.setLastName(vet.getLastName());
 			form.setEmail(vet.getEmail());
 			form.setTelephone(vet.getTelephone());
+			form.setVersion(vet.getVersion());
 			return form;
 		}
 
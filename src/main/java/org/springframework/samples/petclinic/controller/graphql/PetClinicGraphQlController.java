@@ -0,0 +1,104 @@
+package org.springframework.samples.petclinic.controller.graphql;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerRepository.OwnedPet;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
+
+/**
+ * GraphQL read API, see {@code graphql/schema.graphqls}.
+ * <p>
+ * Owners are served from the {@link OwnerSummary} read model, which has no collections.
+ * Their pets and the pets' visits are resolved with {@link BatchMapping}s, so a query
+ * costs one IN-query per nesting level however many owners and pets it returns.
+ */
+@Controller
+public class PetClinicGraphQlController {
+
+	static final int MAX_PAGE_SIZE = 100;
+
+	private final OwnerSummaryService summaries;
+
+	private final OwnerRepository owners;
+
+	private final VisitRepository visits;
+
+	private final PetTypeRepository petTypes;
+
+	private final ReadCoalescingService reads;
+
+	public PetClinicGraphQlController(OwnerSummaryService summaries, OwnerRepository owners, VisitRepository visits,
+			PetTypeRepository petTypes, ReadCoalescingService reads) {
+		this.summaries = summaries;
+		this.owners = owners;
+		this.visits = visits;
+		this.petTypes = petTypes;
+		this.reads = reads;
+	}
+
+	@QueryMapping
+	public List<OwnerSummary> owners(@Argument String lastName, @Argument int page, @Argument int size) {
+		if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+		}
+		return summaries.findByLastName(lastName, PageRequest.of(page, size, Sort.by("id"))).getContent();
+	}
+
+	@QueryMapping
+	public OwnerSummary owner(@Argument int id) {
+		return summaries.find(id).orElse(null);
+	}
+
+	@QueryMapping
+	public List<PetType> petTypes() {
+		return petTypes.findPetTypes();
+	}
+
+	@QueryMapping
+	public Collection<Vet> vets() {
+		return reads.vets();
+	}
+
+	@BatchMapping(typeName = "Owner")
+	public Map<OwnerSummary, List<Pet>> pets(List<OwnerSummary> ownerSummaries) {
+		Map<Integer, List<Pet>> petsByOwner = owners
+			.findPetsByOwnerIds(ownerSummaries.stream().map(OwnerSummary::getId).toList())
+			.stream()
+			.collect(Collectors.groupingBy(OwnedPet::getOwnerId,
+					Collectors.mapping(OwnedPet::getPet, Collectors.toList())));
+		Map<OwnerSummary, List<Pet>> result = new LinkedHashMap<>();
+		ownerSummaries.forEach(owner -> result.put(owner, petsByOwner.getOrDefault(owner.getId(), List.of())));
+		return result;
+	}
+
+	@BatchMapping(typeName = "Pet")
+	public Map<Pet, List<Visit>> visits(List<Pet> pets) {
+		Map<Integer, List<Visit>> visitsByPet = visits
+			.findByPetIdInOrderByDateDescIdDesc(pets.stream().map(Pet::getId).toList())
+			.stream()
+			.collect(Collectors.groupingBy(Visit::getPetId));
+		Map<Pet, List<Visit>> result = new LinkedHashMap<>();
+		pets.forEach(pet -> result.put(pet, visitsByPet.getOrDefault(pet.getId(), List.of())));
+		return result;
+	}
+
+}
@@ -0,0 +1,77 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Streams the change feed as Server-Sent Events. Each event carries one change log entry
+ * as JSON, with the entry's offset as event id, so a reconnecting {@code EventSource}
+ * resumes through its {@code Last-Event-ID} header; other clients pass {@code since}.
+ * <p>
+ * Open streams are asynchronous requests and hold no thread while idle. A small shared
+ * pool writes the queued events, so one slow client does not hold up the feed: its stream
+ * is closed when too many events are waiting, and it resumes on reconnect.
+ */
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeFeedRestController {
+
+	private final ChangeFeedService changeFeed;
+
+	private final Duration timeout;
+
+	private final ScheduledExecutorService senders;
+
+	private final Set<SseSubscriber> open = ConcurrentHashMap.newKeySet();
+
+	public ChangeFeedRestController(ChangeFeedService changeFeed,
+			@Value("${petclinic.changes.sender-threads:2}") int senderThreads,
+			@Value("${petclinic.changes.heartbeat:PT20S}") Duration heartbeat,
+			@Value("${petclinic.changes.timeout:PT30M}") Duration timeout) {
+		this.changeFeed = changeFeed;
+		this.timeout = timeout;
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("change-feed-");
+		threads.setDaemon(true);
+		this.senders = Executors.newScheduledThreadPool(senderThreads, threads);
+		this.senders.scheduleAtFixedRate(() -> this.open.forEach(SseSubscriber::heartbeat), heartbeat.toMillis(),
+				heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter changes(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+			@RequestParam(required = false) Long since, @RequestParam(required = false) Integer ownerId) {
+		SseEmitter emitter = new SseEmitter(this.timeout.toMillis());
+		SseSubscriber subscriber = new SseSubscriber(emitter, ownerId, this.senders);
+		this.open.add(subscriber);
+		Runnable unsubscribe = this.changeFeed.subscribe(lastEventId != null ? lastEventId : since, subscriber);
+		Runnable close = () -> {
+			if (this.open.remove(subscriber)) {
+				unsubscribe.run();
+			}
+		};
+		subscriber.onClose(close);
+		emitter.onCompletion(close);
+		emitter.onTimeout(close);
+		emitter.onError(ex -> close.run());
+		return emitter;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		this.senders.shutdownNow();
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.SparsePage;
+import org.springframework.samples.petclinic.service.SparseQueryService;
+import org.springframework.samples.petclinic.service.VisitWriteBehindService;
+
+@RestController
+@RequestMapping("/api/owners")
+public class OwnerRestController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private static final int MAX_SUGGESTIONS = 20;
+
+	private final OwnerSummaryService ownerSummaryService;
+
+	private final SparseQueryService sparseQueryService;
+
+	private final VisitWriteBehindService visitWriteBehind;
+
+	public OwnerRestController(OwnerSummaryService ownerSummaryService, SparseQueryService sparseQueryService,
+			VisitWriteBehindService visitWriteBehind) {
+		this.ownerSummaryService = ownerSummaryService;
+		this.sparseQueryService = sparseQueryService;
+		this.visitWriteBehind = visitWriteBehind;
+	}
+
+	/**
+	 * Requests with a {@code cursor} (empty for the first page) or {@code fields} get a
+	 * keyset-paged {@link SparsePage}; plain and {@code page} requests keep the offset
+	 * paged model.
+	 */
+	@GetMapping
+	public ResponseEntity<?> getOwners(@RequestParam(defaultValue = "") String lastName,
+			@RequestParam(required = false) Integer page, @RequestParam(defaultValue = "20") int size,
+			@RequestParam(required = false) String cursor, @RequestParam(required = false) String fields) {
+		if (size < 1 || size > MAX_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (cursor != null || fields != null) {
+			if (page != null) {
+				return ResponseEntity.badRequest().build();
+			}
+			try {
+				return ResponseEntity.ok(sparseQueryService.owners(lastName, fields, cursor, size));
+			}
+			catch (IllegalArgumentException ex) {
+				return ResponseEntity.badRequest().build();
+			}
+		}
+		if (page != null && page < 0) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(new PagedModel<>(ownerSummaryService.findByLastName(lastName,
+				PageRequest.of(page == null ? 0 : page, size, Sort.by("id")))));
+	}
+
+	@GetMapping("/suggest")
+	public ResponseEntity<List<OwnerSummary>> suggest(@RequestParam(defaultValue = "") String q,
+			@RequestParam(defaultValue = "10") int limit) {
+		if (limit < 1 || limit > MAX_SUGGESTIONS) {
+			return ResponseEntity.badRequest().build();
+		}
+		if (q.isBlank()) {
+			return ResponseEntity.ok(List.of());
+		}
+		return ResponseEntity.ok(ownerSummaryService.suggest(q, limit));
+	}
+
+	@GetMapping("/by-phone/{number}")
+	public ResponseEntity<OwnerSummary> getOwnerByPhone(@PathVariable String number) {
+		try {
+			return ownerSummaryService.findByTelephone(number)
+				.map(ResponseEntity::ok)
+				.orElse(ResponseEntity.notFound().build());
+		}
+		catch (IllegalArgumentException ex) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+	@GetMapping("/{id}")
+	public ResponseEntity<OwnerSummary> getOwner(@PathVariable Integer id) {
+		visitWriteBehind.awaitOwner(id);
+		return ownerSummaryService.find(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+	}
+
+}
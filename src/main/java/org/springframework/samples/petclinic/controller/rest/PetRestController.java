@@ -0,0 +1,35 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.samples.petclinic.service.SparsePage;
+import org.springframework.samples.petclinic.service.SparseQueryService;
+
+@RestController
+@RequestMapping("/api/owners/{ownerId}/pets")
+public class PetRestController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private final SparseQueryService sparseQueryService;
+
+	public PetRestController(SparseQueryService sparseQueryService) {
+		this.sparseQueryService = sparseQueryService;
+	}
+
+	@GetMapping
+	public ResponseEntity<SparsePage> getPets(@PathVariable Integer ownerId,
+			@RequestParam(defaultValue = "20") int size, @RequestParam(required = false) String cursor,
+			@RequestParam(required = false) String fields) {
+		if (size < 1 || size > MAX_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		try {
+			return ResponseEntity.ok(sparseQueryService.pets(ownerId, fields, cursor, size));
+		}
+		catch (IllegalArgumentException ex) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+}
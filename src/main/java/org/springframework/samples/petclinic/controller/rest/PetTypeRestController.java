@@ -1,12 +1,20 @@
 package org.springframework.samples.petclinic.controller.rest;
 
 import java.util.List;
+import java.util.Optional;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.IdempotencyService;
 
 @RestController
 @RequestMapping("/api/pet-types")
@@ -14,8 +22,18 @@ public class PetTypeRestController {
 
 	private final PetTypeRepository petTypeRepository;
 
-	public PetTypeRestController(PetTypeRepository petTypeRepository) {
+	private final ChangeFeedService changes;
+
+	private final IdempotencyService idempotency;
+
+	private final ObjectMapper objectMapper;
+
+	public PetTypeRestController(PetTypeRepository petTypeRepository, ChangeFeedService changes,
+			IdempotencyService idempotency, ObjectMapper objectMapper) {
 		this.petTypeRepository = petTypeRepository;
+		this.changes = changes;
+		this.idempotency = idempotency;
+		this.objectMapper = objectMapper;
 	}
 
 	@GetMapping
@@ -23,12 +41,42 @@ public class PetTypeRestController {
 		return petTypeRepository.findPetTypes();
 	}
 
+	/**
+	 * A retry with the same {@code Idempotency-Key} header gets the original response,
+	 * marked with {@code Idempotent-Replayed: true}, and creates nothing.
+	 */
 	@PostMapping
-	public ResponseEntity<PetType> createPetType(@RequestBody PetType petType) {
-		if (petType.getName() == null || petType.getName().isBlank()) {
+	public ResponseEntity<?> createPetType(@RequestBody PetType petType,
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey)
+			throws JsonProcessingException {
+		if (petType.getName() == null || petType.getName().isBlank()
+				|| idempotencyKey != null && !IdempotencyService.isValidKey(idempotencyKey)) {
 			return ResponseEntity.badRequest().build();
 		}
-		PetType saved = petTypeRepository.save(petType);
+		Optional<String> replay;
+		try {
+			replay = idempotency.begin("api/pet-types", idempotencyKey);
+		}
+		catch (IllegalStateException ex) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).build();
+		}
+		if (replay.isPresent()) {
+			return ResponseEntity.status(HttpStatus.CREATED)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header("Idempotent-Replayed", "true")
+				.body(replay.get());
+		}
+		PetType saved;
+		try {
+			saved = petTypeRepository.save(petType);
+		}
+		catch (RuntimeException ex) {
+			idempotency.release("api/pet-types", idempotencyKey);
+			throw ex;
+		}
+		// the pet type is committed, so a retry must replay it rather than create another
+		idempotency.complete("api/pet-types", idempotencyKey, objectMapper.writeValueAsString(saved));
+		changes.record(Subject.PET_TYPE, saved.getId(), Action.CREATED, null);
 		return new ResponseEntity<>(saved, HttpStatus.CREATED);
 	}
 
@@ -38,6 +86,7 @@ public class PetTypeRestController {
 			existing.setName(petType.getName());
 			existing.setDescription(petType.getDescription());
 			PetType saved = petTypeRepository.save(existing);
+			changes.record(Subject.PET_TYPE, id, Action.UPDATED, null);
 			return ResponseEntity.ok(saved);
 		}).orElse(ResponseEntity.notFound().build());
 	}
@@ -48,6 +97,7 @@ public class PetTypeRestController {
 			return ResponseEntity.notFound().build();
 		}
 		petTypeRepository.deleteById(id);
+		changes.record(Subject.PET_TYPE, id, Action.DELETED, null);
 		return ResponseEntity.noContent().build();
 	}
 
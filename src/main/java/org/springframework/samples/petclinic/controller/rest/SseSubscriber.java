@@ -0,0 +1,111 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.ChangeLogEntry;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+/**
+ * Queues the change feed for one SSE stream and writes it on a shared executor, one drain
+ * at a time so events keep their order.
+ */
+class SseSubscriber implements ChangeFeedService.Subscriber {
+
+	static final int MAX_QUEUED = 1000;
+
+	private final SseEmitter emitter;
+
+	private final Integer ownerId;
+
+	private final Executor sender;
+
+	private final Queue<SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private volatile boolean closed;
+
+	private volatile Runnable onClose = () -> {
+	};
+
+	SseSubscriber(SseEmitter emitter, Integer ownerId, Executor sender) {
+		this.emitter = emitter;
+		this.ownerId = ownerId;
+		this.sender = sender;
+	}
+
+	@Override
+	public void change(ChangeLogEntry entry) {
+		if (this.ownerId == null || this.ownerId.equals(entry.getOwnerId())) {
+			offer(SseEmitter.event().id(String.valueOf(entry.getId())).data(entry, MediaType.APPLICATION_JSON));
+		}
+	}
+
+	@Override
+	public void missed() {
+		offer(SseEmitter.event().name("missed").data("Changes were missed, reload and resubscribe"));
+	}
+
+	void heartbeat() {
+		offer(SseEmitter.event().comment("heartbeat"));
+	}
+
+	void onClose(Runnable onClose) {
+		this.onClose = onClose;
+	}
+
+	private void offer(SseEventBuilder event) {
+		if (this.closed) {
+			return;
+		}
+		if (this.queued.incrementAndGet() > MAX_QUEUED) {
+			// too slow to keep up: let the client reconnect and resume from its offset
+			this.closed = true;
+			this.sender.execute(() -> {
+				this.emitter.complete();
+				this.onClose.run();
+			});
+			return;
+		}
+		this.queue.add(event);
+		schedule();
+	}
+
+	private void schedule() {
+		if (this.draining.compareAndSet(false, true)) {
+			this.sender.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		try {
+			SseEventBuilder event;
+			while (!this.closed && (event = this.queue.poll()) != null) {
+				this.queued.decrementAndGet();
+				this.emitter.send(event);
+			}
+		}
+		catch (IOException | IllegalStateException ex) {
+			// the client went away or the stream timed out
+			this.closed = true;
+			this.onClose.run();
+		}
+		finally {
+			this.draining.set(false);
+			if (!this.closed && !this.queue.isEmpty()) {
+				schedule();
+			}
+		}
+	}
+
+}
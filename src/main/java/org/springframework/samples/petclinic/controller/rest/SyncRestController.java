@@ -0,0 +1,29 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.samples.petclinic.service.SyncDelta;
+import org.springframework.samples.petclinic.service.SyncService;
+
+@RestController
+@RequestMapping("/api/sync")
+public class SyncRestController {
+
+	private static final int MAX_LIMIT = 1000;
+
+	private final SyncService syncService;
+
+	public SyncRestController(SyncService syncService) {
+		this.syncService = syncService;
+	}
+
+	@GetMapping
+	public ResponseEntity<SyncDelta> sync(@RequestParam(defaultValue = "0") long since,
+			@RequestParam(defaultValue = "500") int limit) {
+		if (since < 0 || limit < 1 || limit > MAX_LIMIT) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(syncService.changesSince(since, limit));
+	}
+
+}
@@ -0,0 +1,62 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.service.SparsePage;
+import org.springframework.samples.petclinic.service.SparseQueryService;
+import org.springframework.samples.petclinic.service.VisitWriteBehindService;
+
+@RestController
+@RequestMapping("/api/pets/{petId}/visits")
+public class VisitRestController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private final VisitRepository visitRepository;
+
+	private final SparseQueryService sparseQueryService;
+
+	private final VisitWriteBehindService visitWriteBehind;
+
+	public VisitRestController(VisitRepository visitRepository, SparseQueryService sparseQueryService,
+			VisitWriteBehindService visitWriteBehind) {
+		this.visitRepository = visitRepository;
+		this.sparseQueryService = sparseQueryService;
+		this.visitWriteBehind = visitWriteBehind;
+	}
+
+	/**
+	 * Requests with a {@code cursor} (empty for the first page) or {@code fields} get a
+	 * keyset-paged {@link SparsePage}; plain and {@code page} requests keep the offset
+	 * paged model.
+	 */
+	@GetMapping
+	public ResponseEntity<?> getVisits(@PathVariable Integer petId, @RequestParam(required = false) Integer page,
+			@RequestParam(defaultValue = "20") int size, @RequestParam(required = false) String cursor,
+			@RequestParam(required = false) String fields) {
+		if (size < 1 || size > MAX_PAGE_SIZE) {
+			return ResponseEntity.badRequest().build();
+		}
+		visitWriteBehind.awaitPet(petId);
+		if (cursor != null || fields != null) {
+			if (page != null) {
+				return ResponseEntity.badRequest().build();
+			}
+			try {
+				return ResponseEntity.ok(sparseQueryService.visits(petId, fields, cursor, size));
+			}
+			catch (IllegalArgumentException ex) {
+				return ResponseEntity.badRequest().build();
+			}
+		}
+		if (page != null && page < 0) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(new PagedModel<>(visitRepository.findByPetIdOrderByDateDescIdDesc(petId,
+				PageRequest.of(page == null ? 0 : page, size))));
+	}
+
+}
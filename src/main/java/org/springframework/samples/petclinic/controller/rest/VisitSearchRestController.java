@@ -0,0 +1,36 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.samples.petclinic.service.VisitSearchHit;
+import org.springframework.samples.petclinic.service.VisitSearchService;
+
+@RestController
+@RequestMapping("/api/visits")
+public class VisitSearchRestController {
+
+	private static final int MAX_LIMIT = 100;
+
+	private final VisitSearchService visitSearchService;
+
+	public VisitSearchRestController(VisitSearchService visitSearchService) {
+		this.visitSearchService = visitSearchService;
+	}
+
+	@GetMapping("/search")
+	public ResponseEntity<List<VisitSearchHit>> search(@RequestParam String q,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "20") int limit, @RequestParam(required = false) Locale lang, Locale locale) {
+		if (q.isBlank() || limit < 1 || limit > MAX_LIMIT || (from != null && to != null && from.isAfter(to))) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok(visitSearchService.search(q, lang != null ? lang : locale, from, to, limit));
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * One write to the clinic's data, as recorded in the {@code change_log} outbox and
+ * published on the change feed. The id orders the entries and is the offset consumers
+ * resume from.
+ */
+@Entity
+@Table(name = "change_log")
+public class ChangeLogEntry {
+
+	/**
+	 * The kind of record that was written.
+	 */
+	public enum Subject {
+
+		OWNER, PET, VISIT, PET_TYPE, VET
+
+	}
+
+	/**
+	 * What happened to the record.
+	 */
+	public enum Action {
+
+		CREATED, UPDATED, DELETED
+
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "entity")
+	@Enumerated(EnumType.STRING)
+	private Subject subject;
+
+	@Column(name = "entity_id")
+	private Integer subjectId;
+
+	@Enumerated(EnumType.STRING)
+	private Action action;
+
+	@Column(name = "owner_id")
+	private Integer ownerId;
+
+	@Column(name = "changed_at")
+	private Instant changedAt;
+
+	protected ChangeLogEntry() {
+	}
+
+	public ChangeLogEntry(Subject subject, Integer subjectId, Action action, Integer ownerId, Instant changedAt) {
+		this.subject = subject;
+		this.subjectId = subjectId;
+		this.action = action;
+		this.ownerId = ownerId;
+		this.changedAt = changedAt;
+	}
+
+	public Long getId() {
+		return this.id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Subject getSubject() {
+		return this.subject;
+	}
+
+	public Integer getSubjectId() {
+		return this.subjectId;
+	}
+
+	public Action getAction() {
+		return this.action;
+	}
+
+	/**
+	 * @return the owner whose page shows the record, {@code null} for pet types and vets
+	 */
+	public Integer getOwnerId() {
+		return this.ownerId;
+	}
+
+	public Instant getChangedAt() {
+		return this.changedAt;
+	}
+
+}
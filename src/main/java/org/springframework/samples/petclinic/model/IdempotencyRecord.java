@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The response to a completed request that carried an idempotency key, kept so that a
+ * retry of the request gets the same response instead of repeating the write.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+	/**
+	 * The endpoint's scope and the client's key, as {@code scope:key}.
+	 */
+	@Id
+	private String id;
+
+	private String response;
+
+	@Column(name = "created_at")
+	private Instant createdAt;
+
+	protected IdempotencyRecord() {
+	}
+
+	public IdempotencyRecord(String id, String response, Instant createdAt) {
+		this.id = id;
+		this.response = response;
+		this.createdAt = createdAt;
+	}
+
+	public String getId() {
+		return this.id;
+	}
+
+	public String getResponse() {
+		return this.response;
+	}
+
+	public Instant getCreatedAt() {
+		return this.createdAt;
+	}
+
+}
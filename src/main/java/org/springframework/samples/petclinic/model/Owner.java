@@ -18,6 +18,8 @@ package org.springframework.samples.petclinic.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
 import org.springframework.core.style.ToStringCreator;
 import org.springframework.util.Assert;
 
@@ -29,6 +31,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.NotBlank;
 
@@ -44,6 +47,7 @@ import jakarta.validation.constraints.NotBlank;
  */
 @Entity
 @Table(name = "owners")
+@DynamicUpdate
 public class Owner extends Person {
 
 	@Column(name = "address")
@@ -62,8 +66,12 @@ public class Owner extends Person {
 	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
 	@JoinColumn(name = "owner_id")
 	@OrderBy("name")
+	@OptimisticLock(excluded = true)
 	private final List<Pet> pets = new ArrayList<>();
 
+	@Version
+	private Integer version;
+
 	public String getAddress() {
 		return this.address;
 	}
@@ -88,6 +96,14 @@ public class Owner extends Person {
 		this.telephone = telephone;
 	}
 
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	public List<Pet> getPets() {
 		return this.pets;
 	}
@@ -151,6 +167,7 @@ public class Owner extends Person {
 			.append("address", this.address)
 			.append("city", this.city)
 			.append("telephone", this.telephone)
+			.append("version", this.version)
 			.toString();
 	}
 
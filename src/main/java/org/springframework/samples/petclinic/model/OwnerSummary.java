@@ -0,0 +1,149 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Denormalized, read-only view of an {@link Owner} with pre-computed pet and visit
+ * figures, so list views read one narrow row per owner instead of the whole graph. Rows
+ * are derived data and are rebuilt from the source tables, never edited.
+ */
+@Entity
+@Table(name = "owner_summary")
+public class OwnerSummary implements Serializable {
+
+	@Id
+	@Column(name = "owner_id")
+	private Integer id;
+
+	@Column(name = "first_name")
+	private String firstName;
+
+	@Column(name = "last_name")
+	private String lastName;
+
+	private String address;
+
+	private String city;
+
+	private String telephone;
+
+	@Column(name = "pet_count")
+	private int petCount;
+
+	@Column(name = "pet_names")
+	private String petNames;
+
+	@Column(name = "total_visits")
+	private int totalVisits;
+
+	@Column(name = "last_visit_date")
+	private LocalDate lastVisitDate;
+
+	@JsonIgnore
+	@Column(name = "last_name_cologne")
+	private String lastNameCologne;
+
+	@JsonIgnore
+	@Column(name = "last_name_metaphone")
+	private String lastNameMetaphone;
+
+	protected OwnerSummary() {
+	}
+
+	/**
+	 * Create the summary of the given owner.
+	 * @param owner the owner, with its pets loaded
+	 * @param totalVisits the number of visits of all its pets
+	 * @param lastVisitDate the date of the latest of those visits, or {@code null}
+	 * @return the summary
+	 */
+	public static OwnerSummary of(Owner owner, long totalVisits, LocalDate lastVisitDate) {
+		OwnerSummary summary = new OwnerSummary();
+		summary.id = owner.getId();
+		summary.firstName = owner.getFirstName();
+		summary.lastName = owner.getLastName();
+		summary.address = owner.getAddress();
+		summary.city = owner.getCity();
+		summary.telephone = owner.getTelephone();
+		summary.petCount = owner.getPets().size();
+		summary.petNames = owner.getPets().stream().map(Pet::getName).sorted().collect(Collectors.joining(", "));
+		summary.totalVisits = (int) totalVisits;
+		summary.lastVisitDate = lastVisitDate;
+		summary.lastNameCologne = PhoneticKeys.cologne(owner.getLastName());
+		summary.lastNameMetaphone = PhoneticKeys.metaphone(owner.getLastName());
+		return summary;
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public String getTelephone() {
+		return this.telephone;
+	}
+
+	public int getPetCount() {
+		return this.petCount;
+	}
+
+	public String getPetNames() {
+		return this.petNames;
+	}
+
+	public int getTotalVisits() {
+		return this.totalVisits;
+	}
+
+	public LocalDate getLastVisitDate() {
+		return this.lastVisitDate;
+	}
+
+	public String getLastNameCologne() {
+		return this.lastNameCologne;
+	}
+
+	public String getLastNameMetaphone() {
+		return this.lastNameMetaphone;
+	}
+
+}
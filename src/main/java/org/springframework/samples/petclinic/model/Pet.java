@@ -20,6 +20,8 @@ import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import jakarta.persistence.CascadeType;
@@ -31,6 +33,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 /**
  * Simple business object representing a pet.
@@ -42,6 +45,7 @@ import jakarta.persistence.Table;
  */
 @Entity
 @Table(name = "pets")
+@DynamicUpdate
 public class Pet extends NamedEntity {
 
 	@Column(name = "birth_date")
@@ -52,11 +56,20 @@ public class Pet extends NamedEntity {
 	@JoinColumn(name = "type_id")
 	private PetType type;
 
-	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
-	@JoinColumn(name = "pet_id")
+	/**
+	 * Loaded lazily: long-term patients have years of history, so views page through
+	 * {@code VisitRepository} instead. The foreign key is written via
+	 * {@link Visit#getPetId()}.
+	 */
+	@OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+	@JoinColumn(name = "pet_id", insertable = false, updatable = false)
 	@OrderBy("date ASC")
+	@OptimisticLock(excluded = true)
 	private final Set<Visit> visits = new LinkedHashSet<>();
 
+	@Version
+	private Integer version;
+
 	public void setBirthDate(LocalDate birthDate) {
 		this.birthDate = birthDate;
 	}
@@ -73,11 +86,20 @@ public class Pet extends NamedEntity {
 		this.type = type;
 	}
 
+	public Integer getVersion() {
+		return this.version;
+	}
+
+	public void setVersion(Integer version) {
+		this.version = version;
+	}
+
 	public Collection<Visit> getVisits() {
 		return this.visits;
 	}
 
 	public void addVisit(Visit visit) {
+		visit.setPetId(getId());
 		getVisits().add(visit);
 	}
 
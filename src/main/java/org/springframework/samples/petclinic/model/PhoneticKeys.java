@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.codec.language.ColognePhonetic;
+import org.apache.commons.codec.language.DoubleMetaphone;
+
+/**
+ * Phonetic keys for surnames, so that spellings such as Meier, Meyer and Maier find each
+ * other.
+ * <ul>
+ * <li>{@link #cologne(String) Cologne phonetics} is tuned to German pronunciation and is
+ * used for the German and Russian locales.</li>
+ * <li>{@link #metaphone(String) Double Metaphone} is tuned to English pronunciation and
+ * is used for all other locales.</li>
+ * </ul>
+ * Cyrillic letters are transliterated to Latin before encoding, so a name typed in either
+ * script produces the same key.
+ */
+public final class PhoneticKeys {
+
+	/**
+	 * Longest key that is stored, matching the width of the key columns.
+	 */
+	public static final int MAX_LENGTH = 20;
+
+	private static final Map<Character, String> CYRILLIC = Map.ofEntries(Map.entry('а', "a"), Map.entry('б', "b"),
+			Map.entry('в', "v"), Map.entry('г', "g"), Map.entry('д', "d"), Map.entry('е', "e"), Map.entry('ё', "e"),
+			Map.entry('ж', "zh"), Map.entry('з', "z"), Map.entry('и', "i"), Map.entry('й', "y"), Map.entry('к', "k"),
+			Map.entry('л', "l"), Map.entry('м', "m"), Map.entry('н', "n"), Map.entry('о', "o"), Map.entry('п', "p"),
+			Map.entry('р', "r"), Map.entry('с', "s"), Map.entry('т', "t"), Map.entry('у', "u"), Map.entry('ф', "f"),
+			Map.entry('х', "kh"), Map.entry('ц', "ts"), Map.entry('ч', "ch"), Map.entry('ш', "sh"),
+			Map.entry('щ', "shch"), Map.entry('ъ', ""), Map.entry('ы', "y"), Map.entry('ь', ""), Map.entry('э', "e"),
+			Map.entry('ю', "yu"), Map.entry('я', "ya"), Map.entry('і', "i"), Map.entry('ї', "yi"),
+			Map.entry('є', "ye"));
+
+	private static final ColognePhonetic COLOGNE = new ColognePhonetic();
+
+	private static final DoubleMetaphone METAPHONE = new DoubleMetaphone();
+
+	static {
+		METAPHONE.setMaxCodeLen(MAX_LENGTH);
+	}
+
+	private PhoneticKeys() {
+	}
+
+	/**
+	 * @param name a surname in Latin or Cyrillic script, may be {@code null}
+	 * @return the Cologne phonetics key, empty if the name has no encodable letters
+	 */
+	public static String cologne(String name) {
+		return truncate(COLOGNE.encode(transliterate(name)));
+	}
+
+	/**
+	 * @param name a surname in Latin or Cyrillic script, may be {@code null}
+	 * @return the primary Double Metaphone key, empty if the name has no encodable
+	 * letters
+	 */
+	public static String metaphone(String name) {
+		String key = METAPHONE.doubleMetaphone(transliterate(name));
+		return key == null ? "" : key;
+	}
+
+	/**
+	 * Whether names searched in the given locale should be matched by
+	 * {@link #cologne(String)} rather than {@link #metaphone(String)}.
+	 * @param locale the locale of the person searching
+	 * @return {@code true} for German and Russian
+	 */
+	public static boolean prefersCologne(Locale locale) {
+		String language = locale == null ? "" : locale.getLanguage();
+		return "de".equals(language) || "ru".equals(language);
+	}
+
+	/**
+	 * Transliterate Cyrillic letters to Latin, leaving everything else untouched.
+	 * @param name the name, may be {@code null}
+	 * @return the lower-case transliteration, empty for {@code null}
+	 */
+	static String transliterate(String name) {
+		if (name == null) {
+			return "";
+		}
+		String lower = name.strip().toLowerCase(Locale.ROOT);
+		StringBuilder latin = new StringBuilder(lower.length() + 4);
+		for (int i = 0; i < lower.length(); i++) {
+			char c = lower.charAt(i);
+			String mapped = CYRILLIC.get(c);
+			if (mapped != null) {
+				latin.append(mapped);
+			}
+			else {
+				latin.append(c);
+			}
+		}
+		return latin.toString();
+	}
+
+	private static String truncate(String key) {
+		return key.length() > MAX_LENGTH ? key.substring(0, MAX_LENGTH) : key;
+	}
+
+}
@@ -23,6 +23,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 /**
  * Simple JavaBean domain object representing a visit.
@@ -39,8 +40,12 @@ public class Visit extends BaseEntity {
 	private LocalDate date;
 
 	@NotBlank
+	@Size(max = 255)
 	private String description;
 
+	@Column(name = "pet_id")
+	private Integer petId;
+
 	/**
 	 * Creates a new instance of Visit for the current date
 	 */
@@ -64,4 +69,12 @@ public class Visit extends BaseEntity {
 		this.description = description;
 	}
 
+	public Integer getPetId() {
+		return this.petId;
+	}
+
+	public void setPetId(Integer petId) {
+		this.petId = petId;
+	}
+
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link Cache} decorator that emits a {@link CacheLookupEvent} for every lookup. Writes
+ * and evictions are passed straight through.
+ */
+class CacheLookupEventsCache implements Cache {
+
+	private final Cache delegate;
+
+	CacheLookupEventsCache(Cache delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	@NonNull
+	public String getName() {
+		return this.delegate.getName();
+	}
+
+	@Override
+	@NonNull
+	public Object getNativeCache() {
+		return this.delegate.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(@NonNull Object key) {
+		CacheLookupEvent event = begin();
+		ValueWrapper value = this.delegate.get(key);
+		commit(event, key, value != null);
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+		CacheLookupEvent event = begin();
+		T value = this.delegate.get(key, type);
+		commit(event, key, value != null);
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+		CacheLookupEvent event = begin();
+		boolean[] loaded = new boolean[1];
+		T value = this.delegate.get(key, () -> {
+			loaded[0] = true;
+			return valueLoader.call();
+		});
+		commit(event, key, !loaded[0]);
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public CompletableFuture<?> retrieve(@NonNull Object key) {
+		return this.delegate.retrieve(key);
+	}
+
+	@Override
+	@NonNull
+	public <T> CompletableFuture<T> retrieve(@NonNull Object key, @NonNull Supplier<CompletableFuture<T>> valueLoader) {
+		return this.delegate.retrieve(key, valueLoader);
+	}
+
+	@Override
+	public void put(@NonNull Object key, @Nullable Object value) {
+		this.delegate.put(key, value);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+		return this.delegate.putIfAbsent(key, value);
+	}
+
+	@Override
+	public void evict(@NonNull Object key) {
+		this.delegate.evict(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(@NonNull Object key) {
+		return this.delegate.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		this.delegate.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		return this.delegate.invalidate();
+	}
+
+	@Nullable
+	private static CacheLookupEvent begin() {
+		CacheLookupEvent event = new CacheLookupEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	private void commit(@Nullable CacheLookupEvent event, Object key, boolean hit) {
+		if (event == null) {
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.cache = getName();
+			event.key = String.valueOf(key);
+			event.hit = hit;
+			event.commit();
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+import org.springframework.lang.NonNull;
+
+/**
+ * {@link CacheResolver} that resolves caches like {@link SimpleCacheResolver} and
+ * decorates them so that lookups made by the caching annotations are recorded as
+ * {@link CacheLookupEvent CacheLookupEvents}. The cache manager itself is left untouched,
+ * so cache statistics and metrics keep binding to the native caches.
+ */
+public class CacheLookupEventsCacheResolver implements CacheResolver {
+
+	private final ObjectProvider<CacheManager> cacheManager;
+
+	private final Map<Cache, Cache> decorated = new ConcurrentHashMap<>();
+
+	private volatile CacheResolver delegate;
+
+	public CacheLookupEventsCacheResolver(ObjectProvider<CacheManager> cacheManager) {
+		this.cacheManager = cacheManager;
+	}
+
+	@Override
+	@NonNull
+	public Collection<? extends Cache> resolveCaches(@NonNull CacheOperationInvocationContext<?> context) {
+		return delegate().resolveCaches(context)
+			.stream()
+			.map(cache -> this.decorated.computeIfAbsent(cache, CacheLookupEventsCache::new))
+			.toList();
+	}
+
+	private CacheResolver delegate() {
+		CacheResolver resolver = this.delegate;
+		if (resolver == null) {
+			resolver = new SimpleCacheResolver(this.cacheManager.getObject());
+			this.delegate = resolver;
+		}
+		return resolver;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the Flight Recorder instrumentation of the repositories and the
+ * {@link ProfilingEndpoint}. Template renders are instrumented by the
+ * {@link TemplateRenderInterceptor} and cache lookups by the
+ * {@link CacheLookupEventsCacheResolver}.
+ */
+@Configuration(proxyBeanMethods = false)
+class ProfilingConfiguration {
+
+	@Bean
+	static RepositoryEventsPostProcessor repositoryEventsPostProcessor() {
+		return new RepositoryEventsPostProcessor();
+	}
+
+	@Bean
+	ProfilingEndpoint profilingEndpoint(@Value("${petclinic.profiling.default-seconds:10}") int defaultSeconds,
+			@Value("${petclinic.profiling.max-seconds:60}") int maxSeconds,
+			@Value("${petclinic.profiling.default-top:20}") int defaultTop) {
+		return new ProfilingEndpoint(defaultSeconds, maxSeconds, defaultTop);
+	}
+
+}
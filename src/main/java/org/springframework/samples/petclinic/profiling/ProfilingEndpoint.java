@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import jdk.jfr.Event;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Actuator endpoint that runs a time-boxed Flight Recording of the PetClinic events.
+ * <p>
+ * {@code GET /actuator/profiling?seconds=10&top=20} streams the events while the
+ * recording runs and answers with the slowest operations.
+ * {@code GET /actuator/profiling/jfr} returns the raw recording (with stack traces) for
+ * analysis in JDK Mission Control.
+ * </p>
+ */
+@WebEndpoint(id = "profiling")
+public class ProfilingEndpoint {
+
+	private static final List<Class<? extends Event>> EVENTS = List.of(RepositoryCallEvent.class,
+			TemplateRenderEvent.class, CacheLookupEvent.class);
+
+	private final int defaultSeconds;
+
+	private final int maxSeconds;
+
+	private final int defaultTop;
+
+	public ProfilingEndpoint(int defaultSeconds, int maxSeconds, int defaultTop) {
+		this.defaultSeconds = defaultSeconds;
+		this.maxSeconds = maxSeconds;
+		this.defaultTop = defaultTop;
+	}
+
+	@ReadOperation
+	public ProfilingSummary summary(@Nullable Integer seconds, @Nullable Integer top) throws InterruptedException {
+		long duration = seconds(seconds);
+		ProfilingSummary.Collector collector = new ProfilingSummary.Collector(
+				(top != null && top > 0) ? top : this.defaultTop);
+		try (RecordingStream stream = new RecordingStream()) {
+			for (Class<? extends Event> event : EVENTS) {
+				stream.enable(event).withoutStackTrace();
+			}
+			stream.onEvent(collector::accept);
+			stream.startAsync();
+			stream.awaitTermination(Duration.ofSeconds(duration));
+		}
+		return collector.summary(duration);
+	}
+
+	@ReadOperation(produces = "application/octet-stream")
+	public WebEndpointResponse<Resource> recording(@Selector String format, @Nullable Integer seconds)
+			throws IOException, InterruptedException {
+		if (!"jfr".equals(format)) {
+			return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+		}
+		Path file = Files.createTempFile("petclinic-", ".jfr");
+		try (RecordingStream stream = new RecordingStream()) {
+			for (Class<? extends Event> event : EVENTS) {
+				stream.enable(event).withStackTrace();
+			}
+			stream.startAsync();
+			stream.awaitTermination(Duration.ofSeconds(seconds(seconds)));
+			stream.dump(file);
+			return new WebEndpointResponse<>(new ByteArrayResource(Files.readAllBytes(file)));
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private long seconds(@Nullable Integer requested) {
+		int seconds = (requested != null && requested > 0) ? requested : this.defaultSeconds;
+		return Math.min(seconds, this.maxSeconds);
+	}
+
+}
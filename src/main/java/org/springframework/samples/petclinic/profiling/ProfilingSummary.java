@@ -0,0 +1,123 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import jdk.jfr.consumer.RecordedEvent;
+
+/**
+ * Result of a time-boxed profiling run: the slowest individual operations and the
+ * per-operation aggregates, both ordered by duration.
+ *
+ * @param start when the recording started
+ * @param seconds how long the recording ran
+ * @param events total number of events received
+ * @param slowest the slowest individual operations
+ * @param operations the operations with the highest maximum duration
+ */
+public record ProfilingSummary(Instant start, long seconds, long events, List<Sample> slowest,
+		List<Operation> operations) {
+
+	/**
+	 * A single recorded operation.
+	 */
+	public record Sample(String type, String name, String detail, Instant start, double durationMs) {
+
+	}
+
+	/**
+	 * Aggregate over all recordings of the same operation.
+	 */
+	public record Operation(String type, String name, long count, double totalMs, double maxMs) {
+
+		double meanMs() {
+			return this.count == 0 ? 0 : this.totalMs / this.count;
+		}
+
+	}
+
+	/**
+	 * Collects streamed events, keeping only the top-N slowest samples in memory.
+	 */
+	static class Collector {
+
+		private final int top;
+
+		private final Instant start = Instant.now();
+
+		private final PriorityQueue<Sample> slowest = new PriorityQueue<>(
+				Comparator.comparingDouble(Sample::durationMs));
+
+		private final Map<String, Operation> operations = new LinkedHashMap<>();
+
+		private long events;
+
+		Collector(int top) {
+			this.top = top;
+		}
+
+		synchronized void accept(RecordedEvent event) {
+			Sample sample = sample(event);
+			if (sample == null) {
+				return;
+			}
+			this.events++;
+			this.slowest.add(sample);
+			if (this.slowest.size() > this.top) {
+				this.slowest.poll();
+			}
+			this.operations.merge(sample.type() + ':' + sample.name(),
+					new Operation(sample.type(), sample.name(), 1, sample.durationMs(), sample.durationMs()),
+					(a, b) -> new Operation(a.type(), a.name(), a.count() + 1, a.totalMs() + b.totalMs(),
+							Math.max(a.maxMs(), b.maxMs())));
+		}
+
+		synchronized ProfilingSummary summary(long seconds) {
+			List<Sample> samples = new ArrayList<>(this.slowest);
+			samples.sort(Comparator.comparingDouble(Sample::durationMs).reversed());
+			List<Operation> aggregates = this.operations.values()
+				.stream()
+				.sorted(Comparator.comparingDouble(Operation::maxMs).reversed())
+				.limit(this.top)
+				.toList();
+			return new ProfilingSummary(this.start, seconds, this.events, samples, aggregates);
+		}
+
+		private static Sample sample(RecordedEvent event) {
+			double durationMs = event.getDuration().toNanos() / 1_000_000.0;
+			return switch (event.getEventType().getName()) {
+				case RepositoryCallEvent.NAME ->
+					new Sample("repository", event.getString("repository") + '.' + event.getString("method"),
+							"rows=" + event.getInt("rowCount"), event.getStartTime(), durationMs);
+				case TemplateRenderEvent.NAME ->
+					new Sample("template", event.getString("view"), null, event.getStartTime(), durationMs);
+				case CacheLookupEvent.NAME -> new Sample("cache", event.getString("cache"),
+						(event.getBoolean("hit") ? "hit " : "miss ") + event.getString("key"), event.getStartTime(),
+						durationMs);
+				default -> null;
+			};
+		}
+
+	}
+
+}
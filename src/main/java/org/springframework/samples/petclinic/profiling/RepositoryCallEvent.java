@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event emitted for every call into a Spring Data repository.
+ */
+@Name(RepositoryCallEvent.NAME)
+@Label("Repository Call")
+@Description("Invocation of a Spring Data repository method")
+@Category({ "PetClinic", "Data Access" })
+public class RepositoryCallEvent extends Event {
+
+	public static final String NAME = "org.springframework.samples.petclinic.RepositoryCall";
+
+	@Label("Repository")
+	String repository;
+
+	@Label("Method")
+	String method;
+
+	@Label("Row Count")
+	@Description("Number of entities returned, -1 if the result is not a row set")
+	int rowCount;
+
+}
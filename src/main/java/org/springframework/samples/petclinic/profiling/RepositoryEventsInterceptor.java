@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+import org.springframework.lang.NonNull;
+
+/**
+ * {@link MethodInterceptor} that wraps repository invocations in a
+ * {@link RepositoryCallEvent}. The event is only timed when Flight Recorder has it
+ * enabled, so the overhead outside of a recording is a single flag check.
+ */
+class RepositoryEventsInterceptor implements MethodInterceptor {
+
+	private final String repository;
+
+	RepositoryEventsInterceptor(String repository) {
+		this.repository = repository;
+	}
+
+	@Override
+	public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+		RepositoryCallEvent event = new RepositoryCallEvent();
+		if (!event.isEnabled()) {
+			return invocation.proceed();
+		}
+		event.begin();
+		Object result = null;
+		try {
+			result = invocation.proceed();
+			return result;
+		}
+		finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.repository = this.repository;
+				event.method = invocation.getMethod().getName();
+				event.rowCount = rowCount(result);
+				event.commit();
+			}
+		}
+	}
+
+	static int rowCount(Object result) {
+		if (result == null) {
+			return 0;
+		}
+		if (result instanceof Slice<?> slice) {
+			return slice.getNumberOfElements();
+		}
+		if (result instanceof Collection<?> collection) {
+			return collection.size();
+		}
+		if (result instanceof Optional<?> optional) {
+			return optional.isPresent() ? 1 : 0;
+		}
+		if (result instanceof Number || result instanceof Boolean) {
+			return -1;
+		}
+		return 1;
+	}
+
+}
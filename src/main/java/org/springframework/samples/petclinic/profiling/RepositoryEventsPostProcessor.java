@@ -0,0 +1,50 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.lang.NonNull;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Wraps every Spring Data {@link Repository} bean so that its calls show up as
+ * {@link RepositoryCallEvent RepositoryCallEvents} in a Flight Recording.
+ */
+class RepositoryEventsPostProcessor implements BeanPostProcessor {
+
+	@Override
+	public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+		if (!(bean instanceof Repository<?, ?>)) {
+			return bean;
+		}
+		ProxyFactory proxyFactory = new ProxyFactory(bean);
+		proxyFactory.addAdvice(new RepositoryEventsInterceptor(repositoryName(bean)));
+		return proxyFactory.getProxy(bean.getClass().getClassLoader());
+	}
+
+	private static String repositoryName(Object bean) {
+		for (Class<?> candidate : ClassUtils.getAllInterfaces(bean)) {
+			if (Repository.class.isAssignableFrom(candidate)
+					&& !candidate.getName().startsWith("org.springframework.data")) {
+				return candidate.getSimpleName();
+			}
+		}
+		return ClassUtils.getUserClass(bean).getSimpleName();
+	}
+
+}
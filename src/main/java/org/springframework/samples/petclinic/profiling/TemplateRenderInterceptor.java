@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.profiling;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.view.UrlBasedViewResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * {@link HandlerInterceptor} that measures view rendering as a
+ * {@link TemplateRenderEvent}. Rendering happens between {@code postHandle} and
+ * {@code afterCompletion}, so the event is started in the former and committed in the
+ * latter. Redirects and handlers without a view are ignored.
+ */
+public class TemplateRenderInterceptor implements HandlerInterceptor {
+
+	private static final String EVENT_ATTRIBUTE = TemplateRenderInterceptor.class.getName() + ".event";
+
+	@Override
+	public void postHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull Object handler, @Nullable ModelAndView modelAndView) {
+		if (modelAndView == null || !modelAndView.isReference()) {
+			return;
+		}
+		String view = modelAndView.getViewName();
+		if (view == null || view.startsWith(UrlBasedViewResolver.REDIRECT_URL_PREFIX)
+				|| view.startsWith(UrlBasedViewResolver.FORWARD_URL_PREFIX)) {
+			return;
+		}
+		TemplateRenderEvent event = new TemplateRenderEvent();
+		if (event.isEnabled()) {
+			event.view = view;
+			event.begin();
+			request.setAttribute(EVENT_ATTRIBUTE, event);
+		}
+	}
+
+	@Override
+	public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull Object handler, @Nullable Exception ex) {
+		if (request.getAttribute(EVENT_ATTRIBUTE) instanceof TemplateRenderEvent event) {
+			request.removeAttribute(EVENT_ATTRIBUTE);
+			event.commit();
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.samples.petclinic.model.ChangeLogEntry;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.resilience.StatementTimeout;
+
+/**
+ * Repository class for the <code>change_log</code> outbox. Only {@code ChangeFeedService}
+ * writes through here.
+ */
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+	/**
+	 * Retrieve the entries recorded after an offset, oldest first.
+	 * @param offset the id of the last entry already seen
+	 * @param limit the maximum number of entries to return
+	 * @return the entries
+	 */
+	List<ChangeLogEntry> findByIdGreaterThanOrderById(Long offset, Limit limit);
+
+	/**
+	 * Retrieve the entries about the given kinds of record recorded after an offset,
+	 * oldest first.
+	 * @param offset the id of the last entry already seen
+	 * @param subjects the kinds of record to include
+	 * @param limit the maximum number of entries to return
+	 * @return the entries
+	 */
+	@StatementTimeout("export")
+	List<ChangeLogEntry> findByIdGreaterThanAndSubjectInOrderById(Long offset, Collection<Subject> subjects,
+			Limit limit);
+
+	/**
+	 * Retrieve the most recent entries, newest first.
+	 * @param limit the maximum number of entries to return
+	 * @return the entries
+	 */
+	List<ChangeLogEntry> findByOrderByIdDesc(Limit limit);
+
+}
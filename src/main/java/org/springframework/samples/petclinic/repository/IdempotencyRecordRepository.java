@@ -0,0 +1,38 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.samples.petclinic.model.IdempotencyRecord;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository class for the <code>idempotency_keys</code> table, the durable side of
+ * {@code IdempotencyService}.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+	/**
+	 * Delete the responses stored before the given instant.
+	 * @param cutoff the oldest creation time to keep
+	 * @return the number of responses deleted
+	 */
+	@Transactional
+	long deleteByCreatedAtBefore(Instant cutoff);
+
+}
@@ -15,10 +15,20 @@
  */
 package org.springframework.samples.petclinic.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.resilience.ServeStale;
+import org.springframework.samples.petclinic.resilience.StatementTimeout;
 
 /**
  * Repository class for <code>Owner</code> domain objects. All method names are compliant
@@ -34,6 +44,16 @@ import org.springframework.samples.petclinic.model.Owner;
  */
 public interface OwnerRepository extends JpaRepository<Owner, Integer> {
 
+	/**
+	 * Retrieve an {@link Owner} with its pets. Answered from the last result while the
+	 * database is unavailable.
+	 * @param id the owner to look up
+	 * @return the owner, if found
+	 */
+	@Override
+	@ServeStale
+	Optional<Owner> findById(Integer id);
+
 	/**
 	 * Retrieve {@link Owner}s from the data store by last name, returning all owners
 	 * whose last name <i>starts</i> with the given name.
@@ -41,6 +61,105 @@ public interface OwnerRepository extends JpaRepository<Owner, Integer> {
 	 * @return a Collection of matching {@link Owner}s (or an empty Collection if none
 	 * found)
 	 */
+	@StatementTimeout("owner-search")
 	Page<Owner> findByLastNameStartingWith(String lastName, Pageable pageable);
 
+	/**
+	 * Retrieve the ids of the {@link Owner}s with exactly the given telephone number,
+	 * using the {@code owners_telephone} index.
+	 * @param telephone the ten digit number
+	 * @return the matching ids in ascending order
+	 */
+	@Query("SELECT o.id FROM Owner o WHERE o.telephone = :telephone ORDER BY o.id")
+	List<Integer> findIdsByTelephone(String telephone);
+
+	/**
+	 * Retrieve the ids of the {@link Owner}s that have no {@code owner_summary} row yet,
+	 * or a row written before the phonetic keys were added, one keyset page at a time.
+	 * @param after the last id of the previous page, {@code 0} for the first page
+	 * @param limit the page size
+	 * @return the ids in ascending order
+	 */
+	@Query("SELECT o.id FROM Owner o WHERE o.id > :after AND NOT EXISTS"
+			+ " (SELECT s.id FROM OwnerSummary s WHERE s.id = o.id AND s.lastNameMetaphone IS NOT NULL) ORDER BY o.id")
+	List<Integer> findIdsWithoutSummary(int after, Limit limit);
+
+	/**
+	 * Retrieve the {@link Pet}s of several owners with one query, for batched loading.
+	 * The pets' visits are not loaded.
+	 * @param ownerIds the owners to look up, must not be empty
+	 * @return one row per pet, ordered by pet name
+	 */
+	@Query("SELECT o.id AS ownerId, p AS pet FROM Owner o JOIN o.pets p LEFT JOIN FETCH p.type"
+			+ " WHERE o.id IN :ownerIds ORDER BY p.name")
+	List<OwnedPet> findPetsByOwnerIds(Collection<Integer> ownerIds);
+
+	/**
+	 * Retrieve the own columns of several {@link Owner}s, without their pets.
+	 * @param ids the owners to look up
+	 * @return the owners found, by id
+	 */
+	@Query("SELECT o.id AS id, o.firstName AS firstName, o.lastName AS lastName, o.address AS address,"
+			+ " o.city AS city, o.telephone AS telephone FROM Owner o WHERE o.id IN :ids ORDER BY o.id")
+	@StatementTimeout("export")
+	List<OwnerFields> findFieldsByIdIn(Collection<Integer> ids);
+
+	/**
+	 * Retrieve the own columns of several {@link Pet}s, with the ids of their owner and
+	 * type instead of the associations.
+	 * @param ids the pets to look up
+	 * @return the pets found, by id
+	 */
+	@Query("SELECT p.id AS id, o.id AS ownerId, p.name AS name, p.birthDate AS birthDate, t.id AS typeId"
+			+ " FROM Owner o JOIN o.pets p LEFT JOIN p.type t WHERE p.id IN :ids ORDER BY p.id")
+	@StatementTimeout("export")
+	List<PetFields> findPetFieldsByIdIn(Collection<Integer> ids);
+
+	/**
+	 * The columns of an owner.
+	 */
+	interface OwnerFields {
+
+		Integer getId();
+
+		String getFirstName();
+
+		String getLastName();
+
+		String getAddress();
+
+		String getCity();
+
+		String getTelephone();
+
+	}
+
+	/**
+	 * The columns of a pet, with its owner and type as ids.
+	 */
+	interface PetFields {
+
+		Integer getId();
+
+		Integer getOwnerId();
+
+		String getName();
+
+		LocalDate getBirthDate();
+
+		Integer getTypeId();
+
+	}
+
+	/**
+	 * A pet together with the id of its owner.
+	 */
+	interface OwnedPet {
+
+		Integer getOwnerId();
+
+		Pet getPet();
+
+	}
+
 }
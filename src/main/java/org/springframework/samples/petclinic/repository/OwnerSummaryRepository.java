@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.PhoneticKeys;
+import org.springframework.samples.petclinic.resilience.StatementTimeout;
+
+/**
+ * Repository class for the <code>owner_summary</code> read model. Only
+ * {@code OwnerSummaryService} writes through here.
+ */
+public interface OwnerSummaryRepository extends JpaRepository<OwnerSummary, Integer> {
+
+	/**
+	 * Retrieve the {@link OwnerSummary} rows in id order, one keyset page at a time.
+	 * @param id the last id of the previous page, {@code 0} for the first page
+	 * @param limit the page size
+	 * @return the rows with a greater id, in ascending order
+	 */
+	List<OwnerSummary> findByIdGreaterThanOrderById(int id, Limit limit);
+
+	/**
+	 * Retrieve {@link OwnerSummary} rows whose last name <i>starts</i> with the given
+	 * name.
+	 * @param lastName Value to search for
+	 * @param pageable the page to return
+	 * @return the matching page of summaries
+	 */
+	@StatementTimeout("owner-search")
+	Page<OwnerSummary> findByLastNameStartingWith(String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve {@link OwnerSummary} rows whose last name has the given Cologne phonetics
+	 * key.
+	 * @param key the key, see {@link PhoneticKeys#cologne(String)}
+	 * @param pageable the page to return
+	 * @return the matching page of summaries
+	 */
+	@StatementTimeout("owner-search")
+	Page<OwnerSummary> findByLastNameCologne(String key, Pageable pageable);
+
+	/**
+	 * Retrieve {@link OwnerSummary} rows whose last name has the given Double Metaphone
+	 * key.
+	 * @param key the key, see {@link PhoneticKeys#metaphone(String)}
+	 * @param pageable the page to return
+	 * @return the matching page of summaries
+	 */
+	@StatementTimeout("owner-search")
+	Page<OwnerSummary> findByLastNameMetaphone(String key, Pageable pageable);
+
+}
@@ -16,11 +16,16 @@
 
 package org.springframework.samples.petclinic.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.resilience.ServeStale;
+import org.springframework.samples.petclinic.resilience.StatementTimeout;
 
 /**
  * Repository class for <code>PetType</code> domain objects.
@@ -34,7 +39,50 @@ public interface PetTypeRepository extends JpaRepository<PetType, Integer> {
 	 * Retrieve all {@link PetType}s from the data store.
 	 * @return a Collection of {@link PetType}s.
 	 */
+	@Cacheable("petTypes")
+	@ServeStale
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
 	List<PetType> findPetTypes();
 
+	/**
+	 * Retrieve all {@link PetType}s from the data store, bypassing the cache. Used to
+	 * refresh the cache ahead of expiry.
+	 * @return a Collection of {@link PetType}s.
+	 */
+	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+	List<PetType> loadPetTypes();
+
+	@Override
+	@CacheEvict(cacheNames = "petTypes", allEntries = true)
+	<S extends PetType> S save(S petType);
+
+	@Override
+	@CacheEvict(cacheNames = "petTypes", allEntries = true)
+	void delete(PetType petType);
+
+	@Override
+	@CacheEvict(cacheNames = "petTypes", allEntries = true)
+	void deleteById(Integer id);
+
+	/**
+	 * Retrieve the columns of several {@link PetType}s.
+	 * @param ids the types to look up
+	 * @return the types found, by id
+	 */
+	@StatementTimeout("export")
+	List<PetTypeFields> findByIdInOrderById(Collection<Integer> ids);
+
+	/**
+	 * The columns of a pet type.
+	 */
+	interface PetTypeFields {
+
+		Integer getId();
+
+		String getName();
+
+		String getDescription();
+
+	}
+
 }
@@ -15,11 +15,15 @@
  */
 package org.springframework.samples.petclinic.repository;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.samples.petclinic.resilience.ServeStale;
+import org.springframework.samples.petclinic.resilience.StatementTimeout;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.samples.petclinic.model.Vet;
 
@@ -44,6 +48,8 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 */
 	@Transactional(readOnly = true)
 	@Cacheable("vets")
+	@ServeStale
+	@StatementTimeout("vets")
 	Collection<Vet> findAll() throws DataAccessException;
 
 	/**
@@ -54,12 +60,25 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 */
 	@Transactional(readOnly = true)
 	@Cacheable("vets")
+	@StatementTimeout("vets")
 	Page<Vet> findAll(Pageable pageable) throws DataAccessException;
 
+	/**
+	 * Retrieve all <code>Vet</code>s from the data store, bypassing the cache. Used to
+	 * refresh the cache ahead of expiry.
+	 * @return a <code>Collection</code> of <code>Vet</code>s
+	 */
+	@Transactional(readOnly = true)
+	@Query("SELECT vet FROM Vet vet")
+	@StatementTimeout("vets")
+	Collection<Vet> loadAll() throws DataAccessException;
+
+	@CacheEvict(cacheNames = "vets", allEntries = true)
 	Vet save(Vet vet) throws DataAccessException;
 
 	Vet findById(Integer id) throws DataAccessException;
 
+	@CacheEvict(cacheNames = "vets", allEntries = true)
 	void delete(Vet vet) throws DataAccessException;
 
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.resilience.ServeStale;
+import org.springframework.samples.petclinic.resilience.StatementTimeout;
+
+/**
+ * Repository class for <code>Visit</code> domain objects. Visit history is read through
+ * here rather than through {@code Pet#getVisits()}, newest first, so that the
+ * {@code (pet_id, visit_date)} index serves both the lookup and the ordering.
+ */
+public interface VisitRepository extends JpaRepository<Visit, Integer> {
+
+	/**
+	 * Retrieve the most recent {@link Visit}s of a pet.
+	 * @param petId the pet to look up
+	 * @param limit the maximum number of visits to return
+	 * @return the visits, newest first
+	 */
+	@ServeStale
+	List<Visit> findByPetIdOrderByDateDescIdDesc(Integer petId, Limit limit);
+
+	/**
+	 * Retrieve the most recent {@link Visit}s of several pets with one query, numbering
+	 * each pet's visits newest first and keeping the first few.
+	 * @param petIds the pets to look up, must not be empty
+	 * @param perPet the maximum number of visits to return per pet
+	 * @return the visits, newest first
+	 */
+	@ServeStale
+	@Query("SELECT v FROM Visit v WHERE v.id IN (SELECT r.id FROM (SELECT w.id AS id, ROW_NUMBER() OVER"
+			+ " (PARTITION BY w.petId ORDER BY w.date DESC, w.id DESC) AS n FROM Visit w WHERE w.petId IN :petIds) r"
+			+ " WHERE r.n <= :perPet) ORDER BY v.date DESC, v.id DESC")
+	List<Visit> findRecentByPetIds(Collection<Integer> petIds, int perPet);
+
+	/**
+	 * Retrieve one page of the visit history of a pet.
+	 * @param petId the pet to look up
+	 * @param pageable the page to return
+	 * @return the page of visits, newest first
+	 */
+	Page<Visit> findByPetIdOrderByDateDescIdDesc(Integer petId, Pageable pageable);
+
+	/**
+	 * Retrieve the {@link Visit}s of several pets with one query, for batched loading.
+	 * @param petIds the pets to look up, must not be empty
+	 * @return the visits, newest first
+	 */
+	List<Visit> findByPetIdInOrderByDateDescIdDesc(Collection<Integer> petIds);
+
+	/**
+	 * Retrieve the columns of several {@link Visit}s.
+	 * @param ids the visits to look up
+	 * @return the visits found, by id
+	 */
+	@StatementTimeout("export")
+	List<VisitFields> findByIdInOrderById(Collection<Integer> ids);
+
+	/**
+	 * Count the visits of the given pets and find their latest visit date.
+	 * @param petIds the pets to look up, must not be empty
+	 * @return one row per pet that has visits
+	 */
+	@Query("SELECT v.petId AS petId, COUNT(v) AS total, MAX(v.date) AS lastDate FROM Visit v"
+			+ " WHERE v.petId IN :petIds GROUP BY v.petId")
+	List<VisitStats> findStatsByPetIds(Collection<Integer> petIds);
+
+	/**
+	 * The columns of a visit.
+	 */
+	interface VisitFields {
+
+		Integer getId();
+
+		Integer getPetId();
+
+		LocalDate getDate();
+
+		String getDescription();
+
+	}
+
+	/**
+	 * Visit count and latest visit date of one pet.
+	 */
+	interface VisitStats {
+
+		Integer getPetId();
+
+		long getTotal();
+
+		LocalDate getLastDate();
+
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker for the database. After {@code failureThreshold} consecutive calls
+ * failed because the database was unavailable it opens, and calls are refused without
+ * trying the database for {@code openDuration}. The first call after that is let through
+ * as a probe: if it succeeds the breaker closes, if it fails it opens again. While the
+ * probe runs, other calls are refused.
+ */
+public class CircuitBreaker {
+
+	/**
+	 * The states of a breaker.
+	 */
+	public enum State {
+
+		/** Calls go through. */
+		CLOSED,
+
+		/** Calls are refused. */
+		OPEN,
+
+		/** One probe call is let through. */
+		HALF_OPEN
+
+	}
+
+	private final int failureThreshold;
+
+	private final Duration openDuration;
+
+	private final Clock clock;
+
+	private State state = State.CLOSED;
+
+	private int failures;
+
+	private Instant openUntil = Instant.MIN;
+
+	private boolean probing;
+
+	public CircuitBreaker(int failureThreshold, Duration openDuration) {
+		this(failureThreshold, openDuration, Clock.systemUTC());
+	}
+
+	CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+		this.clock = clock;
+	}
+
+	/**
+	 * Ask whether a call may try the database. Every permitted call must be followed by
+	 * {@link #onSuccess()} or {@link #onFailure()}.
+	 * @return whether the call may go ahead
+	 */
+	public synchronized boolean tryAcquire() {
+		if (this.state == State.CLOSED) {
+			return true;
+		}
+		if (this.state == State.OPEN && this.clock.instant().isBefore(this.openUntil)) {
+			return false;
+		}
+		if (this.probing) {
+			return false;
+		}
+		this.state = State.HALF_OPEN;
+		this.probing = true;
+		return true;
+	}
+
+	/**
+	 * Record a call that reached the database.
+	 */
+	public synchronized void onSuccess() {
+		this.failures = 0;
+		this.probing = false;
+		this.state = State.CLOSED;
+	}
+
+	/**
+	 * Record a call that failed because the database was unavailable.
+	 */
+	public synchronized void onFailure() {
+		this.failures++;
+		if (this.state == State.HALF_OPEN || this.failures >= this.failureThreshold) {
+			this.state = State.OPEN;
+			this.openUntil = this.clock.instant().plus(this.openDuration);
+			this.probing = false;
+		}
+	}
+
+	/**
+	 * @return the current state
+	 */
+	public synchronized State getState() {
+		return this.state;
+	}
+
+	/**
+	 * @return whether calls are refused until the open duration has passed
+	 */
+	public synchronized boolean isOpen() {
+		return this.state == State.OPEN && this.clock.instant().isBefore(this.openUntil);
+	}
+
+	/**
+	 * @return how long the breaker stays open, zero if it is not open
+	 */
+	public synchronized Duration remainingOpen() {
+		return isOpen() ? Duration.between(this.clock.instant(), this.openUntil) : Duration.ZERO;
+	}
+
+}
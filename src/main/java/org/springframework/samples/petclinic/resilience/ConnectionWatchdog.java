@@ -0,0 +1,254 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps track of the connections handed out by the {@link GuardedDataSource} and every
+ * {@code interval} reports the ones held, or in a transaction, for longer than
+ * {@code threshold}. A report is logged as a warning together with the current stack of
+ * the thread holding the connection, which is where it is stuck, and each holder is
+ * reported once per kind.
+ */
+public class ConnectionWatchdog {
+
+	private static final Log logger = LogFactory.getLog(ConnectionWatchdog.class);
+
+	private final Set<Holder> holders = ConcurrentHashMap.newKeySet();
+
+	private final Duration threshold;
+
+	private final Duration interval;
+
+	private final LongAdder connectionReports = new LongAdder();
+
+	private final LongAdder transactionReports = new LongAdder();
+
+	private ScheduledExecutorService scanner;
+
+	public ConnectionWatchdog(Duration threshold, Duration interval) {
+		this.threshold = threshold;
+		this.interval = interval;
+	}
+
+	@PostConstruct
+	void start() {
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("connection-watchdog-");
+		threads.setDaemon(true);
+		this.scanner = Executors.newSingleThreadScheduledExecutor(threads);
+		this.scanner.scheduleWithFixedDelay(this::scanQuietly, this.interval.toMillis(), this.interval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void stop() {
+		this.scanner.shutdownNow();
+	}
+
+	/**
+	 * Find the connections held, or in a transaction, for longer than the threshold that
+	 * were not reported yet, and log them.
+	 * @return the new reports
+	 */
+	public List<Report> scan() {
+		long now = System.nanoTime();
+		long threshold = this.threshold.toNanos();
+		List<Report> reports = new ArrayList<>();
+		for (Holder holder : this.holders) {
+			Kind kind = holder.overdue(now, threshold);
+			if (kind == null || !holder.reported.add(kind)) {
+				continue;
+			}
+			long since = (kind == Kind.TRANSACTION) ? holder.transactionStart : holder.checkedOut;
+			Report report = new Report(kind, holder.thread.getName(), Duration.ofNanos(now - since),
+					holder.thread.getStackTrace());
+			((kind == Kind.TRANSACTION) ? this.transactionReports : this.connectionReports).increment();
+			log(report);
+			reports.add(report);
+		}
+		return reports;
+	}
+
+	/**
+	 * @return the connections currently held for longer than the threshold
+	 */
+	public int longHeldConnections() {
+		return count(Kind.CONNECTION);
+	}
+
+	/**
+	 * @return the transactions currently open for longer than the threshold
+	 */
+	public int longRunningTransactions() {
+		return count(Kind.TRANSACTION);
+	}
+
+	/**
+	 * @return the connections reported as held too long so far
+	 */
+	public long connectionReports() {
+		return this.connectionReports.sum();
+	}
+
+	/**
+	 * @return the transactions reported as running too long so far
+	 */
+	public long transactionReports() {
+		return this.transactionReports.sum();
+	}
+
+	Holder checkedOut(boolean autoCommit) {
+		Holder holder = new Holder(Thread.currentThread(), System.nanoTime(), autoCommit);
+		this.holders.add(holder);
+		return holder;
+	}
+
+	void returned(Holder holder) {
+		this.holders.remove(holder);
+	}
+
+	private int count(Kind kind) {
+		long now = System.nanoTime();
+		long threshold = this.threshold.toNanos();
+		int count = 0;
+		for (Holder holder : this.holders) {
+			Kind overdue = holder.overdue(now, threshold);
+			if (overdue == kind || (kind == Kind.CONNECTION && overdue == Kind.TRANSACTION)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void scanQuietly() {
+		try {
+			scan();
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Could not scan the held connections", ex);
+		}
+	}
+
+	private static void log(Report report) {
+		Exception stack = new Exception("Stack of " + report.thread());
+		stack.setStackTrace(report.stack());
+		String what = (report.kind() == Kind.TRANSACTION) ? "Transaction open" : "Connection held";
+		logger.warn(what + " for " + report.held().toMillis() + " ms by thread " + report.thread(), stack);
+	}
+
+	/**
+	 * What a {@link Report} is about.
+	 */
+	public enum Kind {
+
+		/** A connection checked out of the pool. */
+		CONNECTION,
+
+		/** A transaction open on a connection. */
+		TRANSACTION
+
+	}
+
+	/**
+	 * A connection or transaction held for longer than the threshold.
+	 *
+	 * @param kind whether the connection or its transaction is held too long
+	 * @param thread the name of the holding thread
+	 * @param held how long it has been held
+	 * @param stack the stack of the holding thread when it was found
+	 */
+	public record Report(Kind kind, String thread, Duration held, StackTraceElement[] stack) {
+	}
+
+	/**
+	 * A connection handed out, updated by its holder and read by the watchdog. A
+	 * transaction starts when auto-commit is turned off, or with the first statement
+	 * after a commit or rollback, and ends with the next commit or rollback.
+	 */
+	static final class Holder {
+
+		private final Thread thread;
+
+		private final long checkedOut;
+
+		private volatile boolean autoCommit;
+
+		private volatile boolean inTransaction;
+
+		private volatile long transactionStart;
+
+		private final Set<Kind> reported = EnumSet.noneOf(Kind.class);
+
+		private Holder(Thread thread, long checkedOut, boolean autoCommit) {
+			this.thread = thread;
+			this.checkedOut = checkedOut;
+			this.autoCommit = autoCommit;
+		}
+
+		void autoCommit(boolean autoCommit) {
+			this.autoCommit = autoCommit;
+			if (autoCommit) {
+				this.inTransaction = false;
+			}
+			else {
+				begin();
+			}
+		}
+
+		void executing() {
+			if (!this.autoCommit) {
+				begin();
+			}
+		}
+
+		void ended() {
+			this.inTransaction = false;
+		}
+
+		private void begin() {
+			if (!this.inTransaction) {
+				this.transactionStart = System.nanoTime();
+				this.inTransaction = true;
+			}
+		}
+
+		private Kind overdue(long now, long threshold) {
+			if (this.inTransaction && now - this.transactionStart > threshold) {
+				return Kind.TRANSACTION;
+			}
+			return (now - this.checkedOut > threshold) ? Kind.CONNECTION : null;
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.samples.petclinic.concurrency.ConcurrencyLimitFilter;
+import org.springframework.samples.petclinic.resilience.CircuitBreaker.State;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.view.UrlBasedViewResolver;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps the application usable in read-only mode while the database is unavailable. While
+ * the {@link CircuitBreaker} is open, controller requests that would change data are
+ * refused with 503 and a {@code Retry-After} header before they reach the controller.
+ * Pages rendered while the breaker is not closed, or that showed a stale result, get the
+ * {@code degraded} model attribute, which makes the layout show a banner.
+ */
+class DegradedModeInterceptor implements HandlerInterceptor {
+
+	private static final String STALE_ATTRIBUTE = DegradedModeInterceptor.class.getName() + ".stale";
+
+	private final CircuitBreaker breaker;
+
+	DegradedModeInterceptor(CircuitBreaker breaker) {
+		this.breaker = breaker;
+	}
+
+	/**
+	 * Mark the current request, if any, as showing a stale result.
+	 */
+	static void markStale() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			attributes.setAttribute(STALE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+		}
+	}
+
+	/**
+	 * Mark the current request, if any, as refused by the open circuit breaker.
+	 */
+	static void markRefused() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			attributes.setAttribute(ConcurrencyLimitFilter.REFUSED_ATTRIBUTE, Boolean.TRUE,
+					RequestAttributes.SCOPE_REQUEST);
+		}
+	}
+
+	@Override
+	public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull Object handler) throws IOException {
+		if (!(handler instanceof HandlerMethod) || isSafe(request.getMethod()) || !this.breaker.isOpen()) {
+			return true;
+		}
+		ConcurrencyLimitFilter.markRefused(request);
+		long seconds = Math.max(1, (this.breaker.remainingOpen().toMillis() + 999) / 1000);
+		response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+		response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+				"The database is unavailable, changes are not possible right now");
+		return false;
+	}
+
+	@Override
+	public void postHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull Object handler, @Nullable ModelAndView modelAndView) {
+		if (modelAndView == null || !modelAndView.isReference()) {
+			return;
+		}
+		String view = modelAndView.getViewName();
+		if (view == null || view.startsWith(UrlBasedViewResolver.REDIRECT_URL_PREFIX)) {
+			return;
+		}
+		if (this.breaker.getState() != State.CLOSED || request.getAttribute(STALE_ATTRIBUTE) != null) {
+			modelAndView.addObject("degraded", true);
+		}
+	}
+
+	private static boolean isSafe(String method) {
+		return HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method);
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.samples.petclinic.resilience.ConnectionWatchdog.Holder;
+
+/**
+ * Wraps the application {@link DataSource} to bound every statement by the
+ * {@link StatementDeadline} of the thread running it, and to tell the
+ * {@link ConnectionWatchdog} who holds which connection.
+ * <p>
+ * The time left is set as the JDBC query timeout right before the statement runs, so the
+ * driver cancels it on the database; a statement started with no time left fails at once
+ * with a {@link SQLTimeoutException}.
+ * <p>
+ * Closing this data source closes the one it wraps, and with it the pools underneath.
+ */
+class GuardedDataSource extends DelegatingDataSource implements Closeable {
+
+	private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+			"executeBatch", "executeLargeBatch");
+
+	private final ConnectionWatchdog watchdog;
+
+	GuardedDataSource(DataSource target, ConnectionWatchdog watchdog) {
+		super(target);
+		this.watchdog = watchdog;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return wrap(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return wrap(super.getConnection(username, password));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (obtainTargetDataSource() instanceof Closeable closeable) {
+			closeable.close();
+		}
+	}
+
+	private Connection wrap(Connection connection) throws SQLException {
+		Holder holder = this.watchdog.checkedOut(connection.getAutoCommit());
+		return proxy(Connection.class, connection, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "close" -> this.watchdog.returned(holder);
+				case "setAutoCommit" -> holder.autoCommit((Boolean) args[0]);
+				case "commit" -> holder.ended();
+				case "rollback" -> {
+					if (args == null) {
+						holder.ended();
+					}
+				}
+				default -> {
+				}
+			}
+			Object result = invoke(connection, method, args);
+			if (result instanceof CallableStatement callable) {
+				return statement(CallableStatement.class, callable, holder);
+			}
+			if (result instanceof PreparedStatement prepared) {
+				return statement(PreparedStatement.class, prepared, holder);
+			}
+			if (result instanceof Statement statement) {
+				return statement(Statement.class, statement, holder);
+			}
+			return result;
+		});
+	}
+
+	private <S extends Statement> S statement(Class<S> type, S statement, Holder holder) {
+		return proxy(type, statement, (proxy, method, args) -> {
+			if (EXECUTE.contains(method.getName())) {
+				holder.executing();
+				applyDeadline(statement);
+			}
+			return invoke(statement, method, args);
+		});
+	}
+
+	private static void applyDeadline(Statement statement) throws SQLException {
+		StatementDeadline deadline = StatementDeadline.get();
+		if (deadline == null) {
+			return;
+		}
+		long remaining = deadline.remainingNanos();
+		if (remaining <= 0) {
+			throw new SQLTimeoutException("Statement budget '" + deadline.budget() + "' exhausted", "57014");
+		}
+		// whole seconds, rounded up: the driver cancels no earlier than the deadline
+		int seconds = (int) Math.max(1, (remaining + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+		int current = statement.getQueryTimeout();
+		if (current == 0 || seconds < current) {
+			statement.setQueryTimeout(seconds);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(GuardedDataSource.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> switch (method.getName()) {
+					case "equals" -> proxy == args[0];
+					case "hashCode" -> System.identityHashCode(proxy);
+					default -> handler.invoke(proxy, method, args);
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.lang.reflect.Method;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.lang.NonNull;
+import org.springframework.samples.petclinic.resilience.StaleResults.Snapshot;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Guards the calls to a repository with the database {@link CircuitBreaker}. A call that
+ * finds the database unavailable, or is refused by the open breaker, falls back on the
+ * {@link StaleResults} if its method is marked {@link ServeStale}, and marks the request
+ * as degraded. Without a stale result it fails with a
+ * {@link DatabaseUnavailableException}.
+ */
+class RepositoryCircuitBreakerInterceptor implements MethodInterceptor {
+
+	private final CircuitBreaker breaker;
+
+	private final StaleResults stale;
+
+	RepositoryCircuitBreakerInterceptor(CircuitBreaker breaker, StaleResults stale) {
+		this.breaker = breaker;
+		this.stale = stale;
+	}
+
+	@Override
+	public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+		Method method = invocation.getMethod();
+		boolean serveStale = method.isAnnotationPresent(ServeStale.class);
+		if (!this.breaker.tryAcquire()) {
+			DegradedModeInterceptor.markRefused();
+			return fallBack(invocation, serveStale,
+					new DatabaseUnavailableException("Database circuit breaker is open"));
+		}
+		Object result;
+		try {
+			result = invocation.proceed();
+		}
+		catch (Throwable ex) {
+			if (!isUnavailable(ex)) {
+				this.breaker.onSuccess();
+				throw ex;
+			}
+			this.breaker.onFailure();
+			return fallBack(invocation, serveStale, new DatabaseUnavailableException("Database is unavailable", ex));
+		}
+		this.breaker.onSuccess();
+		if (serveStale) {
+			this.stale.put(method, invocation.getArguments(), result);
+		}
+		return result;
+	}
+
+	private Object fallBack(MethodInvocation invocation, boolean serveStale, DatabaseUnavailableException ex) {
+		Snapshot snapshot = serveStale ? this.stale.find(invocation.getMethod(), invocation.getArguments()) : null;
+		if (snapshot == null) {
+			throw ex;
+		}
+		DegradedModeInterceptor.markStale();
+		return snapshot.result();
+	}
+
+	private static boolean isUnavailable(Throwable ex) {
+		if (ex instanceof StatementBudgetExceededException) {
+			return false;
+		}
+		return ex instanceof DataAccessResourceFailureException || ex instanceof TransientDataAccessResourceException
+				|| ex instanceof QueryTimeoutException || ex instanceof CannotCreateTransactionException;
+	}
+
+}
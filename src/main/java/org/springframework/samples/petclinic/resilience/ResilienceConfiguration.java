@@ -0,0 +1,184 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.data.repository.Repository;
+import org.springframework.lang.NonNull;
+import org.springframework.samples.petclinic.resilience.CircuitBreaker.State;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Read-only mode while the database is unavailable, for example during a failover. Every
+ * Spring Data {@link Repository} is wrapped with a
+ * {@link RepositoryCircuitBreakerInterceptor}, so that after
+ * {@code petclinic.resilience.failure-threshold} failed calls the database is left alone
+ * for {@code petclinic.resilience.open-duration}, reads marked {@link ServeStale} are
+ * answered from the {@link StaleResults} and writes are refused by the
+ * {@link DegradedModeInterceptor}.
+ * <p>
+ * The state of the breaker is exported as the gauge {@code petclinic.database.circuit} (0
+ * closed, 1 open, 2 half open) and the stale results served as the counter
+ * {@code petclinic.database.stale.served}.
+ * <p>
+ * Write units of the controllers run through the {@link TransientRetry}, configured with
+ * {@code petclinic.resilience.retry.max-attempts}, {@code .initial-backoff},
+ * {@code .max-backoff} and {@code .budget}.
+ * <p>
+ * Repository methods marked {@link StatementTimeout} run their statements within the
+ * budget named {@code petclinic.resilience.statement-timeout.<name>}, enforced as JDBC
+ * query timeouts by the {@link GuardedDataSource} around the application data source. The
+ * {@link ConnectionWatchdog} logs the connections held, or in a transaction, for longer
+ * than {@code petclinic.resilience.watchdog.threshold}, checking every
+ * {@code petclinic.resilience.watchdog.interval}. The gauge
+ * {@code petclinic.database.held.too.long} counts them and the counter
+ * {@code petclinic.database.held.too.long.reported} the reports, both tagged {@code kind}
+ * ({@code connection} or {@code transaction}).
+ */
+@Configuration(proxyBeanMethods = false)
+class ResilienceConfiguration {
+
+	@Bean
+	CircuitBreaker databaseCircuitBreaker(@Value("${petclinic.resilience.failure-threshold:5}") int failureThreshold,
+			@Value("${petclinic.resilience.open-duration:PT10S}") Duration openDuration) {
+		return new CircuitBreaker(failureThreshold, openDuration);
+	}
+
+	@Bean
+	StaleResults staleResults(@Value("${petclinic.resilience.stale-entries:10000}") int maxEntries,
+			@Value("${petclinic.resilience.stale-refresh:PT5S}") Duration refreshInterval) {
+		return new StaleResults(maxEntries, refreshInterval);
+	}
+
+	@Bean
+	TransientRetry transientRetry(PlatformTransactionManager transactionManager, MeterRegistry registry,
+			@Value("${petclinic.resilience.retry.max-attempts:4}") int maxAttempts,
+			@Value("${petclinic.resilience.retry.initial-backoff:PT0.02S}") Duration initialBackoff,
+			@Value("${petclinic.resilience.retry.max-backoff:PT0.5S}") Duration maxBackoff,
+			@Value("${petclinic.resilience.retry.budget:PT2S}") Duration budget) {
+		return new TransientRetry(transactionManager, registry, maxAttempts, initialBackoff, maxBackoff, budget);
+	}
+
+	@Bean
+	ConnectionWatchdog connectionWatchdog(@Value("${petclinic.resilience.watchdog.threshold:PT10S}") Duration threshold,
+			@Value("${petclinic.resilience.watchdog.interval:PT5S}") Duration interval) {
+		return new ConnectionWatchdog(threshold, interval);
+	}
+
+	@Bean
+	static GuardingPostProcessor guardedDataSourcePostProcessor(ObjectProvider<ConnectionWatchdog> watchdog) {
+		return new GuardingPostProcessor(watchdog);
+	}
+
+	@Bean
+	static BeanPostProcessor repositoryCircuitBreakerPostProcessor(ObjectProvider<CircuitBreaker> breaker,
+			ObjectProvider<StaleResults> stale, Environment environment) {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+				if (!(bean instanceof Repository<?, ?>)) {
+					return bean;
+				}
+				ProxyFactory proxyFactory = new ProxyFactory(bean);
+				proxyFactory.addAdvice(new RepositoryCircuitBreakerInterceptor(breaker.getObject(), stale.getObject()));
+				proxyFactory.addAdvice(new StatementTimeoutInterceptor(environment));
+				return proxyFactory.getProxy(bean.getClass().getClassLoader());
+			}
+
+		};
+	}
+
+	@Bean
+	MappedInterceptor degradedModeInterceptor(CircuitBreaker breaker) {
+		return new MappedInterceptor(null, new DegradedModeInterceptor(breaker));
+	}
+
+	@Bean
+	MeterBinder resilienceMetrics(CircuitBreaker breaker, StaleResults stale, ConnectionWatchdog watchdog) {
+		return registry -> {
+			Gauge.builder("petclinic.database.circuit", breaker, ResilienceConfiguration::stateValue)
+				.description("State of the database circuit breaker: 0 closed, 1 open, 2 half open")
+				.register(registry);
+			FunctionCounter.builder("petclinic.database.stale.served", stale, StaleResults::served)
+				.description("Repository reads answered with a stale result")
+				.register(registry);
+			Gauge.builder("petclinic.database.held.too.long", watchdog, ConnectionWatchdog::longHeldConnections)
+				.description("Connections held, or in a transaction, for longer than the watchdog threshold")
+				.tag("kind", "connection")
+				.register(registry);
+			Gauge.builder("petclinic.database.held.too.long", watchdog, ConnectionWatchdog::longRunningTransactions)
+				.description("Connections held, or in a transaction, for longer than the watchdog threshold")
+				.tag("kind", "transaction")
+				.register(registry);
+			FunctionCounter
+				.builder("petclinic.database.held.too.long.reported", watchdog, ConnectionWatchdog::connectionReports)
+				.description("Connections reported by the watchdog")
+				.tag("kind", "connection")
+				.register(registry);
+			FunctionCounter
+				.builder("petclinic.database.held.too.long.reported", watchdog, ConnectionWatchdog::transactionReports)
+				.description("Connections reported by the watchdog")
+				.tag("kind", "transaction")
+				.register(registry);
+		};
+	}
+
+	private static double stateValue(CircuitBreaker breaker) {
+		State state = breaker.getState();
+		return (state == State.CLOSED) ? 0 : (state == State.OPEN) ? 1 : 2;
+	}
+
+	/**
+	 * Wraps the application data source in a {@link GuardedDataSource}. Ordered after the
+	 * bulkhead partitioning, so it guards the partitions too, and before the unordered
+	 * post-processors, so that their delays count against the budgets.
+	 */
+	record GuardingPostProcessor(ObjectProvider<ConnectionWatchdog> watchdog) implements BeanPostProcessor, Ordered {
+
+		@Override
+		public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+			if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+				return new GuardedDataSource(dataSource, this.watchdog.getObject());
+			}
+			return bean;
+		}
+
+		@Override
+		public int getOrder() {
+			return Ordered.LOWEST_PRECEDENCE;
+		}
+
+	}
+
+}
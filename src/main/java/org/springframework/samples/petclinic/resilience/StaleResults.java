@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.SerializationUtils;
+
+/**
+ * The last good results of the {@link ServeStale} repository reads. Results are kept as
+ * copies, so that changes made to the returned entities afterwards do not leak in, and
+ * every stale read gets a copy of its own. A result is copied again at most every
+ * {@code refreshInterval}; beyond {@code maxEntries} the least recently used results are
+ * dropped.
+ */
+public class StaleResults {
+
+	private final long refreshNanos;
+
+	private final Map<Key, Snapshot> snapshots;
+
+	private final LongAdder served = new LongAdder();
+
+	public StaleResults(int maxEntries, Duration refreshInterval) {
+		this.refreshNanos = refreshInterval.toNanos();
+		this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Snapshot> eldest) {
+				return size() > maxEntries;
+			}
+
+		};
+	}
+
+	/**
+	 * Keep a result of a read, unless it cannot be copied or was kept only recently.
+	 * @param method the repository method
+	 * @param args its arguments
+	 * @param result what it returned
+	 */
+	public void put(Method method, Object[] args, @Nullable Object result) {
+		Key key = new Key(method, Arrays.asList(args.clone()));
+		long now = System.nanoTime();
+		synchronized (this.snapshots) {
+			Snapshot previous = this.snapshots.get(key);
+			if (previous != null && now - previous.storedAt() < this.refreshNanos) {
+				return;
+			}
+		}
+		boolean optional = result instanceof Optional<?>;
+		Object value = optional ? ((Optional<?>) result).orElse(null) : result;
+		if (value != null && !(value instanceof Serializable)) {
+			return;
+		}
+		Snapshot snapshot = new Snapshot(copy(value), optional, now);
+		synchronized (this.snapshots) {
+			this.snapshots.put(key, snapshot);
+		}
+	}
+
+	/**
+	 * Find the last good result of a read.
+	 * @param method the repository method
+	 * @param args its arguments
+	 * @return a copy of the result, or {@code null} if there is none
+	 */
+	@Nullable
+	public Snapshot find(Method method, Object[] args) {
+		Snapshot snapshot;
+		synchronized (this.snapshots) {
+			snapshot = this.snapshots.get(new Key(method, Arrays.asList(args)));
+		}
+		if (snapshot != null) {
+			this.served.increment();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @return the number of stale results served
+	 */
+	public long served() {
+		return this.served.sum();
+	}
+
+	/**
+	 * @return the number of results kept
+	 */
+	public int size() {
+		synchronized (this.snapshots) {
+			return this.snapshots.size();
+		}
+	}
+
+	@Nullable
+	private static Object copy(@Nullable Object value) {
+		return value == null ? null : SerializationUtils.clone((Serializable) value);
+	}
+
+	private record Key(Method method, List<Object> args) {
+	}
+
+	/**
+	 * A kept result.
+	 *
+	 * @param value the copy of the result, without its {@link Optional} wrapper
+	 * @param optional whether the result was an {@link Optional}
+	 * @param storedAt when it was kept, in {@link System#nanoTime()}
+	 */
+	public record Snapshot(@Nullable Object value, boolean optional, long storedAt) {
+
+		/**
+		 * @return a fresh copy of the result
+		 */
+		@Nullable
+		public Object result() {
+			Object copy = copy(this.value);
+			return this.optional ? Optional.ofNullable(copy) : copy;
+		}
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.time.Duration;
+
+/**
+ * The point in time by which the statements of the current thread must be done, set by
+ * the {@link StatementTimeoutInterceptor} and applied by the {@link GuardedDataSource}.
+ *
+ * @param budget the name of the {@link StatementTimeout} budget
+ * @param deadlineNanos the deadline in {@link System#nanoTime()} terms
+ */
+record StatementDeadline(String budget, long deadlineNanos) {
+
+	private static final ThreadLocal<StatementDeadline> current = new ThreadLocal<>();
+
+	/**
+	 * Bound the statements of the current thread until {@link #restore} is called. A
+	 * deadline already in place is only ever brought forward.
+	 * @param budget the name of the budget
+	 * @param timeout the time the statements may take from now on
+	 * @return the deadline in place before, for {@link #restore}
+	 */
+	static StatementDeadline enter(String budget, Duration timeout) {
+		StatementDeadline previous = current.get();
+		StatementDeadline next = new StatementDeadline(budget, System.nanoTime() + timeout.toNanos());
+		if (previous == null || next.deadlineNanos - previous.deadlineNanos < 0) {
+			current.set(next);
+		}
+		return previous;
+	}
+
+	/**
+	 * Undo {@link #enter}.
+	 * @param previous what {@link #enter} returned
+	 */
+	static void restore(StatementDeadline previous) {
+		if (previous == null) {
+			current.remove();
+		}
+		else {
+			current.set(previous);
+		}
+	}
+
+	/**
+	 * @return the deadline of the current thread, or {@code null} if it has none
+	 */
+	static StatementDeadline get() {
+		return current.get();
+	}
+
+	/**
+	 * @return the time left, negative once the deadline has passed
+	 */
+	long remainingNanos() {
+		return this.deadlineNanos - System.nanoTime();
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.lang.NonNull;
+
+/**
+ * Runs the repository methods marked {@link StatementTimeout} under a
+ * {@link StatementDeadline}, and turns the timeout of a call that ran out of its budget
+ * into a {@link StatementBudgetExceededException}.
+ */
+class StatementTimeoutInterceptor implements MethodInterceptor {
+
+	static final String PREFIX = "petclinic.resilience.statement-timeout.";
+
+	private final PropertyResolver properties;
+
+	private final Map<Method, Optional<Budget>> budgets = new ConcurrentHashMap<>();
+
+	StatementTimeoutInterceptor(PropertyResolver properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+		Budget budget = this.budgets.computeIfAbsent(invocation.getMethod(), this::budget).orElse(null);
+		if (budget == null) {
+			return invocation.proceed();
+		}
+		StatementDeadline previous = StatementDeadline.enter(budget.name(), budget.timeout());
+		StatementDeadline deadline = StatementDeadline.get();
+		try {
+			return invocation.proceed();
+		}
+		catch (RuntimeException ex) {
+			if (!(ex instanceof StatementBudgetExceededException) && deadline.remainingNanos() <= 0 && isTimeout(ex)) {
+				throw new StatementBudgetExceededException("Statement budget '" + deadline.budget() + "' exceeded by "
+						+ invocation.getMethod().getDeclaringClass().getSimpleName() + "."
+						+ invocation.getMethod().getName(), ex);
+			}
+			throw ex;
+		}
+		finally {
+			StatementDeadline.restore(previous);
+		}
+	}
+
+	private Optional<Budget> budget(Method method) {
+		StatementTimeout annotation = method.getAnnotation(StatementTimeout.class);
+		if (annotation == null) {
+			return Optional.empty();
+		}
+		Duration timeout = this.properties.getRequiredProperty(PREFIX + annotation.value(), Duration.class);
+		return Optional.of(new Budget(annotation.value(), timeout));
+	}
+
+	private static boolean isTimeout(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof QueryTimeoutException || cause instanceof jakarta.persistence.QueryTimeoutException
+					|| cause instanceof SQLTimeoutException) {
+				return true;
+			}
+			if (cause instanceof SQLException sql && "57014".equals(sql.getSQLState())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private record Budget(String name, Duration timeout) {
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.resilience;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs a write unit in a transaction of its own and runs it again when the database
+ * rolled it back for a transient reason: a deadlock, a serialization failure, a lock that
+ * could not be had, or a connection that failed before the unit was done. Attempts are
+ * spaced by an exponential backoff with full jitter and stop after {@code maxAttempts} or
+ * when the next attempt would end past the {@code budget}.
+ * <p>
+ * A unit must be safe to run again after a rollback. Everything it changes in memory has
+ * to be reset at its start or deferred until after commit. A connection that fails while
+ * committing leaves the outcome unknown, so that is never retried.
+ * <p>
+ * Retries and units given up are counted in {@code petclinic.write.retries} and
+ * {@code petclinic.write.giveups}, tagged {@code unit}.
+ */
+public class TransientRetry {
+
+	private static final Log logger = LogFactory.getLog(TransientRetry.class);
+
+	/**
+	 * SQL states of a transaction the database rolled back and that may succeed when run
+	 * again: serialization failure and deadlock (MySQL, H2), deadlock and lock not
+	 * available (PostgreSQL).
+	 */
+	private static final Set<String> ROLLED_BACK = Set.of("40001", "40P01", "55P03");
+
+	/** MySQL's lock wait timeout, reported with the generic SQL state {@code HY000}. */
+	private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+	private final TransactionTemplate transactions;
+
+	private final MeterRegistry registry;
+
+	private final int maxAttempts;
+
+	private final long initialBackoffNanos;
+
+	private final long maxBackoffNanos;
+
+	private final long budgetNanos;
+
+	public TransientRetry(PlatformTransactionManager transactionManager, MeterRegistry registry, int maxAttempts,
+			Duration initialBackoff, Duration maxBackoff, Duration budget) {
+		this.transactions = new TransactionTemplate(transactionManager);
+		this.registry = registry;
+		this.maxAttempts = maxAttempts;
+		this.initialBackoffNanos = initialBackoff.toNanos();
+		this.maxBackoffNanos = maxBackoff.toNanos();
+		this.budgetNanos = budget.toNanos();
+	}
+
+	/**
+	 * Run a write unit, retrying transient failures. Inside a running transaction the
+	 * unit joins it and is not retried, as the failure spoils the whole transaction.
+	 * @param unit the name of the unit, for metrics and logs
+	 * @param work the unit
+	 */
+	public void run(String unit, Runnable work) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			work.run();
+			return;
+		}
+		long start = System.nanoTime();
+		for (int attempt = 1;; attempt++) {
+			AtomicBoolean done = new AtomicBoolean();
+			try {
+				this.transactions.executeWithoutResult(status -> {
+					work.run();
+					done.set(true);
+				});
+				return;
+			}
+			catch (RuntimeException ex) {
+				if (!isTransient(ex, done.get())) {
+					throw ex;
+				}
+				long backoff = backoff(attempt);
+				if (attempt >= this.maxAttempts || System.nanoTime() - start + backoff > this.budgetNanos) {
+					counter("petclinic.write.giveups", "Write units given up after transient failures", unit)
+						.increment();
+					logger.warn(String.format("Giving up %s after %d attempts in %d ms: %s", unit, attempt,
+							(System.nanoTime() - start) / 1_000_000, ex.getMessage()));
+					throw ex;
+				}
+				counter("petclinic.write.retries", "Write units run again after a transient failure", unit).increment();
+				if (logger.isDebugEnabled()) {
+					logger.debug(String.format("Retrying %s after attempt %d: %s", unit, attempt, ex.getMessage()));
+				}
+				sleep(backoff, ex);
+			}
+		}
+	}
+
+	/**
+	 * Whether a failure of a write unit is worth another attempt.
+	 * @param ex the failure
+	 * @param workDone whether the unit had finished and the transaction was committing
+	 * @return whether the database rolled back for a reason that may pass
+	 */
+	static boolean isTransient(Throwable ex, boolean workDone) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof CannotCreateTransactionException) {
+				return true;
+			}
+			if (cause instanceof SQLException sql) {
+				String state = sql.getSQLState();
+				if (state == null) {
+					return false;
+				}
+				if (state.startsWith("08")) {
+					return !workDone;
+				}
+				return ROLLED_BACK.contains(state) || sql.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT;
+			}
+		}
+		return false;
+	}
+
+	private long backoff(int attempt) {
+		long ceiling = Math.min(this.maxBackoffNanos, this.initialBackoffNanos << Math.min(attempt - 1, 20));
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	private Counter counter(String name, String description, String unit) {
+		return Counter.builder(name).description(description).tag("unit", unit).register(this.registry);
+	}
+
+	private static void sleep(long nanos, RuntimeException failure) {
+		try {
+			Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw failure;
+		}
+	}
+
+}
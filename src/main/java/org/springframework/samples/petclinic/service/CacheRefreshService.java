@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps the reference data caches warm. {@link #refresh()} loads every cache straight
+ * from the data store and overwrites the cached value; it runs once during the startup
+ * warm-up and then every {@code petclinic.cache.refresh-interval}, which is shorter than
+ * {@code petclinic.cache.time-to-live}, so the cached values are replaced before they
+ * expire and no request has to wait for a miss.
+ * <p>
+ * A write evicts its cache; the next read or refresh loads it again. The caching
+ * annotations resolve their caches through {@link #trackEvictions}, so a refresh that was
+ * loading while a write evicted the cache does not leave the value from before the write
+ * cached until the next refresh.
+ */
+@Service
+public class CacheRefreshService {
+
+	private static final Log logger = LogFactory.getLog(CacheRefreshService.class);
+
+	private final CacheManager cacheManager;
+
+	private final Map<String, Supplier<?>> loaders = new LinkedHashMap<>();
+
+	private final Map<String, AtomicLong> evictions = new ConcurrentHashMap<>();
+
+	private final Duration refreshInterval;
+
+	private ScheduledExecutorService refresher;
+
+	public CacheRefreshService(CacheManager cacheManager, VetRepository vets, PetTypeRepository types,
+			@Value("${petclinic.cache.refresh-interval:PT8M}") Duration refreshInterval) {
+		this.cacheManager = cacheManager;
+		this.loaders.put("vets", vets::loadAll);
+		this.loaders.put("petTypes", types::loadPetTypes);
+		this.refreshInterval = refreshInterval;
+	}
+
+	@PostConstruct
+	void start() {
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("cache-refresh-");
+		threads.setDaemon(true);
+		this.refresher = Executors.newSingleThreadScheduledExecutor(threads);
+		this.refresher.scheduleWithFixedDelay(this::refreshQuietly, this.refreshInterval.toMillis(),
+				this.refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void stop() {
+		this.refresher.shutdownNow();
+	}
+
+	/**
+	 * Load every cache from the data store and replace the cached values.
+	 * @return the number of caches loaded
+	 */
+	public int refresh() {
+		int loaded = 0;
+		for (Map.Entry<String, Supplier<?>> loader : this.loaders.entrySet()) {
+			Cache cache = this.cacheManager.getCache(loader.getKey());
+			if (cache != null) {
+				AtomicLong evictions = evictions(loader.getKey());
+				long before = evictions.get();
+				cache.put(SimpleKey.EMPTY, loader.getValue().get());
+				if (evictions.get() != before) {
+					// a write evicted the cache while the value loaded, so it may be
+					// stale
+					cache.evict(SimpleKey.EMPTY);
+				}
+				loaded++;
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * Decorate a cache so that its evictions stop a refresh that was loading at the time
+	 * from keeping its value.
+	 * @param cache the cache the caching annotations resolved
+	 * @return the cache to use instead
+	 */
+	public Cache trackEvictions(Cache cache) {
+		return new EvictionTrackingCache(cache, evictions(cache.getName()));
+	}
+
+	private AtomicLong evictions(String cacheName) {
+		return this.evictions.computeIfAbsent(cacheName, name -> new AtomicLong());
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Could not refresh the caches, the current values stay until they expire", ex);
+		}
+	}
+
+}
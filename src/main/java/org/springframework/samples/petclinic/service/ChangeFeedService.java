@@ -0,0 +1,258 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.samples.petclinic.model.ChangeLogEntry;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.repository.ChangeLogRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The change feed: every write to owners, pets, visits, pet types and vets is appended to
+ * the {@code change_log} outbox and, once committed, to an in-memory {@link ChangeRing}
+ * from which it is pushed to the current subscribers.
+ * <p>
+ * Subscribers resume from the offset of the last entry they saw. Recent entries are
+ * replayed from memory; older ones are read from the outbox, up to one ring's worth. A
+ * subscriber that is further behind is told that it missed changes and should reload.
+ * <p>
+ * Offsets are identity ids, assigned when the entry is inserted, but transactions commit
+ * in any order. So that a subscriber resuming after an offset never skips an entry that
+ * committed later, entries are published in offset order only: a committed entry is held
+ * back while a transaction of this instance with a lower offset is still open, and goes
+ * out once that one completes. Inserting the entry and registering its transaction are
+ * done under one lock, so no offset is assigned without being tracked.
+ */
+@Service
+public class ChangeFeedService {
+
+	private final ChangeLogRepository log;
+
+	private final int capacity;
+
+	private final Clock clock;
+
+	private final List<Subscriber> subscribers = new ArrayList<>();
+
+	private final Object inserting = new Object();
+
+	/**
+	 * Offsets of entries whose transaction has not completed yet, guarded by
+	 * {@link #subscribers}.
+	 */
+	private final NavigableSet<Long> open = new TreeSet<>();
+
+	/**
+	 * Committed entries held back behind a lower open offset, guarded by
+	 * {@link #subscribers}.
+	 */
+	private final NavigableMap<Long, ChangeLogEntry> held = new TreeMap<>();
+
+	private ChangeRing ring;
+
+	@Autowired
+	public ChangeFeedService(ChangeLogRepository log, @Value("${petclinic.changes.buffer-size:1024}") int capacity) {
+		this(log, capacity, Clock.systemUTC());
+	}
+
+	ChangeFeedService(ChangeLogRepository log, int capacity, Clock clock) {
+		this.log = log;
+		this.capacity = capacity;
+		this.clock = clock;
+		this.ring = new ChangeRing(capacity, 0);
+	}
+
+	/**
+	 * Fill the ring with the newest entries of the outbox.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void load() {
+		List<ChangeLogEntry> newest = this.log.findByOrderByIdDesc(Limit.of(this.capacity));
+		long floor = newest.size() < this.capacity ? 0 : newest.get(newest.size() - 1).getId() - 1;
+		ChangeRing next = new ChangeRing(this.capacity, floor);
+		for (int i = newest.size() - 1; i >= 0; i--) {
+			next.add(newest.get(i));
+		}
+		synchronized (this.subscribers) {
+			this.ring = next;
+		}
+	}
+
+	/**
+	 * Record a write. Joins the caller's transaction if there is one; subscribers are
+	 * notified after it commits, once every lower offset recorded here has completed.
+	 * @param subject the kind of record written
+	 * @param subjectId the record's id
+	 * @param action what happened to the record
+	 * @param ownerId the owner the record belongs to, {@code null} for pet types and vets
+	 */
+	@Transactional
+	public void record(Subject subject, Integer subjectId, Action action, Integer ownerId) {
+		ChangeLogEntry entry;
+		synchronized (this.inserting) {
+			entry = this.log.save(new ChangeLogEntry(subject, subjectId, action, ownerId, this.clock.instant()));
+			synchronized (this.subscribers) {
+				this.open.add(entry.getId());
+			}
+		}
+		afterCompletion(committed -> {
+			synchronized (this.subscribers) {
+				this.open.remove(entry.getId());
+				if (committed) {
+					this.held.put(entry.getId(), entry);
+				}
+				publishHeld();
+			}
+		});
+	}
+
+	/**
+	 * Subscribe to the feed. The entries after {@code offset} are replayed to the
+	 * subscriber before this method returns, and later entries are delivered as they are
+	 * committed, each exactly once and in the order they were published.
+	 * @param offset the offset of the last entry the subscriber has seen, or {@code null}
+	 * to only receive new entries
+	 * @param subscriber the subscriber
+	 * @return an action that ends the subscription
+	 */
+	public Runnable subscribe(Long offset, Subscriber subscriber) {
+		List<ChangeLogEntry> fromLog = List.of();
+		if (offset != null && offset < currentFloor()) {
+			// older than the ring: catch up from the outbox without holding the lock
+			fromLog = this.log.findByIdGreaterThanOrderById(offset, Limit.of(this.capacity));
+		}
+		synchronized (this.subscribers) {
+			if (offset != null) {
+				long resumeAt = fromLog.isEmpty() ? offset : fromLog.get(fromLog.size() - 1).getId();
+				if (resumeAt < this.ring.floor()) {
+					subscriber.missed();
+				}
+				else {
+					fromLog.forEach(subscriber::change);
+					this.ring.after(resumeAt).forEach(subscriber::change);
+				}
+			}
+			this.subscribers.add(subscriber);
+		}
+		return () -> {
+			synchronized (this.subscribers) {
+				this.subscribers.remove(subscriber);
+			}
+		};
+	}
+
+	/**
+	 * @return the offset of the newest entry published
+	 */
+	public long latest() {
+		synchronized (this.subscribers) {
+			return this.ring.latest();
+		}
+	}
+
+	/**
+	 * The lowest offset recorded here that may still commit. Entries at and above it can
+	 * still be joined by a lower one, so readers of the outbox should not advance past
+	 * it. Look it up after reading the outbox: offsets are assigned and registered under
+	 * one lock, so any open offset below an entry read has been registered by then.
+	 * @return the offset, or {@link Long#MAX_VALUE} if no transaction recorded here is
+	 * open
+	 */
+	public long oldestOpen() {
+		synchronized (this.subscribers) {
+			return this.open.isEmpty() ? Long.MAX_VALUE : this.open.first();
+		}
+	}
+
+	/**
+	 * @return the number of current subscribers
+	 */
+	public int subscriberCount() {
+		synchronized (this.subscribers) {
+			return this.subscribers.size();
+		}
+	}
+
+	private long currentFloor() {
+		synchronized (this.subscribers) {
+			return this.ring.floor();
+		}
+	}
+
+	private void publishHeld() {
+		while (!this.held.isEmpty() && (this.open.isEmpty() || this.open.first() > this.held.firstKey())) {
+			ChangeLogEntry entry = this.held.pollFirstEntry().getValue();
+			this.ring.add(entry);
+			for (Subscriber subscriber : this.subscribers) {
+				subscriber.change(entry);
+			}
+		}
+	}
+
+	private static void afterCompletion(Consumer<Boolean> action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					action.accept(status == STATUS_COMMITTED);
+				}
+			});
+		}
+		else {
+			action.accept(true);
+		}
+	}
+
+	/**
+	 * Receives the entries of the feed. Called while the feed is locked, so
+	 * implementations must hand the entry off rather than block, for example by queueing
+	 * it for a sender thread.
+	 */
+	public interface Subscriber {
+
+		/**
+		 * @param entry the next entry
+		 */
+		void change(ChangeLogEntry entry);
+
+		/**
+		 * Called instead of the replay when entries after the requested offset are no
+		 * longer available.
+		 */
+		void missed();
+
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.samples.petclinic.model.ChangeLogEntry;
+
+/**
+ * Fixed-capacity ring of the most recent {@link ChangeLogEntry change log entries}, in
+ * the order they were added. Once full, each added entry overwrites the oldest one.
+ * <p>
+ * Not thread-safe: {@link ChangeFeedService} guards it.
+ */
+class ChangeRing {
+
+	private final ChangeLogEntry[] entries;
+
+	private int head;
+
+	private int size;
+
+	private long floor;
+
+	/**
+	 * @param capacity the number of entries to retain
+	 * @param floor the offset up to which entries are known to be missing, 0 if none
+	 */
+	ChangeRing(int capacity, long floor) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.entries = new ChangeLogEntry[capacity];
+		this.floor = floor;
+	}
+
+	void add(ChangeLogEntry entry) {
+		int tail = (this.head + this.size) % this.entries.length;
+		if (this.size == this.entries.length) {
+			this.floor = Math.max(this.floor, this.entries[this.head].getId());
+			this.head = (this.head + 1) % this.entries.length;
+		}
+		else {
+			this.size++;
+		}
+		this.entries[tail] = entry;
+	}
+
+	/**
+	 * @return the highest offset of an entry that is no longer retained, 0 if none was
+	 * dropped. Entries after this offset are all in the ring.
+	 */
+	long floor() {
+		return this.floor;
+	}
+
+	/**
+	 * @return the offset of the newest entry, or the floor if the ring is empty
+	 */
+	long latest() {
+		return this.size == 0 ? this.floor : this.entries[(this.head + this.size - 1) % this.entries.length].getId();
+	}
+
+	/**
+	 * @param offset the offset of the last entry already seen
+	 * @return the retained entries after that offset, oldest first
+	 */
+	List<ChangeLogEntry> after(long offset) {
+		List<ChangeLogEntry> result = new ArrayList<>();
+		for (int i = 0; i < this.size; i++) {
+			ChangeLogEntry entry = this.entries[(this.head + i) % this.entries.length];
+			if (entry.getId() > offset) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link Cache} decorator that counts evictions before passing them on, so that
+ * {@link CacheRefreshService} can tell whether a write evicted the cache while it was
+ * loading a value. Lookups and writes are passed straight through.
+ * <p>
+ * Evictions are counted before they are passed on, so a refresh that puts a value loaded
+ * before the eviction, after it, still sees the count change and evicts the value again.
+ */
+class EvictionTrackingCache implements Cache {
+
+	private final Cache delegate;
+
+	private final AtomicLong evictions;
+
+	EvictionTrackingCache(Cache delegate, AtomicLong evictions) {
+		this.delegate = delegate;
+		this.evictions = evictions;
+	}
+
+	@Override
+	@NonNull
+	public String getName() {
+		return this.delegate.getName();
+	}
+
+	@Override
+	@NonNull
+	public Object getNativeCache() {
+		return this.delegate.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(@NonNull Object key) {
+		return this.delegate.get(key);
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(@NonNull Object key, @Nullable Class<T> type) {
+		return this.delegate.get(key, type);
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+		return this.delegate.get(key, valueLoader);
+	}
+
+	@Override
+	@Nullable
+	public CompletableFuture<?> retrieve(@NonNull Object key) {
+		return this.delegate.retrieve(key);
+	}
+
+	@Override
+	@NonNull
+	public <T> CompletableFuture<T> retrieve(@NonNull Object key, @NonNull Supplier<CompletableFuture<T>> valueLoader) {
+		return this.delegate.retrieve(key, valueLoader);
+	}
+
+	@Override
+	public void put(@NonNull Object key, @Nullable Object value) {
+		this.delegate.put(key, value);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(@NonNull Object key, @Nullable Object value) {
+		return this.delegate.putIfAbsent(key, value);
+	}
+
+	@Override
+	public void evict(@NonNull Object key) {
+		this.evictions.incrementAndGet();
+		this.delegate.evict(key);
+	}
+
+	@Override
+	public boolean evictIfPresent(@NonNull Object key) {
+		this.evictions.incrementAndGet();
+		return this.delegate.evictIfPresent(key);
+	}
+
+	@Override
+	public void clear() {
+		this.evictions.incrementAndGet();
+		this.delegate.clear();
+	}
+
+	@Override
+	public boolean invalidate() {
+		this.evictions.incrementAndGet();
+		return this.delegate.invalidate();
+	}
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.samples.petclinic.model.IdempotencyRecord;
+import org.springframework.samples.petclinic.repository.IdempotencyRecordRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Remembers the responses of completed requests that carried an idempotency key, so a
+ * retried or double-submitted request gets the original response instead of repeating its
+ * write.
+ * <p>
+ * Responses are kept in a concurrent map, bounded in size and evicted after a time to
+ * live, and also stored in the {@code idempotency_keys} table, which is read when a key
+ * is not in memory, for example after a restart. A request that arrives while another
+ * with the same key is still running waits for its response.
+ * <p>
+ * Callers {@link #begin} a request, then either {@link #complete} it with its response or
+ * {@link #release} the key if it failed or was rejected, so that a retry runs again.
+ */
+@Service
+public class IdempotencyService {
+
+	private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-]{1,100}");
+
+	private static final Duration PURGE_INTERVAL = Duration.ofHours(1);
+
+	private final IdempotencyRecordRepository records;
+
+	private final int maxEntries;
+
+	private final Duration ttl;
+
+	private final Duration wait;
+
+	private final Clock clock;
+
+	private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+	// slots in the order they were added, which with a single time to live is also the
+	// order they expire in
+	private final ConcurrentLinkedQueue<Slot> order = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong nextPurge = new AtomicLong();
+
+	@Autowired
+	public IdempotencyService(IdempotencyRecordRepository records,
+			@Value("${petclinic.idempotency.max-entries:10000}") int maxEntries,
+			@Value("${petclinic.idempotency.ttl:PT24H}") Duration ttl,
+			@Value("${petclinic.idempotency.wait:PT10S}") Duration wait) {
+		this(records, maxEntries, ttl, wait, Clock.systemUTC());
+	}
+
+	IdempotencyService(IdempotencyRecordRepository records, int maxEntries, Duration ttl, Duration wait, Clock clock) {
+		this.records = records;
+		this.maxEntries = maxEntries;
+		this.ttl = ttl;
+		this.wait = wait;
+		this.clock = clock;
+	}
+
+	/**
+	 * @param key a client's idempotency key
+	 * @return whether the key is 1 to 100 letters, digits, dashes or underscores
+	 */
+	public static boolean isValidKey(String key) {
+		return key != null && KEY.matcher(key).matches();
+	}
+
+	/**
+	 * Start a request. If an earlier request with the same key completed, its response is
+	 * returned and the request must not run again; if one is still running, this waits
+	 * for it.
+	 * @param scope the endpoint, so the same key on different endpoints does not collide
+	 * @param key the client's key, or {@code null} if the request carries none
+	 * @return the earlier response, or empty if the request should run
+	 * @throws IllegalArgumentException if the key is not {@link #isValidKey valid}
+	 * @throws IllegalStateException if a request with the same key is still running after
+	 * the configured wait
+	 */
+	public Optional<String> begin(String scope, String key) {
+		if (key == null) {
+			return Optional.empty();
+		}
+		if (!isValidKey(key)) {
+			throw new IllegalArgumentException("Invalid idempotency key: " + key);
+		}
+		String id = scope + ":" + key;
+		while (true) {
+			Instant now = this.clock.instant();
+			Slot slot = this.slots.get(id);
+			if (slot != null && !expired(slot.createdAt(), now)) {
+				String response = await(slot);
+				if (response != null) {
+					return Optional.of(response);
+				}
+				// released by a failed request, so this one runs instead
+				continue;
+			}
+			if (slot != null) {
+				this.slots.remove(id, slot);
+			}
+			Optional<IdempotencyRecord> stored = this.records.findById(id)
+				.filter(record -> !expired(record.getCreatedAt(), now));
+			if (stored.isPresent()) {
+				add(new Slot(id, CompletableFuture.completedFuture(stored.get().getResponse()),
+						stored.get().getCreatedAt()));
+				return Optional.of(stored.get().getResponse());
+			}
+			if (add(new Slot(id, new CompletableFuture<>(), now))) {
+				return Optional.empty();
+			}
+		}
+	}
+
+	/**
+	 * Store the response of a request that {@link #begin began} without an earlier
+	 * response, and hand it to requests waiting on the same key.
+	 * @param scope the endpoint
+	 * @param key the client's key, or {@code null}
+	 * @param response what to return to retries, such as a redirect or a JSON body
+	 */
+	public void complete(String scope, String key, String response) {
+		if (key == null) {
+			return;
+		}
+		Slot slot = this.slots.get(scope + ":" + key);
+		if (slot == null) {
+			return;
+		}
+		try {
+			this.records.save(new IdempotencyRecord(slot.id(), response, slot.createdAt()));
+		}
+		catch (DataIntegrityViolationException ex) {
+			// another instance stored it first
+		}
+		finally {
+			slot.response().complete(response);
+			evict();
+		}
+		purgeIfDue();
+	}
+
+	/**
+	 * Forget a key whose request failed or was rejected, so that a retry runs again.
+	 * @param scope the endpoint
+	 * @param key the client's key, or {@code null}
+	 */
+	public void release(String scope, String key) {
+		if (key == null) {
+			return;
+		}
+		Slot slot = this.slots.remove(scope + ":" + key);
+		if (slot != null) {
+			slot.response().complete(null);
+		}
+	}
+
+	/**
+	 * @return the number of keys held in memory
+	 */
+	public int size() {
+		return this.slots.size();
+	}
+
+	private boolean add(Slot slot) {
+		if (this.slots.putIfAbsent(slot.id(), slot) != null) {
+			return false;
+		}
+		this.order.add(slot);
+		evict();
+		return true;
+	}
+
+	private void evict() {
+		Instant now = this.clock.instant();
+		Slot head;
+		while ((head = this.order.peek()) != null) {
+			if (this.slots.get(head.id()) == head) {
+				boolean full = this.slots.size() > this.maxEntries;
+				if (!full && !expired(head.createdAt(), now) || !head.response().isDone()) {
+					// keep the oldest until it expires; never drop a running request
+					return;
+				}
+				this.slots.remove(head.id(), head);
+			}
+			this.order.remove(head);
+		}
+	}
+
+	private void purgeIfDue() {
+		long now = this.clock.millis();
+		long due = this.nextPurge.get();
+		if (now >= due && this.nextPurge.compareAndSet(due, now + PURGE_INTERVAL.toMillis())) {
+			this.records.deleteByCreatedAtBefore(this.clock.instant().minus(this.ttl));
+		}
+	}
+
+	private String await(Slot slot) {
+		try {
+			return slot.response().get(this.wait.toMillis(), TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException ex) {
+			throw new IllegalStateException("A request with idempotency key " + slot.id() + " is still running");
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for request " + slot.id(), ex);
+		}
+		catch (ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+	private boolean expired(Instant createdAt, Instant now) {
+		return createdAt.plus(this.ttl).isBefore(now);
+	}
+
+	/**
+	 * A key in memory: the response once the request completed, or a pending future while
+	 * it runs.
+	 */
+	private record Slot(String id, CompletableFuture<String> response, Instant createdAt) {
+	}
+
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Radix tree over normalized owner last names, mapping each name to the ids of the owners
+ * that carry it.
+ * <p>
+ * The tree is persistent: an update copies the nodes on the path to the changed name and
+ * publishes a new root, so lookups never lock and always see a consistent tree. Updates
+ * are serialized.
+ */
+public class OwnerNameIndex {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	private static final int[] NO_IDS = new int[0];
+
+	private volatile Node root = new Node("", NO_CHILDREN, NO_IDS);
+
+	private final Map<Integer, String> namesById = new HashMap<>();
+
+	/**
+	 * Fold a name for prefix matching: lower case, without accents, {@code ß} as
+	 * {@code ss}. Combining marks are dropped after canonical decomposition, so
+	 * {@code Müller} matches {@code mul} and {@code Ёлкин} matches {@code елк}.
+	 * @param name the name to fold, may be {@code null}
+	 * @return the folded name, empty for {@code null}
+	 */
+	public static String normalize(String name) {
+		if (name == null) {
+			return "";
+		}
+		String decomposed = Normalizer.normalize(name.strip(), Normalizer.Form.NFD);
+		return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).replace("ß", "ss");
+	}
+
+	/**
+	 * Index an owner under the given last name, replacing any name it was indexed under
+	 * before.
+	 * @param ownerId the owner
+	 * @param lastName the owner's current last name
+	 */
+	public synchronized void put(int ownerId, String lastName) {
+		String key = normalize(lastName);
+		String previous = this.namesById.put(ownerId, key);
+		if (key.equals(previous)) {
+			return;
+		}
+		Node next = this.root;
+		if (previous != null) {
+			next = remove(next, previous, ownerId, true);
+		}
+		this.root = insert(next, key, ownerId);
+	}
+
+	/**
+	 * Drop an owner from the index.
+	 * @param ownerId the owner
+	 */
+	public synchronized void remove(int ownerId) {
+		String previous = this.namesById.remove(ownerId);
+		if (previous != null) {
+			this.root = remove(this.root, previous, ownerId, true);
+		}
+	}
+
+	/**
+	 * Replace the whole index.
+	 * @param lastNamesById the last name of every owner, keyed by owner id
+	 */
+	public synchronized void replaceAll(Map<Integer, String> lastNamesById) {
+		this.namesById.clear();
+		Node next = new Node("", NO_CHILDREN, NO_IDS);
+		for (Map.Entry<Integer, String> entry : lastNamesById.entrySet()) {
+			String key = normalize(entry.getValue());
+			this.namesById.put(entry.getKey(), key);
+			next = insert(next, key, entry.getKey());
+		}
+		this.root = next;
+	}
+
+	/**
+	 * Find the owners whose normalized last name starts with the normalized query.
+	 * @param query the prefix typed so far
+	 * @param limit the maximum number of ids to return
+	 * @return owner ids ordered by normalized last name, then id
+	 */
+	public List<Integer> suggest(String query, int limit) {
+		String rest = normalize(query);
+		Node node = this.root;
+		while (!rest.isEmpty()) {
+			Node child = node.child(rest.charAt(0));
+			if (child == null) {
+				return List.of();
+			}
+			if (rest.startsWith(child.label)) {
+				rest = rest.substring(child.label.length());
+			}
+			else if (child.label.startsWith(rest)) {
+				rest = "";
+			}
+			else {
+				return List.of();
+			}
+			node = child;
+		}
+		List<Integer> ids = new ArrayList<>(Math.min(limit, 16));
+		collect(node, ids, limit);
+		return ids;
+	}
+
+	/**
+	 * @return the number of indexed owners
+	 */
+	public synchronized int size() {
+		return this.namesById.size();
+	}
+
+	private static void collect(Node node, List<Integer> ids, int limit) {
+		for (int id : node.ids) {
+			if (ids.size() >= limit) {
+				return;
+			}
+			ids.add(id);
+		}
+		for (Node child : node.children) {
+			if (ids.size() >= limit) {
+				return;
+			}
+			collect(child, ids, limit);
+		}
+	}
+
+	private static Node insert(Node node, String rest, int id) {
+		if (rest.isEmpty()) {
+			return node.withIds(addId(node.ids, id));
+		}
+		int slot = node.slot(rest.charAt(0));
+		if (slot < 0) {
+			return node.withChild(-slot - 1, new Node(rest, NO_CHILDREN, new int[] { id }), true);
+		}
+		Node child = node.children[slot];
+		int common = commonPrefix(child.label, rest);
+		if (common == child.label.length()) {
+			return node.withChild(slot, insert(child, rest.substring(common), id), false);
+		}
+		Node split = new Node(child.label.substring(0, common),
+				new Node[] { child.withLabel(child.label.substring(common)) }, NO_IDS);
+		return node.withChild(slot, insert(split, rest.substring(common), id), false);
+	}
+
+	private static Node remove(Node node, String rest, int id, boolean isRoot) {
+		if (rest.isEmpty()) {
+			return compact(node.withIds(removeId(node.ids, id)), isRoot);
+		}
+		int slot = node.slot(rest.charAt(0));
+		if (slot < 0) {
+			return node;
+		}
+		Node child = node.children[slot];
+		if (!rest.startsWith(child.label)) {
+			return node;
+		}
+		Node updated = remove(child, rest.substring(child.label.length()), id, false);
+		return compact(updated == null ? node.withoutChild(slot) : node.withChild(slot, updated, false), isRoot);
+	}
+
+	private static Node compact(Node node, boolean isRoot) {
+		if (isRoot || node.ids.length > 0) {
+			return node;
+		}
+		if (node.children.length == 0) {
+			return null;
+		}
+		if (node.children.length == 1) {
+			Node only = node.children[0];
+			return only.withLabel(node.label + only.label);
+		}
+		return node;
+	}
+
+	private static int commonPrefix(String a, String b) {
+		int max = Math.min(a.length(), b.length());
+		int i = 0;
+		while (i < max && a.charAt(i) == b.charAt(i)) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int[] addId(int[] ids, int id) {
+		int at = Arrays.binarySearch(ids, id);
+		if (at >= 0) {
+			return ids;
+		}
+		int insertion = -at - 1;
+		int[] next = new int[ids.length + 1];
+		System.arraycopy(ids, 0, next, 0, insertion);
+		next[insertion] = id;
+		System.arraycopy(ids, insertion, next, insertion + 1, ids.length - insertion);
+		return next;
+	}
+
+	private static int[] removeId(int[] ids, int id) {
+		int at = Arrays.binarySearch(ids, id);
+		if (at < 0) {
+			return ids;
+		}
+		int[] next = new int[ids.length - 1];
+		System.arraycopy(ids, 0, next, 0, at);
+		System.arraycopy(ids, at + 1, next, at, ids.length - at - 1);
+		return next;
+	}
+
+	/**
+	 * Immutable tree node. Children are sorted by the first character of their label,
+	 * which is unique among siblings.
+	 */
+	private record Node(String label, Node[] children, int[] ids) {
+
+		Node child(char first) {
+			int slot = slot(first);
+			return slot < 0 ? null : this.children[slot];
+		}
+
+		int slot(char first) {
+			int low = 0;
+			int high = this.children.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				char c = this.children[mid].label.charAt(0);
+				if (c < first) {
+					low = mid + 1;
+				}
+				else if (c > first) {
+					high = mid - 1;
+				}
+				else {
+					return mid;
+				}
+			}
+			return -(low + 1);
+		}
+
+		Node withLabel(String newLabel) {
+			return new Node(newLabel, this.children, this.ids);
+		}
+
+		Node withIds(int[] newIds) {
+			return new Node(this.label, this.children, newIds);
+		}
+
+		Node withChild(int slot, Node child, boolean insert) {
+			Node[] next;
+			if (insert) {
+				next = new Node[this.children.length + 1];
+				System.arraycopy(this.children, 0, next, 0, slot);
+				System.arraycopy(this.children, slot, next, slot + 1, this.children.length - slot);
+			}
+			else {
+				next = this.children.clone();
+			}
+			next[slot] = child;
+			return new Node(this.label, next, this.ids);
+		}
+
+		Node withoutChild(int slot) {
+			Node[] next = new Node[this.children.length - 1];
+			System.arraycopy(this.children, 0, next, 0, slot);
+			System.arraycopy(this.children, slot + 1, next, slot, this.children.length - slot - 1);
+			return new Node(this.label, next, this.ids);
+		}
+
+	}
+
+}
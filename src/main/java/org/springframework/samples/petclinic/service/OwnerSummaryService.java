@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PhoneticKeys;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository.VisitStats;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains the {@link OwnerSummary} read model: the {@code owner_summary} table plus an
+ * in-memory mirror keyed by owner id.
+ * <p>
+ * Writers call {@link #refresh(int)} after saving an owner, pet or visit. A refresh
+ * recomputes the owner's row from the source tables, so it is idempotent and a missed
+ * refresh is repaired by the next one. Owners without a row are summarized by
+ * {@link #rebuild()} on startup. The mirror, the {@link OwnerNameIndex} used for
+ * suggestions and the {@link TelephoneIndex} used for caller identification are only
+ * updated once the row has been committed.
+ */
+@Service
+public class OwnerSummaryService {
+
+	private static final int PAGE_SIZE = 500;
+
+	private final OwnerRepository owners;
+
+	private final VisitRepository visits;
+
+	private final OwnerSummaryRepository summaries;
+
+	private final TransactionTemplate transactions;
+
+	private final Map<Integer, OwnerSummary> mirror = new ConcurrentHashMap<>();
+
+	private final OwnerNameIndex names = new OwnerNameIndex();
+
+	private final TelephoneIndex phones = new TelephoneIndex();
+
+	public OwnerSummaryService(OwnerRepository owners, VisitRepository visits, OwnerSummaryRepository summaries,
+			PlatformTransactionManager transactionManager) {
+		this.owners = owners;
+		this.visits = visits;
+		this.summaries = summaries;
+		this.transactions = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Recompute the summary row of one owner. Joins the caller's transaction if there is
+	 * one.
+	 * @param ownerId the owner whose data changed
+	 */
+	@Transactional
+	public void refresh(int ownerId) {
+		Optional<Owner> owner = this.owners.findById(ownerId);
+		if (owner.isEmpty()) {
+			this.summaries.deleteById(ownerId);
+			afterCommit(() -> {
+				OwnerSummary previous = this.mirror.remove(ownerId);
+				this.names.remove(ownerId);
+				if (previous != null) {
+					this.phones.remove(previous.getTelephone(), ownerId);
+				}
+			});
+			return;
+		}
+		List<Integer> petIds = owner.get().getPets().stream().map(Pet::getId).toList();
+		List<VisitStats> stats = petIds.isEmpty() ? List.of() : this.visits.findStatsByPetIds(petIds);
+		OwnerSummary summary = this.summaries.save(summarize(owner.get(), stats));
+		afterCommit(() -> {
+			OwnerSummary previous = this.mirror.put(ownerId, summary);
+			this.names.put(ownerId, summary.getLastName());
+			if (previous != null) {
+				this.phones.remove(previous.getTelephone(), ownerId);
+			}
+			this.phones.put(summary.getTelephone(), ownerId);
+		});
+	}
+
+	/**
+	 * Bring the read model up to date on startup and load the in-memory mirror from it.
+	 * Only owners without a summary row, or with a row that predates the phonetic keys,
+	 * are summarized, one page per transaction, so a restart does not touch rows that
+	 * other instances are serving and refreshing. Rows a concurrent instance inserted
+	 * first are left to it.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		int after = 0;
+		List<Integer> ids;
+		while (!(ids = this.owners.findIdsWithoutSummary(after, Limit.of(PAGE_SIZE))).isEmpty()) {
+			backfill(ids);
+			after = ids.get(ids.size() - 1);
+		}
+		int last = 0;
+		List<OwnerSummary> page;
+		while (!(page = this.summaries.findByIdGreaterThanOrderById(last, Limit.of(PAGE_SIZE))).isEmpty()) {
+			for (OwnerSummary summary : page) {
+				// a refresh committed meanwhile is newer than the row read here
+				if (this.mirror.putIfAbsent(summary.getId(), summary) == null) {
+					this.names.put(summary.getId(), summary.getLastName());
+					this.phones.put(summary.getTelephone(), summary.getId());
+				}
+			}
+			last = page.get(page.size() - 1).getId();
+		}
+	}
+
+	private void backfill(List<Integer> ownerIds) {
+		try {
+			this.transactions.executeWithoutResult(status -> ownerIds.forEach(this::refresh));
+		}
+		catch (DataIntegrityViolationException ex) {
+			for (Integer ownerId : ownerIds) {
+				try {
+					this.transactions.executeWithoutResult(status -> refresh(ownerId));
+				}
+				catch (DataIntegrityViolationException alreadyInserted) {
+					// summarized by another instance
+				}
+			}
+		}
+	}
+
+	/**
+	 * Look up the summary of one owner in the in-memory mirror.
+	 * @param ownerId the owner to look up
+	 * @return the summary, or empty if the owner is unknown
+	 */
+	public Optional<OwnerSummary> find(int ownerId) {
+		return Optional.ofNullable(this.mirror.get(ownerId));
+	}
+
+	/**
+	 * Look up the owner calling from a telephone number, for caller identification. The
+	 * number is normalized (see {@link TelephoneIndex#normalize(String)}) and served from
+	 * the in-memory {@link TelephoneIndex}. Numbers not in memory, for example a number
+	 * shared with an owner that was changed since, or an owner added on another instance,
+	 * are looked up through the telephone index of the owners table, and the summary from
+	 * the database if the mirror does not have it yet.
+	 * @param number the number as dialled
+	 * @return the owner's summary, or empty if no owner has that number
+	 * @throws IllegalArgumentException if the number is not a ten digit number
+	 */
+	public Optional<OwnerSummary> findByTelephone(String number) {
+		long normalized = TelephoneIndex.normalize(number);
+		if (normalized == TelephoneIndex.MISSING) {
+			throw new IllegalArgumentException("Not a ten digit telephone number: " + number);
+		}
+		int ownerId = this.phones.get(normalized);
+		if (ownerId != TelephoneIndex.MISSING) {
+			return find(ownerId);
+		}
+		return this.owners.findIdsByTelephone(String.format("%010d", normalized))
+			.stream()
+			.findFirst()
+			.flatMap(id -> find(id).or(() -> this.summaries.findById(id)));
+	}
+
+	/**
+	 * Suggest owners for a last name typed so far, served from the in-memory
+	 * {@link OwnerNameIndex}. Case and accents are ignored.
+	 * @param query the beginning of a last name
+	 * @param limit the maximum number of suggestions
+	 * @return matching summaries ordered by last name, then id
+	 */
+	public List<OwnerSummary> suggest(String query, int limit) {
+		return this.names.suggest(query, limit).stream().map(this.mirror::get).filter(s -> s != null).toList();
+	}
+
+	/**
+	 * Page through the summaries of owners whose last name starts with the given prefix.
+	 * @param lastName the prefix to search for
+	 * @param pageable the page to return
+	 * @return the matching page of summaries
+	 */
+	@Transactional(readOnly = true)
+	public Page<OwnerSummary> findByLastName(String lastName, Pageable pageable) {
+		return this.summaries.findByLastNameStartingWith(lastName, pageable);
+	}
+
+	/**
+	 * Page through the summaries of owners whose last name sounds like the given name.
+	 * The phonetic algorithm follows the searcher's locale, see
+	 * {@link PhoneticKeys#prefersCologne(Locale)}. Each search is a single lookup on an
+	 * indexed key column.
+	 * @param lastName the name as typed, in Latin or Cyrillic script
+	 * @param locale the locale of the person searching
+	 * @param pageable the page to return
+	 * @return the matching page of summaries, empty if the name has no phonetic key
+	 */
+	@Transactional(readOnly = true)
+	public Page<OwnerSummary> findSimilar(String lastName, Locale locale, Pageable pageable) {
+		boolean cologne = PhoneticKeys.prefersCologne(locale);
+		String key = cologne ? PhoneticKeys.cologne(lastName) : PhoneticKeys.metaphone(lastName);
+		if (key.isEmpty()) {
+			return Page.empty(pageable);
+		}
+		return cologne ? this.summaries.findByLastNameCologne(key, pageable)
+				: this.summaries.findByLastNameMetaphone(key, pageable);
+	}
+
+	private static OwnerSummary summarize(Owner owner, List<VisitStats> stats) {
+		long total = stats.stream().mapToLong(VisitStats::getTotal).sum();
+		return OwnerSummary.of(owner, total,
+				stats.stream()
+					.map(VisitStats::getLastDate)
+					.filter(d -> d != null)
+					.max(Comparable::compareTo)
+					.orElse(null));
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		}
+		else {
+			action.run();
+		}
+	}
+
+}
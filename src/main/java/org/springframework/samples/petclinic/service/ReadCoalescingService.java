@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hot read-only loads behind a {@link SingleFlight}: an owner page requested by several
+ * screens at once loads the owner with its pets once, and a burst of requests on a cold
+ * {@code vets} cache queries the vets once.
+ * <p>
+ * Concurrent callers share the loaded entities, so these reads are for rendering only;
+ * code that modifies an owner or vet loads it from the repository. Writes to an owner or
+ * its pets call {@link #ownerChanged}, so that a read after the write, such as the page
+ * it redirects to, does not share a load that started before the write committed.
+ * <p>
+ * Each read publishes {@code petclinic.reads.loads}, the loads run, and
+ * {@code petclinic.reads.coalesced}, the loads saved, tagged with the read's name.
+ */
+@Service
+public class ReadCoalescingService {
+
+	private final OwnerRepository owners;
+
+	private final VetRepository vets;
+
+	private final SingleFlight<Integer, Optional<Owner>> ownerLoads = new SingleFlight<>();
+
+	private final SingleFlight<String, Collection<Vet>> vetLoads = new SingleFlight<>();
+
+	public ReadCoalescingService(OwnerRepository owners, VetRepository vets, MeterRegistry registry) {
+		this.owners = owners;
+		this.vets = vets;
+		register(registry, "owner", this.ownerLoads);
+		register(registry, "vets", this.vetLoads);
+	}
+
+	/**
+	 * @param ownerId the owner to load
+	 * @return the owner with its pets, shared with concurrent callers
+	 */
+	public Optional<Owner> owner(int ownerId) {
+		return this.ownerLoads.load(ownerId, () -> this.owners.findById(ownerId));
+	}
+
+	/**
+	 * Stop sharing the running load of an owner once the current transaction commits, or
+	 * at once outside a transaction.
+	 * @param ownerId the owner that was written, or whose pets or visits were
+	 */
+	public void ownerChanged(int ownerId) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					ReadCoalescingService.this.ownerLoads.forget(ownerId);
+				}
+			});
+		}
+		else {
+			this.ownerLoads.forget(ownerId);
+		}
+	}
+
+	/**
+	 * @return all vets, shared with concurrent callers
+	 */
+	public Collection<Vet> vets() {
+		return this.vetLoads.load("all", this.vets::findAll);
+	}
+
+	private static void register(MeterRegistry registry, String read, SingleFlight<?, ?> flight) {
+		FunctionCounter.builder("petclinic.reads.loads", flight, SingleFlight::loads)
+			.description("Loads run against the database")
+			.tag("read", read)
+			.register(registry);
+		FunctionCounter.builder("petclinic.reads.coalesced", flight, SingleFlight::shared)
+			.description("Loads saved by sharing one already running")
+			.tag("read", read)
+			.register(registry);
+	}
+
+}
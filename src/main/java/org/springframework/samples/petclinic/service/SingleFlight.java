@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load and callers
+ * that ask for the key while it runs wait for its result instead of starting their own.
+ * Nothing is kept once the load finishes, so this only removes duplicate work, it does
+ * not cache.
+ * <p>
+ * Callers for the same key share one result object and must not modify it.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder loads = new LongAdder();
+
+	private final LongAdder shared = new LongAdder();
+
+	/**
+	 * Load the value for a key, or wait for the load already running for it.
+	 * @param key the key
+	 * @param loader the load to run if none is running for the key
+	 * @return the loaded value
+	 */
+	public V load(K key, Supplier<V> loader) {
+		CompletableFuture<V> own = new CompletableFuture<>();
+		CompletableFuture<V> running = this.inFlight.putIfAbsent(key, own);
+		if (running != null) {
+			this.shared.increment();
+			return join(running);
+		}
+		this.loads.increment();
+		try {
+			V value = loader.get();
+			own.complete(value);
+			return value;
+		}
+		catch (RuntimeException | Error ex) {
+			own.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlight.remove(key, own);
+		}
+	}
+
+	/**
+	 * Stop sharing the load running for a key: callers after this start a load of their
+	 * own, which later callers share instead. Call it once a write to the key committed,
+	 * so that no one who read after the write gets a value loaded before it.
+	 * @param key the key
+	 */
+	public void forget(K key) {
+		this.inFlight.remove(key);
+	}
+
+	/**
+	 * @return the number of loads run
+	 */
+	public long loads() {
+		return this.loads.sum();
+	}
+
+	/**
+	 * @return the number of calls that shared a running load instead of running one
+	 */
+	public long shared() {
+		return this.shared.sum();
+	}
+
+	private static <V> V join(CompletableFuture<V> running) {
+		try {
+			return running.join();
+		}
+		catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			if (ex.getCause() instanceof Error error) {
+				throw error;
+			}
+			throw ex;
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * One page of a {@link SparseResource}: the selected columns of each row and the cursor
+ * of the following page.
+ * <p>
+ * Rows are written straight to the {@link JsonGenerator} as
+ * <code>{"content":[{field: value, ...}], "next": cursor}</code>, without building an
+ * entity or a map per row first.
+ *
+ * @param fields the field names, in output order
+ * @param rows one value per field for each row
+ * @param next the cursor of the next page, or {@code null} on the last page
+ */
+@JsonSerialize(using = SparsePage.Serializer.class)
+public record SparsePage(List<String> fields, List<Object[]> rows, String next) {
+
+	static class Serializer extends StdSerializer<SparsePage> {
+
+		Serializer() {
+			super(SparsePage.class);
+		}
+
+		@Override
+		public void serialize(SparsePage page, JsonGenerator generator, SerializerProvider provider)
+				throws IOException {
+			generator.writeStartObject();
+			generator.writeArrayFieldStart("content");
+			for (Object[] row : page.rows()) {
+				generator.writeStartObject();
+				for (int i = 0; i < row.length; i++) {
+					provider.defaultSerializeField(page.fields().get(i), row[i], generator);
+				}
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			if (page.next() == null) {
+				generator.writeNullField("next");
+			}
+			else {
+				generator.writeStringField("next", page.next());
+			}
+			generator.writeEndObject();
+		}
+
+	}
+
+}
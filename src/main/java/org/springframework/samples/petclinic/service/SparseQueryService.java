@@ -0,0 +1,286 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.hibernate.Session;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Reads {@link SparseResource}s for the JSON API with keyset pagination.
+ * <p>
+ * Each page is one tuple query that selects only the requested fields plus the ordering
+ * keys, so no entity is materialized and neither the columns nor the associations the
+ * client did not ask for are read. A page resumes after the keys of the last row of the
+ * previous one, which the opaque cursor carries, so the cost of a page does not grow with
+ * its position and no count query is needed. Keys that may be null sort last in either
+ * direction, on every database.
+ */
+@Service
+public class SparseQueryService {
+
+	private final EntityManager entityManager;
+
+	public SparseQueryService(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	/**
+	 * Read a page of owners whose last name starts with the given prefix.
+	 * @param lastName the prefix, empty for all owners
+	 * @param fields the {@code fields} parameter, see
+	 * {@link SparseResource#select(String)}
+	 * @param cursor the cursor of the page, {@code null} or empty for the first one
+	 * @param size the maximum number of rows
+	 * @return the page
+	 * @throws IllegalArgumentException if a field is unknown or the cursor is invalid
+	 */
+	@Transactional(readOnly = true)
+	public SparsePage owners(String lastName, String fields, String cursor, int size) {
+		return page(SparseResource.OWNERS, fields, cursor, size, (query, cb) -> {
+			Root<OwnerSummary> owner = query.from(OwnerSummary.class);
+			Predicate filter = lastName.isEmpty() ? cb.conjunction()
+					: cb.like(owner.get("lastName"), escapeLike(lastName) + "%", '\\');
+			return new Scope(owner, filter);
+		});
+	}
+
+	/**
+	 * Read a page of the pets of an owner.
+	 * @param ownerId the owner
+	 * @param fields the {@code fields} parameter, see
+	 * {@link SparseResource#select(String)}
+	 * @param cursor the cursor of the page, {@code null} or empty for the first one
+	 * @param size the maximum number of rows
+	 * @return the page, empty for an unknown owner
+	 * @throws IllegalArgumentException if a field is unknown or the cursor is invalid
+	 */
+	@Transactional(readOnly = true)
+	public SparsePage pets(int ownerId, String fields, String cursor, int size) {
+		return page(SparseResource.PETS, fields, cursor, size, (query, cb) -> {
+			Root<Owner> owner = query.from(Owner.class);
+			Join<Owner, Pet> pet = owner.join("pets");
+			return new Scope(pet, cb.equal(owner.get("id"), ownerId));
+		});
+	}
+
+	/**
+	 * Read a page of the visits of a pet.
+	 * @param petId the pet
+	 * @param fields the {@code fields} parameter, see
+	 * {@link SparseResource#select(String)}
+	 * @param cursor the cursor of the page, {@code null} or empty for the first one
+	 * @param size the maximum number of rows
+	 * @return the page, empty for an unknown pet
+	 * @throws IllegalArgumentException if a field is unknown or the cursor is invalid
+	 */
+	@Transactional(readOnly = true)
+	public SparsePage visits(int petId, String fields, String cursor, int size) {
+		return page(SparseResource.VISITS, fields, cursor, size, (query, cb) -> {
+			Root<Visit> visit = query.from(Visit.class);
+			return new Scope(visit, cb.equal(visit.get("petId"), petId));
+		});
+	}
+
+	private SparsePage page(SparseResource resource, String fields, String cursor, int size,
+			BiFunction<CriteriaQuery<Tuple>, CriteriaBuilder, Scope> scoping) {
+		List<String> selected = resource.select(fields);
+		HibernateCriteriaBuilder cb = this.entityManager.unwrap(Session.class).getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Scope scope = scoping.apply(query, cb);
+
+		// Keys first, then every other attribute once, however often it is requested
+		List<String> attributes = new ArrayList<>(resource.keys());
+		for (String field : selected) {
+			if (!attributes.contains(resource.attribute(field))) {
+				attributes.add(resource.attribute(field));
+			}
+		}
+		Map<String, From<?, ?>> joins = new HashMap<>();
+		List<Selection<?>> columns = new ArrayList<>();
+		for (String attribute : attributes) {
+			columns.add(path(scope.from(), attribute, joins));
+		}
+		List<Path<?>> keys = new ArrayList<>();
+		for (int i = 0; i < resource.keys().size(); i++) {
+			keys.add((Path<?>) columns.get(i));
+		}
+
+		Predicate where = scope.filter();
+		if (cursor != null && !cursor.isEmpty()) {
+			where = cb.and(where, after(cb, keys, decode(resource, cursor, keys), resource.descending()));
+		}
+		List<Order> order = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			Path<?> key = keys.get(i);
+			if (nullable(keys, i)) {
+				order.add(resource.descending() ? cb.desc(key, false) : cb.asc(key, false));
+			}
+			else {
+				order.add(resource.descending() ? cb.desc(key) : cb.asc(key));
+			}
+		}
+		query.multiselect(columns).where(where).orderBy(order);
+		List<Tuple> tuples = this.entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+
+		List<Object[]> rows = new ArrayList<>(Math.min(tuples.size(), size));
+		for (int i = 0; i < tuples.size() && i < size; i++) {
+			Object[] row = new Object[selected.size()];
+			for (int j = 0; j < row.length; j++) {
+				row[j] = tuples.get(i).get(attributes.indexOf(resource.attribute(selected.get(j))));
+			}
+			rows.add(row);
+		}
+		String next = tuples.size() > size ? encode(resource, tuples.get(size - 1), keys.size()) : null;
+		return new SparsePage(selected, rows, next);
+	}
+
+	private static Path<?> path(From<?, ?> from, String attribute, Map<String, From<?, ?>> joins) {
+		int dot = attribute.lastIndexOf('.');
+		if (dot < 0) {
+			return from.get(attribute);
+		}
+		String association = attribute.substring(0, dot);
+		From<?, ?> joined = joins.computeIfAbsent(association, name -> from.join(name, JoinType.LEFT));
+		return joined.get(attribute.substring(dot + 1));
+	}
+
+	/**
+	 * Rows strictly after the given key values in the resource order:
+	 * {@code k1 > v1 OR (k1 = v1 AND k2 > v2) OR ...}. Nulls sort last, so every null is
+	 * after a value, nothing is after a null but the nulls that tie on it, and a tie on
+	 * null is {@code IS NULL} rather than {@code =}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Predicate after(CriteriaBuilder cb, List<Path<?>> keys, Object[] values, boolean descending) {
+		List<Predicate> alternatives = new ArrayList<>();
+		for (int i = 0; i < keys.size(); i++) {
+			if (values[i] == null) {
+				continue;
+			}
+			List<Predicate> conjunction = new ArrayList<>();
+			for (int j = 0; j < i; j++) {
+				conjunction.add(values[j] == null ? cb.isNull(keys.get(j)) : cb.equal(keys.get(j), values[j]));
+			}
+			Expression<Comparable> key = (Expression<Comparable>) keys.get(i);
+			Comparable value = (Comparable) values[i];
+			Predicate beyond = descending ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+			conjunction.add(nullable(keys, i) ? cb.or(beyond, cb.isNull(key)) : beyond);
+			alternatives.add(cb.and(conjunction.toArray(Predicate[]::new)));
+		}
+		return cb.or(alternatives.toArray(Predicate[]::new));
+	}
+
+	/**
+	 * Every key but the last, which is the id, may be null, see
+	 * {@link SparseResource#keys()}.
+	 */
+	private static boolean nullable(List<Path<?>> keys, int index) {
+		return index < keys.size() - 1;
+	}
+
+	private static String encode(SparseResource resource, Tuple last, int keyCount) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeUTF(resource.name());
+			for (int i = 0; i < keyCount; i++) {
+				Object value = last.get(i);
+				out.writeBoolean(value != null);
+				if (value != null) {
+					out.writeUTF(value.toString());
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+
+	private static Object[] decode(SparseResource resource, String cursor, List<Path<?>> keys) {
+		try (DataInputStream in = new DataInputStream(
+				new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+			if (!resource.name().equals(in.readUTF())) {
+				throw new IllegalArgumentException("Cursor belongs to another resource");
+			}
+			Object[] values = new Object[keys.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readBoolean() ? parse(in.readUTF(), keys.get(i).getJavaType()) : null;
+			}
+			if (in.available() > 0) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			return values;
+		}
+		catch (IOException | NumberFormatException | DateTimeParseException ex) {
+			throw new IllegalArgumentException("Invalid cursor", ex);
+		}
+	}
+
+	private static Object parse(String value, Class<?> type) {
+		if (type == Integer.class) {
+			return Integer.valueOf(value);
+		}
+		if (type == LocalDate.class) {
+			return LocalDate.parse(value);
+		}
+		return value;
+	}
+
+	private static String escapeLike(String value) {
+		return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+
+	/**
+	 * The entity the fields are read from, and the rows of it that belong to the request.
+	 */
+	private record Scope(From<?, ?> from, Predicate filter) {
+	}
+
+}
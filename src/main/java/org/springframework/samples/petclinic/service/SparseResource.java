@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The resources served as sparse, cursor-paged JSON by {@link SparseQueryService}: the
+ * fields a client may ask for, the entity attribute each one is read from, and the
+ * ordering that cursors resume from.
+ */
+public enum SparseResource {
+
+	/**
+	 * Owners from the {@code owner_summary} read model, in id order.
+	 */
+	OWNERS(List.of("id"), false, "id", "id", "firstName", "firstName", "lastName", "lastName", "address", "address",
+			"city", "city", "telephone", "telephone", "petCount", "petCount", "petNames", "petNames", "totalVisits",
+			"totalVisits", "lastVisitDate", "lastVisitDate"),
+
+	/**
+	 * The pets of one owner, by name as on the owner page, unnamed pets last.
+	 */
+	PETS(List.of("name", "id"), false, "id", "id", "name", "name", "birthDate", "birthDate", "type", "type.name"),
+
+	/**
+	 * The visits of one pet, newest first, undated visits last.
+	 */
+	VISITS(List.of("date", "id"), true, "id", "id", "date", "date", "description", "description", "petId", "petId");
+
+	private final List<String> keys;
+
+	private final boolean descending;
+
+	private final Map<String, String> attributes = new LinkedHashMap<>();
+
+	SparseResource(List<String> keys, boolean descending, String... fieldsAndAttributes) {
+		this.keys = keys;
+		this.descending = descending;
+		for (int i = 0; i < fieldsAndAttributes.length; i += 2) {
+			this.attributes.put(fieldsAndAttributes[i], fieldsAndAttributes[i + 1]);
+		}
+	}
+
+	/**
+	 * Parse a {@code fields} request parameter.
+	 * @param fields comma separated field names, or {@code null} or blank for all fields
+	 * @return the requested fields in request order, without duplicates
+	 * @throws IllegalArgumentException if a field is unknown
+	 */
+	public List<String> select(String fields) {
+		if (fields == null || fields.isBlank()) {
+			return List.copyOf(this.attributes.keySet());
+		}
+		Set<String> selected = new LinkedHashSet<>();
+		for (String field : fields.split(",")) {
+			String name = field.strip();
+			if (name.isEmpty()) {
+				continue;
+			}
+			if (!this.attributes.containsKey(name)) {
+				throw new IllegalArgumentException(
+						"Unknown field '" + name + "', expected one of " + String.join(", ", this.attributes.keySet()));
+			}
+			selected.add(name);
+		}
+		return new ArrayList<>(selected);
+	}
+
+	/**
+	 * @param field a field name accepted by {@link #select(String)}
+	 * @return the dotted attribute path the field is read from
+	 */
+	public String attribute(String field) {
+		return this.attributes.get(field);
+	}
+
+	/**
+	 * @return the attributes the resource is ordered by, unique together. The last one is
+	 * the id; the ones before it may be null and sort last.
+	 */
+	public List<String> keys() {
+		return this.keys;
+	}
+
+	/**
+	 * @return whether every key is ordered descending rather than ascending
+	 */
+	public boolean descending() {
+		return this.descending;
+	}
+
+}
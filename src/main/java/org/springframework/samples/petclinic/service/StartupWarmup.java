@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Warms the application up before it takes traffic: loads the caches through
+ * {@link CacheRefreshService} and sends each of {@code petclinic.warmup.requests} to the
+ * local server {@code petclinic.warmup.rounds} times, so that Hibernate, Thymeleaf and
+ * the JIT have been through the hot paths before the first real request.
+ * <p>
+ * Spring Boot switches the readiness state to accepting traffic only after every
+ * {@link ApplicationRunner} has returned, so {@code /readyz} reports out of service until
+ * the warm-up is done. Failed requests are logged and counted, and the warm-up stops
+ * after {@code petclinic.warmup.timeout} either way.
+ */
+@Component
+class StartupWarmup implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(StartupWarmup.class);
+
+	private final CacheRefreshService caches;
+
+	private final ApplicationContext context;
+
+	private final boolean enabled;
+
+	private final List<String> requests;
+
+	private final int rounds;
+
+	private final Duration timeout;
+
+	StartupWarmup(CacheRefreshService caches, ApplicationContext context,
+			@Value("${petclinic.warmup.enabled:true}") boolean enabled,
+			@Value("${petclinic.warmup.requests:}") List<String> requests,
+			@Value("${petclinic.warmup.rounds:20}") int rounds,
+			@Value("${petclinic.warmup.timeout:PT30S}") Duration timeout) {
+		this.caches = caches;
+		this.context = context;
+		this.enabled = enabled;
+		this.requests = requests;
+		this.rounds = rounds;
+		this.timeout = timeout;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!this.enabled) {
+			return;
+		}
+		long started = System.nanoTime();
+		long deadline = started + this.timeout.toNanos();
+		int cachesLoaded = 0;
+		try {
+			cachesLoaded = this.caches.refresh();
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Could not preload the caches", ex);
+		}
+		int sent = 0;
+		int failed = 0;
+		int port = port();
+		if (port > 0 && !this.requests.isEmpty()) {
+			RestClient client = client(port);
+			for (int round = 0; round < this.rounds && System.nanoTime() < deadline; round++) {
+				for (String request : this.requests) {
+					sent++;
+					try {
+						client.get().uri(request).retrieve().toBodilessEntity();
+					}
+					catch (RestClientException ex) {
+						failed++;
+						if (round == 0) {
+							logger.warn("Warm-up request " + request + " failed: " + ex.getMessage());
+						}
+					}
+				}
+			}
+		}
+		logger.info(String.format("Warm-up done in %d ms: %d caches loaded, %d requests sent, %d failed",
+				Duration.ofNanos(System.nanoTime() - started).toMillis(), cachesLoaded, sent, failed));
+	}
+
+	private int port() {
+		if (this.context instanceof WebServerApplicationContext web && web.getWebServer() != null) {
+			return web.getWebServer().getPort();
+		}
+		return -1;
+	}
+
+	private RestClient client(int port) {
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout(this.timeout);
+		requestFactory.setReadTimeout(this.timeout);
+		return RestClient.builder().baseUrl("http://localhost:" + port).requestFactory(requestFactory).build();
+	}
+
+}
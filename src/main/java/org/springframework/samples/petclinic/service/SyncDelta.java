@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.List;
+
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.repository.OwnerRepository.OwnerFields;
+import org.springframework.samples.petclinic.repository.OwnerRepository.PetFields;
+import org.springframework.samples.petclinic.repository.PetTypeRepository.PetTypeFields;
+import org.springframework.samples.petclinic.repository.VisitRepository.VisitFields;
+
+/**
+ * The changes of one sync page: the current state of every record changed in the sequence
+ * range {@code (since, until]}, and tombstones for the records that no longer exist.
+ *
+ * @param since the sequence the client sent
+ * @param until the sequence to send next time
+ * @param hasMore whether more changes follow {@code until}
+ * @param petTypes the pet types to insert or replace
+ * @param owners the owners to insert or replace
+ * @param pets the pets to insert or replace
+ * @param visits the visits to insert or replace
+ * @param deleted the records to delete
+ */
+public record SyncDelta(long since, long until, boolean hasMore, List<PetTypeFields> petTypes, List<OwnerFields> owners,
+		List<PetFields> pets, List<VisitFields> visits, List<Tombstone> deleted) {
+
+	/**
+	 * A deleted record.
+	 *
+	 * @param type the kind of record
+	 * @param id the record's id
+	 */
+	public record Tombstone(Subject type, int id) {
+	}
+
+}
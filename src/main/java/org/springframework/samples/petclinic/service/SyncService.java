@@ -0,0 +1,135 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.samples.petclinic.model.ChangeLogEntry;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.repository.ChangeLogRepository;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerRepository.OwnerFields;
+import org.springframework.samples.petclinic.repository.OwnerRepository.PetFields;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.repository.PetTypeRepository.PetTypeFields;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository.VisitFields;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Incremental sync for offline clients, driven by the {@code change_log} sequence that
+ * {@link ChangeFeedService} appends to on every write.
+ * <p>
+ * A page reads the next change log entries after the client's sequence, collapses
+ * repeated changes of the same record and loads the current columns of each changed
+ * record with one {@code IN} query per kind. Records that are gone become tombstones. The
+ * work per page therefore depends on how much changed, not on the size of the clinic.
+ * <p>
+ * Sequences are assigned at insert, so a lower one may still be in an open transaction
+ * when higher ones are read. A page stops short of the
+ * {@link ChangeFeedService#oldestOpen() oldest sequence still open} on this instance, so
+ * that the client asks again from below it and picks the change up once it commits.
+ */
+@Service
+public class SyncService {
+
+	static final Set<Subject> SYNCED = Set.of(Subject.PET_TYPE, Subject.OWNER, Subject.PET, Subject.VISIT);
+
+	private final ChangeLogRepository log;
+
+	private final OwnerRepository owners;
+
+	private final VisitRepository visits;
+
+	private final PetTypeRepository types;
+
+	private final ChangeFeedService changes;
+
+	public SyncService(ChangeLogRepository log, OwnerRepository owners, VisitRepository visits, PetTypeRepository types,
+			ChangeFeedService changes) {
+		this.log = log;
+		this.owners = owners;
+		this.visits = visits;
+		this.types = types;
+		this.changes = changes;
+	}
+
+	/**
+	 * Read the changes after a sequence.
+	 * @param since the last sequence the client has applied, 0 for a full download
+	 * @param limit the maximum number of change log entries to cover
+	 * @return the changes, whose {@link SyncDelta#until()} the client sends next
+	 */
+	@Transactional(readOnly = true)
+	public SyncDelta changesSince(long since, int limit) {
+		List<ChangeLogEntry> entries = this.log.findByIdGreaterThanAndSubjectInOrderById(since, SYNCED,
+				Limit.of(limit + 1));
+		boolean hasMore = entries.size() > limit;
+		if (hasMore) {
+			entries = entries.subList(0, limit);
+		}
+		long oldestOpen = this.changes.oldestOpen();
+		int committed = 0;
+		while (committed < entries.size() && entries.get(committed).getId() < oldestOpen) {
+			committed++;
+		}
+		if (committed < entries.size()) {
+			// the rest waits for the open transaction rather than being asked for at once
+			entries = entries.subList(0, committed);
+			hasMore = false;
+		}
+		long until = entries.isEmpty() ? since : entries.get(entries.size() - 1).getId();
+
+		Map<Subject, Set<Integer>> changed = new EnumMap<>(Subject.class);
+		for (ChangeLogEntry entry : entries) {
+			if (entry.getSubjectId() != null) {
+				changed.computeIfAbsent(entry.getSubject(), subject -> new LinkedHashSet<>()).add(entry.getSubjectId());
+			}
+		}
+		List<SyncDelta.Tombstone> deleted = new ArrayList<>();
+		List<PetTypeFields> petTypes = load(Subject.PET_TYPE, changed, this.types::findByIdInOrderById,
+				PetTypeFields::getId, deleted);
+		List<OwnerFields> ownerRows = load(Subject.OWNER, changed, this.owners::findFieldsByIdIn, OwnerFields::getId,
+				deleted);
+		List<PetFields> pets = load(Subject.PET, changed, this.owners::findPetFieldsByIdIn, PetFields::getId, deleted);
+		List<VisitFields> visitRows = load(Subject.VISIT, changed, this.visits::findByIdInOrderById, VisitFields::getId,
+				deleted);
+		return new SyncDelta(since, until, hasMore, petTypes, ownerRows, pets, visitRows, deleted);
+	}
+
+	private static <T> List<T> load(Subject subject, Map<Subject, Set<Integer>> changed,
+			Function<Collection<Integer>, List<T>> finder, Function<T, Integer> id, List<SyncDelta.Tombstone> deleted) {
+		Set<Integer> ids = changed.getOrDefault(subject, Set.of());
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		List<T> found = finder.apply(ids);
+		Set<Integer> present = found.stream().map(id).collect(Collectors.toSet());
+		ids.stream().filter(i -> !present.contains(i)).forEach(i -> deleted.add(new SyncDelta.Tombstone(subject, i)));
+		return found;
+	}
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash map from normalized telephone numbers to owner ids, held in two
+ * primitive arrays so that a million owners take about 24 MB and a lookup costs a few
+ * array reads without boxing.
+ * <p>
+ * Lookups use an optimistic read and only fall back to a read lock if a write overlapped,
+ * so callers are never blocked by each other. Numbers shared by several owners map to the
+ * one that was written last.
+ */
+public class TelephoneIndex {
+
+	/**
+	 * Returned by {@link #get(long)} when the number is unknown.
+	 */
+	public static final int MISSING = -1;
+
+	private static final long EMPTY = 0L;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private final StampedLock lock = new StampedLock();
+
+	private volatile Table table = new Table(MIN_CAPACITY);
+
+	private int size;
+
+	/**
+	 * Normalize a telephone number to the ten digits stored on an owner: every non-digit
+	 * is ignored and a leading {@code 1} country code is dropped, so
+	 * {@code +1 (608) 555-1023} and {@code 6085551023} are the same key.
+	 * @param number the number as dialled or stored, may be {@code null}
+	 * @return the ten digits as a number, or {@link #MISSING} if it is not a ten digit
+	 * number
+	 */
+	public static long normalize(String number) {
+		if (number == null) {
+			return MISSING;
+		}
+		long value = 0;
+		int digits = 0;
+		for (int i = 0; i < number.length(); i++) {
+			char c = number.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (++digits > 11) {
+					return MISSING;
+				}
+				value = value * 10 + (c - '0');
+			}
+		}
+		if (digits == 11 && value / 10_000_000_000L == 1) {
+			value -= 10_000_000_000L;
+			digits = 10;
+		}
+		return digits == 10 && value != EMPTY ? value : MISSING;
+	}
+
+	/**
+	 * @param number a normalized number
+	 * @return the owner id, or {@link #MISSING}
+	 */
+	public int get(long number) {
+		if (number == MISSING || number == EMPTY) {
+			return MISSING;
+		}
+		long stamp = this.lock.tryOptimisticRead();
+		int ownerId = this.table.get(number);
+		if (this.lock.validate(stamp)) {
+			return ownerId;
+		}
+		stamp = this.lock.readLock();
+		try {
+			return this.table.get(number);
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Map a number to an owner. Invalid numbers are ignored.
+	 * @param telephone the number as stored on the owner
+	 * @param ownerId the owner
+	 */
+	public void put(String telephone, int ownerId) {
+		long number = normalize(telephone);
+		if (number == MISSING) {
+			return;
+		}
+		long stamp = this.lock.writeLock();
+		try {
+			if (this.table.put(number, ownerId)) {
+				this.size++;
+				if (this.size * 2 > this.table.keys.length) {
+					this.table = this.table.resize(this.table.keys.length * 2);
+				}
+			}
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Remove the mapping of a number, but only if it still points at the given owner.
+	 * @param telephone the number as it was stored on the owner
+	 * @param ownerId the owner
+	 */
+	public void remove(String telephone, int ownerId) {
+		long number = normalize(telephone);
+		if (number == MISSING) {
+			return;
+		}
+		long stamp = this.lock.writeLock();
+		try {
+			if (this.table.remove(number, ownerId)) {
+				this.size--;
+			}
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Replace the whole index.
+	 * @param telephonesById the telephone number of every owner, keyed by owner id
+	 */
+	public void replaceAll(Map<Integer, String> telephonesById) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < telephonesById.size() * 2) {
+			capacity <<= 1;
+		}
+		Table next = new Table(capacity);
+		int count = 0;
+		for (Map.Entry<Integer, String> entry : telephonesById.entrySet()) {
+			long number = normalize(entry.getValue());
+			if (number != MISSING && next.put(number, entry.getKey())) {
+				count++;
+			}
+		}
+		long stamp = this.lock.writeLock();
+		try {
+			this.table = next;
+			this.size = count;
+		}
+		finally {
+			this.lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @return the number of indexed telephone numbers
+	 */
+	public int size() {
+		long stamp = this.lock.readLock();
+		try {
+			return this.size;
+		}
+		finally {
+			this.lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Linear-probing table. Slots holding {@link #EMPTY} are free; deletion shifts the
+	 * following entries back instead of leaving tombstones.
+	 */
+	private static final class Table {
+
+		final long[] keys;
+
+		final int[] values;
+
+		final int mask;
+
+		Table(int capacity) {
+			this.keys = new long[capacity];
+			this.values = new int[capacity];
+			this.mask = capacity - 1;
+		}
+
+		int get(long key) {
+			// bounded, so that a read racing with a writer cannot spin forever
+			for (int i = slot(key), probes = 0; probes <= this.mask; i = (i + 1) & this.mask, probes++) {
+				long k = this.keys[i];
+				if (k == key) {
+					return this.values[i];
+				}
+				if (k == EMPTY) {
+					return MISSING;
+				}
+			}
+			return MISSING;
+		}
+
+		boolean put(long key, int value) {
+			int i = slot(key);
+			while (this.keys[i] != EMPTY) {
+				if (this.keys[i] == key) {
+					this.values[i] = value;
+					return false;
+				}
+				i = (i + 1) & this.mask;
+			}
+			this.values[i] = value;
+			this.keys[i] = key;
+			return true;
+		}
+
+		boolean remove(long key, int value) {
+			int i = slot(key);
+			while (this.keys[i] != key) {
+				if (this.keys[i] == EMPTY) {
+					return false;
+				}
+				i = (i + 1) & this.mask;
+			}
+			if (this.values[i] != value) {
+				return false;
+			}
+			// backward shift: move later entries of the cluster into the gap when their
+			// home slot does not lie between the gap and their current slot
+			int gap = i;
+			for (int j = (gap + 1) & this.mask; this.keys[j] != EMPTY; j = (j + 1) & this.mask) {
+				int home = slot(this.keys[j]);
+				if (((j - home) & this.mask) >= ((j - gap) & this.mask)) {
+					this.keys[gap] = this.keys[j];
+					this.values[gap] = this.values[j];
+					gap = j;
+				}
+			}
+			this.keys[gap] = EMPTY;
+			return true;
+		}
+
+		Table resize(int capacity) {
+			Table next = new Table(capacity);
+			for (int i = 0; i < this.keys.length; i++) {
+				if (this.keys[i] != EMPTY) {
+					next.put(this.keys[i], this.values[i]);
+				}
+			}
+			return next;
+		}
+
+		private int slot(long key) {
+			// Fibonacci hashing spreads the sequential numbers of one exchange
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int) (hash ^ (hash >>> 32)) & this.mask;
+		}
+
+	}
+
+}
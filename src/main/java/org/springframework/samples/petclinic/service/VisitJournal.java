@@ -0,0 +1,293 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of booked visits that are not yet in the database.
+ * <p>
+ * The file starts with a random id that tells the journal apart from those of other
+ * instances, followed by the records. Each record is its payload length, a CRC32 of the
+ * payload and the payload itself: the sequence number, owner, pet, date and description
+ * of one visit. On open, records are read up to the first one that is incomplete or fails
+ * its checksum, which is what a crash during an append leaves behind, and the file is cut
+ * there.
+ * <p>
+ * {@link #write} only hands a record to the file system; {@link #force} returns once it
+ * is on disk. Writers that arrive while a force is running share the next one, so
+ * concurrent bookings cost one disk flush between them rather than one each. A failed
+ * force leaves the journal unusable, because what reached the disk is then unknown.
+ * <p>
+ * Sequence numbers keep growing across {@link #clear(long)} and restarts, so they can be
+ * compared with the last sequence number of this journal applied to the database.
+ */
+public class VisitJournal implements Closeable {
+
+	private static final int ID_BYTES = 16;
+
+	private static final int HEADER_BYTES = 8;
+
+	private static final long NO_DATE = Long.MIN_VALUE;
+
+	private final FileChannel channel;
+
+	private final String id;
+
+	private final List<Entry> entries;
+
+	private final Object forcing = new Object();
+
+	private long nextSeq;
+
+	private volatile long forcedSeq;
+
+	private volatile IOException failure;
+
+	/**
+	 * Open the journal, creating the file and its id if needed, and read the records it
+	 * holds.
+	 * @param file the journal file
+	 * @param appliedSeq looks up the last sequence number applied to the database for a
+	 * journal id
+	 * @throws IOException if the file cannot be read or created
+	 */
+	public VisitJournal(Path file, ToLongFunction<String> appliedSeq) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		this.id = readOrCreateId();
+		this.entries = read();
+		long lastSeq = this.entries.isEmpty() ? 0 : this.entries.get(this.entries.size() - 1).seq();
+		this.nextSeq = Math.max(appliedSeq.applyAsLong(this.id), lastSeq) + 1;
+		this.forcedSeq = this.nextSeq - 1;
+	}
+
+	/**
+	 * @return the id of this journal, unique across instances and kept across restarts
+	 */
+	public String id() {
+		return this.id;
+	}
+
+	/**
+	 * @return the records found when the journal was opened, in sequence order
+	 */
+	public List<Entry> entries() {
+		return List.copyOf(this.entries);
+	}
+
+	/**
+	 * Append a visit and force it to disk.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet visited
+	 * @param date the visit date, may be {@code null}
+	 * @param description the visit description
+	 * @return the record written, with its sequence number
+	 * @throws IOException if the record could not be written
+	 */
+	public Entry append(int ownerId, int petId, LocalDate date, String description) throws IOException {
+		Entry entry = write(ownerId, petId, date, description);
+		force(entry.seq());
+		return entry;
+	}
+
+	/**
+	 * Append a visit without waiting for the disk, see {@link #force(long)}.
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet visited
+	 * @param date the visit date, may be {@code null}
+	 * @param description the visit description
+	 * @return the record written, with its sequence number
+	 * @throws IOException if the record could not be written
+	 */
+	public synchronized Entry write(int ownerId, int petId, LocalDate date, String description) throws IOException {
+		failIfUnusable();
+		Entry entry = new Entry(this.nextSeq, ownerId, petId, date, description);
+		byte[] text = description.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer payload = ByteBuffer.allocate(8 + 4 + 4 + 8 + 4 + text.length);
+		payload.putLong(entry.seq())
+			.putInt(ownerId)
+			.putInt(petId)
+			.putLong(date == null ? NO_DATE : date.toEpochDay())
+			.putInt(text.length)
+			.put(text)
+			.flip();
+		CRC32 crc = new CRC32();
+		crc.update(payload.duplicate());
+		ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.remaining());
+		record.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload).flip();
+		long end = this.channel.size();
+		while (record.hasRemaining()) {
+			end += this.channel.write(record, end);
+		}
+		this.nextSeq++;
+		return entry;
+	}
+
+	/**
+	 * Wait until the record with the given sequence number and all before it are on disk.
+	 * One force covers every record written before it started.
+	 * @param seq the sequence number of a written record
+	 * @throws IOException if the records could not be forced; the journal is unusable
+	 * from then on
+	 */
+	public void force(long seq) throws IOException {
+		synchronized (this.forcing) {
+			if (this.forcedSeq >= seq) {
+				return;
+			}
+			failIfUnusable();
+			long written;
+			synchronized (this) {
+				written = this.nextSeq - 1;
+			}
+			try {
+				this.channel.force(false);
+			}
+			catch (IOException ex) {
+				this.failure = ex;
+				throw ex;
+			}
+			this.forcedSeq = written;
+		}
+	}
+
+	/**
+	 * @return the sequence number up to which every record is on disk
+	 */
+	public long forcedSeq() {
+		return this.forcedSeq;
+	}
+
+	/**
+	 * Empty the file, keeping its id, if every record in it has been applied.
+	 * @param appliedSeq the last sequence number of this journal applied to the database
+	 * @return whether the file was emptied
+	 * @throws IOException if the file could not be truncated
+	 */
+	public synchronized boolean clear(long appliedSeq) throws IOException {
+		if (this.nextSeq - 1 > appliedSeq || this.channel.size() <= ID_BYTES) {
+			return false;
+		}
+		this.channel.truncate(ID_BYTES);
+		this.channel.force(true);
+		return true;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.channel.close();
+	}
+
+	private void failIfUnusable() throws IOException {
+		if (this.failure != null) {
+			throw new IOException("Visit journal is unusable after a failed force", this.failure);
+		}
+	}
+
+	private String readOrCreateId() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(ID_BYTES);
+		if (this.channel.size() >= ID_BYTES) {
+			while (header.hasRemaining() && this.channel.read(header, header.position()) >= 0) {
+				// a short read only happens at the end of the file
+			}
+			header.flip();
+			return new UUID(header.getLong(), header.getLong()).toString();
+		}
+		// new, or torn while the id was written, so there are no records yet
+		UUID created = UUID.randomUUID();
+		header.putLong(created.getMostSignificantBits()).putLong(created.getLeastSignificantBits()).flip();
+		this.channel.truncate(0);
+		while (header.hasRemaining()) {
+			this.channel.write(header, header.position());
+		}
+		this.channel.force(true);
+		return created.toString();
+	}
+
+	private List<Entry> read() throws IOException {
+		long size = this.channel.size();
+		ByteBuffer file = ByteBuffer.allocate((int) (size - ID_BYTES));
+		while (file.hasRemaining() && this.channel.read(file, ID_BYTES + file.position()) >= 0) {
+			// keep reading until the whole file is in memory
+		}
+		file.flip();
+		List<Entry> read = new ArrayList<>();
+		long valid = ID_BYTES;
+		while (file.remaining() >= HEADER_BYTES) {
+			int length = file.getInt();
+			int checksum = file.getInt();
+			if (length < 0 || length > file.remaining()) {
+				break;
+			}
+			ByteBuffer payload = file.slice(file.position(), length);
+			CRC32 crc = new CRC32();
+			crc.update(payload.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+			file.position(file.position() + length);
+			read.add(decode(payload));
+			valid = ID_BYTES + file.position();
+		}
+		if (valid < size) {
+			// torn or corrupt tail from a crash during an append
+			this.channel.truncate(valid);
+			this.channel.force(true);
+		}
+		return read;
+	}
+
+	private static Entry decode(ByteBuffer payload) {
+		long seq = payload.getLong();
+		int ownerId = payload.getInt();
+		int petId = payload.getInt();
+		long epochDay = payload.getLong();
+		byte[] text = new byte[payload.getInt()];
+		payload.get(text);
+		return new Entry(seq, ownerId, petId, epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+				new String(text, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * One booked visit.
+	 *
+	 * @param seq the sequence number, increasing with each append
+	 * @param ownerId the owner of the pet
+	 * @param petId the pet visited
+	 * @param date the visit date, may be {@code null}
+	 * @param description the visit description
+	 */
+	public record Entry(long seq, int ownerId, int petId, LocalDate date, String description) {
+	}
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+
+/**
+ * A visit found by {@link VisitSearchService#search}.
+ *
+ * @param visitId the visit
+ * @param petId the pet that was seen
+ * @param date the visit date
+ * @param description the visit description
+ * @param score the relevance, higher is better
+ */
+public record VisitSearchHit(int visitId, Integer petId, LocalDate date, String description, double score) {
+
+}
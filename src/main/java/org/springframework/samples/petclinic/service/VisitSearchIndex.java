@@ -0,0 +1,298 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from {@link VisitTextAnalyzer} terms to the visits whose description
+ * contains them.
+ * <p>
+ * Each term keeps its postings in one byte array, sorted by visit date and then visit id,
+ * as variable-length deltas: days since the previous posting, the zigzag-encoded id
+ * difference and the term frequency. A typical posting takes three to four bytes. New
+ * visits usually carry the latest date and are appended; a back-dated visit re-encodes
+ * the postings of its terms. Date ranges are answered by decoding from the start and
+ * stopping after the last day in range.
+ */
+public class VisitSearchIndex {
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<String, Postings> postings = new HashMap<>();
+
+	private final BitSet indexed = new BitSet();
+
+	private int documents;
+
+	/**
+	 * Add one visit. Adding a visit that is already indexed has no effect.
+	 * @param visitId the visit
+	 * @param date the visit date
+	 * @param description the free-text description
+	 */
+	public void add(int visitId, LocalDate date, String description) {
+		Map<String, Integer> terms = VisitTextAnalyzer.indexTerms(description);
+		int day = (int) date.toEpochDay();
+		this.lock.writeLock().lock();
+		try {
+			if (this.indexed.get(visitId)) {
+				return;
+			}
+			this.indexed.set(visitId);
+			this.documents++;
+			terms.forEach((term, frequency) -> this.postings.computeIfAbsent(term, t -> new Postings())
+				.add(day, visitId, frequency));
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Drop everything.
+	 */
+	public void clear() {
+		this.lock.writeLock().lock();
+		try {
+			this.postings.clear();
+			this.indexed.clear();
+			this.documents = 0;
+		}
+		finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Find the visits that contain all terms and fall into the date range, ranked by
+	 * tf-idf and then by date, newest first.
+	 * @param terms query terms from {@link VisitTextAnalyzer#queryTerms}
+	 * @param from first day to include, or {@code null}
+	 * @param to last day to include, or {@code null}
+	 * @param limit maximum number of matches
+	 * @return the best matches
+	 */
+	public List<Match> search(List<String> terms, LocalDate from, LocalDate to, int limit) {
+		if (terms.isEmpty()) {
+			return List.of();
+		}
+		int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+		int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+		this.lock.readLock().lock();
+		try {
+			List<Postings> lists = new ArrayList<>(terms.size());
+			for (String term : terms) {
+				Postings list = this.postings.get(term);
+				if (list == null) {
+					return List.of();
+				}
+				lists.add(list);
+			}
+			// start from the rarest term: it bounds the candidates
+			lists.sort(Comparator.comparingInt(list -> list.count));
+			Map<Integer, Match> candidates = new HashMap<>();
+			for (int i = 0; i < lists.size(); i++) {
+				Postings list = lists.get(i);
+				double idf = Math.log(1.0 + (double) this.documents / list.count);
+				Map<Integer, Match> next = new HashMap<>();
+				boolean first = i == 0;
+				Map<Integer, Match> previous = candidates;
+				list.scan(fromDay, toDay, (day, id, frequency) -> {
+					Match match = first ? new Match(id, LocalDate.ofEpochDay(day), 0) : previous.get(id);
+					if (match != null) {
+						next.put(id, match.plus((1 + Math.log(frequency)) * idf));
+					}
+				});
+				candidates = next;
+				if (candidates.isEmpty()) {
+					return List.of();
+				}
+			}
+			return candidates.values()
+				.stream()
+				.sorted(Comparator.comparingDouble(Match::score)
+					.reversed()
+					.thenComparing(Match::date, Comparator.reverseOrder())
+					.thenComparing(Match::visitId, Comparator.reverseOrder()))
+				.limit(limit)
+				.toList();
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of indexed visits
+	 */
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.documents;
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the number of bytes held by all postings, for monitoring
+	 */
+	public long postingsBytes() {
+		this.lock.readLock().lock();
+		try {
+			return this.postings.values().stream().mapToLong(list -> list.length).sum();
+		}
+		finally {
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * A visit that matched a query.
+	 *
+	 * @param visitId the visit
+	 * @param date the visit date
+	 * @param score the relevance, higher is better
+	 */
+	public record Match(int visitId, LocalDate date, double score) {
+
+		Match plus(double more) {
+			return new Match(this.visitId, this.date, this.score + more);
+		}
+
+	}
+
+	@FunctionalInterface
+	private interface PostingConsumer {
+
+		void accept(int day, int visitId, int frequency);
+
+	}
+
+	/**
+	 * Delta-encoded postings of one term.
+	 */
+	private static final class Postings {
+
+		private byte[] data = new byte[8];
+
+		private int length;
+
+		private int count;
+
+		private int lastDay;
+
+		private int lastId;
+
+		void add(int day, int visitId, int frequency) {
+			if (this.count == 0 || day > this.lastDay || (day == this.lastDay && visitId > this.lastId)) {
+				append(day, visitId, frequency);
+				return;
+			}
+			// out of order: decode, insert and re-encode
+			List<int[]> entries = new ArrayList<>(this.count + 1);
+			scan(Integer.MIN_VALUE, Integer.MAX_VALUE, (d, id, f) -> entries.add(new int[] { d, id, f }));
+			entries.add(new int[] { day, visitId, frequency });
+			entries.sort(Comparator.<int[]>comparingInt(e -> e[0]).thenComparingInt(e -> e[1]));
+			this.data = new byte[Math.max(8, this.length + 8)];
+			this.length = 0;
+			this.count = 0;
+			for (int[] entry : entries) {
+				append(entry[0], entry[1], entry[2]);
+			}
+		}
+
+		void scan(int fromDay, int toDay, PostingConsumer consumer) {
+			int position = 0;
+			int day = 0;
+			int id = 0;
+			for (int i = 0; i < this.count; i++) {
+				long value = readVarint(position);
+				position = (int) (value >>> 32);
+				day = i == 0 ? (int) value : day + (int) value;
+				value = readVarint(position);
+				position = (int) (value >>> 32);
+				id += zigzagDecode((int) value);
+				value = readVarint(position);
+				position = (int) (value >>> 32);
+				if (day > toDay) {
+					return;
+				}
+				if (day >= fromDay) {
+					consumer.accept(day, id, (int) value);
+				}
+			}
+		}
+
+		private void append(int day, int visitId, int frequency) {
+			writeVarint(this.count == 0 ? day : day - this.lastDay);
+			writeVarint(zigzagEncode(visitId - (this.count == 0 ? 0 : this.lastId)));
+			writeVarint(frequency);
+			this.count++;
+			this.lastDay = day;
+			this.lastId = visitId;
+		}
+
+		private void writeVarint(int value) {
+			if (this.length + 5 > this.data.length) {
+				byte[] grown = new byte[this.data.length * 2];
+				System.arraycopy(this.data, 0, grown, 0, this.length);
+				this.data = grown;
+			}
+			while ((value & ~0x7F) != 0) {
+				this.data[this.length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.data[this.length++] = (byte) value;
+		}
+
+		/**
+		 * @return the decoded value in the low 32 bits, the next position in the high 32
+		 */
+		private long readVarint(int position) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.data[position++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			}
+			while (b < 0);
+			return ((long) position << 32) | (value & 0xFFFFFFFFL);
+		}
+
+		private static int zigzagEncode(int value) {
+			return (value << 1) ^ (value >> 31);
+		}
+
+		private static int zigzagDecode(int value) {
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+	}
+
+}
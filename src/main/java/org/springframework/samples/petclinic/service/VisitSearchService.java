@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Full-text search over visit descriptions, served from an in-process
+ * {@link VisitSearchIndex} so that no query has to scan the visits table with
+ * {@code LIKE '%...%'}.
+ * <p>
+ * The index is built on startup and writers call {@link #index(Visit)} after saving a new
+ * visit. Only the matching visits are then read from the database, by primary key.
+ */
+@Service
+public class VisitSearchService {
+
+	private final VisitRepository visits;
+
+	private volatile VisitSearchIndex index = new VisitSearchIndex();
+
+	public VisitSearchService(VisitRepository visits) {
+		this.visits = visits;
+	}
+
+	/**
+	 * Build the index from all visits and swap it in.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		VisitSearchIndex next = new VisitSearchIndex();
+		this.visits.findAll().forEach(visit -> add(next, visit));
+		this.index = next;
+	}
+
+	/**
+	 * Add a saved visit to the index.
+	 * @param visit the visit, with its id assigned
+	 */
+	public void index(Visit visit) {
+		add(this.index, visit);
+	}
+
+	/**
+	 * Find visits whose description contains every word of the query, ranked by relevance
+	 * and then by date, newest first.
+	 * @param query the words to search for
+	 * @param locale the locale whose stemming applies to the query
+	 * @param from first visit date to include, or {@code null}
+	 * @param to last visit date to include, or {@code null}
+	 * @param limit the maximum number of hits
+	 * @return the best hits
+	 */
+	@Transactional(readOnly = true)
+	public List<VisitSearchHit> search(String query, Locale locale, LocalDate from, LocalDate to, int limit) {
+		List<VisitSearchIndex.Match> matches = this.index.search(VisitTextAnalyzer.queryTerms(query, locale), from, to,
+				limit);
+		if (matches.isEmpty()) {
+			return List.of();
+		}
+		Map<Integer, Visit> byId = this.visits
+			.findAllById(matches.stream().map(VisitSearchIndex.Match::visitId).toList())
+			.stream()
+			.collect(Collectors.toMap(Visit::getId, Function.identity()));
+		return matches.stream().filter(match -> byId.containsKey(match.visitId())).map(match -> {
+			Visit visit = byId.get(match.visitId());
+			return new VisitSearchHit(match.visitId(), visit.getPetId(), visit.getDate(), visit.getDescription(),
+					match.score());
+		}).toList();
+	}
+
+	private static void add(VisitSearchIndex index, Visit visit) {
+		if (visit.getId() != null && visit.getDate() != null) {
+			index.add(visit.getId(), visit.getDate(), visit.getDescription());
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Splits visit descriptions into index terms and reduces them to stems, so that
+ * "dermatitis" also finds "Dermatitis-Kontrolle" and "vaccinations" finds "vaccination".
+ * <p>
+ * Stemming is language specific. Terms in Latin script are stemmed for every Latin
+ * language the clinic supports (English, German, Spanish), terms in Cyrillic script for
+ * Russian. Each term is prefixed with its language, so a query stemmed for the searcher's
+ * locale only meets terms stemmed the same way. The stemmers are light suffix strippers:
+ * they favour recall on plural and case endings over linguistic precision.
+ */
+public final class VisitTextAnalyzer {
+
+	private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private static final Pattern LATIN_MARKS = Pattern.compile("(?<=\\p{IsLatin})\\p{M}+");
+
+	private static final int MIN_STEM = 3;
+
+	private static final List<String> LATIN_LANGUAGES = List.of("en", "de", "es");
+
+	private static final Map<String, String[]> SUFFIXES = Map.of(
+			// longest first, each list is tried in order and the first match is removed
+			"en",
+			new String[] { "ational", "ations", "ation", "ings", "ing", "ies", "ied", "ness", "ment", "edly", "ed",
+					"es", "ly", "s" },
+			"de", new String[] { "ungen", "ung", "heit", "keit", "ern", "em", "en", "er", "es", "e", "n", "s" }, "es",
+			new String[] { "aciones", "acion", "mente", "idades", "idad", "iones", "ion", "es", "as", "os", "a", "o",
+					"e", "s" },
+			"ru",
+			new String[] { "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ией", "ий", "ый", "ой",
+					"ая", "яя", "ое", "ее", "ые", "ие", "ов", "ев", "ей", "ам", "ям", "ах", "ях", "ом", "ем", "ию",
+					"ия", "а", "я", "ы", "и", "у", "ю", "е", "о", "ь" });
+
+	private static final String[] EMPTY = new String[0];
+
+	private VisitTextAnalyzer() {
+	}
+
+	/**
+	 * Index terms of a description, with the number of times each occurs.
+	 * @param text the description
+	 * @return term frequencies, in order of first occurrence
+	 */
+	public static Map<String, Integer> indexTerms(String text) {
+		Map<String, Integer> terms = new LinkedHashMap<>();
+		for (String token : tokenize(text)) {
+			for (String language : languagesOf(token)) {
+				terms.merge(language + ':' + stem(token, language), 1, Integer::sum);
+			}
+		}
+		return terms;
+	}
+
+	/**
+	 * Terms of a search query, stemmed for the searcher's locale. Cyrillic words are
+	 * always stemmed as Russian, and Latin words as English unless the locale is German
+	 * or Spanish.
+	 * @param query the query as typed
+	 * @param locale the locale of the person searching, may be {@code null}
+	 * @return the distinct query terms
+	 */
+	public static List<String> queryTerms(String query, Locale locale) {
+		String preferred = locale == null ? "en" : locale.getLanguage();
+		String latin = LATIN_LANGUAGES.contains(preferred) ? preferred : "en";
+		List<String> terms = new ArrayList<>();
+		for (String token : tokenize(query)) {
+			String language = isCyrillic(token) ? "ru" : latin;
+			String term = language + ':' + stem(token, language);
+			if (!terms.contains(term)) {
+				terms.add(term);
+			}
+		}
+		return terms;
+	}
+
+	static List<String> tokenize(String text) {
+		if (text == null || text.isBlank()) {
+			return List.of();
+		}
+		// drop accents from Latin letters only: й must stay distinct from и for the
+		// Russian endings, while ё is commonly written as е anyway
+		String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+		String folded = Normalizer.normalize(LATIN_MARKS.matcher(decomposed).replaceAll(""), Normalizer.Form.NFC)
+			.replace("ß", "ss")
+			.replace('ё', 'е');
+		List<String> tokens = new ArrayList<>();
+		for (String token : TOKEN_SEPARATORS.split(folded)) {
+			if (!token.isEmpty()) {
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	static String stem(String token, String language) {
+		for (String suffix : SUFFIXES.getOrDefault(language, EMPTY)) {
+			if (token.endsWith(suffix) && token.length() - suffix.length() >= MIN_STEM) {
+				return token.substring(0, token.length() - suffix.length());
+			}
+		}
+		return token;
+	}
+
+	private static List<String> languagesOf(String token) {
+		return isCyrillic(token) ? List.of("ru") : LATIN_LANGUAGES;
+	}
+
+	private static boolean isCyrillic(String token) {
+		return Character.UnicodeScript.of(token.codePointAt(0)) == Character.UnicodeScript.CYRILLIC;
+	}
+
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.service.VisitJournal.Entry;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind for visit bookings, enabled with
+ * {@code petclinic.visits.write-behind.enabled}. A booked visit is appended to a
+ * {@link VisitJournal} and acknowledged once it is on disk; a background flusher inserts
+ * the journaled visits in batches and then updates the owner summaries, the visit search
+ * index and the change feed as a synchronous booking would. Bookings wait for the disk
+ * outside the lock of the service, and bookings that arrive together share one flush of
+ * the journal.
+ * <p>
+ * Each batch advances the checkpoint of its journal in {@code visit_journal_checkpoint}
+ * in the same transaction as its inserts. Every instance has a journal of its own, with
+ * its own id and sequence numbers. After a crash the journal is replayed from its
+ * checkpoint on, so every visit is inserted exactly once.
+ * <p>
+ * A visit is acknowledged before it is inserted, so a visit the database rejects, such as
+ * one for a pet deleted in between, must not hold up the visits behind it. When a batch
+ * violates a constraint its visits are inserted one at a time, and those that still fail
+ * are moved to {@code visit_dead_letter} with the checkpoint advanced past them.
+ * <p>
+ * Reads of an owner or pet with visits still in the journal call {@link #awaitOwner} or
+ * {@link #awaitPet} first, which flushes the journal so the read sees its own bookings.
+ */
+@Service
+public class VisitWriteBehindService {
+
+	private static final Log logger = LogFactory.getLog(VisitWriteBehindService.class);
+
+	private static final String INSERT_VISIT = "INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, ?)";
+
+	private static final String UPDATE_CHECKPOINT = "UPDATE visit_journal_checkpoint SET applied_seq = ? WHERE journal_id = ?";
+
+	private static final String INSERT_CHECKPOINT = "INSERT INTO visit_journal_checkpoint (journal_id, applied_seq) VALUES (?, ?)";
+
+	private static final String INSERT_DEAD_LETTER = "INSERT INTO visit_dead_letter"
+			+ " (journal_id, seq, owner_id, pet_id, visit_date, description, error, failed_at)"
+			+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final int MAX_ERROR_LENGTH = 1000;
+
+	private final JdbcTemplate jdbc;
+
+	private final TransactionTemplate transactions;
+
+	private final OwnerSummaryService summaries;
+
+	private final VisitSearchService visitSearch;
+
+	private final ChangeFeedService changes;
+
+	private final ReadCoalescingService reads;
+
+	private final boolean enabled;
+
+	private final Path file;
+
+	private final int batchSize;
+
+	private final Duration flushInterval;
+
+	private final ReentrantLock flushing = new ReentrantLock();
+
+	// guards the pending visits, and keeps them in the order they were written to the
+	// journal
+	private final Object lock = new Object();
+
+	private final List<Entry> pending = new ArrayList<>();
+
+	private final Map<Integer, Integer> pendingByOwner = new HashMap<>();
+
+	private final Map<Integer, Integer> pendingByPet = new HashMap<>();
+
+	private VisitJournal journal;
+
+	// the last sequence number taken off the pending visits, all of them applied
+	private long drainedSeq;
+
+	private ScheduledExecutorService flusher;
+
+	public VisitWriteBehindService(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+			OwnerSummaryService summaries, VisitSearchService visitSearch, ChangeFeedService changes,
+			ReadCoalescingService reads, @Value("${petclinic.visits.write-behind.enabled:false}") boolean enabled,
+			@Value("${petclinic.visits.write-behind.journal:data/visits.journal}") Path file,
+			@Value("${petclinic.visits.write-behind.batch-size:100}") int batchSize,
+			@Value("${petclinic.visits.write-behind.flush-interval:PT0.2S}") Duration flushInterval) {
+		this.jdbc = jdbc;
+		this.transactions = new TransactionTemplate(transactionManager);
+		this.summaries = summaries;
+		this.visitSearch = visitSearch;
+		this.changes = changes;
+		this.reads = reads;
+		this.enabled = enabled;
+		this.file = file;
+		this.batchSize = batchSize;
+		this.flushInterval = flushInterval;
+	}
+
+	/**
+	 * Open the journal, apply what a previous run left in it and start the flusher. Runs
+	 * before the application takes requests.
+	 */
+	@PostConstruct
+	void recover() throws IOException {
+		if (!this.enabled) {
+			return;
+		}
+		synchronized (this.lock) {
+			this.journal = new VisitJournal(this.file, this::appliedSeq);
+			long applied = appliedSeq(this.journal.id());
+			for (Entry entry : this.journal.entries()) {
+				if (entry.seq() > applied) {
+					add(entry);
+				}
+			}
+			this.drainedSeq = applied;
+		}
+		flush();
+		CustomizableThreadFactory threads = new CustomizableThreadFactory("visit-write-behind-");
+		threads.setDaemon(true);
+		this.flusher = Executors.newSingleThreadScheduledExecutor(threads);
+		this.flusher.scheduleWithFixedDelay(this::flushQuietly, this.flushInterval.toMillis(),
+				this.flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void shutdown() throws IOException, InterruptedException {
+		if (this.flusher == null) {
+			return;
+		}
+		this.flusher.shutdown();
+		this.flusher.awaitTermination(5, TimeUnit.SECONDS);
+		flushQuietly();
+		synchronized (this.lock) {
+			this.journal.close();
+		}
+	}
+
+	/**
+	 * @return whether bookings are journaled instead of saved right away
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Journal a validated visit. Returns once the visit is on disk; it reaches the
+	 * database with the next flush.
+	 * @param ownerId the owner of the pet
+	 * @param visit the visit, with its pet id set
+	 */
+	public void submit(int ownerId, Visit visit) {
+		if (!this.enabled) {
+			throw new IllegalStateException("Visit write-behind is not enabled");
+		}
+		Entry entry;
+		try {
+			synchronized (this.lock) {
+				entry = this.journal.write(ownerId, visit.getPetId(), visit.getDate(), visit.getDescription());
+				add(entry);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Could not journal visit for pet " + visit.getPetId(), ex);
+		}
+		try {
+			this.journal.force(entry.seq());
+		}
+		catch (IOException ex) {
+			synchronized (this.lock) {
+				remove(entry);
+			}
+			throw new UncheckedIOException("Could not journal visit for pet " + visit.getPetId(), ex);
+		}
+	}
+
+	/**
+	 * Flush the journal if the owner has visits in it.
+	 * @param ownerId the owner about to be read
+	 */
+	public void awaitOwner(int ownerId) {
+		boolean waiting;
+		synchronized (this.lock) {
+			waiting = this.pendingByOwner.containsKey(ownerId);
+		}
+		if (waiting) {
+			flush();
+		}
+	}
+
+	/**
+	 * Flush the journal if the pet has visits in it.
+	 * @param petId the pet whose visits are about to be read
+	 */
+	public void awaitPet(int petId) {
+		boolean waiting;
+		synchronized (this.lock) {
+			waiting = this.pendingByPet.containsKey(petId);
+		}
+		if (waiting) {
+			flush();
+		}
+	}
+
+	/**
+	 * @return the number of journaled visits not yet in the database
+	 */
+	public int pendingCount() {
+		synchronized (this.lock) {
+			return this.pending.size();
+		}
+	}
+
+	/**
+	 * Insert every journaled visit that is on disk, one transaction per batch, and empty
+	 * the journal once all of them are applied.
+	 */
+	public void flush() {
+		this.flushing.lock();
+		try {
+			List<Entry> next;
+			while (!(next = nextBatch()).isEmpty()) {
+				List<Entry> batch = next;
+				try {
+					drained(batch, this.transactions.execute(status -> apply(batch)));
+				}
+				catch (DataIntegrityViolationException ex) {
+					// apply one at a time to set aside the visits that can never be
+					// inserted, rather than retry the batch forever
+					for (Entry entry : batch) {
+						drained(List.of(entry), applyOrSetAside(entry));
+					}
+				}
+			}
+			synchronized (this.lock) {
+				if (this.pending.isEmpty()) {
+					this.journal.clear(this.drainedSeq);
+				}
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Could not clear the visit journal", ex);
+		}
+		finally {
+			this.flushing.unlock();
+		}
+	}
+
+	private List<Visit> applyOrSetAside(Entry entry) {
+		try {
+			return this.transactions.execute(status -> apply(List.of(entry)));
+		}
+		catch (DataIntegrityViolationException ex) {
+			logger.error("Could not insert journaled visit " + entry.seq() + " for pet " + entry.petId()
+					+ ", moved to visit_dead_letter", ex);
+			this.transactions.executeWithoutResult(status -> setAside(entry, ex));
+			return List.of();
+		}
+	}
+
+	private void drained(List<Entry> entries, List<Visit> saved) {
+		saved.forEach(this.visitSearch::index);
+		synchronized (this.lock) {
+			this.pending.subList(0, entries.size()).clear();
+			for (Entry entry : entries) {
+				count(this.pendingByOwner, entry.ownerId(), -1);
+				count(this.pendingByPet, entry.petId(), -1);
+			}
+			this.drainedSeq = entries.get(entries.size() - 1).seq();
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		}
+		catch (RuntimeException ex) {
+			logger.warn("Could not flush the visit journal, will retry", ex);
+		}
+	}
+
+	/**
+	 * The first pending visits that are on disk. Pending visits are in sequence order, so
+	 * a batch never skips a visit that is still being forced.
+	 */
+	private List<Entry> nextBatch() {
+		long forced = this.journal.forcedSeq();
+		synchronized (this.lock) {
+			int end = 0;
+			while (end < this.pending.size() && end < this.batchSize && this.pending.get(end).seq() <= forced) {
+				end++;
+			}
+			return List.copyOf(this.pending.subList(0, end));
+		}
+	}
+
+	private List<Visit> apply(List<Entry> batch) {
+		String journalId = this.journal.id();
+		long applied = appliedSeq(journalId);
+		List<Entry> fresh = batch.stream().filter(entry -> entry.seq() > applied).toList();
+		if (fresh.isEmpty()) {
+			return List.of();
+		}
+		GeneratedKeyHolder keys = new GeneratedKeyHolder();
+		this.jdbc.batchUpdate(connection -> connection.prepareStatement(INSERT_VISIT, new String[] { "id" }),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						Entry entry = fresh.get(i);
+						ps.setInt(1, entry.petId());
+						if (entry.date() == null) {
+							ps.setNull(2, Types.DATE);
+						}
+						else {
+							ps.setObject(2, entry.date());
+						}
+						ps.setString(3, entry.description());
+					}
+
+					@Override
+					public int getBatchSize() {
+						return fresh.size();
+					}
+				}, keys);
+		List<Visit> saved = new ArrayList<>(fresh.size());
+		Set<Integer> owners = new LinkedHashSet<>();
+		for (int i = 0; i < fresh.size(); i++) {
+			Entry entry = fresh.get(i);
+			Visit visit = new Visit();
+			visit.setId(((Number) keys.getKeyList().get(i).values().iterator().next()).intValue());
+			visit.setPetId(entry.petId());
+			visit.setDate(entry.date());
+			visit.setDescription(entry.description());
+			saved.add(visit);
+			owners.add(entry.ownerId());
+			this.changes.record(Subject.VISIT, visit.getId(), Action.CREATED, entry.ownerId());
+		}
+		owners.forEach(this.summaries::refresh);
+		owners.forEach(this.reads::ownerChanged);
+		checkpoint(journalId, fresh.get(fresh.size() - 1).seq());
+		return saved;
+	}
+
+	private void setAside(Entry entry, DataIntegrityViolationException ex) {
+		String journalId = this.journal.id();
+		if (entry.seq() <= appliedSeq(journalId)) {
+			return;
+		}
+		String error = String.valueOf(ex.getMostSpecificCause().getMessage());
+		this.jdbc.update(INSERT_DEAD_LETTER, journalId, entry.seq(), entry.ownerId(), entry.petId(), entry.date(),
+				entry.description(), error.substring(0, Math.min(error.length(), MAX_ERROR_LENGTH)),
+				Timestamp.from(Instant.now()));
+		checkpoint(journalId, entry.seq());
+	}
+
+	private void checkpoint(String journalId, long seq) {
+		if (this.jdbc.update(UPDATE_CHECKPOINT, seq, journalId) == 0) {
+			this.jdbc.update(INSERT_CHECKPOINT, journalId, seq);
+		}
+	}
+
+	private long appliedSeq(String journalId) {
+		List<Long> applied = this.jdbc.queryForList(
+				"SELECT applied_seq FROM visit_journal_checkpoint WHERE journal_id = ?", Long.class, journalId);
+		return applied.isEmpty() ? 0 : applied.get(0);
+	}
+
+	private void add(Entry entry) {
+		this.pending.add(entry);
+		count(this.pendingByOwner, entry.ownerId(), 1);
+		count(this.pendingByPet, entry.petId(), 1);
+	}
+
+	private void remove(Entry entry) {
+		if (this.pending.remove(entry)) {
+			count(this.pendingByOwner, entry.ownerId(), -1);
+			count(this.pendingByPet, entry.petId(), -1);
+		}
+	}
+
+	private static void count(Map<Integer, Integer> counts, int key, int delta) {
+		counts.merge(key, delta, (current, change) -> current + change == 0 ? null : current + change);
+	}
+
+}
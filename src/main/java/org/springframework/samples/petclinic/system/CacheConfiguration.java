@@ -16,38 +16,85 @@
 
 package org.springframework.samples.petclinic.system;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.profiling.CacheLookupEventsCacheResolver;
+import org.springframework.samples.petclinic.service.CacheRefreshService;
 
 import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.ModifiedExpiryPolicy;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
  * creates the used cache for the application and enables statistics that become
- * accessible via JMX.
+ * accessible via JMX. Caches are resolved through a
+ * {@link CacheLookupEventsCacheResolver} so that lookups show up in Flight Recordings.
+ * <p>
+ * Entries expire {@code petclinic.cache.time-to-live} after they were last written;
+ * {@link CacheRefreshService} rewrites them before that happens, and is told of every
+ * eviction so that a rewrite racing a write does not outlive it.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
-class CacheConfiguration {
+class CacheConfiguration implements CachingConfigurer {
+
+	private final ObjectProvider<CacheManager> cacheManager;
+
+	private final ObjectProvider<CacheRefreshService> refresher;
+
+	private final Map<Cache, Cache> tracked = new ConcurrentHashMap<>();
+
+	CacheConfiguration(ObjectProvider<CacheManager> cacheManager, ObjectProvider<CacheRefreshService> refresher) {
+		this.cacheManager = cacheManager;
+		this.refresher = refresher;
+	}
+
+	@Override
+	public CacheResolver cacheResolver() {
+		CacheResolver lookups = new CacheLookupEventsCacheResolver(this.cacheManager);
+		return context -> lookups.resolveCaches(context).stream().map(this::trackEvictions).toList();
+	}
+
+	private Cache trackEvictions(Cache cache) {
+		CacheRefreshService refresher = this.refresher.getIfAvailable();
+		return (refresher != null) ? this.tracked.computeIfAbsent(cache, refresher::trackEvictions) : cache;
+	}
 
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
-		return cm -> cm.createCache("vets", cacheConfiguration());
+	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer(
+			@Value("${petclinic.cache.time-to-live:PT10M}") Duration timeToLive) {
+		return cm -> {
+			cm.createCache("vets", cacheConfiguration(timeToLive));
+			cm.createCache("petTypes", cacheConfiguration(timeToLive));
+		};
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
+	 * Create a simple configuration that enable statistics and expire entries a fixed
+	 * time after they were written via the JCache programmatic configuration API.
 	 * <p>
 	 * Within the configuration object that is provided by the JCache API standard, there
 	 * is only a very limited set of configuration options. The really relevant
 	 * configuration options (like the size limit) must be set via a configuration
 	 * mechanism that is provided by the selected JCache implementation.
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration(Duration timeToLive) {
+		return new MutableConfiguration<>().setStatisticsEnabled(true)
+			.setExpiryPolicyFactory(ModifiedExpiryPolicy
+				.factoryOf(new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, timeToLive.toMillis())));
 	}
 
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Creates the beans of the packages listed in {@code petclinic.startup.lazy-packages} on
+ * first use rather than on startup. The {@code fast-start} profile lists the admin pages
+ * and the REST API, which the front desk does not need to be up: their controllers, and
+ * whatever only they depend on, are created by the first request that reaches them.
+ */
+@Configuration(proxyBeanMethods = false)
+class LazyInitializationConfiguration {
+
+	@Bean
+	static BeanFactoryPostProcessor lazyPackagesPostProcessor(Environment environment) {
+		String[] packages = environment.getProperty("petclinic.startup.lazy-packages", String[].class, new String[0]);
+		return beanFactory -> {
+			if (packages.length == 0) {
+				return;
+			}
+			for (String name : beanFactory.getBeanDefinitionNames()) {
+				BeanDefinition definition = beanFactory.getBeanDefinition(name);
+				if (inPackages(definition.getBeanClassName(), packages)) {
+					definition.setLazyInit(true);
+				}
+			}
+		};
+	}
+
+	private static boolean inPackages(String className, String[] packages) {
+		if (className == null) {
+			return false;
+		}
+		for (String lazyPackage : packages) {
+			if (className.startsWith(lazyPackage.strip() + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -1,18 +1,10 @@
-DROP TABLE vet_specialties IF EXISTS;
-DROP TABLE vets IF EXISTS;
-DROP TABLE specialties IF EXISTS;
-DROP TABLE visits IF EXISTS;
-DROP TABLE pets IF EXISTS;
-DROP TABLE types IF EXISTS;
-DROP TABLE owners IF EXISTS;
-
-
 CREATE TABLE vets (
   id         INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
   first_name VARCHAR(30),
   last_name  VARCHAR(30),
   email      VARCHAR(255),
-  telephone  VARCHAR(30)
+  telephone  VARCHAR(30),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX vets_last_name ON vets (last_name);
 
@@ -31,8 +23,7 @@ ALTER TABLE vet_specialties ADD CONSTRAINT fk_vet_specialties_specialties FOREIG
 
 CREATE TABLE types (
   id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  name        VARCHAR(80),
-  description VARCHAR(255)
+  name        VARCHAR(80)
 );
 CREATE INDEX types_name ON types (name);
 
@@ -42,7 +33,8 @@ CREATE TABLE owners (
   last_name  VARCHAR_IGNORECASE(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 CREATE INDEX owners_last_name ON owners (last_name);
 
@@ -51,7 +43,8 @@ CREATE TABLE pets (
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER
+  owner_id   INTEGER,
+  version    INTEGER DEFAULT 0 NOT NULL
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
@@ -64,4 +57,18 @@ CREATE TABLE visits (
   description VARCHAR(255)
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+
+CREATE TABLE owner_summary (
+  owner_id        INTEGER PRIMARY KEY,
+  first_name      VARCHAR(30),
+  last_name       VARCHAR_IGNORECASE(30),
+  address         VARCHAR(255),
+  city            VARCHAR(80),
+  telephone       VARCHAR(20),
+  pet_count       INTEGER DEFAULT 0 NOT NULL,
+  pet_names       VARCHAR(1024),
+  total_visits    INTEGER DEFAULT 0 NOT NULL,
+  last_visit_date DATE
+);
+CREATE INDEX owner_summary_last_name ON owner_summary (last_name);
@@ -1,9 +1,9 @@
-INSERT INTO vets VALUES (default, 'James', 'Carter', 'james.carter@example.com', '111111111');
-INSERT INTO vets VALUES (default, 'Helen', 'Leary', 'helen.leary@example.com', '222222222');
-INSERT INTO vets VALUES (default, 'Linda', 'Douglas', 'linda.douglas@example.com', '333333333');
-INSERT INTO vets VALUES (default, 'Rafael', 'Ortega', 'rafael.ortega@example.com', '444444444');
-INSERT INTO vets VALUES (default, 'Henry', 'Stevens', 'henry.stevens@example.com', '555555555');
-INSERT INTO vets VALUES (default, 'Sharon', 'Jenkins', 'sharon.jenkins@example.com', '666666666');
+INSERT INTO vets VALUES (default, 'James', 'Carter', 'james.carter@example.com', '111111111', 0);
+INSERT INTO vets VALUES (default, 'Helen', 'Leary', 'helen.leary@example.com', '222222222', 0);
+INSERT INTO vets VALUES (default, 'Linda', 'Douglas', 'linda.douglas@example.com', '333333333', 0);
+INSERT INTO vets VALUES (default, 'Rafael', 'Ortega', 'rafael.ortega@example.com', '444444444', 0);
+INSERT INTO vets VALUES (default, 'Henry', 'Stevens', 'henry.stevens@example.com', '555555555', 0);
+INSERT INTO vets VALUES (default, 'Sharon', 'Jenkins', 'sharon.jenkins@example.com', '666666666', 0);
 
 INSERT INTO specialties VALUES (default, 'radiology');
 INSERT INTO specialties VALUES (default, 'surgery');
@@ -22,30 +22,30 @@ INSERT INTO types VALUES (default, 'snake', 'Reptil, meist harmlos');
 INSERT INTO types VALUES (default, 'bird', 'Kann fliegen, zwitschert');
 INSERT INTO types VALUES (default, 'hamster', 'Kleines Nagetier, nachtaktiv');
 
-INSERT INTO owners VALUES (default, 'George', 'Franklin', '110 W. Liberty St.', 'Madison', '6085551023');
-INSERT INTO owners VALUES (default, 'Betty', 'Davis', '638 Cardinal Ave.', 'Sun Prairie', '6085551749');
-INSERT INTO owners VALUES (default, 'Eduardo', 'Rodriquez', '2693 Commerce St.', 'McFarland', '6085558763');
-INSERT INTO owners VALUES (default, 'Harold', 'Davis', '563 Friendly St.', 'Windsor', '6085553198');
-INSERT INTO owners VALUES (default, 'Peter', 'McTavish', '2387 S. Fair Way', 'Madison', '6085552765');
-INSERT INTO owners VALUES (default, 'Jean', 'Coleman', '105 N. Lake St.', 'Monona', '6085552654');
-INSERT INTO owners VALUES (default, 'Jeff', 'Black', '1450 Oak Blvd.', 'Monona', '6085555387');
-INSERT INTO owners VALUES (default, 'Maria', 'Escobito', '345 Maple St.', 'Madison', '6085557683');
-INSERT INTO owners VALUES (default, 'David', 'Schroeder', '2749 Blackhawk Trail', 'Madison', '6085559435');
-INSERT INTO owners VALUES (default, 'Carlos', 'Estaban', '2335 Independence La.', 'Waunakee', '6085555487');
+INSERT INTO owners VALUES (default, 'George', 'Franklin', '110 W. Liberty St.', 'Madison', '6085551023', 0);
+INSERT INTO owners VALUES (default, 'Betty', 'Davis', '638 Cardinal Ave.', 'Sun Prairie', '6085551749', 0);
+INSERT INTO owners VALUES (default, 'Eduardo', 'Rodriquez', '2693 Commerce St.', 'McFarland', '6085558763', 0);
+INSERT INTO owners VALUES (default, 'Harold', 'Davis', '563 Friendly St.', 'Windsor', '6085553198', 0);
+INSERT INTO owners VALUES (default, 'Peter', 'McTavish', '2387 S. Fair Way', 'Madison', '6085552765', 0);
+INSERT INTO owners VALUES (default, 'Jean', 'Coleman', '105 N. Lake St.', 'Monona', '6085552654', 0);
+INSERT INTO owners VALUES (default, 'Jeff', 'Black', '1450 Oak Blvd.', 'Monona', '6085555387', 0);
+INSERT INTO owners VALUES (default, 'Maria', 'Escobito', '345 Maple St.', 'Madison', '6085557683', 0);
+INSERT INTO owners VALUES (default, 'David', 'Schroeder', '2749 Blackhawk Trail', 'Madison', '6085559435', 0);
+INSERT INTO owners VALUES (default, 'Carlos', 'Estaban', '2335 Independence La.', 'Waunakee', '6085555487', 0);
 
-INSERT INTO pets VALUES (default, 'Leo', '2010-09-07', 1, 1);
-INSERT INTO pets VALUES (default, 'Basil', '2012-08-06', 6, 2);
-INSERT INTO pets VALUES (default, 'Rosy', '2011-04-17', 2, 3);
-INSERT INTO pets VALUES (default, 'Jewel', '2010-03-07', 2, 3);
-INSERT INTO pets VALUES (default, 'Iggy', '2010-11-30', 3, 4);
-INSERT INTO pets VALUES (default, 'George', '2010-01-20', 4, 5);
-INSERT INTO pets VALUES (default, 'Samantha', '2012-09-04', 1, 6);
-INSERT INTO pets VALUES (default, 'Max', '2012-09-04', 1, 6);
-INSERT INTO pets VALUES (default, 'Lucky', '2011-08-06', 5, 7);
-INSERT INTO pets VALUES (default, 'Mulligan', '2007-02-24', 2, 8);
-INSERT INTO pets VALUES (default, 'Freddy', '2010-03-09', 5, 9);
-INSERT INTO pets VALUES (default, 'Lucky', '2010-06-24', 2, 10);
-INSERT INTO pets VALUES (default, 'Sly', '2012-06-08', 1, 10);
+INSERT INTO pets VALUES (default, 'Leo', '2010-09-07', 1, 1, 0);
+INSERT INTO pets VALUES (default, 'Basil', '2012-08-06', 6, 2, 0);
+INSERT INTO pets VALUES (default, 'Rosy', '2011-04-17', 2, 3, 0);
+INSERT INTO pets VALUES (default, 'Jewel', '2010-03-07', 2, 3, 0);
+INSERT INTO pets VALUES (default, 'Iggy', '2010-11-30', 3, 4, 0);
+INSERT INTO pets VALUES (default, 'George', '2010-01-20', 4, 5, 0);
+INSERT INTO pets VALUES (default, 'Samantha', '2012-09-04', 1, 6, 0);
+INSERT INTO pets VALUES (default, 'Max', '2012-09-04', 1, 6, 0);
+INSERT INTO pets VALUES (default, 'Lucky', '2011-08-06', 5, 7, 0);
+INSERT INTO pets VALUES (default, 'Mulligan', '2007-02-24', 2, 8, 0);
+INSERT INTO pets VALUES (default, 'Freddy', '2010-03-09', 5, 9, 0);
+INSERT INTO pets VALUES (default, 'Lucky', '2010-06-24', 2, 10, 0);
+INSERT INTO pets VALUES (default, 'Sly', '2012-06-08', 1, 10, 0);
 
 INSERT INTO visits VALUES (default, 7, '2013-01-01', 'rabies shot');
 INSERT INTO visits VALUES (default, 8, '2013-01-02', 'rabies shot');
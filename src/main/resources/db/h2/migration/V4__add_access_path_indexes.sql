@@ -0,0 +1,9 @@
+-- pets.owner_id needs no index of its own: H2 indexes the fk_pets_owners constraint.
+CREATE INDEX visits_visit_date ON visits (visit_date);
+CREATE INDEX owners_telephone ON owners (telephone);
+
+-- (last_name, id) serves the prefix search and its ORDER BY id paging in one index.
+CREATE INDEX owners_last_name_id ON owners (last_name, id);
+DROP INDEX owners_last_name;
+CREATE INDEX owner_summary_last_name_id ON owner_summary (last_name, owner_id);
+DROP INDEX owner_summary_last_name;
@@ -0,0 +1,10 @@
+-- Outbox of the change feed, appended by ChangeFeedService next to every write.
+-- The id is the offset that /api/changes resumes from.
+CREATE TABLE change_log (
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  entity     VARCHAR(20) NOT NULL,
+  entity_id  INTEGER,
+  action     VARCHAR(10) NOT NULL,
+  owner_id   INTEGER,
+  changed_at TIMESTAMP NOT NULL
+);
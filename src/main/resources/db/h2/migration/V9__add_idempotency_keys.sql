@@ -0,0 +1,8 @@
+-- Responses of completed requests that carried an idempotency key, replayed to retries.
+-- Backs the in-memory store of IdempotencyService across restarts and evictions.
+CREATE TABLE idempotency_keys (
+  id         VARCHAR(200) NOT NULL PRIMARY KEY,
+  response   VARCHAR(4000) NOT NULL,
+  created_at TIMESTAMP NOT NULL
+);
+CREATE INDEX idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1 @@
+ALTER TABLE types ADD COLUMN description VARCHAR(255);
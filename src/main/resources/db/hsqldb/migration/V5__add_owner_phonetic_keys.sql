@@ -0,0 +1,6 @@
+-- Filled by OwnerSummaryService on startup, which summarizes every owner whose row has no keys yet.
+-- (key, owner_id) serves the lookup and its ORDER BY owner_id paging in one index.
+ALTER TABLE owner_summary ADD COLUMN last_name_cologne VARCHAR(20);
+ALTER TABLE owner_summary ADD COLUMN last_name_metaphone VARCHAR(20);
+CREATE INDEX owner_summary_cologne ON owner_summary (last_name_cologne, owner_id);
+CREATE INDEX owner_summary_metaphone ON owner_summary (last_name_metaphone, owner_id);
@@ -0,0 +1,54 @@
+-- Databases created by the former schema.sql/data.sql scripts are baselined at V1.
+-- This brings them to the schema V1 creates and adds types.description. Every statement
+-- checks first, so on a database created by V1 only the description column is added.
+-- MySQL has no IF NOT EXISTS for columns and indexes, hence the prepared statements.
+SET @ddl = IF(EXISTS (SELECT * FROM information_schema.columns WHERE table_schema = DATABASE()
+    AND table_name = 'types' AND column_name = 'description'),
+  'DO 0', 'ALTER TABLE types ADD COLUMN description VARCHAR(255)');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = IF(EXISTS (SELECT * FROM information_schema.columns WHERE table_schema = DATABASE()
+    AND table_name = 'vets' AND column_name = 'version'),
+  'DO 0', 'ALTER TABLE vets ADD COLUMN version INT NOT NULL DEFAULT 0');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = IF(EXISTS (SELECT * FROM information_schema.columns WHERE table_schema = DATABASE()
+    AND table_name = 'owners' AND column_name = 'version'),
+  'DO 0', 'ALTER TABLE owners ADD COLUMN version INT NOT NULL DEFAULT 0');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = IF(EXISTS (SELECT * FROM information_schema.columns WHERE table_schema = DATABASE()
+    AND table_name = 'pets' AND column_name = 'version'),
+  'DO 0', 'ALTER TABLE pets ADD COLUMN version INT NOT NULL DEFAULT 0');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- (pet_id, visit_date) serves the latest visits of a pet; the former schema only had the
+-- foreign key index on pet_id
+SET @ddl = IF(EXISTS (SELECT * FROM information_schema.statistics WHERE table_schema = DATABASE()
+    AND table_name = 'visits' AND column_name = 'visit_date' AND seq_in_index = 2),
+  'DO 0', 'ALTER TABLE visits ADD INDEX visits_pet_id_visit_date (pet_id, visit_date)');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+CREATE TABLE IF NOT EXISTS owner_summary (
+  owner_id INT(4) UNSIGNED NOT NULL PRIMARY KEY,
+  first_name VARCHAR(30),
+  last_name VARCHAR(30),
+  address VARCHAR(255),
+  city VARCHAR(80),
+  telephone VARCHAR(20),
+  pet_count INT NOT NULL DEFAULT 0,
+  pet_names VARCHAR(1024),
+  total_visits INT NOT NULL DEFAULT 0,
+  last_visit_date DATE,
+  INDEX(last_name)
+) engine=InnoDB;
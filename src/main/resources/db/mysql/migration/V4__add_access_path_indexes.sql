@@ -0,0 +1,17 @@
+-- Online DDL: InnoDB builds the indexes in place while reads and writes continue.
+-- pets.owner_id needs no index of its own: InnoDB indexes the foreign key.
+ALTER TABLE visits
+  ADD INDEX visits_visit_date (visit_date),
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+-- (last_name, id) serves the prefix search and its ORDER BY id paging in one index.
+ALTER TABLE owners
+  ADD INDEX owners_telephone (telephone),
+  ADD INDEX owners_last_name_id (last_name, id),
+  DROP INDEX last_name,
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE owner_summary
+  ADD INDEX owner_summary_last_name_id (last_name, owner_id),
+  DROP INDEX last_name,
+  ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,12 @@
+-- Filled by OwnerSummaryService on startup, which summarizes every owner whose row has no keys yet.
+-- Online DDL: InnoDB adds nullable columns and builds the indexes in place.
+-- (key, owner_id) serves the lookup and its ORDER BY owner_id paging in one index.
+ALTER TABLE owner_summary
+  ADD COLUMN last_name_cologne VARCHAR(20),
+  ADD COLUMN last_name_metaphone VARCHAR(20),
+  ALGORITHM=INPLACE, LOCK=NONE;
+
+ALTER TABLE owner_summary
+  ADD INDEX owner_summary_cologne (last_name_cologne, owner_id),
+  ADD INDEX owner_summary_metaphone (last_name_metaphone, owner_id),
+  ALGORITHM=INPLACE, LOCK=NONE;
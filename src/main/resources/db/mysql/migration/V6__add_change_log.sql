@@ -0,0 +1,10 @@
+-- Outbox of the change feed, appended by ChangeFeedService next to every write.
+-- The id is the offset that /api/changes resumes from.
+CREATE TABLE change_log (
+  id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  entity VARCHAR(20) NOT NULL,
+  entity_id INT(4) UNSIGNED,
+  action VARCHAR(10) NOT NULL,
+  owner_id INT(4) UNSIGNED,
+  changed_at DATETIME(3) NOT NULL
+) engine=InnoDB;
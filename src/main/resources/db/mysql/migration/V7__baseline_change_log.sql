@@ -0,0 +1,11 @@
+-- Give every existing row a change sequence, so that a sync from offset 0 is a full
+-- download through the same path as any later delta. Types come first, then owners,
+-- pets and visits, so a client never receives a row before the rows it refers to.
+INSERT INTO change_log (entity, entity_id, action, owner_id, changed_at)
+  SELECT 'PET_TYPE', id, 'CREATED', NULL, CURRENT_TIMESTAMP(3) FROM types ORDER BY id;
+INSERT INTO change_log (entity, entity_id, action, owner_id, changed_at)
+  SELECT 'OWNER', id, 'CREATED', id, CURRENT_TIMESTAMP(3) FROM owners ORDER BY id;
+INSERT INTO change_log (entity, entity_id, action, owner_id, changed_at)
+  SELECT 'PET', id, 'CREATED', owner_id, CURRENT_TIMESTAMP(3) FROM pets ORDER BY id;
+INSERT INTO change_log (entity, entity_id, action, owner_id, changed_at)
+  SELECT 'VISIT', v.id, 'CREATED', p.owner_id, CURRENT_TIMESTAMP(3) FROM visits v JOIN pets p ON p.id = v.pet_id ORDER BY v.id;
@@ -0,0 +1,22 @@
+-- Last sequence number of each visit write-behind journal applied to the visits table.
+-- Every instance journals to a file with an id of its own. Advanced in the same
+-- transaction as the inserts, so a replay skips what is applied.
+CREATE TABLE visit_journal_checkpoint (
+  journal_id VARCHAR(36) NOT NULL PRIMARY KEY,
+  applied_seq BIGINT NOT NULL
+) engine=InnoDB;
+
+-- Journaled visits that can never be inserted, such as one for a pet deleted before the
+-- flush. Set aside with the checkpoint advanced past them, so they do not hold up the
+-- visits behind them.
+CREATE TABLE visit_dead_letter (
+  id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
+  journal_id VARCHAR(36) NOT NULL,
+  seq BIGINT NOT NULL,
+  owner_id INT(4) UNSIGNED NOT NULL,
+  pet_id INT(4) UNSIGNED NOT NULL,
+  visit_date DATE,
+  description TEXT,
+  error VARCHAR(1000) NOT NULL,
+  failed_at DATETIME(3) NOT NULL
+) engine=InnoDB;
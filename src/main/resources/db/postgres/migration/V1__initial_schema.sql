@@ -0,0 +1,71 @@
+CREATE TABLE vets (
+  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  first_name TEXT,
+  last_name  TEXT,
+  email      TEXT,
+  telephone  TEXT,
+  version    INT NOT NULL DEFAULT 0
+);
+CREATE INDEX vets_last_name_idx ON vets (last_name);
+
+CREATE TABLE specialties (
+  id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name TEXT
+);
+CREATE INDEX specialties_name_idx ON specialties (name);
+
+CREATE TABLE vet_specialties (
+  vet_id       INT NOT NULL REFERENCES vets (id),
+  specialty_id INT NOT NULL REFERENCES specialties (id),
+  UNIQUE (vet_id, specialty_id)
+);
+
+CREATE TABLE types (
+  id   INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name TEXT
+);
+CREATE INDEX types_name_idx ON types (name);
+
+CREATE TABLE owners (
+  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  first_name TEXT,
+  last_name  TEXT,
+  address    TEXT,
+  city       TEXT,
+  telephone  TEXT,
+  version    INT NOT NULL DEFAULT 0
+);
+CREATE INDEX owners_last_name_idx ON owners (last_name);
+
+CREATE TABLE pets (
+  id         INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name       TEXT,
+  birth_date DATE,
+  type_id    INT NOT NULL REFERENCES types (id),
+  owner_id   INT REFERENCES owners (id),
+  version    INT NOT NULL DEFAULT 0
+);
+CREATE INDEX pets_name_idx ON pets (name);
+CREATE INDEX pets_owner_id_idx ON pets (owner_id);
+
+CREATE TABLE visits (
+  id          INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  pet_id      INT REFERENCES pets (id),
+  visit_date  DATE,
+  description TEXT
+);
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+
+CREATE TABLE owner_summary (
+  owner_id        INT PRIMARY KEY,
+  first_name      TEXT,
+  last_name       TEXT,
+  address         TEXT,
+  city            TEXT,
+  telephone       TEXT,
+  pet_count       INT NOT NULL DEFAULT 0,
+  pet_names       TEXT,
+  total_visits    INT NOT NULL DEFAULT 0,
+  last_visit_date DATE
+);
+CREATE INDEX owner_summary_last_name ON owner_summary (last_name);
@@ -0,0 +1,26 @@
+-- Databases created by the former schema.sql/data.sql scripts are baselined at V1.
+-- This brings them to the schema V1 creates and adds types.description. Every statement
+-- checks first, so on a database created by V1 only the description column is added.
+ALTER TABLE types ADD COLUMN IF NOT EXISTS description TEXT;
+ALTER TABLE vets ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE owners ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+ALTER TABLE pets ADD COLUMN IF NOT EXISTS version INT NOT NULL DEFAULT 0;
+
+-- (pet_id, visit_date) serves the latest visits of a pet and replaces the former index
+-- on pet_id alone
+CREATE INDEX IF NOT EXISTS visits_pet_id_visit_date ON visits (pet_id, visit_date);
+DROP INDEX IF EXISTS visits_pet_id_idx;
+
+CREATE TABLE IF NOT EXISTS owner_summary (
+  owner_id        INT PRIMARY KEY,
+  first_name      TEXT,
+  last_name       TEXT,
+  address         TEXT,
+  city            TEXT,
+  telephone       TEXT,
+  pet_count       INT NOT NULL DEFAULT 0,
+  pet_names       TEXT,
+  total_visits    INT NOT NULL DEFAULT 0,
+  last_visit_date DATE
+);
+CREATE INDEX IF NOT EXISTS owner_summary_last_name ON owner_summary (last_name);
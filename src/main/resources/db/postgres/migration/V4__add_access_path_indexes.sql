@@ -0,0 +1,11 @@
+-- CONCURRENTLY builds the indexes without blocking writes. It cannot run inside a
+-- transaction, which is why application-postgres.properties enables spring.flyway.mixed.
+-- pets.owner_id is already indexed by V1 (pets_owner_id_idx).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS visits_visit_date ON visits (visit_date);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS owners_telephone ON owners (telephone);
+
+-- (last_name, id) serves the prefix search and its ORDER BY id paging in one index.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS owners_last_name_id ON owners (last_name, id);
+DROP INDEX CONCURRENTLY IF EXISTS owners_last_name_idx;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS owner_summary_last_name_id ON owner_summary (last_name, owner_id);
+DROP INDEX CONCURRENTLY IF EXISTS owner_summary_last_name;
@@ -0,0 +1,10 @@
+-- Outbox of the change feed, appended by ChangeFeedService next to every write.
+-- The id is the offset that /api/changes resumes from.
+CREATE TABLE IF NOT EXISTS change_log (
+  id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  entity     TEXT NOT NULL,
+  entity_id  INT,
+  action     TEXT NOT NULL,
+  owner_id   INT,
+  changed_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,22 @@
+-- Last sequence number of each visit write-behind journal applied to the visits table.
+-- Every instance journals to a file with an id of its own. Advanced in the same
+-- transaction as the inserts, so a replay skips what is applied.
+CREATE TABLE IF NOT EXISTS visit_journal_checkpoint (
+  journal_id  TEXT NOT NULL PRIMARY KEY,
+  applied_seq BIGINT NOT NULL
+);
+
+-- Journaled visits that can never be inserted, such as one for a pet deleted before the
+-- flush. Set aside with the checkpoint advanced past them, so they do not hold up the
+-- visits behind them.
+CREATE TABLE IF NOT EXISTS visit_dead_letter (
+  id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  journal_id  TEXT NOT NULL,
+  seq         BIGINT NOT NULL,
+  owner_id    INTEGER NOT NULL,
+  pet_id      INTEGER NOT NULL,
+  visit_date  DATE,
+  description TEXT,
+  error       TEXT NOT NULL,
+  failed_at   TIMESTAMP NOT NULL
+);
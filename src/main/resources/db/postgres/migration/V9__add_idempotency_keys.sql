@@ -0,0 +1,8 @@
+-- Responses of completed requests that carried an idempotency key, replayed to retries.
+-- Backs the in-memory store of IdempotencyService across restarts and evictions.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+  id         TEXT NOT NULL PRIMARY KEY,
+  response   TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -1,15 +1,10 @@
-DROP TABLE IF EXISTS vet_specialties;
-DROP TABLE IF EXISTS vets;
-DROP TABLE IF EXISTS specialties;
-DROP TABLE IF EXISTS visits;
-DROP TABLE IF EXISTS pets;
-DROP TABLE IF EXISTS types;
-DROP TABLE IF EXISTS owners;
-
 CREATE TABLE vets (
   id INTEGER PRIMARY KEY AUTOINCREMENT,
   first_name TEXT,
-  last_name TEXT
+  last_name TEXT,
+  email TEXT,
+  telephone TEXT,
+  version INTEGER NOT NULL DEFAULT 0
 );
 CREATE INDEX idx_vets_last_name ON vets (last_name);
 
@@ -38,7 +33,8 @@ CREATE TABLE owners (
   last_name TEXT,
   address TEXT,
   city TEXT,
-  telephone TEXT
+  telephone TEXT,
+  version INTEGER NOT NULL DEFAULT 0
 );
 CREATE INDEX idx_owners_last_name ON owners (last_name);
 
@@ -48,6 +44,7 @@ CREATE TABLE pets (
   birth_date TEXT,
   type_id INTEGER NOT NULL,
   owner_id INTEGER,
+  version INTEGER NOT NULL DEFAULT 0,
   FOREIGN KEY (owner_id) REFERENCES owners (id),
   FOREIGN KEY (type_id) REFERENCES types (id)
 );
@@ -60,4 +57,18 @@ CREATE TABLE visits (
   description TEXT,
   FOREIGN KEY (pet_id) REFERENCES pets (id)
 );
-CREATE INDEX idx_visits_pet_id ON visits (pet_id);
+CREATE INDEX idx_visits_pet_id_visit_date ON visits (pet_id, visit_date);
+
+CREATE TABLE owner_summary (
+  owner_id INTEGER PRIMARY KEY,
+  first_name TEXT,
+  last_name TEXT,
+  address TEXT,
+  city TEXT,
+  telephone TEXT,
+  pet_count INTEGER NOT NULL DEFAULT 0,
+  pet_names TEXT,
+  total_visits INTEGER NOT NULL DEFAULT 0,
+  last_visit_date TEXT
+);
+CREATE INDEX idx_owner_summary_last_name ON owner_summary (last_name);
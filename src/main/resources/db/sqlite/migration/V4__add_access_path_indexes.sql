@@ -0,0 +1,10 @@
+-- SQLite does not index foreign keys by itself.
+CREATE INDEX idx_pets_owner_id ON pets (owner_id);
+CREATE INDEX idx_visits_visit_date ON visits (visit_date);
+CREATE INDEX idx_owners_telephone ON owners (telephone);
+
+-- (last_name, id) serves the prefix search and its ORDER BY id paging in one index.
+CREATE INDEX idx_owners_last_name_id ON owners (last_name, id);
+DROP INDEX idx_owners_last_name;
+CREATE INDEX idx_owner_summary_last_name_id ON owner_summary (last_name, owner_id);
+DROP INDEX idx_owner_summary_last_name;
@@ -0,0 +1,6 @@
+-- Filled by OwnerSummaryService on startup, which summarizes every owner whose row has no keys yet.
+-- (key, owner_id) serves the lookup and its ORDER BY owner_id paging in one index.
+ALTER TABLE owner_summary ADD COLUMN last_name_cologne TEXT;
+ALTER TABLE owner_summary ADD COLUMN last_name_metaphone TEXT;
+CREATE INDEX idx_owner_summary_cologne ON owner_summary (last_name_cologne, owner_id);
+CREATE INDEX idx_owner_summary_metaphone ON owner_summary (last_name_metaphone, owner_id);
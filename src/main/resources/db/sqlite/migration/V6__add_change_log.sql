@@ -0,0 +1,10 @@
+-- Outbox of the change feed, appended by ChangeFeedService next to every write.
+-- The id is the offset that /api/changes resumes from.
+CREATE TABLE change_log (
+  id INTEGER PRIMARY KEY AUTOINCREMENT,
+  entity TEXT NOT NULL,
+  entity_id INTEGER,
+  action TEXT NOT NULL,
+  owner_id INTEGER,
+  changed_at TEXT NOT NULL
+);
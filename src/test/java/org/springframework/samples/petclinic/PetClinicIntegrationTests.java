@@ -18,20 +18,40 @@ package org.springframework.samples.petclinic;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.StatementFault;
+import org.springframework.samples.petclinic.chaos.Latency;
+import org.springframework.samples.petclinic.concurrency.BulkheadDataSource;
 import org.springframework.samples.petclinic.repository.VetRepository;
 import org.springframework.web.client.RestTemplate;
 
-@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+import com.zaxxer.hikari.HikariDataSource;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "petclinic.chaos.enabled=true")
 public class PetClinicIntegrationTests {
 
 	@LocalServerPort
@@ -49,6 +69,14 @@ public class PetClinicIntegrationTests {
 		vets.findAll(); // served from cache
 	}
 
+	@Test
+	void testCachesLoadedBeforeReady(@Autowired CacheManager cacheManager,
+			@Autowired ApplicationAvailability availability) {
+		assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+		assertThat(cacheManager.getCache("vets").get(SimpleKey.EMPTY)).isNotNull();
+		assertThat(cacheManager.getCache("petTypes").get(SimpleKey.EMPTY)).isNotNull();
+	}
+
 	@Test
 	void testOwnerDetails() {
 		RestTemplate template = builder.rootUri("http://localhost:" + port).build();
@@ -56,6 +84,41 @@ public class PetClinicIntegrationTests {
 		assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
 	}
 
+	@Test
+	void testOwnerDetailsWithSlowDatabase(@Autowired DatabaseChaos chaos) {
+		chaos.configure(DatabaseChaos.NO_ACQUISITION_FAULTS, List
+			.of(new StatementFault("slow-visits", Pattern.compile("from visits"), Latency.parse("200ms"), 1.0, 0, 0)));
+		try {
+			RestTemplate template = builder.rootUri("http://localhost:" + port).build();
+			long start = System.nanoTime();
+			ResponseEntity<String> result = template.exchange(RequestEntity.get("/owners/1").build(), String.class);
+			assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+			assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+			assertThat(chaos.delays()).isPositive();
+		}
+		finally {
+			chaos.reset();
+		}
+	}
+
+	@Test
+	void testClosesEveryPoolWithTheContext(@TempDir Path dir) throws Exception {
+		ConfigurableApplicationContext context = SpringApplication.run(PetClinicApplication.class, "--server.port=0",
+				"--petclinic.chaos.enabled=true",
+				"--petclinic.visits.write-behind.journal=" + dir.resolve("visits.journal"));
+		DataSource dataSource = context.getBean(DataSource.class);
+		List<HikariDataSource> pools = new ArrayList<>();
+		pools.add(dataSource.unwrap(HikariDataSource.class));
+		for (DataSource partition : dataSource.unwrap(BulkheadDataSource.class).getPartitions().values()) {
+			pools.add((HikariDataSource) partition);
+		}
+		assertThat(pools).hasSize(3).noneMatch(HikariDataSource::isClosed);
+
+		context.close();
+
+		assertThat(pools).allMatch(HikariDataSource::isClosed);
+	}
+
 	public static void main(String[] args) {
 		SpringApplication.run(PetClinicApplication.class, args);
 	}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures the time from launching the application jar to the first answered request for
+ * each startup variant: a plain start, the lazy admin and REST beans of the
+ * {@code fast-start} profile, the AOT-processed context, and the AOT-processed context
+ * with the CDS archive of the training run. The AOT variants need
+ * {@code ./mvnw -Pfast-start package} first and are left out of the report otherwise. The
+ * report is written to {@code target/startup-benchmark.md}.
+ * <p>
+ * Starts the application a dozen times, so it only runs with
+ * {@code -Dpetclinic.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "petclinic.benchmark", matches = "true")
+class StartupBenchmarkTests {
+
+	private static final int RUNS = 3;
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(120);
+
+	private static final Path FAST_START = Path.of("target", "fast-start");
+
+	private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+	@Test
+	void compareTimeToFirstRequest() throws Exception {
+		Path extracted = jar(FAST_START);
+		Path jar = (extracted != null) ? extracted : jar(Path.of("target"));
+		assertThat(jar).as("application jar, run ./mvnw package first").isNotNull();
+
+		List<Variant> variants = new ArrayList<>();
+		variants.add(new Variant("plain", jar));
+		variants.add(new Variant("lazy admin/REST beans", jar, "-Dspring.profiles.active=fast-start"));
+		if (extracted != null) {
+			variants.add(new Variant("AOT", extracted, "-Dspring.aot.enabled=true"));
+			if (Files.exists(FAST_START.resolve("application.jsa"))) {
+				variants.add(new Variant("AOT + CDS", extracted, "-XX:SharedArchiveFile=application.jsa",
+						"-Dspring.aot.enabled=true"));
+			}
+		}
+
+		List<long[]> results = new ArrayList<>();
+		for (Variant variant : variants) {
+			long[] millis = new long[RUNS];
+			for (int i = 0; i < RUNS; i++) {
+				millis[i] = timeToFirstRequest(variant);
+			}
+			Arrays.sort(millis);
+			results.add(millis);
+		}
+
+		Path report = Path.of("target", "startup-benchmark.md");
+		writeReport(report, variants, results);
+		assertThat(report).exists();
+	}
+
+	private long timeToFirstRequest(Variant variant) throws Exception {
+		int port = freePort();
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(List.of(variant.options()));
+		command.add("-jar");
+		command.add(variant.jar().getFileName().toString());
+		command.add("--server.port=" + port);
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/owners/find"))
+			.timeout(Duration.ofSeconds(5))
+			.build();
+
+		long start = System.nanoTime();
+		Process process = new ProcessBuilder(command).directory(variant.jar().getParent().toFile())
+			.redirectErrorStream(true)
+			.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+			.start();
+		try {
+			while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+				if (!process.isAlive()) {
+					throw new AssertionError(variant.name() + " exited with " + process.exitValue());
+				}
+				try {
+					if (this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						return (System.nanoTime() - start) / 1_000_000;
+					}
+				}
+				catch (IOException ex) {
+					// not listening yet
+				}
+				Thread.sleep(10);
+			}
+			throw new AssertionError(variant.name() + " did not answer within " + TIMEOUT);
+		}
+		finally {
+			process.destroy();
+			process.waitFor();
+		}
+	}
+
+	private static Path jar(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return null;
+		}
+		try (var files = Files.list(directory)) {
+			return files.filter((file) -> file.getFileName().toString().matches("spring-petclinic-.*(?<!-plain)\\.jar"))
+				.findFirst()
+				.orElse(null);
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static void writeReport(Path report, List<Variant> variants, List<long[]> results) throws IOException {
+		StringBuilder md = new StringBuilder();
+		md.append("# Startup benchmark: time to first request\n\n");
+		md.append("From launching the jar to the first 200 of `GET /owners/find`, H2, Java ")
+			.append(Runtime.version().feature())
+			.append(". ")
+			.append(RUNS)
+			.append(" runs per variant, in milliseconds.\n\n");
+		md.append("| Variant | JVM options | Min | Median | Max |\n");
+		md.append("|---|---|---:|---:|---:|\n");
+		for (int i = 0; i < variants.size(); i++) {
+			long[] millis = results.get(i);
+			md.append("| ")
+				.append(variants.get(i).name())
+				.append(" | ")
+				.append(options(variants.get(i)))
+				.append(" | ")
+				.append(millis[0])
+				.append(" | ")
+				.append(millis[RUNS / 2])
+				.append(" | ")
+				.append(millis[RUNS - 1])
+				.append(" |\n");
+		}
+		Files.createDirectories(report.getParent());
+		Files.writeString(report, md);
+	}
+
+	private static String options(Variant variant) {
+		return (variant.options().length == 0) ? "-" : "`" + String.join(" ", variant.options()) + "`";
+	}
+
+	private record Variant(String name, Path jar, String... options) {
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.chaos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.Acquisition;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.StatementFault;
+import org.springframework.samples.petclinic.chaos.Latency.Distribution;
+
+class ChaosDataSourceTests {
+
+	private final DatabaseChaos chaos = new DatabaseChaos();
+
+	private final ChaosDataSource dataSource = new ChaosDataSource(h2(), this.chaos);
+
+	@Test
+	void failsConnectionAcquisition() {
+		this.chaos.configure(new Acquisition(1.0, 0, null), List.of());
+
+		assertThatExceptionOfType(SQLTransientConnectionException.class).isThrownBy(this.dataSource::getConnection);
+		assertThat(this.chaos.failures()).isEqualTo(1);
+	}
+
+	@Test
+	void injectsDeadlocksIntoMatchingStatementsOnly() throws Exception {
+		this.chaos.configure(DatabaseChaos.NO_ACQUISITION_FAULTS, List.of(new StatementFault("writes",
+				Pattern.compile("^\\s*insert", Pattern.CASE_INSENSITIVE), null, 0, 0, 1.0)));
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE t (id INT)");
+			try (PreparedStatement insert = connection.prepareStatement("INSERT INTO t VALUES (?)")) {
+				insert.setInt(1, 1);
+				assertThatExceptionOfType(SQLTransactionRollbackException.class).isThrownBy(insert::executeUpdate)
+					.satisfies(ex -> assertThat(ex.getSQLState()).isEqualTo("40001"));
+			}
+			assertThat(statement.executeQuery("SELECT COUNT(*) FROM t").next()).isTrue();
+		}
+		assertThat(this.chaos.deadlocks()).isEqualTo(1);
+	}
+
+	@Test
+	void delaysMatchingStatements() throws Exception {
+		this.chaos.configure(DatabaseChaos.NO_ACQUISITION_FAULTS, List.of(new StatementFault("slow",
+				Pattern.compile("select"), new Latency(Distribution.FIXED, Duration.ofMillis(100)), 1.0, 0, 0)));
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			long start = System.nanoTime();
+			statement.executeQuery("select 1");
+			assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+		}
+
+		this.chaos.setEnabled(false);
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			long start = System.nanoTime();
+			statement.executeQuery("select 1");
+			assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+		}
+		assertThat(this.chaos.delays()).isEqualTo(1);
+	}
+
+	@Test
+	void parsesLatencies() {
+		assertThat(Latency.parse("50ms")).isEqualTo(new Latency(Distribution.FIXED, Duration.ofMillis(50)));
+		assertThat(Latency.parse("exponential:PT0.04S"))
+			.isEqualTo(new Latency(Distribution.EXPONENTIAL, Duration.ofMillis(40)));
+
+		Latency uniform = Latency.parse("uniform:10ms");
+		Random random = new Random(42);
+		for (int i = 0; i < 100; i++) {
+			assertThat(uniform.sample(random)).isBetween(0L, 20L);
+		}
+	}
+
+	private static JdbcDataSource h2() {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:chaos-" + System.nanoTime());
+		return h2;
+	}
+
+}
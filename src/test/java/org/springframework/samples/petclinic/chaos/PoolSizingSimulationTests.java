@@ -0,0 +1,140 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.chaos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.StatementFault;
+import org.springframework.samples.petclinic.chaos.Latency.Distribution;
+import org.springframework.samples.petclinic.concurrency.AdaptivePoolSizing;
+import org.springframework.samples.petclinic.concurrency.PoolSizer;
+import org.springframework.samples.petclinic.concurrency.PoolSizer.Decision;
+import org.springframework.samples.petclinic.concurrency.PoolSizer.Reason;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Runs {@link AdaptivePoolSizing} against a real Hikari pool whose statements are slowed
+ * down by {@link DatabaseChaos}: eight clients on a pool of two, then a database that
+ * slows down tenfold, then no load at all.
+ */
+class PoolSizingSimulationTests {
+
+	private static final int CLIENTS = 8;
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final HikariDataSource pool = pool(this.registry);
+
+	private final DatabaseChaos chaos = new DatabaseChaos();
+
+	private final ChaosDataSource database = new ChaosDataSource(this.pool, this.chaos);
+
+	private final AdaptivePoolSizing sizing = new AdaptivePoolSizing(this.pool, this.registry,
+			new PoolSizer(1, CLIENTS, Duration.ofMillis(5).toNanos()), Duration.ofMinutes(1));
+
+	private final ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+
+	@AfterEach
+	void close() {
+		this.clients.shutdownNow();
+		this.pool.close();
+	}
+
+	@Test
+	void growsWhileClientsWaitAndShrinksWhenTheDatabaseSlowsDownOrIdles() throws Exception {
+		latency(10);
+		List<Decision> decisions = new ArrayList<>();
+		for (int round = 0; round < 6; round++) {
+			load(Duration.ofMillis(200));
+			decisions.add(this.sizing.adjust());
+		}
+		assertThat(decisions.get(0)).isEqualTo(new Decision(3, Reason.WAITING));
+		assertThat(decisions).extracting(Decision::size).isSorted();
+		assertThat(this.pool.getMaximumPoolSize()).isGreaterThanOrEqualTo(5);
+
+		int grown = this.pool.getMaximumPoolSize();
+		latency(100);
+		load(Duration.ofMillis(400));
+		Decision saturated = this.sizing.adjust();
+		assertThat(saturated.reason()).isEqualTo(Reason.SATURATED);
+		assertThat(saturated.size()).isLessThan(grown);
+
+		Thread.sleep(50);
+		Decision idle = this.sizing.adjust();
+		assertThat(idle).isEqualTo(new Decision(saturated.size() - 1, Reason.IDLE));
+		assertThat(this.pool.getMaximumPoolSize()).isEqualTo(idle.size());
+		assertThat(this.registry.get("petclinic.pool.resized").tag("reason", "waiting").counter().count())
+			.isGreaterThanOrEqualTo(3);
+	}
+
+	private void latency(long millis) {
+		this.chaos.configure(DatabaseChaos.NO_ACQUISITION_FAULTS, List.of(new StatementFault("slow",
+				Pattern.compile("select"), new Latency(Distribution.FIXED, Duration.ofMillis(millis)), 1.0, 0, 0)));
+	}
+
+	private void load(Duration duration) throws Exception {
+		long end = System.nanoTime() + duration.toNanos();
+		Callable<Void> client = () -> {
+			while (System.nanoTime() < end) {
+				try (Connection connection = this.database.getConnection();
+						Statement statement = connection.createStatement()) {
+					statement.executeQuery("select 1");
+				}
+			}
+			return null;
+		};
+		List<Future<Void>> running = new ArrayList<>();
+		for (int i = 0; i < CLIENTS; i++) {
+			running.add(this.clients.submit(client));
+		}
+		for (Future<Void> future : running) {
+			future.get();
+		}
+	}
+
+	private static HikariDataSource pool(SimpleMeterRegistry registry) {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:pool-sizing-" + System.nanoTime());
+		HikariConfig config = new HikariConfig();
+		config.setDataSource(h2);
+		config.setPoolName("simulation");
+		config.setMaximumPoolSize(2);
+		config.setMinimumIdle(1);
+		config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+		return new HikariDataSource(config);
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimitTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+	@Test
+	void rejectsBeyondTheLimit() {
+		AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10);
+
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.tryAcquire()).isFalse();
+		assertThat(limit.rejected()).isEqualTo(1);
+
+		limit.release(FAST, false);
+		assertThat(limit.tryAcquire()).isTrue();
+		assertThat(limit.inFlight()).isEqualTo(2);
+	}
+
+	@Test
+	void growsWhileLatencyStaysFlat() {
+		AdaptiveLimit limit = new AdaptiveLimit(4, 1, 50);
+
+		for (int i = 0; i < 100; i++) {
+			saturate(limit, FAST);
+		}
+
+		assertThat(limit.limit()).isEqualTo(50);
+	}
+
+	@Test
+	void shrinksWhenRequestsStartToQueue() {
+		AdaptiveLimit limit = new AdaptiveLimit(40, 1, 50);
+		for (int i = 0; i < 20; i++) {
+			saturate(limit, FAST);
+		}
+		int before = limit.limit();
+
+		for (int i = 0; i < 20; i++) {
+			saturate(limit, SLOW);
+		}
+
+		assertThat(limit.limit()).isLessThan(before / 2);
+	}
+
+	@Test
+	void ignoresLatencyFarBelowTheLimit() {
+		AdaptiveLimit limit = new AdaptiveLimit(20, 1, 50);
+
+		for (int i = 0; i < 100; i++) {
+			limit.tryAcquire();
+			limit.release(i % 2 == 0 ? FAST : SLOW, false);
+		}
+
+		assertThat(limit.limit()).isEqualTo(20);
+	}
+
+	@Test
+	void backsOffOnFailureDownToTheMinimum() {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 3, 50);
+
+		limit.tryAcquire();
+		limit.release(FAST, true);
+		assertThat(limit.limit()).isEqualTo(9);
+
+		for (int i = 0; i < 50; i++) {
+			limit.tryAcquire();
+			limit.release(FAST, true);
+		}
+		assertThat(limit.limit()).isEqualTo(3);
+	}
+
+	private static void saturate(AdaptiveLimit limit, long nanos) {
+		int admitted = 0;
+		while (limit.tryAcquire()) {
+			admitted++;
+		}
+		for (int i = 0; i < admitted; i++) {
+			limit.release(nanos, false);
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.concurrency.BulkheadFilter.Route;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class BulkheadTests {
+
+	@Test
+	void waitsInTheQueueForAFreedSlot() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("admin", 1, 1, Duration.ofSeconds(5));
+		assertThat(bulkhead.tryEnter()).isTrue();
+
+		CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+			try {
+				return bulkhead.tryEnter();
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+		while (bulkhead.queued() == 0) {
+			Thread.onSpinWait();
+		}
+		assertThat(bulkhead.tryEnter()).as("queue full").isFalse();
+		bulkhead.exit();
+
+		assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(bulkhead.active()).isEqualTo(1);
+		assertThat(bulkhead.saturation()).isEqualTo(1.0);
+		assertThat(bulkhead.rejected()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsAfterWaitingTooLong() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("api", 1, 5, Duration.ofMillis(20));
+		bulkhead.tryEnter();
+
+		assertThat(bulkhead.tryEnter()).isFalse();
+		assertThat(bulkhead.queued()).isZero();
+		assertThat(bulkhead.rejected()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsAtOnceWithoutWait() throws Exception {
+		Bulkhead bulkhead = new Bulkhead("api", 1, 5, Duration.ZERO);
+		bulkhead.tryEnter();
+
+		Thread.currentThread().interrupt();
+		try {
+			assertThat(bulkhead.tryEnter()).isFalse();
+		}
+		finally {
+			assertThat(Thread.interrupted()).as("never waited").isTrue();
+		}
+		assertThat(bulkhead.queued()).isZero();
+		assertThat(bulkhead.rejected()).isEqualTo(1);
+	}
+
+	@Test
+	void routesConnectionsToThePartitionOfTheBulkhead() throws Exception {
+		DataSource main = mock(DataSource.class);
+		DataSource admin = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		given(admin.getConnection()).willReturn(connection);
+		BulkheadDataSource dataSource = new BulkheadDataSource(main, Map.of("admin", admin));
+
+		String previous = BulkheadDataSource.enter("admin");
+		try {
+			assertThat(dataSource.getConnection()).isSameAs(connection);
+		}
+		finally {
+			BulkheadDataSource.restore(previous);
+		}
+		dataSource.getConnection();
+
+		verify(admin).getConnection();
+		verify(main).getConnection();
+	}
+
+	@Test
+	void filterRunsMatchingRequestsInTheirBulkhead() throws Exception {
+		Bulkhead admin = new Bulkhead("admin", 1, 0, Duration.ZERO);
+		DataSource main = mock(DataSource.class);
+		DataSource partition = mock(DataSource.class);
+		BulkheadDataSource dataSource = new BulkheadDataSource(main, Map.of("admin", partition));
+		BulkheadFilter filter = new BulkheadFilter(
+				List.of(new Route(List.of(PathPatternParser.defaultInstance.parse("/verwaltung/**")), admin)),
+				Duration.ofSeconds(1));
+		AtomicReference<Integer> active = new AtomicReference<>();
+		HttpServlet servlet = new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) {
+				active.set(admin.active());
+				try {
+					dataSource.getConnection();
+				}
+				catch (SQLException ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		};
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/verwaltung/vets"), response, new MockFilterChain(servlet));
+
+		assertThat(active.get()).isEqualTo(1);
+		assertThat(admin.active()).isZero();
+		verify(partition).getConnection();
+
+		admin.tryEnter();
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/verwaltung/vets");
+		MockHttpServletResponse rejected = new MockHttpServletResponse();
+		filter.doFilter(request, rejected, new MockFilterChain());
+		assertThat(rejected.getStatus()).isEqualTo(503);
+		assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+		assertThat(request.getAttribute(ConcurrencyLimitFilter.REFUSED_ATTRIBUTE)).isEqualTo(true);
+
+		MockHttpServletResponse frontDesk = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", "/owners/1"), frontDesk, new MockFilterChain());
+		assertThat(frontDesk.getStatus()).isEqualTo(200);
+	}
+
+}
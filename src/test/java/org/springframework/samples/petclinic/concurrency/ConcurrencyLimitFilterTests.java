@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.samples.petclinic.concurrency.ConcurrencyLimitFilter.Group;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+class ConcurrencyLimitFilterTests {
+
+	private final AdaptiveLimit api = new AdaptiveLimit(5, 1, 10);
+
+	private final AdaptiveLimit heavy = new AdaptiveLimit(1, 1, 1);
+
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+			List.of(group("api", "/api/**", this.api), group("heavy", "/api/sync/**", this.heavy)),
+			Duration.ofSeconds(2));
+
+	@Test
+	void shedsBeyondTheLimitWithRetryAfter() throws Exception {
+		this.heavy.tryAcquire();
+
+		MockHttpServletResponse response = get("/api/sync");
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+		assertThat(this.heavy.rejected()).isEqualTo(1);
+	}
+
+	@Test
+	void limitsByTheMostSpecificPattern() throws Exception {
+		this.heavy.tryAcquire();
+
+		assertThat(get("/api/owners").getStatus()).isEqualTo(200);
+		assertThat(get("/api/sync").getStatus()).isEqualTo(503);
+		assertThat(this.api.rejected()).isZero();
+		assertThat(this.api.inFlight()).isZero();
+	}
+
+	@Test
+	void passesUnmatchedRequests() throws Exception {
+		this.api.tryAcquire();
+		this.heavy.tryAcquire();
+
+		assertThat(get("/resources/css/petclinic.css").getStatus()).isEqualTo(200);
+		assertThat(this.api.inFlight()).isEqualTo(1);
+	}
+
+	@Test
+	void countsServerErrorsAsFailures() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.filter.doFilter(new MockHttpServletRequest("GET", "/api/owners"), response,
+				(req, res) -> ((HttpServletResponse) res).setStatus(503));
+
+		assertThat(this.api.limit()).isEqualTo(4);
+		assertThat(this.api.inFlight()).isZero();
+	}
+
+	@Test
+	void countsTimeoutsAsFailures() {
+		assertThatExceptionOfType(QueryTimeoutException.class).isThrownBy(() -> this.filter
+			.doFilter(new MockHttpServletRequest("GET", "/api/owners"), new MockHttpServletResponse(), (req, res) -> {
+				throw new QueryTimeoutException("statement timed out");
+			}));
+
+		assertThat(this.api.limit()).isEqualTo(4);
+		assertThat(this.api.inFlight()).isZero();
+	}
+
+	@Test
+	void doesNotCountOtherErrorsAsFailures() throws Exception {
+		this.filter.doFilter(new MockHttpServletRequest("GET", "/api/owners"), new MockHttpServletResponse(),
+				(req, res) -> ((HttpServletResponse) res).setStatus(500));
+		assertThatIllegalArgumentException().isThrownBy(() -> this.filter
+			.doFilter(new MockHttpServletRequest("GET", "/api/owners"), new MockHttpServletResponse(), (req, res) -> {
+				throw new IllegalArgumentException("Invalid cursor");
+			}));
+
+		assertThat(this.api.limit()).isEqualTo(5);
+		assertThat(this.api.inFlight()).isZero();
+	}
+
+	@Test
+	void leavesRequestsRefusedDownstreamOut() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.filter.doFilter(new MockHttpServletRequest("GET", "/api/owners"), response, (req, res) -> {
+			ConcurrencyLimitFilter.markRefused(req);
+			((HttpServletResponse) res).setStatus(503);
+		});
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(this.api.limit()).isEqualTo(5);
+		assertThat(this.api.inFlight()).isZero();
+	}
+
+	private MockHttpServletResponse get(String path) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+	private static Group group(String name, String pattern, AdaptiveLimit limit) {
+		return new Group(name, List.of(PathPatternParser.defaultInstance.parse(pattern)), limit);
+	}
+
+}
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -29,27 +30,43 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
 import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.resilience.TransientRetry;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.IdempotencyService;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
+import org.springframework.samples.petclinic.service.VisitWriteBehindService;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -74,6 +91,27 @@ class OwnerControllerTests {
 	@MockitoBean
 	private OwnerRepository owners;
 
+	@MockitoBean
+	private VisitRepository visits;
+
+	@MockitoBean
+	private OwnerSummaryService summaries;
+
+	@MockitoBean
+	private ChangeFeedService changes;
+
+	@MockitoBean
+	private IdempotencyService idempotency;
+
+	@MockitoBean
+	private TransientRetry retry;
+
+	@MockitoBean
+	private ReadCoalescingService reads;
+
+	@MockitoBean
+	private VisitWriteBehindService writeBehind;
+
 	private Owner george() {
 		Owner george = new Owner();
 		george.setId(TEST_OWNER_ID);
@@ -96,14 +134,24 @@ class OwnerControllerTests {
 	@BeforeEach
 	void setup() {
 
+		willAnswer(invocation -> {
+			invocation.<Runnable>getArgument(1).run();
+			return null;
+		}).given(this.retry).run(anyString(), any());
+
 		Owner george = george();
-		given(this.owners.findByLastNameStartingWith(eq("Franklin"), any(Pageable.class)))
-			.willReturn(new PageImpl<>(List.of(george)));
+		given(this.summaries.findByLastName(eq("Franklin"), any(Pageable.class)))
+			.willReturn(new PageImpl<>(List.of(OwnerSummary.of(george, 1, LocalDate.now()))));
+		given(this.summaries.find(TEST_OWNER_ID)).willReturn(Optional.of(OwnerSummary.of(george, 1, LocalDate.now())));
+		given(this.summaries.findSimilar(anyString(), any(), any(Pageable.class))).willReturn(Page.empty());
 
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(Optional.of(george));
+		given(this.reads.owner(anyInt())).willAnswer(invocation -> this.owners.findById(invocation.getArgument(0)));
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
+		visit.setPetId(1);
 		george.getPet("Max").getVisits().add(visit);
+		given(this.visits.findRecentByPetIds(any(), anyInt())).willReturn(List.of(visit));
 
 	}
 
@@ -112,11 +160,17 @@ class OwnerControllerTests {
 		mockMvc.perform(get("/owners/new"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeExists("owner"))
+			.andExpect(model().attributeExists("idempotencyKey"))
 			.andExpect(view().name("owners/createOrUpdateOwnerForm"));
 	}
 
 	@Test
 	void testProcessCreationFormSuccess() throws Exception {
+		given(this.owners.save(any(Owner.class))).willAnswer(invocation -> {
+			Owner saved = invocation.getArgument(0);
+			saved.setId(42);
+			return saved;
+		});
 		mockMvc
 			.perform(post("/owners/new").param("firstName", "Joe")
 				.param("lastName", "Bloggs")
@@ -126,6 +180,40 @@ class OwnerControllerTests {
 			.andExpect(status().is3xxRedirection());
 	}
 
+	@Test
+	void testProcessCreationFormStoresRedirectUnderIdempotencyKey() throws Exception {
+		given(this.owners.save(any(Owner.class))).willAnswer(invocation -> {
+			Owner saved = invocation.getArgument(0);
+			saved.setId(42);
+			return saved;
+		});
+		mockMvc
+			.perform(post("/owners/new").param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1316761638")
+				.param("idempotencyKey", "3f2a"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/owners/42"));
+		verify(this.idempotency).complete("owners/new", "3f2a", "redirect:/owners/42");
+	}
+
+	@Test
+	void testProcessCreationFormReplaysCompletedIdempotencyKey() throws Exception {
+		given(this.idempotency.begin("owners/new", "3f2a")).willReturn(Optional.of("redirect:/owners/42"));
+		mockMvc
+			.perform(post("/owners/new").param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1316761638")
+				.param("idempotencyKey", "3f2a"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/owners/42"));
+		verify(this.owners, never()).save(any(Owner.class));
+	}
+
 	@Test
 	void testProcessCreationFormHasErrors() throws Exception {
 		mockMvc
@@ -147,15 +235,19 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(List.of(george(), new Owner()));
-		when(this.owners.findByLastNameStartingWith(anyString(), any(Pageable.class))).thenReturn(tasks);
-		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
+		Page<OwnerSummary> tasks = new PageImpl<>(
+				List.of(OwnerSummary.of(george(), 1, LocalDate.now()), OwnerSummary.of(new Owner(), 0, null)));
+		when(this.summaries.findByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
+		mockMvc.perform(get("/owners?page=1"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("listOwners", hasItem(hasProperty("petNames", is("Max")))))
+			.andExpect(view().name("owners/ownersList"));
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(List.of(george()));
-		when(this.owners.findByLastNameStartingWith(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
+		Page<OwnerSummary> tasks = new PageImpl<>(List.of(OwnerSummary.of(george(), 1, LocalDate.now())));
+		when(this.summaries.findByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
@@ -163,8 +255,8 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<>(List.of());
-		when(this.owners.findByLastNameStartingWith(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
+		Page<OwnerSummary> tasks = new PageImpl<>(List.of());
+		when(this.summaries.findByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
 		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname"))
 			.andExpect(status().isOk())
 			.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
@@ -173,6 +265,18 @@ class OwnerControllerTests {
 
 	}
 
+	@Test
+	void testProcessFindFormOffersSimilarNames() throws Exception {
+		when(this.summaries.findByLastName(eq("Frenklin"), any(Pageable.class))).thenReturn(Page.empty());
+		when(this.summaries.findSimilar(eq("Frenklin"), eq(Locale.GERMAN), any(Pageable.class)))
+			.thenReturn(new PageImpl<>(List.of(OwnerSummary.of(george(), 1, LocalDate.now()))));
+		mockMvc.perform(get("/owners?page=1").param("lastName", "Frenklin").locale(Locale.GERMAN))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("similar", true))
+			.andExpect(model().attribute("listOwners", hasSize(1)))
+			.andExpect(view().name("owners/ownersList"));
+	}
+
 	@Test
 	void testInitUpdateOwnerForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/edit", TEST_OWNER_ID))
@@ -196,6 +300,9 @@ class OwnerControllerTests {
 				.param("telephone", "1616291589"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.summaries).refresh(TEST_OWNER_ID);
+		verify(this.reads).ownerChanged(TEST_OWNER_ID);
+		verify(this.changes).record(Subject.OWNER, TEST_OWNER_ID, Action.UPDATED, TEST_OWNER_ID);
 	}
 
 	@Test
@@ -205,6 +312,22 @@ class OwnerControllerTests {
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
+	@Test
+	void testProcessUpdateOwnerFormConcurrentModification() throws Exception {
+		given(this.owners.save(any(Owner.class))).willThrow(new OptimisticLockingFailureException("stale"));
+		mockMvc
+			.perform(post("/owners/{ownerId}/edit", TEST_OWNER_ID).param("firstName", "Joe")
+				.param("lastName", "Bloggs")
+				.param("address", "123 Caramel Street")
+				.param("city", "London")
+				.param("telephone", "1616291589")
+				.param("version", "0"))
+			.andExpect(status().isConflict())
+			.andExpect(model().attributeHasErrors("owner"))
+			.andExpect(model().attribute("owner", hasProperty("city", is("London"))))
+			.andExpect(view().name("owners/createOrUpdateOwnerForm"));
+	}
+
 	@Test
 	void testProcessUpdateOwnerFormHasErrors() throws Exception {
 		mockMvc
@@ -219,6 +342,11 @@ class OwnerControllerTests {
 			.andExpect(view().name("owners/createOrUpdateOwnerForm"));
 	}
 
+	@Test
+	void testShowUnknownOwner() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}", 99)).andExpect(status().isNotFound());
+	}
+
 	@Test
 	void testShowOwner() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID))
@@ -231,6 +359,8 @@ class OwnerControllerTests {
 			.andExpect(model().attribute("owner", hasProperty("pets", not(empty()))))
 			.andExpect(model().attribute("owner",
 					hasProperty("pets", hasItem(hasProperty("visits", hasSize(greaterThan(0)))))))
+			.andExpect(model().attribute("recentVisits", hasEntry(is(1), hasSize(1))))
+			.andExpect(model().attribute("summary", hasProperty("totalVisits", is(1))))
 			.andExpect(view().name("owners/ownerDetails"));
 	}
 
@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -34,12 +35,20 @@ import org.springframework.samples.petclinic.model.Pet;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.resilience.TransientRetry;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.IdempotencyService;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -68,17 +77,38 @@ class PetControllerTests {
 	@MockitoBean
 	private OwnerRepository owners;
 
+	@MockitoBean
+	private OwnerSummaryService summaries;
+
 	@MockitoBean
 	private PetTypeRepository types;
 
+	@MockitoBean
+	private ChangeFeedService changes;
+
+	@MockitoBean
+	private IdempotencyService idempotency;
+
+	@MockitoBean
+	private TransientRetry retry;
+
+	@MockitoBean
+	private ReadCoalescingService reads;
+
 	@BeforeEach
 	void setup() {
+		willAnswer(invocation -> {
+			invocation.<Runnable>getArgument(1).run();
+			return null;
+		}).given(this.retry).run(anyString(), any());
+
 		PetType cat = new PetType();
 		cat.setId(3);
 		cat.setName("hamster");
 		given(this.types.findPetTypes()).willReturn(List.of(cat));
 
 		Owner owner = new Owner();
+		owner.setId(TEST_OWNER_ID);
 		Pet pet = new Pet();
 		Pet dog = new Pet();
 		owner.addPet(pet);
@@ -88,6 +118,7 @@ class PetControllerTests {
 		pet.setName("petty");
 		dog.setName("doggy");
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(Optional.of(owner));
+		given(this.owners.save(any(Owner.class))).willAnswer(invocation -> invocation.getArgument(0));
 	}
 
 	@Test
@@ -186,6 +217,19 @@ class PetControllerTests {
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
 	}
 
+	@Test
+	void testProcessUpdateFormConcurrentModification() throws Exception {
+		given(this.owners.save(any(Owner.class))).willThrow(new OptimisticLockingFailureException("stale"));
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/edit", TEST_OWNER_ID, TEST_PET_ID).param("name", "Betty")
+				.param("type", "hamster")
+				.param("birthDate", "2015-02-12")
+				.param("version", "0"))
+			.andExpect(status().isConflict())
+			.andExpect(model().attributeHasErrors("pet"))
+			.andExpect(view().name("pets/createOrUpdatePetForm"));
+	}
+
 	@Nested
 	class ProcessUpdateFormHasErrors {
 
@@ -16,7 +16,16 @@
 
 package org.springframework.samples.petclinic.controller;
 
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
@@ -28,14 +37,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.resilience.TransientRetry;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.IdempotencyService;
+import org.springframework.samples.petclinic.service.OwnerSummaryService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
+import org.springframework.samples.petclinic.service.VisitSearchService;
+import org.springframework.samples.petclinic.service.VisitWriteBehindService;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -59,19 +83,55 @@ class VisitControllerTests {
 	@MockitoBean
 	private OwnerRepository owners;
 
+	@MockitoBean
+	private OwnerSummaryService summaries;
+
+	@MockitoBean
+	private VisitRepository visits;
+
+	@MockitoBean
+	private VisitSearchService visitSearch;
+
+	@MockitoBean
+	private ChangeFeedService changes;
+
+	@MockitoBean
+	private IdempotencyService idempotency;
+
+	@MockitoBean
+	private TransientRetry retry;
+
+	@MockitoBean
+	private ReadCoalescingService reads;
+
+	@MockitoBean
+	private VisitWriteBehindService writeBehind;
+
 	@BeforeEach
 	void init() {
+		willAnswer(invocation -> {
+			invocation.<Runnable>getArgument(1).run();
+			return null;
+		}).given(this.retry).run(anyString(), any());
 		Owner owner = new Owner();
+		owner.setId(TEST_OWNER_ID);
 		Pet pet = new Pet();
 		owner.addPet(pet);
 		pet.setId(TEST_PET_ID);
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(Optional.of(owner));
+		Visit visit = new Visit();
+		visit.setDescription("rabies shot");
+		given(this.visits.findByPetIdOrderByDateDescIdDesc(eq(TEST_PET_ID), any(Limit.class)))
+			.willReturn(List.of(visit));
+		given(this.visits.findByPetIdOrderByDateDescIdDesc(eq(TEST_PET_ID), any(Pageable.class)))
+			.willReturn(new PageImpl<>(List.of(visit)));
 	}
 
 	@Test
 	void testInitNewVisitForm() throws Exception {
 		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID))
 			.andExpect(status().isOk())
+			.andExpect(model().attribute("previousVisits", hasSize(1)))
 			.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
@@ -83,6 +143,48 @@ class VisitControllerTests {
 				.param("description", "Visit Description"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.visits).save(argThat(visit -> visit.getPetId() == TEST_PET_ID));
+		verify(this.summaries).refresh(TEST_OWNER_ID);
+		verify(this.visitSearch).index(argThat(visit -> "Visit Description".equals(visit.getDescription())));
+		verify(this.changes).record(Subject.VISIT, null, Action.CREATED, TEST_OWNER_ID);
+	}
+
+	@Test
+	void testProcessNewVisitFormJournalsVisitWhenWriteBehindIsEnabled() throws Exception {
+		given(this.writeBehind.isEnabled()).willReturn(true);
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID).param("description",
+					"Visit Description"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(view().name("redirect:/owners/{ownerId}"));
+		verify(this.writeBehind).submit(eq(TEST_OWNER_ID), argThat(visit -> visit.getPetId() == TEST_PET_ID));
+		verify(this.visits, never()).save(any());
+	}
+
+	@Test
+	void testShowVisitHistory() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("visitHistory", hasSize(1)))
+			.andExpect(model().attribute("totalPages", 1))
+			.andExpect(view().name("pets/visitHistory"));
+	}
+
+	@Test
+	void testShowVisitHistoryClampsThePage() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID).param("page", "0"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("currentPage", 1));
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID).param("page", "7"))
+			.andExpect(status().isOk())
+			.andExpect(model().attribute("currentPage", 1))
+			.andExpect(model().attribute("visitHistory", hasSize(1)));
+	}
+
+	@Test
+	void testShowVisitHistoryOfAnotherOwnersPet() throws Exception {
+		mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, 99))
+			.andExpect(status().isNotFound());
 	}
 
 	@Test
@@ -95,4 +197,15 @@ class VisitControllerTests {
 			.andExpect(view().name("pets/createOrUpdateVisitForm"));
 	}
 
+	@Test
+	void testProcessNewVisitFormRejectsTooLongDescription() throws Exception {
+		mockMvc
+			.perform(post("/owners/{ownerId}/pets/{petId}/visits/new", TEST_OWNER_ID, TEST_PET_ID).param("description",
+					"x".repeat(256)))
+			.andExpect(model().attributeHasFieldErrors("visit", "description"))
+			.andExpect(status().isOk())
+			.andExpect(view().name("pets/createOrUpdateVisitForm"));
+		verify(this.writeBehind, never()).submit(anyInt(), any());
+	}
+
 }
@@ -7,6 +7,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
@@ -25,6 +26,9 @@ class PetTypeAdminControllerTest {
 	@MockitoBean
 	PetTypeRepository petTypeRepository;
 
+	@MockitoBean
+	ChangeFeedService changes;
+
 	@Test
 	@DisplayName("GET /verwaltung/pettypes liefert die Liste")
 	void listPetTypes() throws Exception {
@@ -1,20 +1,27 @@
 package org.springframework.samples.petclinic.controller.admin;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.samples.petclinic.model.Specialty;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.samples.petclinic.service.ReadCoalescingService;
 
 import java.util.Arrays;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +34,17 @@ class VetAdminControllerTest {
 	@MockitoBean
 	private VetRepository vetRepository;
 
+	@MockitoBean
+	private ChangeFeedService changes;
+
+	@MockitoBean
+	private ReadCoalescingService reads;
+
+	@BeforeEach
+	void readThrough() {
+		Mockito.when(reads.vets()).thenAnswer(invocation -> vetRepository.findAll());
+	}
+
 	@Test
 	@DisplayName("GET /verwaltung/vets shows vet list")
 	void listVets() throws Exception {
@@ -106,16 +124,64 @@ class VetAdminControllerTest {
 	@Test
 	@DisplayName("POST /verwaltung/vets/{id}/edit with valid data updates vet and redirects")
 	void editVetSuccess() throws Exception {
+		Vet vet = new Vet();
+		vet.setId(7);
+		vet.setFirstName("Old");
+		vet.setLastName("Meier");
+		vet.setVersion(3);
+		Specialty surgery = new Specialty();
+		surgery.setName("surgery");
+		vet.addSpecialty(surgery);
+		Mockito.when(vetRepository.findById(eq(7))).thenReturn(vet);
 		Mockito.when(vetRepository.save(any(Vet.class))).thenAnswer(i -> i.getArgument(0));
 		mockMvc
 			.perform(post("/verwaltung/vets/7/edit").contentType(MediaType.APPLICATION_FORM_URLENCODED)
 				.param("firstName", "Edit")
 				.param("lastName", "Meier")
 				.param("email", "edit@example.com")
-				.param("telephone", "987654"))
+				.param("telephone", "987654")
+				.param("version", "3"))
 			.andExpect(status().is3xxRedirection())
 			.andExpect(redirectedUrl("/verwaltung/vets"))
 			.andExpect(flash().attribute("success", "vet.saved"));
+		verify(vetRepository).save(vet);
+		assertThat(vet.getFirstName()).isEqualTo("Edit");
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("surgery");
+	}
+
+	@Test
+	@DisplayName("POST /verwaltung/vets/{id}/edit with a stale version answers 409 and re-renders the form")
+	void editVetConcurrentModification() throws Exception {
+		Vet vet = new Vet();
+		vet.setId(7);
+		vet.setFirstName("Old");
+		vet.setLastName("Meier");
+		vet.setVersion(4);
+		Mockito.when(vetRepository.findById(eq(7))).thenReturn(vet);
+		Mockito.when(vetRepository.save(any(Vet.class))).thenThrow(new OptimisticLockingFailureException("stale"));
+		mockMvc
+			.perform(post("/verwaltung/vets/7/edit").contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.param("firstName", "Edit")
+				.param("lastName", "Meier")
+				.param("email", "edit@example.com")
+				.param("telephone", "987654")
+				.param("version", "3"))
+			.andExpect(status().isConflict())
+			.andExpect(view().name("verwaltung/vets/form"))
+			.andExpect(model().attributeHasErrors("vetForm"));
+	}
+
+	@Test
+	@DisplayName("POST /verwaltung/vets/{id}/edit with unknown id redirects to list")
+	void editVetNotFound() throws Exception {
+		Mockito.when(vetRepository.findById(eq(99))).thenReturn(null);
+		mockMvc
+			.perform(post("/verwaltung/vets/99/edit").contentType(MediaType.APPLICATION_FORM_URLENCODED)
+				.param("firstName", "Edit")
+				.param("lastName", "Meier"))
+			.andExpect(status().is3xxRedirection())
+			.andExpect(redirectedUrl("/verwaltung/vets"))
+			.andExpect(flash().attribute("error", "vet.notfound"));
 	}
 
 	@Test
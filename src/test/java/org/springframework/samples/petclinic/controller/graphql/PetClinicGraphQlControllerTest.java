@@ -0,0 +1,105 @@
+package org.springframework.samples.petclinic.controller.graphql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.execution.ErrorType;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureGraphQlTester
+class PetClinicGraphQlControllerTest {
+
+	private static final String OWNERS_WITH_PETS_AND_VISITS = """
+			{
+			  owners(size: 10) {
+			    lastName
+			    pets { name type { name } visits { date description } }
+			  }
+			}
+			""";
+
+	@Autowired
+	private GraphQlTester graphQlTester;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void resetStatistics() {
+		this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		this.statistics.clear();
+	}
+
+	@Test
+	void owners_shouldLoadNestedListsInBatches() {
+		this.graphQlTester.document(OWNERS_WITH_PETS_AND_VISITS)
+			.execute()
+			.path("owners")
+			.entityList(Object.class)
+			.hasSize(10)
+			.path("owners[5].lastName")
+			.entity(String.class)
+			.isEqualTo("Coleman")
+			.path("owners[5].pets[*].name")
+			.entityList(String.class)
+			.containsExactly("Max", "Samantha")
+			.path("owners[5].pets[0].visits[*].date")
+			.entityList(String.class)
+			.containsExactly("2013-01-03", "2013-01-02")
+			.path("owners[5].pets[0].type.name")
+			.entity(String.class)
+			.isEqualTo("cat");
+
+		// owners page + count, pets of all owners, visits of all pets
+		assertThat(this.statistics.getPrepareStatementCount()).isEqualTo(4);
+	}
+
+	@Test
+	void owner_shouldReturnNullForUnknownId() {
+		this.graphQlTester.document("{ owner(id: 99999) { lastName } }").execute().path("owner").valueIsNull();
+	}
+
+	@Test
+	void vetsAndPetTypes_shouldResolve() {
+		this.graphQlTester.document("{ vets { lastName specialties { name } } petTypes { name } }")
+			.execute()
+			.path("vets")
+			.entityList(Object.class)
+			.hasSizeGreaterThan(5)
+			.path("petTypes[0].name")
+			.entity(String.class)
+			.isEqualTo("bird");
+	}
+
+	@Test
+	void owners_shouldRejectOversizedPage() {
+		this.graphQlTester.document("{ owners(size: 101) { id } }")
+			.execute()
+			.errors()
+			.expect(error -> error.getErrorType() == ErrorType.BAD_REQUEST)
+			.verify();
+	}
+
+	@Test
+	void shouldRejectQueriesAboveComplexityLimit() {
+		this.graphQlTester
+			.document("{ owners(size: 100) { id firstName lastName address city telephone petCount"
+					+ " pets { id name birthDate type { name } visits { id date description } } } }")
+			.execute()
+			.errors()
+			.expect(error -> error.getMessage().contains("complexity"))
+			.verify();
+	}
+
+}
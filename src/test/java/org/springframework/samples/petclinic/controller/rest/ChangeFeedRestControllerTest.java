@@ -0,0 +1,73 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChangeFeedRestControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ChangeFeedService changeFeed;
+
+	@Test
+	void changes_shouldResumeFromOffsetAndStreamNewChanges() throws Exception {
+		long offset = changeFeed.latest();
+		changeFeed.record(Subject.PET, 7, Action.UPDATED, 6);
+
+		MvcResult result = mockMvc.perform(get("/api/changes").param("since", String.valueOf(offset)))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		String replayed = awaitContent(result, "\"subject\":\"PET\"");
+		// the headers are written by the sender thread along with the first event
+		assertThat(result.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+		assertThat(replayed).contains("id:" + (offset + 1)).contains("\"subjectId\":7").contains("\"ownerId\":6");
+
+		changeFeed.record(Subject.VISIT, 4, Action.CREATED, 6);
+		assertThat(awaitContent(result, "\"subject\":\"VISIT\"")).contains("id:" + (offset + 2));
+	}
+
+	@Test
+	void changes_shouldPreferLastEventIdAndFilterByOwner() throws Exception {
+		long offset = changeFeed.latest();
+		changeFeed.record(Subject.OWNER, 1, Action.UPDATED, 1);
+		changeFeed.record(Subject.OWNER, 3, Action.UPDATED, 3);
+
+		MvcResult result = mockMvc
+			.perform(get("/api/changes").header("Last-Event-ID", String.valueOf(offset))
+				.param("since", "0")
+				.param("ownerId", "3"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		String content = awaitContent(result, "\"subjectId\":3");
+		assertThat(content).doesNotContain("\"subjectId\":1").doesNotContain("id:" + offset + "\n");
+	}
+
+	private static String awaitContent(MvcResult result, String expected) throws Exception {
+		long deadline = System.currentTimeMillis() + 5000;
+		String content = result.getResponse().getContentAsString();
+		while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			content = result.getResponse().getContentAsString();
+		}
+		assertThat(content).contains(expected);
+		return content;
+	}
+
+}
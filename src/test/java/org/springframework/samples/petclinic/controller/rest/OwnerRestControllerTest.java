@@ -0,0 +1,124 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OwnerRestControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void getOwners_shouldFilterByLastName() throws Exception {
+		mockMvc.perform(get("/api/owners").param("lastName", "Davis"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+			.andExpect(jsonPath("$.content.length()").value(2))
+			.andExpect(jsonPath("$.page.totalElements").value(2));
+	}
+
+	@Test
+	void getOwners_shouldPageByCursor() throws Exception {
+		String body = mockMvc
+			.perform(get("/api/owners").param("lastName", "Davis").param("size", "1").param("cursor", ""))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content.length()").value(1))
+			.andExpect(jsonPath("$.content[0].id").value(2))
+			.andExpect(jsonPath("$.page").doesNotExist())
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+		String next = JsonPath.read(body, "$.next");
+
+		mockMvc.perform(get("/api/owners").param("lastName", "Davis").param("size", "1").param("cursor", next))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content.length()").value(1))
+			.andExpect(jsonPath("$.content[0].id").value(4))
+			.andExpect(jsonPath("$.next").value(nullValue()));
+	}
+
+	@Test
+	void getOwners_shouldReturnOnlyRequestedFields() throws Exception {
+		mockMvc.perform(get("/api/owners").param("lastName", "Coleman").param("fields", "lastName,id"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content[0].id").value(6))
+			.andExpect(jsonPath("$.content[0].lastName").value("Coleman"))
+			.andExpect(jsonPath("$.content[0].firstName").doesNotExist())
+			.andExpect(jsonPath("$.content[0].petNames").doesNotExist());
+	}
+
+	@Test
+	void getOwners_shouldRejectUnknownFieldAndMalformedCursor() throws Exception {
+		mockMvc.perform(get("/api/owners").param("fields", "id,password")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/owners").param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/owners").param("cursor", "").param("page", "1")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void suggest_shouldMatchPrefixIgnoringCase() throws Exception {
+		mockMvc.perform(get("/api/owners/suggest").param("q", "dav"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[0].lastName").value("Davis"))
+			.andExpect(jsonPath("$[0].id").value(2))
+			.andExpect(jsonPath("$[1].id").value(4));
+	}
+
+	@Test
+	void suggest_shouldReturnEmptyListForBlankQuery() throws Exception {
+		mockMvc.perform(get("/api/owners/suggest").param("q", " "))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(0));
+	}
+
+	@Test
+	void suggest_shouldRejectLimitAboveMaximum() throws Exception {
+		mockMvc.perform(get("/api/owners/suggest").param("q", "d").param("limit", "21"))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void getOwner_shouldServeSummary() throws Exception {
+		mockMvc.perform(get("/api/owners/6"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.lastName").value("Coleman"))
+			.andExpect(jsonPath("$.petCount").value(2))
+			.andExpect(jsonPath("$.totalVisits").value(4))
+			.andExpect(jsonPath("$.lastVisitDate").value("2013-01-04"));
+	}
+
+	@Test
+	void getOwnerByPhone_shouldNormalizeDialledNumber() throws Exception {
+		mockMvc.perform(get("/api/owners/by-phone/{number}", "+1 608-555-2654"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.id").value(6))
+			.andExpect(jsonPath("$.lastName").value("Coleman"));
+	}
+
+	@Test
+	void getOwnerByPhone_shouldReturnNotFoundForUnknownNumber() throws Exception {
+		mockMvc.perform(get("/api/owners/by-phone/{number}", "6085550000")).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void getOwnerByPhone_shouldRejectMalformedNumber() throws Exception {
+		mockMvc.perform(get("/api/owners/by-phone/{number}", "555-1023")).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void getOwner_shouldReturnNotFoundForUnknownId() throws Exception {
+		mockMvc.perform(get("/api/owners/99999")).andExpect(status().isNotFound());
+	}
+
+}
@@ -0,0 +1,64 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class PetRestControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void getPets_shouldListPetsOfOwnerByName() throws Exception {
+		mockMvc.perform(get("/api/owners/6/pets"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+			.andExpect(jsonPath("$.content.length()").value(2))
+			.andExpect(jsonPath("$.content[0].name").value("Max"))
+			.andExpect(jsonPath("$.content[0].type").value("cat"))
+			.andExpect(jsonPath("$.content[0].birthDate").value("2012-09-04"))
+			.andExpect(jsonPath("$.content[1].name").value("Samantha"))
+			.andExpect(jsonPath("$.next").value(nullValue()));
+	}
+
+	@Test
+	void getPets_shouldPageByCursorWithSparseFields() throws Exception {
+		String body = mockMvc.perform(get("/api/owners/6/pets").param("size", "1").param("fields", "name"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content[0].name").value("Max"))
+			.andExpect(jsonPath("$.content[0].type").doesNotExist())
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+		String next = JsonPath.read(body, "$.next");
+
+		mockMvc.perform(get("/api/owners/6/pets").param("size", "1").param("fields", "name").param("cursor", next))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content[0].name").value("Samantha"))
+			.andExpect(jsonPath("$.next").value(nullValue()));
+	}
+
+	@Test
+	void getPets_shouldReturnEmptyPageForUnknownOwner() throws Exception {
+		mockMvc.perform(get("/api/owners/99999/pets"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content.length()").value(0));
+	}
+
+	@Test
+	void getPets_shouldRejectUnknownField() throws Exception {
+		mockMvc.perform(get("/api/owners/6/pets").param("fields", "visits")).andExpect(status().isBadRequest());
+	}
+
+}
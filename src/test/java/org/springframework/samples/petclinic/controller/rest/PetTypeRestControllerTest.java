@@ -1,12 +1,22 @@
 package org.springframework.samples.petclinic.controller.rest;
 
+import com.jayway.jsonpath.JsonPath;
+import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -17,6 +27,9 @@ class PetTypeRestControllerTest {
 	@Autowired
 	private MockMvc mockMvc;
 
+	@MockitoSpyBean
+	private ChangeFeedService changes;
+
 	@Test
 	void getAllPetTypes_shouldReturnOk() throws Exception {
 		mockMvc.perform(get("/api/pet-types"))
@@ -45,6 +58,57 @@ class PetTypeRestControllerTest {
 		// (Optional: Delete by ID if needed)
 	}
 
+	@Test
+	void createPetType_shouldReplayResponseForSameIdempotencyKey() throws Exception {
+		String json = "{\"name\":\"Ferret\",\"description\":\"Small carnivore\"}";
+		String first = mockMvc
+			.perform(post("/api/pet-types").contentType(MediaType.APPLICATION_JSON)
+				.header("Idempotency-Key", "ferret-1")
+				.content(json))
+			.andExpect(status().isCreated())
+			.andExpect(header().doesNotExist("Idempotent-Replayed"))
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+		int id = JsonPath.read(first, "$.id");
+
+		mockMvc
+			.perform(post("/api/pet-types").contentType(MediaType.APPLICATION_JSON)
+				.header("Idempotency-Key", "ferret-1")
+				.content(json))
+			.andExpect(status().isCreated())
+			.andExpect(header().string("Idempotent-Replayed", "true"))
+			.andExpect(jsonPath("$.id").value(id));
+		mockMvc.perform(get("/api/pet-types")).andExpect(jsonPath("$[?(@.name=='Ferret')]", hasSize(1)));
+	}
+
+	@Test
+	void createPetType_shouldReplayInsteadOfCreatingAgainWhenRecordingTheChangeFails() throws Exception {
+		String json = "{\"name\":\"Gecko\",\"description\":\"Small lizard\"}";
+		doThrow(new IllegalStateException("change log unavailable")).when(changes)
+			.record(any(), anyInt(), any(), isNull());
+		assertThatThrownBy(() -> mockMvc.perform(post("/api/pet-types").contentType(MediaType.APPLICATION_JSON)
+			.header("Idempotency-Key", "gecko-1")
+			.content(json))).isInstanceOf(ServletException.class);
+
+		mockMvc
+			.perform(post("/api/pet-types").contentType(MediaType.APPLICATION_JSON)
+				.header("Idempotency-Key", "gecko-1")
+				.content(json))
+			.andExpect(status().isCreated())
+			.andExpect(header().string("Idempotent-Replayed", "true"));
+		mockMvc.perform(get("/api/pet-types")).andExpect(jsonPath("$[?(@.name=='Gecko')]", hasSize(1)));
+	}
+
+	@Test
+	void createPetType_shouldRejectMalformedIdempotencyKey() throws Exception {
+		mockMvc
+			.perform(post("/api/pet-types").contentType(MediaType.APPLICATION_JSON)
+				.header("Idempotency-Key", "not a key!")
+				.content("{\"name\":\"Ferret\"}"))
+			.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	void updatePetType_shouldReturnNotFoundForInvalidId() throws Exception {
 		mockMvc
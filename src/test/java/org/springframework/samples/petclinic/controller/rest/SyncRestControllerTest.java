@@ -0,0 +1,86 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.service.ChangeFeedService;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SyncRestControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ChangeFeedService changeFeed;
+
+	@Test
+	void sync_shouldDownloadBaselineInSequencePages() throws Exception {
+		// the baseline migration sequences the 6 pet types first, then the 10 owners
+		mockMvc.perform(get("/api/sync").param("since", "0").param("limit", "6"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.until").value(6))
+			.andExpect(jsonPath("$.hasMore").value(true))
+			.andExpect(jsonPath("$.petTypes.length()").value(6))
+			.andExpect(jsonPath("$.owners.length()").value(0))
+			.andExpect(jsonPath("$.deleted.length()").value(0));
+
+		mockMvc.perform(get("/api/sync").param("since", "6").param("limit", "10"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.until").value(16))
+			.andExpect(jsonPath("$.owners.length()").value(10))
+			.andExpect(jsonPath("$.owners[0].lastName").value("Franklin"))
+			.andExpect(jsonPath("$.owners[0].pets").doesNotExist())
+			.andExpect(jsonPath("$.pets.length()").value(0));
+	}
+
+	@Test
+	void sync_shouldReturnOnlyChangedRecordsOnceWithTombstones() throws Exception {
+		long since = changeFeed.latest();
+		changeFeed.record(Subject.PET, 8, Action.UPDATED, 6);
+		changeFeed.record(Subject.PET, 8, Action.UPDATED, 6);
+		changeFeed.record(Subject.VISIT, 2, Action.CREATED, 6);
+		changeFeed.record(Subject.PET_TYPE, 999, Action.DELETED, null);
+		changeFeed.record(Subject.VET, 1, Action.UPDATED, null);
+
+		mockMvc.perform(get("/api/sync").param("since", String.valueOf(since)))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.since").value(since))
+			.andExpect(jsonPath("$.until").value(since + 4))
+			.andExpect(jsonPath("$.hasMore").value(false))
+			.andExpect(jsonPath("$.owners.length()").value(0))
+			.andExpect(jsonPath("$.pets.length()").value(1))
+			.andExpect(jsonPath("$.pets[0].name").value("Max"))
+			.andExpect(jsonPath("$.pets[0].ownerId").value(6))
+			.andExpect(jsonPath("$.pets[0].typeId").value(1))
+			.andExpect(jsonPath("$.visits.length()").value(1))
+			.andExpect(jsonPath("$.visits[0].petId").value(8))
+			.andExpect(jsonPath("$.deleted.length()").value(1))
+			.andExpect(jsonPath("$.deleted[0].type").value("PET_TYPE"))
+			.andExpect(jsonPath("$.deleted[0].id").value(999));
+	}
+
+	@Test
+	void sync_shouldReturnEmptyDeltaWhenUpToDate() throws Exception {
+		long since = changeFeed.latest();
+		mockMvc.perform(get("/api/sync").param("since", String.valueOf(since)))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.until").value(since))
+			.andExpect(jsonPath("$.hasMore").value(false))
+			.andExpect(jsonPath("$.pets.length()").value(0));
+	}
+
+	@Test
+	void sync_shouldRejectOversizedLimit() throws Exception {
+		mockMvc.perform(get("/api/sync").param("limit", "1001")).andExpect(status().isBadRequest());
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class VisitRestControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void getVisits_shouldReturnNewestFirst() throws Exception {
+		mockMvc.perform(get("/api/pets/7/visits"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+			.andExpect(jsonPath("$.content.length()").value(2))
+			.andExpect(jsonPath("$.content[0].description").value("spayed"))
+			.andExpect(jsonPath("$.content[1].description").value("rabies shot"))
+			.andExpect(jsonPath("$.page.totalElements").value(2));
+	}
+
+	@Test
+	void getVisits_shouldPage() throws Exception {
+		mockMvc.perform(get("/api/pets/7/visits").param("page", "1").param("size", "1"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content.length()").value(1))
+			.andExpect(jsonPath("$.content[0].description").value("rabies shot"))
+			.andExpect(jsonPath("$.page.totalPages").value(2));
+	}
+
+	@Test
+	void getVisits_shouldPageByCursorNewestFirst() throws Exception {
+		String body = mockMvc.perform(get("/api/pets/7/visits").param("size", "1").param("fields", "date,description"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content[0].description").value("spayed"))
+			.andExpect(jsonPath("$.content[0].date").value("2013-01-04"))
+			.andExpect(jsonPath("$.content[0].id").doesNotExist())
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+		String next = JsonPath.read(body, "$.next");
+
+		mockMvc.perform(get("/api/pets/7/visits").param("size", "1").param("cursor", next))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content.length()").value(1))
+			.andExpect(jsonPath("$.content[0].description").value("rabies shot"))
+			.andExpect(jsonPath("$.content[0].petId").value(7))
+			.andExpect(jsonPath("$.next").value(nullValue()));
+	}
+
+	@Test
+	void getVisits_shouldRejectCursorOfAnotherResource() throws Exception {
+		String body = mockMvc.perform(get("/api/owners").param("size", "1").param("cursor", ""))
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+		String ownersCursor = JsonPath.read(body, "$.next");
+
+		mockMvc.perform(get("/api/pets/7/visits").param("cursor", ownersCursor)).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void getVisits_shouldRejectOversizedPage() throws Exception {
+		mockMvc.perform(get("/api/pets/7/visits").param("size", "1000")).andExpect(status().isBadRequest());
+	}
+
+}
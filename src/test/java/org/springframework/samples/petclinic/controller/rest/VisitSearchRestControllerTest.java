@@ -0,0 +1,48 @@
+package org.springframework.samples.petclinic.controller.rest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class VisitSearchRestControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void search_shouldReturnRankedHitsNewestFirst() throws Exception {
+		mockMvc.perform(get("/api/visits/search").param("q", "Rabies shots").param("lang", "en"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[0].date").value("2013-01-02"))
+			.andExpect(jsonPath("$[0].petId").value(8))
+			.andExpect(jsonPath("$[0].description").value("rabies shot"))
+			.andExpect(jsonPath("$[1].date").value("2013-01-01"));
+	}
+
+	@Test
+	void search_shouldFilterByDate() throws Exception {
+		mockMvc.perform(get("/api/visits/search").param("q", "rabies").param("to", "2013-01-01"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(1))
+			.andExpect(jsonPath("$[0].petId").value(7));
+	}
+
+	@Test
+	void search_shouldRejectInvalidRequests() throws Exception {
+		mockMvc.perform(get("/api/visits/search").param("q", " ")).andExpect(status().isBadRequest());
+		mockMvc.perform(get("/api/visits/search").param("q", "rabies").param("limit", "101"))
+			.andExpect(status().isBadRequest());
+		mockMvc.perform(
+				get("/api/visits/search").param("q", "rabies").param("from", "2014-01-01").param("to", "2013-01-01"))
+			.andExpect(status().isBadRequest());
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link PhoneticKeys}.
+ */
+class PhoneticKeysTests {
+
+	@Test
+	void shouldGiveGermanSpellingVariantsOneCologneKey() {
+		assertThat(PhoneticKeys.cologne("Meier")).isEqualTo(PhoneticKeys.cologne("Meyer"))
+			.isEqualTo(PhoneticKeys.cologne("Maier"))
+			.isEqualTo(PhoneticKeys.cologne("Mayr"));
+		assertThat(PhoneticKeys.cologne("Müller")).isEqualTo(PhoneticKeys.cologne("Mueller"));
+		assertThat(PhoneticKeys.cologne("Schmidt")).isEqualTo(PhoneticKeys.cologne("Schmitt"));
+	}
+
+	@Test
+	void shouldGiveEnglishSpellingVariantsOneMetaphoneKey() {
+		assertThat(PhoneticKeys.metaphone("Smith")).isEqualTo(PhoneticKeys.metaphone("Smyth"));
+		assertThat(PhoneticKeys.metaphone("Davis")).isEqualTo(PhoneticKeys.metaphone("Davies"));
+	}
+
+	@Test
+	void shouldMatchCyrillicAgainstLatinSpelling() {
+		assertThat(PhoneticKeys.transliterate("Иванов")).isEqualTo("ivanov");
+		assertThat(PhoneticKeys.cologne("Майер")).isEqualTo(PhoneticKeys.cologne("Meier"));
+		assertThat(PhoneticKeys.cologne("Шмидт")).isEqualTo(PhoneticKeys.cologne("Schmidt"));
+		assertThat(PhoneticKeys.metaphone("Шапиро")).isEqualTo(PhoneticKeys.metaphone("Shapiro"));
+	}
+
+	@Test
+	void shouldReturnEmptyKeyForNothingToEncode() {
+		assertThat(PhoneticKeys.cologne(null)).isEmpty();
+		assertThat(PhoneticKeys.metaphone("")).isEmpty();
+	}
+
+	@Test
+	void shouldPickCologneForGermanAndRussian() {
+		assertThat(PhoneticKeys.prefersCologne(Locale.GERMANY)).isTrue();
+		assertThat(PhoneticKeys.prefersCologne(Locale.forLanguageTag("ru"))).isTrue();
+		assertThat(PhoneticKeys.prefersCologne(Locale.ENGLISH)).isFalse();
+		assertThat(PhoneticKeys.prefersCologne(Locale.forLanguageTag("es"))).isFalse();
+		assertThat(PhoneticKeys.prefersCologne(null)).isFalse();
+	}
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageImpl;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for {@link ProfilingEndpoint}.
+ */
+class ProfilingEndpointTests {
+
+	private final ProfilingEndpoint endpoint = new ProfilingEndpoint(1, 5, 3);
+
+	private final AtomicBoolean running = new AtomicBoolean(true);
+
+	private Thread emitter;
+
+	@BeforeEach
+	void startEmitting() {
+		this.emitter = new Thread(() -> {
+			while (this.running.get()) {
+				RepositoryCallEvent event = new RepositoryCallEvent();
+				event.begin();
+				event.repository = "OwnerRepository";
+				event.method = "findById";
+				event.rowCount = 1;
+				event.commit();
+				TemplateRenderEvent render = new TemplateRenderEvent();
+				render.view = "owners/ownerDetails";
+				render.commit();
+				try {
+					Thread.sleep(5);
+				}
+				catch (InterruptedException ex) {
+					return;
+				}
+			}
+		});
+		this.emitter.start();
+	}
+
+	@AfterEach
+	void stopEmitting() throws InterruptedException {
+		this.running.set(false);
+		this.emitter.join();
+	}
+
+	@Test
+	void summaryReportsSlowestOperations() throws Exception {
+		ProfilingSummary summary = this.endpoint.summary(2, null);
+
+		assertThat(summary.seconds()).isEqualTo(2);
+		assertThat(summary.events()).isPositive();
+		assertThat(summary.slowest()).hasSizeLessThanOrEqualTo(3).isNotEmpty();
+		assertThat(summary.operations()).extracting(ProfilingSummary.Operation::name)
+			.contains("OwnerRepository.findById");
+	}
+
+	@Test
+	void recordingReturnsFlightRecorderFile(@TempDir Path dir) throws Exception {
+		WebEndpointResponse<Resource> response = this.endpoint.recording("jfr", 1);
+
+		assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+		Path file = dir.resolve("recording.jfr");
+		Files.write(file, response.getBody().getContentAsByteArray());
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		assertThat(events).extracting(event -> event.getEventType().getName())
+			.contains(RepositoryCallEvent.NAME, TemplateRenderEvent.NAME);
+	}
+
+	@Test
+	void recordingRejectsUnknownFormat() throws Exception {
+		assertThat(this.endpoint.recording("hprof", 1).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+	}
+
+	@Test
+	void rowCountReflectsResultShape() {
+		assertThat(RepositoryEventsInterceptor.rowCount(List.of(1, 2, 3))).isEqualTo(3);
+		assertThat(RepositoryEventsInterceptor.rowCount(new PageImpl<>(List.of(1, 2)))).isEqualTo(2);
+		assertThat(RepositoryEventsInterceptor.rowCount(Optional.empty())).isZero();
+		assertThat(RepositoryEventsInterceptor.rowCount(42L)).isEqualTo(-1);
+		assertThat(RepositoryEventsInterceptor.rowCount(null)).isZero();
+	}
+
+}
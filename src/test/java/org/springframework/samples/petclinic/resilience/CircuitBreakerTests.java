@@ -0,0 +1,109 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.resilience.CircuitBreaker.State;
+
+class CircuitBreakerTests {
+
+	private final TestClock clock = new TestClock();
+
+	private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(10), this.clock);
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		fail(2);
+		this.breaker.tryAcquire();
+		this.breaker.onSuccess();
+		fail(2);
+		assertThat(this.breaker.getState()).isEqualTo(State.CLOSED);
+
+		fail(1);
+		assertThat(this.breaker.isOpen()).isTrue();
+		assertThat(this.breaker.tryAcquire()).isFalse();
+		assertThat(this.breaker.remainingOpen()).isEqualTo(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void letsOneProbeThroughAfterTheOpenDuration() {
+		fail(3);
+		this.clock.advance(Duration.ofSeconds(10));
+
+		assertThat(this.breaker.tryAcquire()).isTrue();
+		assertThat(this.breaker.getState()).isEqualTo(State.HALF_OPEN);
+		assertThat(this.breaker.tryAcquire()).isFalse();
+
+		this.breaker.onSuccess();
+		assertThat(this.breaker.getState()).isEqualTo(State.CLOSED);
+		assertThat(this.breaker.tryAcquire()).isTrue();
+	}
+
+	@Test
+	void reopensWhenTheProbeFails() {
+		fail(3);
+		this.clock.advance(Duration.ofSeconds(11));
+
+		assertThat(this.breaker.tryAcquire()).isTrue();
+		this.breaker.onFailure();
+
+		assertThat(this.breaker.isOpen()).isTrue();
+		assertThat(this.breaker.tryAcquire()).isFalse();
+		assertThat(this.breaker.remainingOpen()).isEqualTo(Duration.ofSeconds(10));
+	}
+
+	private void fail(int times) {
+		for (int i = 0; i < times; i++) {
+			assertThat(this.breaker.tryAcquire()).isTrue();
+			this.breaker.onFailure();
+		}
+	}
+
+	private static class TestClock extends Clock {
+
+		private Instant now = Instant.parse("2025-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+	}
+
+}
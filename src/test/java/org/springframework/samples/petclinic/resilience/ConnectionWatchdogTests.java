@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.resilience.ConnectionWatchdog.Kind;
+import org.springframework.samples.petclinic.resilience.ConnectionWatchdog.Report;
+
+class ConnectionWatchdogTests {
+
+	private final ConnectionWatchdog watchdog = new ConnectionWatchdog(Duration.ofMillis(50), Duration.ofMinutes(1));
+
+	private final GuardedDataSource dataSource = new GuardedDataSource(h2(), this.watchdog);
+
+	@Test
+	void reportsConnectionsHeldTooLongOnceWithTheHoldersStack() throws Exception {
+		try (Connection connection = this.dataSource.getConnection()) {
+			assertThat(this.watchdog.scan()).isEmpty();
+			Thread.sleep(100);
+
+			List<Report> reports = this.watchdog.scan();
+			assertThat(reports).singleElement().satisfies(report -> {
+				assertThat(report.kind()).isEqualTo(Kind.CONNECTION);
+				assertThat(report.thread()).isEqualTo(Thread.currentThread().getName());
+				assertThat(report.held()).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+				assertThat(report.stack()).isNotEmpty();
+			});
+			assertThat(this.watchdog.scan()).isEmpty();
+			assertThat(this.watchdog.longHeldConnections()).isEqualTo(1);
+		}
+		assertThat(this.watchdog.longHeldConnections()).isZero();
+		assertThat(this.watchdog.connectionReports()).isEqualTo(1);
+	}
+
+	@Test
+	void reportsTransactionsOpenTooLong() throws Exception {
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			connection.setAutoCommit(false);
+			statement.execute("SELECT 1");
+			Thread.sleep(100);
+
+			assertThat(this.watchdog.scan()).singleElement()
+				.satisfies(report -> assertThat(report.kind()).isEqualTo(Kind.TRANSACTION));
+			assertThat(this.watchdog.longRunningTransactions()).isEqualTo(1);
+
+			connection.commit();
+			assertThat(this.watchdog.longRunningTransactions()).isZero();
+			assertThat(this.watchdog.scan()).singleElement()
+				.satisfies(report -> assertThat(report.kind()).isEqualTo(Kind.CONNECTION));
+		}
+		assertThat(this.watchdog.transactionReports()).isEqualTo(1);
+	}
+
+	@Test
+	void forgetsConnectionsReturnedInTime() throws Exception {
+		try (Connection connection = this.dataSource.getConnection()) {
+			connection.createStatement().execute("SELECT 1");
+		}
+		Thread.sleep(100);
+		assertThat(this.watchdog.scan()).isEmpty();
+		assertThat(this.watchdog.longHeldConnections()).isZero();
+	}
+
+	private static JdbcDataSource h2() {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:watchdog-" + System.nanoTime());
+		return h2;
+	}
+
+}
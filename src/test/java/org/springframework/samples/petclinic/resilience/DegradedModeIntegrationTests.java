@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.resilience;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos;
+import org.springframework.samples.petclinic.chaos.DatabaseChaos.Acquisition;
+import org.springframework.samples.petclinic.concurrency.ConcurrencyLimitFilter;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Takes the database away from a running application and checks that owner pages are
+ * still shown from the last known data, with a banner, and that changes are refused.
+ */
+@SpringBootTest(properties = { "petclinic.resilience.failure-threshold=1", "petclinic.resilience.open-duration=PT0.2S",
+		"petclinic.resilience.stale-refresh=PT0S", "petclinic.chaos.enabled=true" })
+@AutoConfigureMockMvc
+class DegradedModeIntegrationTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DatabaseChaos chaos;
+
+	@Autowired
+	private CircuitBreaker breaker;
+
+	@AfterEach
+	void recover() throws InterruptedException {
+		this.chaos.reset();
+		awaitBreakerNotOpen();
+	}
+
+	@Test
+	void servesStaleOwnerAndRefusesChangesWhileTheDatabaseIsDown() throws Exception {
+		this.mockMvc.perform(get("/owners/1"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("Franklin")))
+			.andExpect(content().string(not(containsString("degraded-banner"))));
+
+		refuseConnections();
+		this.mockMvc.perform(get("/owners/1"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(containsString("Franklin")))
+			.andExpect(content().string(containsString("degraded-banner")));
+		this.mockMvc.perform(post("/owners/new").param("firstName", "Joe").param("lastName", "Bloggs"))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(header().exists("Retry-After"))
+			.andExpect(request().attribute(ConcurrencyLimitFilter.REFUSED_ATTRIBUTE, true));
+
+		this.chaos.reset();
+		awaitBreakerNotOpen();
+		this.mockMvc.perform(get("/owners/1"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(not(containsString("degraded-banner"))));
+	}
+
+	@Test
+	void failsReadsWithoutAStaleResult() throws Exception {
+		refuseConnections();
+		this.mockMvc.perform(get("/owners/2")).andExpect(status().isServiceUnavailable());
+	}
+
+	private void refuseConnections() {
+		this.chaos.configure(new Acquisition(1.0, 0, null), List.of());
+	}
+
+	private void awaitBreakerNotOpen() throws InterruptedException {
+		while (this.breaker.isOpen()) {
+			Thread.sleep(50);
+		}
+	}
+
+}
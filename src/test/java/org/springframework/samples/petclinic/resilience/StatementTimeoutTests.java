@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+class StatementTimeoutTests {
+
+	private static final String SLOW_QUERY = "SELECT SUM(X) FROM SYSTEM_RANGE(1, 100000000000)";
+
+	private final GuardedDataSource dataSource = new GuardedDataSource(h2(),
+			new ConnectionWatchdog(Duration.ofMinutes(1), Duration.ofMinutes(1)));
+
+	@Test
+	void cancelsStatementsOnTheDatabaseAtTheDeadline() throws Exception {
+		StatementDeadline previous = StatementDeadline.enter("test", Duration.ofSeconds(1));
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			long start = System.nanoTime();
+			assertThatExceptionOfType(SQLTimeoutException.class).isThrownBy(() -> statement.executeQuery(SLOW_QUERY));
+			assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+			assertThat(statement.getQueryTimeout()).isEqualTo(1);
+		}
+		finally {
+			StatementDeadline.restore(previous);
+		}
+		assertThat(StatementDeadline.get()).isNull();
+	}
+
+	@Test
+	void failsStatementsOutOfTimeWithoutRunningThem() throws Exception {
+		StatementDeadline previous = StatementDeadline.enter("test", Duration.ZERO);
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			assertThatExceptionOfType(SQLTimeoutException.class).isThrownBy(() -> statement.execute("SELECT 1"))
+				.satisfies(ex -> assertThat(ex.getSQLState()).isEqualTo("57014"));
+		}
+		finally {
+			StatementDeadline.restore(previous);
+		}
+	}
+
+	@Test
+	void leavesStatementsWithoutDeadlineAlone() throws Exception {
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("SELECT 1");
+			assertThat(statement.getQueryTimeout()).isZero();
+		}
+	}
+
+	@Test
+	void nestedDeadlinesOnlyComeForward() {
+		StatementDeadline outer = StatementDeadline.enter("outer", Duration.ofSeconds(1));
+		StatementDeadline inner = StatementDeadline.enter("inner", Duration.ofMinutes(1));
+		assertThat(StatementDeadline.get().budget()).isEqualTo("outer");
+		StatementDeadline.restore(inner);
+		StatementDeadline.restore(outer);
+		assertThat(StatementDeadline.get()).isNull();
+	}
+
+	@Test
+	void reportsRepositoryCallsOutOfBudget() {
+		JdbcTemplate jdbc = new JdbcTemplate(this.dataSource);
+		ProxyFactory proxyFactory = new ProxyFactory(new Queries() {
+
+			@Override
+			public Long slow() {
+				return jdbc.queryForObject(SLOW_QUERY, Long.class);
+			}
+
+			@Override
+			public Long fast() {
+				return jdbc.queryForObject("SELECT 1", Long.class);
+			}
+
+		});
+		MockEnvironment environment = new MockEnvironment().withProperty(StatementTimeoutInterceptor.PREFIX + "search",
+				"PT1S");
+		environment.setConversionService(new ApplicationConversionService());
+		proxyFactory.addAdvice(new StatementTimeoutInterceptor(environment));
+		Queries queries = (Queries) proxyFactory.getProxy();
+
+		assertThat(queries.fast()).isEqualTo(1L);
+		assertThatExceptionOfType(StatementBudgetExceededException.class).isThrownBy(queries::slow)
+			.withMessageContaining("'search'");
+		assertThat(StatementDeadline.get()).isNull();
+	}
+
+	private static JdbcDataSource h2() {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:statement-timeout-" + System.nanoTime());
+		return h2;
+	}
+
+	interface Queries {
+
+		@StatementTimeout("search")
+		Long slow();
+
+		@StatementTimeout("search")
+		Long fast();
+
+	}
+
+}
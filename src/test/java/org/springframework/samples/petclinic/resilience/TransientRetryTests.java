@@ -0,0 +1,144 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransientRetryTests {
+
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final TransientRetry retry = new TransientRetry(this.transactionManager, this.registry, 3,
+			Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5));
+
+	@Test
+	void retriesDeadlocksUntilTheUnitSucceeds() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		this.retry.run("visits/new", () -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw deadlock();
+			}
+		});
+
+		assertThat(attempts).hasValue(3);
+		assertThat(this.registry.counter("petclinic.write.retries", "unit", "visits/new").count()).isEqualTo(2);
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThatExceptionOfType(CannotAcquireLockException.class)
+			.isThrownBy(() -> this.retry.run("owners/new", () -> {
+				attempts.incrementAndGet();
+				throw deadlock();
+			}));
+
+		assertThat(attempts).hasValue(3);
+		assertThat(this.registry.counter("petclinic.write.giveups", "unit", "owners/new").count()).isEqualTo(1);
+	}
+
+	@Test
+	void givesUpWhenTheBudgetIsSpent() {
+		TransientRetry tight = new TransientRetry(this.transactionManager, this.registry, 10, Duration.ofMillis(50),
+				Duration.ofMillis(50), Duration.ZERO);
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThatExceptionOfType(CannotAcquireLockException.class).isThrownBy(() -> tight.run("owners/new", () -> {
+			attempts.incrementAndGet();
+			throw deadlock();
+		}));
+
+		assertThat(attempts).hasValue(1);
+	}
+
+	@Test
+	void doesNotRetryPermanentFailures() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThatExceptionOfType(DataIntegrityViolationException.class)
+			.isThrownBy(() -> this.retry.run("pets/new", () -> {
+				attempts.incrementAndGet();
+				throw new DataIntegrityViolationException("duplicate",
+						new SQLException("Unique index violated", "23505"));
+			}));
+
+		assertThat(attempts).hasValue(1);
+	}
+
+	@Test
+	void doesNotRetryAConnectionLostWhileCommitting() {
+		given(this.transactionManager.getTransaction(any())).willReturn(mock(TransactionStatus.class));
+		willThrow(new TransactionSystemException("Commit failed",
+				new SQLTransientConnectionException("Connection reset", "08006")))
+			.given(this.transactionManager)
+			.commit(any());
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThatExceptionOfType(TransactionSystemException.class)
+			.isThrownBy(() -> this.retry.run("owners/edit", attempts::incrementAndGet));
+
+		assertThat(attempts).hasValue(1);
+	}
+
+	@Test
+	void classifiesTransientFailures() {
+		assertThat(TransientRetry.isTransient(deadlock(), false)).isTrue();
+		assertThat(TransientRetry.isTransient(new CannotAcquireLockException("deadlock",
+				new SQLTransactionRollbackException("deadlock detected", "40P01")), false))
+			.isTrue();
+		assertThat(TransientRetry.isTransient(
+				new CannotAcquireLockException("lock wait", new SQLException("Lock wait timeout", "HY000", 1205)),
+				false))
+			.isTrue();
+		DataAccessResourceFailureException lost = new DataAccessResourceFailureException("lost",
+				new SQLTransientConnectionException("Connection reset", "08006"));
+		assertThat(TransientRetry.isTransient(lost, false)).isTrue();
+		assertThat(TransientRetry.isTransient(lost, true)).isFalse();
+		assertThat(TransientRetry.isTransient(new DatabaseUnavailableException("open"), false)).isFalse();
+	}
+
+	private static CannotAcquireLockException deadlock() {
+		return new CannotAcquireLockException("deadlock",
+				new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001"));
+	}
+
+}
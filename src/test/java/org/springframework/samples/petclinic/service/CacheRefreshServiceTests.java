@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.samples.petclinic.model.PetType;
+import org.springframework.samples.petclinic.model.Vet;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.repository.VetRepository;
+
+class CacheRefreshServiceTests {
+
+	private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("vets", "petTypes");
+
+	private final VetRepository vets = mock(VetRepository.class);
+
+	private final PetTypeRepository types = mock(PetTypeRepository.class);
+
+	private final CacheRefreshService refresher = new CacheRefreshService(this.cacheManager, this.vets, this.types,
+			Duration.ofMinutes(8));
+
+	@Test
+	void refreshLoadsEveryCache() {
+		Vet vet = new Vet();
+		PetType type = new PetType();
+		given(this.vets.loadAll()).willReturn(List.of(vet));
+		given(this.types.loadPetTypes()).willReturn(List.of(type));
+
+		assertThat(this.refresher.refresh()).isEqualTo(2);
+
+		assertThat(this.cacheManager.getCache("vets").get(SimpleKey.EMPTY).get()).isEqualTo(List.of(vet));
+		assertThat(this.cacheManager.getCache("petTypes").get(SimpleKey.EMPTY).get()).isEqualTo(List.of(type));
+	}
+
+	@Test
+	void refreshReplacesCachedValues() {
+		this.cacheManager.getCache("petTypes").put(SimpleKey.EMPTY, List.of());
+		PetType type = new PetType();
+		given(this.vets.loadAll()).willReturn(List.of());
+		given(this.types.loadPetTypes()).willReturn(List.of(type));
+
+		this.refresher.refresh();
+
+		assertThat(this.cacheManager.getCache("petTypes").get(SimpleKey.EMPTY).get()).isEqualTo(List.of(type));
+	}
+
+	@Test
+	void refreshDoesNotKeepAValueLoadedBeforeAnEviction() {
+		Cache vetsCache = this.refresher.trackEvictions(this.cacheManager.getCache("vets"));
+		given(this.vets.loadAll()).willAnswer(invocation -> {
+			// a vet is edited while the refresh is reading the old list
+			vetsCache.clear();
+			return List.of(new Vet());
+		});
+		given(this.types.loadPetTypes()).willReturn(List.of());
+
+		this.refresher.refresh();
+
+		assertThat(this.cacheManager.getCache("vets").get(SimpleKey.EMPTY)).isNull();
+		assertThat(this.cacheManager.getCache("petTypes").get(SimpleKey.EMPTY)).isNotNull();
+	}
+
+}
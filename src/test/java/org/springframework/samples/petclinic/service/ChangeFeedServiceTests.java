@@ -0,0 +1,216 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.samples.petclinic.model.ChangeLogEntry;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.repository.ChangeLogRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Unit tests for {@link ChangeFeedService} and its {@link ChangeRing}, against an
+ * in-memory outbox.
+ */
+class ChangeFeedServiceTests {
+
+	private final ChangeLogRepository log = mock(ChangeLogRepository.class);
+
+	private final List<ChangeLogEntry> outbox = new ArrayList<>();
+
+	@BeforeEach
+	void outbox() {
+		given(this.log.save(any(ChangeLogEntry.class))).willAnswer(invocation -> {
+			ChangeLogEntry entry = invocation.getArgument(0);
+			entry.setId(this.outbox.size() + 1L);
+			this.outbox.add(entry);
+			return entry;
+		});
+		given(this.log.findByIdGreaterThanOrderById(any(), any())).willAnswer(invocation -> {
+			long offset = invocation.getArgument(0);
+			Limit limit = invocation.getArgument(1);
+			return this.outbox.stream().filter(e -> e.getId() > offset).limit(limit.max()).toList();
+		});
+		given(this.log.findByOrderByIdDesc(any())).willAnswer(invocation -> {
+			Limit limit = invocation.getArgument(0);
+			List<ChangeLogEntry> newestFirst = new ArrayList<>(this.outbox);
+			Collections.reverse(newestFirst);
+			return newestFirst.stream().limit(limit.max()).toList();
+		});
+	}
+
+	@Test
+	void shouldReplayFromRingThenDeliverLiveChanges() {
+		ChangeFeedService feed = feed(4);
+		record(feed, 3);
+		Recorder recorder = new Recorder();
+
+		feed.subscribe(1L, recorder);
+		record(feed, 1);
+
+		assertThat(recorder.offsets).containsExactly(2L, 3L, 4L);
+		assertThat(recorder.missed).isFalse();
+		assertThat(feed.latest()).isEqualTo(4);
+	}
+
+	@Test
+	void shouldOnlyDeliverNewChangesWithoutOffset() {
+		ChangeFeedService feed = feed(4);
+		record(feed, 2);
+		Recorder recorder = new Recorder();
+
+		feed.subscribe(null, recorder);
+		record(feed, 1);
+
+		assertThat(recorder.offsets).containsExactly(3L);
+	}
+
+	@Test
+	void shouldCatchUpFromOutboxWhenOlderThanRing() {
+		ChangeFeedService feed = feed(2);
+		record(feed, 5);
+		Recorder recorder = new Recorder();
+
+		feed.subscribe(1L, recorder);
+
+		assertThat(recorder.offsets).containsExactly(2L, 3L, 4L, 5L);
+		assertThat(recorder.missed).isFalse();
+	}
+
+	@Test
+	void shouldReportMissedChangesWhenTooFarBehind() {
+		ChangeFeedService feed = feed(2);
+		record(feed, 6);
+		Recorder recorder = new Recorder();
+
+		feed.subscribe(0L, recorder);
+		record(feed, 1);
+
+		assertThat(recorder.missed).isTrue();
+		assertThat(recorder.offsets).containsExactly(7L);
+	}
+
+	@Test
+	void shouldStopDeliveringAfterUnsubscribe() {
+		ChangeFeedService feed = feed(4);
+		Recorder recorder = new Recorder();
+
+		Runnable unsubscribe = feed.subscribe(null, recorder);
+		record(feed, 1);
+		unsubscribe.run();
+		record(feed, 1);
+
+		assertThat(recorder.offsets).containsExactly(1L);
+		assertThat(feed.subscriberCount()).isZero();
+	}
+
+	@Test
+	void shouldRestoreRingFromOutboxOnStartup() {
+		record(feed(2), 5);
+		ChangeFeedService restarted = feed(2);
+		restarted.load();
+		Recorder recent = new Recorder();
+		Recorder behind = new Recorder();
+
+		restarted.subscribe(3L, recent);
+		restarted.subscribe(2L, behind);
+
+		assertThat(recent.offsets).containsExactly(4L, 5L);
+		assertThat(behind.offsets).containsExactly(3L, 4L, 5L);
+		assertThat(restarted.latest()).isEqualTo(5);
+	}
+
+	@Test
+	void shouldHoldBackEntriesThatCommitBeforeALowerOffset() {
+		ChangeFeedService feed = feed(4);
+		Recorder recorder = new Recorder();
+		feed.subscribe(null, recorder);
+		List<TransactionSynchronization> first = inTransaction(() -> record(feed, 1));
+		List<TransactionSynchronization> second = inTransaction(() -> record(feed, 1));
+		List<TransactionSynchronization> third = inTransaction(() -> record(feed, 1));
+
+		TransactionSynchronizationUtils.invokeAfterCompletion(second, TransactionSynchronization.STATUS_COMMITTED);
+		assertThat(recorder.offsets).isEmpty();
+		assertThat(feed.latest()).isZero();
+
+		TransactionSynchronizationUtils.invokeAfterCompletion(first, TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertThat(recorder.offsets).containsExactly(2L);
+
+		TransactionSynchronizationUtils.invokeAfterCompletion(third, TransactionSynchronization.STATUS_COMMITTED);
+		assertThat(recorder.offsets).containsExactly(2L, 3L);
+		Recorder resumed = new Recorder();
+		feed.subscribe(1L, resumed);
+		assertThat(resumed.offsets).containsExactly(2L, 3L);
+	}
+
+	private static List<TransactionSynchronization> inTransaction(Runnable action) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			action.run();
+			return TransactionSynchronizationManager.getSynchronizations();
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private ChangeFeedService feed(int capacity) {
+		return new ChangeFeedService(this.log, capacity, Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+	}
+
+	private static void record(ChangeFeedService feed, int count) {
+		for (int i = 0; i < count; i++) {
+			feed.record(Subject.VISIT, i, Action.CREATED, 1);
+		}
+	}
+
+	private static class Recorder implements ChangeFeedService.Subscriber {
+
+		private final List<Long> offsets = new ArrayList<>();
+
+		private boolean missed;
+
+		@Override
+		public void change(ChangeLogEntry entry) {
+			this.offsets.add(entry.getId());
+		}
+
+		@Override
+		public void missed() {
+			this.missed = true;
+		}
+
+	}
+
+}
@@ -17,9 +17,12 @@
 package org.springframework.samples.petclinic.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.tuple;
 
 import java.time.LocalDate;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -27,7 +30,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.samples.petclinic.model.Owner;
 import org.springframework.samples.petclinic.repository.OwnerRepository;
@@ -37,6 +43,8 @@ import org.springframework.samples.petclinic.model.PetType;
 import org.springframework.samples.petclinic.model.Visit;
 import org.springframework.samples.petclinic.model.Vet;
 import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -82,6 +90,9 @@ class ClinicServiceTests {
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected VisitRepository visits;
+
 	Pageable pageable;
 
 	@Test
@@ -142,6 +153,30 @@ class ClinicServiceTests {
 		assertThat(owner.getLastName()).isEqualTo(newLastName);
 	}
 
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldRejectStaleOwnerUpdate() {
+		// two detached copies, as two front-desk forms would hold them
+		Owner first = this.owners.findById(2).orElseThrow();
+		Owner second = this.owners.findById(2).orElseThrow();
+		String oldCity = first.getCity();
+		int version = first.getVersion();
+
+		first.setCity(oldCity + "X");
+		this.owners.save(first);
+
+		second.setTelephone("6085550000");
+		assertThatExceptionOfType(OptimisticLockingFailureException.class).isThrownBy(() -> this.owners.save(second));
+
+		Owner current = this.owners.findById(2).orElseThrow();
+		assertThat(current.getVersion()).isEqualTo(version + 1);
+		assertThat(current.getTelephone()).isNotEqualTo("6085550000");
+
+		// nothing rolls back outside a test transaction, so restore the sample data
+		current.setCity(oldCity);
+		this.owners.save(current);
+	}
+
 	@Test
 	void shouldFindAllPetTypes() {
 		Collection<PetType> petTypes = this.types.findPetTypes();
@@ -234,18 +269,29 @@ class ClinicServiceTests {
 
 	@Test
 	void shouldFindVisitsByPetId() {
-		Optional<Owner> optionalOwner = this.owners.findById(6);
-		assertThat(optionalOwner).isPresent();
-		Owner owner6 = optionalOwner.get();
-
-		Pet pet7 = owner6.getPet(7);
-		Collection<Visit> visits = pet7.getVisits();
+		Collection<Visit> visits = this.visits.findByPetIdOrderByDateDescIdDesc(7, Limit.of(10));
 
 		assertThat(visits) //
 			.hasSize(2) //
 			.element(0)
 			.extracting(Visit::getDate)
-			.isNotNull();
+			.isEqualTo(LocalDate.of(2013, 1, 4));
+	}
+
+	@Test
+	void shouldFindRecentVisitsOfSeveralPetsAtOnce() {
+		List<Visit> visits = this.visits.findRecentByPetIds(List.of(7, 8, 1), 1);
+
+		assertThat(visits).extracting(Visit::getPetId, Visit::getDescription)
+			.containsExactly(tuple(7, "spayed"), tuple(8, "neutered"));
+	}
+
+	@Test
+	void shouldPageVisitsNewestFirst() {
+		Page<Visit> page = this.visits.findByPetIdOrderByDateDescIdDesc(7, PageRequest.of(1, 1));
+
+		assertThat(page.getTotalElements()).isEqualTo(2);
+		assertThat(page.getContent()).singleElement().extracting(Visit::getDescription).isEqualTo("rabies shot");
 	}
 
 }
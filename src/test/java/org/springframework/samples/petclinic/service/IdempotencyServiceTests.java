@@ -0,0 +1,178 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.model.IdempotencyRecord;
+import org.springframework.samples.petclinic.repository.IdempotencyRecordRepository;
+
+/**
+ * Unit tests for {@link IdempotencyService}, against an in-memory table.
+ */
+class IdempotencyServiceTests {
+
+	private final IdempotencyRecordRepository records = mock(IdempotencyRecordRepository.class);
+
+	private final Map<String, IdempotencyRecord> table = new HashMap<>();
+
+	private final TestClock clock = new TestClock();
+
+	@BeforeEach
+	void table() {
+		given(this.records.save(any(IdempotencyRecord.class))).willAnswer(invocation -> {
+			IdempotencyRecord record = invocation.getArgument(0);
+			this.table.put(record.getId(), record);
+			return record;
+		});
+		given(this.records.findById(any()))
+			.willAnswer(invocation -> Optional.ofNullable(this.table.get(invocation.<String>getArgument(0))));
+	}
+
+	@Test
+	void shouldReplayCompletedResponse() {
+		IdempotencyService service = service(10);
+
+		assertThat(service.begin("owners/new", "k1")).isEmpty();
+		service.complete("owners/new", "k1", "redirect:/owners/11");
+
+		assertThat(service.begin("owners/new", "k1")).contains("redirect:/owners/11");
+		assertThat(this.table).containsKey("owners/new:k1");
+	}
+
+	@Test
+	void shouldKeepScopesApart() {
+		IdempotencyService service = service(10);
+		service.begin("owners/new", "k1");
+		service.complete("owners/new", "k1", "redirect:/owners/11");
+
+		assertThat(service.begin("api/pet-types", "k1")).isEmpty();
+	}
+
+	@Test
+	void shouldRunAgainAfterRelease() {
+		IdempotencyService service = service(10);
+		service.begin("owners/new", "k1");
+		service.release("owners/new", "k1");
+
+		assertThat(service.begin("owners/new", "k1")).isEmpty();
+		assertThat(this.table).isEmpty();
+	}
+
+	@Test
+	void shouldMakeDuplicateWaitForResponseOfRunningRequest() throws Exception {
+		IdempotencyService service = service(10);
+		service.begin("owners/new", "k1");
+
+		CompletableFuture<Optional<String>> duplicate = CompletableFuture
+			.supplyAsync(() -> service.begin("owners/new", "k1"));
+		Thread.sleep(50);
+		assertThat(duplicate).isNotDone();
+
+		service.complete("owners/new", "k1", "redirect:/owners/11");
+		assertThat(duplicate.get(5, TimeUnit.SECONDS)).contains("redirect:/owners/11");
+	}
+
+	@Test
+	void shouldGiveUpWaitingForRequestThatKeepsRunning() {
+		IdempotencyService service = new IdempotencyService(this.records, 10, Duration.ofHours(1),
+				Duration.ofMillis(20), this.clock);
+		service.begin("owners/new", "k1");
+
+		assertThatIllegalStateException().isThrownBy(() -> service.begin("owners/new", "k1"));
+	}
+
+	@Test
+	void shouldFallBackToTableForEvictedKeys() {
+		IdempotencyService service = service(2);
+		for (int i = 1; i <= 3; i++) {
+			service.begin("owners/new", "k" + i);
+			service.complete("owners/new", "k" + i, "redirect:/owners/" + i);
+		}
+
+		assertThat(service.size()).isEqualTo(2);
+		assertThat(service.begin("owners/new", "k1")).contains("redirect:/owners/1");
+	}
+
+	@Test
+	void shouldForgetKeysAfterTimeToLive() {
+		IdempotencyService service = service(10);
+		service.begin("owners/new", "k1");
+		service.complete("owners/new", "k1", "redirect:/owners/11");
+
+		this.clock.advance(Duration.ofHours(2));
+
+		assertThat(service.begin("owners/new", "k1")).isEmpty();
+	}
+
+	@Test
+	void shouldIgnoreMissingKeyAndRejectMalformedOne() {
+		IdempotencyService service = service(10);
+
+		assertThat(service.begin("owners/new", null)).isEmpty();
+		assertThatIllegalArgumentException().isThrownBy(() -> service.begin("owners/new", "a b"));
+		assertThatIllegalArgumentException().isThrownBy(() -> service.begin("owners/new", "x".repeat(101)));
+	}
+
+	private IdempotencyService service(int maxEntries) {
+		return new IdempotencyService(this.records, maxEntries, Duration.ofHours(1), Duration.ofSeconds(5), this.clock);
+	}
+
+	private static final class TestClock extends Clock {
+
+		private Instant now = Instant.parse("2025-03-03T08:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+	}
+
+}
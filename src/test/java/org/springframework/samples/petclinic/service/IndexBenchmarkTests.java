@@ -0,0 +1,283 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures the plan and latency of each repository query on H2 before and after
+ * {@code V4__add_access_path_indexes}. The schema is migrated to V3, filled with a
+ * synthetic clinic, measured, migrated to the latest version and measured again. The
+ * report is written to {@code target/index-benchmark.md}.
+ * <p>
+ * Takes about a minute, so it only runs with {@code -Dpetclinic.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "petclinic.benchmark", matches = "true")
+class IndexBenchmarkTests {
+
+	private static final int OWNERS = 20_000;
+
+	private static final int PETS_PER_OWNER = 2;
+
+	private static final int VISITS_PER_PET = 5;
+
+	private static final int WARMUP = 50;
+
+	private static final int RUNS = 300;
+
+	private static final String[] SYLLABLES = { "ba", "ko", "ri", "man", "del", "son", "ve", "lu", "tor", "an", "ge",
+			"hol", "ni", "sta", "per", "quin", "wa", "zel" };
+
+	private final Random random = new Random(42);
+
+	@Test
+	void compareQueryPlansAndLatency() throws Exception {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:index-benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=0");
+
+		migrate(dataSource, "3");
+		populate(dataSource);
+		List<Query> queries = queries(dataSource);
+		List<Measurement> before = measure(dataSource, queries);
+
+		migrate(dataSource, "latest");
+		List<Measurement> after = measure(dataSource, queries);
+
+		Path report = Path.of("target", "index-benchmark.md");
+		writeReport(report, queries, before, after);
+		assertThat(report).exists();
+	}
+
+	private static void migrate(DataSource dataSource, String target) {
+		Flyway.configure()
+			.dataSource(dataSource)
+			.locations("classpath:db/h2/migration")
+			.target(target)
+			.load()
+			.migrate();
+	}
+
+	private void populate(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement owners = connection.prepareStatement(
+					"INSERT INTO owners (first_name, last_name, address, city, telephone) VALUES (?, ?, ?, ?, ?)")) {
+				for (int i = 0; i < OWNERS; i++) {
+					owners.setString(1, name(2));
+					owners.setString(2, name(3));
+					owners.setString(3, i + " Main St.");
+					owners.setString(4, "Madison");
+					owners.setString(5, telephone(i));
+					owners.addBatch();
+				}
+				owners.executeBatch();
+			}
+			try (PreparedStatement pets = connection
+				.prepareStatement("INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (?, ?, ?, ?)")) {
+				for (int owner = 1; owner <= OWNERS; owner++) {
+					for (int p = 0; p < PETS_PER_OWNER; p++) {
+						pets.setString(1, name(2));
+						pets.setDate(2, Date.valueOf(LocalDate.of(2010, 1, 1).plusDays(this.random.nextInt(4000))));
+						pets.setInt(3, 1 + this.random.nextInt(6));
+						pets.setInt(4, owner + 10);
+						pets.addBatch();
+					}
+				}
+				pets.executeBatch();
+			}
+			try (PreparedStatement visits = connection
+				.prepareStatement("INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, ?)")) {
+				int pets = OWNERS * PETS_PER_OWNER;
+				for (int pet = 1; pet <= pets; pet++) {
+					for (int v = 0; v < VISITS_PER_PET; v++) {
+						visits.setInt(1, pet + 13);
+						visits.setDate(2, Date.valueOf(LocalDate.of(2015, 1, 1).plusDays(this.random.nextInt(3650))));
+						visits.setString(3, "checkup");
+						visits.addBatch();
+					}
+				}
+				visits.executeBatch();
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("INSERT INTO owner_summary (owner_id, first_name, last_name, address, city,"
+						+ " telephone, pet_count) SELECT o.id, o.first_name, o.last_name, o.address, o.city,"
+						+ " o.telephone, (SELECT COUNT(*) FROM pets p WHERE p.owner_id = o.id) FROM owners o");
+				statement.execute("ANALYZE");
+			}
+			connection.commit();
+		}
+	}
+
+	private List<Query> queries(DataSource dataSource) throws SQLException {
+		String prefix;
+		String telephone;
+		int ownerId;
+		int petId;
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			ResultSet owner = statement.executeQuery("SELECT id, last_name, telephone FROM owners WHERE id = 5000");
+			owner.next();
+			ownerId = owner.getInt(1);
+			prefix = owner.getString(2).substring(0, 4);
+			telephone = owner.getString(3);
+			ResultSet pet = statement.executeQuery("SELECT id FROM pets WHERE owner_id = " + ownerId);
+			pet.next();
+			petId = pet.getInt(1);
+		}
+		return List.of(new Query("OwnerRepository.findByLastNameStartingWith (page)",
+				"SELECT * FROM owners WHERE last_name LIKE ? OFFSET 0 ROWS FETCH FIRST 5 ROWS ONLY", prefix + "%"),
+				new Query("OwnerRepository.findByLastNameStartingWith (count)",
+						"SELECT COUNT(*) FROM owners WHERE last_name LIKE ?", prefix + "%"),
+				new Query("OwnerSummaryRepository.findByLastNameStartingWith (page, sorted by id)",
+						"SELECT * FROM owner_summary WHERE last_name LIKE ? ORDER BY owner_id"
+								+ " OFFSET 0 ROWS FETCH FIRST 5 ROWS ONLY",
+						prefix + "%"),
+				new Query("OwnerRepository.findById (pets of the owner)",
+						"SELECT * FROM pets WHERE owner_id = ? ORDER BY name", ownerId),
+				new Query("VisitRepository.findByPetIdOrderByDateDescIdDesc (limit 3)",
+						"SELECT * FROM visits WHERE pet_id = ? ORDER BY visit_date DESC, id DESC"
+								+ " FETCH FIRST 3 ROWS ONLY",
+						petId),
+				new Query("VisitRepository.findStatsByPetIds",
+						"SELECT pet_id, COUNT(*), MAX(visit_date) FROM visits WHERE pet_id IN (?, ?) GROUP BY pet_id",
+						petId, petId + 1),
+				new Query("PetTypeRepository.findPetTypes", "SELECT * FROM types ORDER BY name"),
+				new Query("VetRepository.findAll", "SELECT * FROM vets"),
+				new Query("Owners by telephone (access path)", "SELECT * FROM owners WHERE telephone = ?", telephone),
+				new Query("Visits of one day (access path)", "SELECT * FROM visits WHERE visit_date = ?",
+						Date.valueOf(LocalDate.of(2020, 6, 1))));
+	}
+
+	private static List<Measurement> measure(DataSource dataSource, List<Query> queries) throws SQLException {
+		List<Measurement> measurements = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			for (Query query : queries) {
+				String plan;
+				try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + query.sql())) {
+					bind(explain, query.parameters());
+					ResultSet rs = explain.executeQuery();
+					rs.next();
+					plan = rs.getString(1);
+				}
+				long[] nanos = new long[RUNS];
+				try (PreparedStatement statement = connection.prepareStatement(query.sql())) {
+					bind(statement, query.parameters());
+					for (int i = 0; i < WARMUP + RUNS; i++) {
+						long start = System.nanoTime();
+						try (ResultSet rs = statement.executeQuery()) {
+							while (rs.next()) {
+								// drain
+							}
+						}
+						if (i >= WARMUP) {
+							nanos[i - WARMUP] = System.nanoTime() - start;
+						}
+					}
+				}
+				Arrays.sort(nanos);
+				measurements.add(new Measurement(plan, nanos[RUNS / 2] / 1000, nanos[RUNS * 95 / 100] / 1000));
+			}
+		}
+		return measurements;
+	}
+
+	private static void bind(PreparedStatement statement, Object[] parameters) throws SQLException {
+		for (int i = 0; i < parameters.length; i++) {
+			statement.setObject(i + 1, parameters[i]);
+		}
+	}
+
+	private static void writeReport(Path report, List<Query> queries, List<Measurement> before, List<Measurement> after)
+			throws IOException {
+		StringBuilder md = new StringBuilder();
+		md.append("# Index benchmark: V3 (before) vs. V4__add_access_path_indexes (after)\n\n");
+		md.append("H2 in-memory, ")
+			.append(OWNERS)
+			.append(" owners, ")
+			.append(OWNERS * PETS_PER_OWNER)
+			.append(" pets, ")
+			.append(OWNERS * PETS_PER_OWNER * VISITS_PER_PET)
+			.append(" visits. Latency over ")
+			.append(RUNS)
+			.append(" runs after ")
+			.append(WARMUP)
+			.append(" warm-up runs, in microseconds.\n\n");
+		md.append("| Query | Before p50 | Before p95 | After p50 | After p95 |\n");
+		md.append("|---|---:|---:|---:|---:|\n");
+		for (int i = 0; i < queries.size(); i++) {
+			md.append("| ")
+				.append(queries.get(i).name())
+				.append(" | ")
+				.append(before.get(i).p50())
+				.append(" | ")
+				.append(before.get(i).p95())
+				.append(" | ")
+				.append(after.get(i).p50())
+				.append(" | ")
+				.append(after.get(i).p95())
+				.append(" |\n");
+		}
+		md.append("\n## Query plans\n");
+		for (int i = 0; i < queries.size(); i++) {
+			md.append("\n### ").append(queries.get(i).name()).append("\n\n");
+			md.append("Before:\n\n```sql\n").append(before.get(i).plan()).append("\n```\n\n");
+			md.append("After:\n\n```sql\n").append(after.get(i).plan()).append("\n```\n");
+		}
+		Files.createDirectories(report.getParent());
+		Files.writeString(report, md);
+	}
+
+	private String name(int syllables) {
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < syllables; i++) {
+			name.append(SYLLABLES[this.random.nextInt(SYLLABLES.length)]);
+		}
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	private static String telephone(int i) {
+		return String.format("608%07d", i);
+	}
+
+	private record Query(String name, String sql, Object... parameters) {
+	}
+
+	private record Measurement(String plan, long p50, long p95) {
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link OwnerNameIndex}.
+ */
+class OwnerNameIndexTests {
+
+	private OwnerNameIndex index;
+
+	@BeforeEach
+	void setUp() {
+		this.index = new OwnerNameIndex();
+		this.index
+			.replaceAll(Map.of(1, "Davis", 2, "Davidson", 3, "Davis", 4, "Müller", 5, "Ёлкин", 6, "Straße", 7, "Dav"));
+	}
+
+	@Test
+	void shouldNormalizeCaseAndAccents() {
+		assertThat(OwnerNameIndex.normalize(" Müller ")).isEqualTo("muller");
+		assertThat(OwnerNameIndex.normalize("Ёлкин")).isEqualTo("елкин");
+		assertThat(OwnerNameIndex.normalize("STRASSE")).isEqualTo(OwnerNameIndex.normalize("Straße"));
+		assertThat(OwnerNameIndex.normalize(null)).isEmpty();
+	}
+
+	@Test
+	void shouldSuggestByPrefixOrderedByNameThenId() {
+		assertThat(this.index.suggest("dav", 10)).containsExactly(7, 2, 1, 3);
+		assertThat(this.index.suggest("DAVI", 10)).containsExactly(2, 1, 3);
+		assertThat(this.index.suggest("davis", 10)).containsExactly(1, 3);
+		assertThat(this.index.suggest("davisx", 10)).isEmpty();
+		assertThat(this.index.suggest("x", 10)).isEmpty();
+	}
+
+	@Test
+	void shouldStopAtLimit() {
+		assertThat(this.index.suggest("d", 2)).containsExactly(7, 2);
+	}
+
+	@Test
+	void shouldMatchWithoutAccents() {
+		assertThat(this.index.suggest("mul", 10)).containsExactly(4);
+		assertThat(this.index.suggest("Mül", 10)).containsExactly(4);
+		assertThat(this.index.suggest("елк", 10)).containsExactly(5);
+		assertThat(this.index.suggest("strass", 10)).containsExactly(6);
+	}
+
+	@Test
+	void shouldMoveOwnerOnRename() {
+		this.index.put(1, "Franklin");
+
+		assertThat(this.index.suggest("davis", 10)).containsExactly(3);
+		assertThat(this.index.suggest("fr", 10)).containsExactly(1);
+		assertThat(this.index.size()).isEqualTo(7);
+	}
+
+	@Test
+	void shouldKeepSiblingsWhenRemoving() {
+		this.index.remove(7);
+		this.index.remove(2);
+
+		assertThat(this.index.suggest("dav", 10)).containsExactly(1, 3);
+		assertThat(this.index.suggest("davids", 10)).isEmpty();
+
+		this.index.remove(1);
+		this.index.remove(3);
+
+		assertThat(this.index.suggest("d", 10)).isEmpty();
+		assertThat(this.index.suggest("m", 10)).containsExactly(4);
+	}
+
+	@Test
+	void shouldAddNewOwnerIncrementally() {
+		this.index.put(8, "Davies");
+
+		assertThat(this.index.suggest("davi", 10)).containsExactly(2, 8, 1, 3);
+	}
+
+}
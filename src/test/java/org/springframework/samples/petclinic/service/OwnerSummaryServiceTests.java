@@ -0,0 +1,192 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.Owner;
+import org.springframework.samples.petclinic.model.OwnerSummary;
+import org.springframework.samples.petclinic.model.Pet;
+import org.springframework.samples.petclinic.model.PhoneticKeys;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.OwnerSummaryRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+
+/**
+ * Integration test of {@link OwnerSummaryService} against the sample data. Each test runs
+ * in a rolled back transaction, so the in-memory mirror is only checked where nothing is
+ * committed.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(OwnerSummaryService.class)
+class OwnerSummaryServiceTests {
+
+	@Autowired
+	private OwnerSummaryService service;
+
+	@Autowired
+	private OwnerSummaryRepository summaries;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@BeforeEach
+	void rebuild() {
+		this.service.rebuild();
+	}
+
+	@Test
+	void shouldSummarizeOwnerOnRebuild() {
+		OwnerSummary jean = this.summaries.findById(6).orElseThrow();
+		assertThat(jean.getLastName()).isEqualTo("Coleman");
+		assertThat(jean.getPetCount()).isEqualTo(2);
+		assertThat(jean.getPetNames()).isEqualTo("Max, Samantha");
+		assertThat(jean.getTotalVisits()).isEqualTo(4);
+		assertThat(jean.getLastVisitDate()).isEqualTo(LocalDate.of(2013, 1, 4));
+
+		OwnerSummary george = this.summaries.findById(1).orElseThrow();
+		assertThat(george.getTotalVisits()).isZero();
+		assertThat(george.getLastVisitDate()).isNull();
+	}
+
+	@Test
+	void shouldOnlySummarizeOwnersWithoutRowOnRebuild() {
+		this.summaries.deleteById(6);
+		Owner george = this.owners.findById(1).orElseThrow();
+		george.setLastName("Meyer");
+		this.owners.saveAndFlush(george);
+		this.jdbc.update("UPDATE owner_summary SET last_name_cologne = NULL, last_name_metaphone = NULL"
+				+ " WHERE owner_id = 2");
+		this.entityManager.clear();
+
+		this.service.rebuild();
+
+		assertThat(this.summaries.findById(6)).get().extracting(OwnerSummary::getLastName).isEqualTo("Coleman");
+		assertThat(this.summaries.findById(1)).get().extracting(OwnerSummary::getLastName).isEqualTo("Franklin");
+		assertThat(this.summaries.findById(2)).get()
+			.extracting(OwnerSummary::getLastNameMetaphone)
+			.isEqualTo(PhoneticKeys.metaphone("Davis"));
+		assertThat(this.summaries.count()).isEqualTo(this.owners.count());
+	}
+
+	@Test
+	void shouldFindOwnerByTelephoneMissingFromTheMirror() {
+		Owner owner = new Owner();
+		owner.setFirstName("Ada");
+		owner.setLastName("Byron");
+		owner.setAddress("12 St James's Square");
+		owner.setCity("London");
+		owner.setTelephone("6085550199");
+		int id = this.owners.saveAndFlush(owner).getId();
+		// as if added on another instance: the row is there, this mirror never saw it
+		this.service.refresh(id);
+		assertThat(this.service.find(id)).isEmpty();
+
+		assertThat(this.service.findByTelephone("(608) 555-0199")).get()
+			.extracting(OwnerSummary::getLastName)
+			.isEqualTo("Byron");
+	}
+
+	@Test
+	void shouldRefreshAfterNewVisit() {
+		Visit visit = new Visit();
+		visit.setPetId(7);
+		visit.setDate(LocalDate.of(2020, 5, 1));
+		visit.setDescription("checkup");
+		this.visits.save(visit);
+
+		this.service.refresh(6);
+
+		OwnerSummary jean = this.summaries.findById(6).orElseThrow();
+		assertThat(jean.getTotalVisits()).isEqualTo(5);
+		assertThat(jean.getLastVisitDate()).isEqualTo(LocalDate.of(2020, 5, 1));
+	}
+
+	@Test
+	void shouldRefreshAfterNewPet() {
+		Owner george = this.owners.findById(1).orElseThrow();
+		Pet pet = new Pet();
+		pet.setName("Bowser");
+		pet.setType(george.getPets().get(0).getType());
+		george.addPet(pet);
+		this.owners.save(george);
+
+		this.service.refresh(1);
+
+		assertThat(this.service.findByLastName("Frank", PageRequest.of(0, 5)).getContent()).singleElement()
+			.satisfies(summary -> {
+				assertThat(summary.getPetCount()).isEqualTo(2);
+				assertThat(summary.getPetNames()).isEqualTo("Bowser, Leo");
+			});
+	}
+
+	@Test
+	void shouldFindSimilarSoundingNamesByLocale() {
+		PageRequest page = PageRequest.of(0, 5, Sort.by("id"));
+
+		assertThat(this.service.findSimilar("Shröder", Locale.GERMAN, page)).extracting(OwnerSummary::getLastName)
+			.containsExactly("Schroeder");
+		assertThat(this.service.findSimilar("Шредер", Locale.forLanguageTag("ru"), page))
+			.extracting(OwnerSummary::getLastName)
+			.containsExactly("Schroeder");
+		assertThat(this.service.findSimilar("Davies", Locale.ENGLISH, page)).extracting(OwnerSummary::getId)
+			.containsExactly(2, 4);
+		assertThat(this.service.findSimilar("Kolmann", Locale.forLanguageTag("es"), page))
+			.extracting(OwnerSummary::getLastName)
+			.containsExactly("Coleman");
+	}
+
+	@Test
+	void shouldUpdatePhoneticKeysOnRename() {
+		Owner george = this.owners.findById(1).orElseThrow();
+		george.setLastName("Meyer");
+		this.owners.save(george);
+
+		this.service.refresh(1);
+
+		assertThat(this.service.findSimilar("Maier", Locale.GERMAN, PageRequest.of(0, 5))).singleElement()
+			.extracting(OwnerSummary::getId)
+			.isEqualTo(1);
+		assertThat(this.service.findSimilar("Franklin", Locale.GERMAN, PageRequest.of(0, 5))).isEmpty();
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ */
+class SingleFlightTests {
+
+	@Test
+	void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>();
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			Future<String> leader = callers.submit(() -> flight.load(6, () -> {
+				calls.incrementAndGet();
+				loading.countDown();
+				await(release);
+				return "Jean Coleman";
+			}));
+			loading.await(5, TimeUnit.SECONDS);
+			List<Future<String>> followers = new ArrayList<>();
+			for (int i = 0; i < 7; i++) {
+				followers.add(callers.submit(() -> flight.load(6, () -> {
+					calls.incrementAndGet();
+					return "loaded again";
+				})));
+			}
+			while (flight.shared() < 7) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+
+			assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("Jean Coleman");
+			for (Future<String> follower : followers) {
+				assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("Jean Coleman");
+			}
+		}
+		finally {
+			callers.shutdownNow();
+		}
+		assertThat(calls).hasValue(1);
+		assertThat(flight.loads()).isEqualTo(1);
+		assertThat(flight.shared()).isEqualTo(7);
+	}
+
+	@Test
+	void shouldLoadAgainOnceLoadFinished() {
+		SingleFlight<Integer, String> flight = new SingleFlight<>();
+
+		flight.load(6, () -> "first");
+
+		assertThat(flight.load(6, () -> "second")).isEqualTo("second");
+		assertThat(flight.loads()).isEqualTo(2);
+		assertThat(flight.shared()).isZero();
+	}
+
+	@Test
+	void shouldNotShareALoadThatStartedBeforeItWasForgotten() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService callers = Executors.newFixedThreadPool(1);
+		try {
+			Future<String> early = callers.submit(() -> flight.load(6, () -> {
+				loading.countDown();
+				await(release);
+				return "Jean Coleman";
+			}));
+			loading.await(5, TimeUnit.SECONDS);
+			// the owner is renamed while the early load runs
+			flight.forget(6);
+
+			assertThat(flight.load(6, () -> "Jean Smith")).isEqualTo("Jean Smith");
+			release.countDown();
+			assertThat(early.get(5, TimeUnit.SECONDS)).isEqualTo("Jean Coleman");
+		}
+		finally {
+			callers.shutdownNow();
+		}
+		assertThat(flight.loads()).isEqualTo(2);
+		assertThat(flight.shared()).isZero();
+	}
+
+	@Test
+	void shouldPassFailureToWaitingCallersAndForgetIt() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> leader = callers.submit(() -> flight.load(6, () -> {
+				loading.countDown();
+				await(release);
+				throw new IllegalStateException("database down");
+			}));
+			loading.await(5, TimeUnit.SECONDS);
+			Future<String> follower = callers.submit(() -> flight.load(6, () -> "unused"));
+			while (flight.shared() < 1) {
+				Thread.sleep(5);
+			}
+			release.countDown();
+
+			assertThatIllegalStateException().isThrownBy(() -> unwrap(leader)).withMessage("database down");
+			assertThatIllegalStateException().isThrownBy(() -> unwrap(follower)).withMessage("database down");
+		}
+		finally {
+			callers.shutdownNow();
+		}
+		assertThat(flight.load(6, () -> "recovered")).isEqualTo("recovered");
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String unwrap(Future<String> future) throws Exception {
+		try {
+			return future.get(5, TimeUnit.SECONDS);
+		}
+		catch (ExecutionException ex) {
+			throw (Exception) ex.getCause();
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Integration test of the keyset paging of {@link SparseQueryService} across key values
+ * that are null. Each test runs in a rolled back transaction.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import(SparseQueryService.class)
+class SparseQueryServiceTests {
+
+	@Autowired
+	private SparseQueryService service;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void shouldPageVisitsAcrossUndatedOnesNewestFirst() {
+		this.jdbc.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, NULL, 'undated 1')");
+		this.jdbc.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, '2012-06-01', 'checkup')");
+		this.jdbc.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (7, NULL, 'undated 2')");
+
+		List<Object> descriptions = pageThrough(cursor -> this.service.visits(7, "description", cursor, 1));
+
+		assertThat(descriptions).containsExactly("spayed", "rabies shot", "checkup", "undated 2", "undated 1");
+	}
+
+	@Test
+	void shouldPagePetsAcrossUnnamedOnesByName() {
+		this.jdbc.update("INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (NULL, '2015-01-01', 1, 6)");
+		this.jdbc.update("INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES ('null', '2015-01-01', 1, 6)");
+		this.jdbc.update("INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES (NULL, '2015-01-01', 1, 6)");
+
+		List<Object> names = pageThrough(cursor -> this.service.pets(6, "name", cursor, 1));
+
+		assertThat(names).containsExactly("Max", "Samantha", "null", null, null);
+	}
+
+	private static List<Object> pageThrough(Function<String, SparsePage> pages) {
+		List<Object> values = new ArrayList<>();
+		String cursor = null;
+		do {
+			SparsePage page = pages.apply(cursor);
+			page.rows().forEach(row -> values.add(row[0]));
+			cursor = page.next();
+		}
+		while (cursor != null && values.size() < 10);
+		return values;
+	}
+
+}
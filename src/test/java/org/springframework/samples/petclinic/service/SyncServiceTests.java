@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.samples.petclinic.model.ChangeLogEntry;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Action;
+import org.springframework.samples.petclinic.model.ChangeLogEntry.Subject;
+import org.springframework.samples.petclinic.repository.ChangeLogRepository;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.PetTypeRepository;
+import org.springframework.samples.petclinic.repository.VisitRepository;
+import org.springframework.samples.petclinic.service.SyncDelta.Tombstone;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Unit tests for {@link SyncService} against an in-memory outbox whose entries only
+ * become visible once their transaction commits.
+ */
+class SyncServiceTests {
+
+	private final ChangeLogRepository log = mock(ChangeLogRepository.class);
+
+	private final PetTypeRepository types = mock(PetTypeRepository.class);
+
+	private final List<ChangeLogEntry> outbox = new ArrayList<>();
+
+	private final Set<Long> uncommitted = new HashSet<>();
+
+	private final ChangeFeedService feed = new ChangeFeedService(this.log, 16,
+			Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+
+	private final SyncService sync = new SyncService(this.log, mock(OwnerRepository.class), mock(VisitRepository.class),
+			this.types, this.feed);
+
+	@BeforeEach
+	void outbox() {
+		given(this.log.save(any(ChangeLogEntry.class))).willAnswer(invocation -> {
+			ChangeLogEntry entry = invocation.getArgument(0);
+			entry.setId(this.outbox.size() + 1L);
+			this.outbox.add(entry);
+			this.uncommitted.add(entry.getId());
+			return entry;
+		});
+		given(this.log.findByIdGreaterThanAndSubjectInOrderById(any(), any(), any())).willAnswer(invocation -> {
+			long offset = invocation.getArgument(0);
+			Limit limit = invocation.getArgument(2);
+			return this.outbox.stream()
+				.filter(e -> e.getId() > offset && !this.uncommitted.contains(e.getId()))
+				.limit(limit.max())
+				.toList();
+		});
+		given(this.types.findByIdInOrderById(any())).willReturn(List.of());
+	}
+
+	@Test
+	void shouldNotPassAnOpenLowerSequence() {
+		List<TransactionSynchronization> first = record(5);
+		List<TransactionSynchronization> second = record(6);
+		commit(2L, second);
+
+		SyncDelta early = this.sync.changesSince(0, 10);
+
+		assertThat(early.until()).isZero();
+		assertThat(early.hasMore()).isFalse();
+		assertThat(early.deleted()).isEmpty();
+
+		commit(1L, first);
+		SyncDelta late = this.sync.changesSince(early.until(), 10);
+
+		assertThat(late.until()).isEqualTo(2);
+		assertThat(late.deleted()).containsExactly(new Tombstone(Subject.PET_TYPE, 5),
+				new Tombstone(Subject.PET_TYPE, 6));
+	}
+
+	private List<TransactionSynchronization> record(int petTypeId) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			this.feed.record(Subject.PET_TYPE, petTypeId, Action.CREATED, null);
+			return TransactionSynchronizationManager.getSynchronizations();
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	private void commit(long id, List<TransactionSynchronization> synchronizations) {
+		this.uncommitted.remove(id);
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+				TransactionSynchronization.STATUS_COMMITTED);
+	}
+
+}
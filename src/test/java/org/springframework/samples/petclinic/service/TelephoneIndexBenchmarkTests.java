@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures caller identification at one million owners: the in-memory
+ * {@link TelephoneIndex} against the {@code owners_telephone} index of an H2 database
+ * migrated to the latest version. The report is written to
+ * {@code target/telephone-index-benchmark.md}.
+ * <p>
+ * Takes about a minute, so it only runs with {@code -Dpetclinic.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "petclinic.benchmark", matches = "true")
+class TelephoneIndexBenchmarkTests {
+
+	private static final int OWNERS = 1_000_000;
+
+	private static final int LOOKUPS = 200_000;
+
+	private static final int DB_LOOKUPS = 20_000;
+
+	private final Random random = new Random(42);
+
+	@Test
+	void lookupAtOneMillionOwners() throws Exception {
+		long[] numbers = new long[OWNERS];
+		Map<Integer, String> phones = new HashMap<>(OWNERS * 2);
+		for (int i = 0; i < OWNERS; i++) {
+			numbers[i] = 2_000_000_000L + this.random.nextLong(7_999_999_999L);
+			phones.put(i + 1, Long.toString(numbers[i]));
+		}
+
+		TelephoneIndex index = new TelephoneIndex();
+		long buildStart = System.nanoTime();
+		index.replaceAll(phones);
+		long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+
+		long[] hits = time(number -> index.get(number), numbers, LOOKUPS, false);
+		long[] misses = time(number -> index.get(number), numbers, LOOKUPS, true);
+		long[] db = timeDatabase(numbers);
+
+		StringBuilder md = new StringBuilder();
+		md.append("# Caller-ID lookup benchmark\n\n");
+		md.append(OWNERS)
+			.append(" owners with random ten digit numbers. ")
+			.append("TelephoneIndex built with replaceAll in ")
+			.append(buildMillis)
+			.append(" ms; its two arrays hold ")
+			.append(index.size())
+			.append(" numbers. Latencies in nanoseconds, measured per call with System.nanoTime")
+			.append(" (which adds some tens of nanoseconds).\n\n");
+		md.append("| Lookup | Calls | p50 | p99 | p99.9 | max |\n");
+		md.append("|---|---:|---:|---:|---:|---:|\n");
+		row(md, "TelephoneIndex.get, known number", hits);
+		row(md, "TelephoneIndex.get, unknown number", misses);
+		row(md, "H2 owners_telephone index (SELECT id ... WHERE telephone = ?)", db);
+		Path report = Path.of("target", "telephone-index-benchmark.md");
+		Files.createDirectories(report.getParent());
+		Files.writeString(report, md);
+
+		assertThat(percentile(hits, 99)).isLessThan(5_000_000L);
+	}
+
+	private long[] time(Lookup lookup, long[] numbers, int calls, boolean miss) {
+		long[] nanos = new long[calls];
+		long sink = 0;
+		for (int i = 0; i < calls * 2; i++) {
+			long number = numbers[this.random.nextInt(numbers.length)] + (miss ? 1 : 0);
+			long start = System.nanoTime();
+			sink += lookup.get(number);
+			long elapsed = System.nanoTime() - start;
+			// first half warms up the JIT
+			if (i >= calls) {
+				nanos[i - calls] = elapsed;
+			}
+		}
+		assertThat(sink).isNotZero();
+		Arrays.sort(nanos);
+		return nanos;
+	}
+
+	private long[] timeDatabase(long[] numbers) throws SQLException {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:telephone-benchmark;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=0");
+		Flyway.configure().dataSource(dataSource).locations("classpath:db/h2/migration").load().migrate();
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement insert = connection.prepareStatement(
+					"INSERT INTO owners (first_name, last_name, address, city, telephone) VALUES ('A', 'B', 'C', 'D', ?)")) {
+				for (int i = 0; i < numbers.length; i++) {
+					insert.setString(1, Long.toString(numbers[i]));
+					insert.addBatch();
+					if (i % 10_000 == 9_999) {
+						insert.executeBatch();
+					}
+				}
+				insert.executeBatch();
+			}
+			connection.commit();
+			long[] nanos = new long[DB_LOOKUPS];
+			try (PreparedStatement select = connection.prepareStatement("SELECT id FROM owners WHERE telephone = ?")) {
+				for (int i = 0; i < DB_LOOKUPS * 2; i++) {
+					select.setString(1, Long.toString(numbers[this.random.nextInt(numbers.length)]));
+					long start = System.nanoTime();
+					try (ResultSet rs = select.executeQuery()) {
+						assertThat(rs.next()).isTrue();
+					}
+					long elapsed = System.nanoTime() - start;
+					if (i >= DB_LOOKUPS) {
+						nanos[i - DB_LOOKUPS] = elapsed;
+					}
+				}
+			}
+			Arrays.sort(nanos);
+			return nanos;
+		}
+	}
+
+	private static void row(StringBuilder md, String name, long[] sorted) {
+		md.append("| ")
+			.append(name)
+			.append(" | ")
+			.append(sorted.length)
+			.append(" | ")
+			.append(percentile(sorted, 50))
+			.append(" | ")
+			.append(percentile(sorted, 99))
+			.append(" | ")
+			.append(sorted[(int) (sorted.length * 0.999)])
+			.append(" | ")
+			.append(sorted[sorted.length - 1])
+			.append(" |\n");
+	}
+
+	private static long percentile(long[] sorted, int percent) {
+		return sorted[sorted.length * percent / 100];
+	}
+
+	@FunctionalInterface
+	private interface Lookup {
+
+		int get(long number);
+
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TelephoneIndex}.
+ */
+class TelephoneIndexTests {
+
+	private final TelephoneIndex index = new TelephoneIndex();
+
+	@Test
+	void shouldNormalizeDialledNumbers() {
+		assertThat(TelephoneIndex.normalize("6085551023")).isEqualTo(6085551023L);
+		assertThat(TelephoneIndex.normalize("+1 (608) 555-1023")).isEqualTo(6085551023L);
+		assertThat(TelephoneIndex.normalize("16085551023")).isEqualTo(6085551023L);
+		assertThat(TelephoneIndex.normalize("0301234567")).isEqualTo(301234567L);
+		assertThat(TelephoneIndex.normalize("555-1023")).isEqualTo(TelephoneIndex.MISSING);
+		assertThat(TelephoneIndex.normalize("26085551023")).isEqualTo(TelephoneIndex.MISSING);
+		assertThat(TelephoneIndex.normalize("123456789012")).isEqualTo(TelephoneIndex.MISSING);
+		assertThat(TelephoneIndex.normalize(null)).isEqualTo(TelephoneIndex.MISSING);
+	}
+
+	@Test
+	void shouldFindOwnerByNumber() {
+		this.index.put("6085551023", 1);
+		this.index.put("6085551749", 2);
+
+		assertThat(this.index.get(6085551023L)).isEqualTo(1);
+		assertThat(this.index.get(6085551749L)).isEqualTo(2);
+		assertThat(this.index.get(6085559999L)).isEqualTo(TelephoneIndex.MISSING);
+		assertThat(this.index.get(TelephoneIndex.MISSING)).isEqualTo(TelephoneIndex.MISSING);
+	}
+
+	@Test
+	void shouldOnlyRemoveMappingOfSameOwner() {
+		this.index.put("6085551023", 1);
+		this.index.put("6085551023", 2);
+
+		this.index.remove("6085551023", 1);
+		assertThat(this.index.get(6085551023L)).isEqualTo(2);
+
+		this.index.remove("6085551023", 2);
+		assertThat(this.index.get(6085551023L)).isEqualTo(TelephoneIndex.MISSING);
+		assertThat(this.index.size()).isZero();
+	}
+
+	@Test
+	void shouldKeepEveryEntryReachableThroughGrowthAndRemoval() {
+		Map<Integer, String> phones = new HashMap<>();
+		for (int id = 1; id <= 5000; id++) {
+			phones.put(id, String.valueOf(6080000000L + id));
+			this.index.put(phones.get(id), id);
+		}
+		for (int id = 1; id <= 5000; id += 3) {
+			this.index.remove(phones.get(id), id);
+		}
+
+		assertThat(this.index.size()).isEqualTo(5000 - 1667);
+		for (int id = 1; id <= 5000; id++) {
+			int expected = (id - 1) % 3 == 0 ? TelephoneIndex.MISSING : id;
+			assertThat(this.index.get(6080000000L + id)).as("owner %d", id).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	void shouldReplaceAll() {
+		this.index.put("6085551023", 1);
+
+		this.index.replaceAll(Map.of(2, "6085551749", 3, "not a number"));
+
+		assertThat(this.index.get(6085551023L)).isEqualTo(TelephoneIndex.MISSING);
+		assertThat(this.index.get(6085551749L)).isEqualTo(2);
+		assertThat(this.index.size()).isEqualTo(1);
+	}
+
+}
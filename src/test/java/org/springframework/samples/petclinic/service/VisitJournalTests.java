@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.samples.petclinic.service.VisitJournal.Entry;
+
+/**
+ * Unit tests for {@link VisitJournal}.
+ */
+class VisitJournalTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void shouldReadBackAppendedVisits() throws IOException {
+		Path file = this.dir.resolve("visits.journal");
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			journal.append(6, 7, LocalDate.of(2025, 3, 3), "rabies shot");
+			journal.append(6, 8, null, "Kastration, Nachkontrolle");
+		}
+
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			assertThat(journal.entries()).containsExactly(new Entry(1, 6, 7, LocalDate.of(2025, 3, 3), "rabies shot"),
+					new Entry(2, 6, 8, null, "Kastration, Nachkontrolle"));
+		}
+	}
+
+	@Test
+	void shouldDropTornRecordLeftByCrash() throws IOException {
+		Path file = this.dir.resolve("visits.journal");
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			journal.append(6, 7, LocalDate.of(2025, 3, 3), "rabies shot");
+			journal.append(6, 8, LocalDate.of(2025, 3, 3), "neutered");
+		}
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			assertThat(journal.entries()).extracting(Entry::description).containsExactly("rabies shot");
+			assertThat(journal.append(6, 8, LocalDate.of(2025, 3, 3), "neutered").seq()).isEqualTo(2);
+		}
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			assertThat(journal.entries()).extracting(Entry::description).containsExactly("rabies shot", "neutered");
+		}
+	}
+
+	@Test
+	void shouldStopAtRecordFailingItsChecksum() throws IOException {
+		Path file = this.dir.resolve("visits.journal");
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			journal.append(6, 7, LocalDate.of(2025, 3, 3), "rabies shot");
+			journal.append(6, 8, LocalDate.of(2025, 3, 3), "neutered");
+		}
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length - 1] ^= 0x20;
+		Files.write(file, bytes);
+
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			assertThat(journal.entries()).extracting(Entry::seq).containsExactly(1L);
+		}
+	}
+
+	@Test
+	void shouldContinueSequenceAfterAppliedVisitsAreCleared() throws IOException {
+		Path file = this.dir.resolve("visits.journal");
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			journal.append(6, 7, LocalDate.of(2025, 3, 3), "rabies shot");
+			journal.append(6, 8, LocalDate.of(2025, 3, 3), "neutered");
+			assertThat(journal.clear(2)).isTrue();
+		}
+
+		try (VisitJournal journal = new VisitJournal(file, id -> 2)) {
+			assertThat(journal.entries()).isEmpty();
+			assertThat(journal.append(6, 7, LocalDate.of(2025, 3, 4), "checkup").seq()).isEqualTo(3);
+		}
+	}
+
+	@Test
+	void shouldKeepItsIdAcrossRestartsAndClears() throws IOException {
+		Path file = this.dir.resolve("visits.journal");
+		String id;
+		try (VisitJournal journal = new VisitJournal(file, applied -> 0)) {
+			id = journal.id();
+			journal.append(6, 7, LocalDate.of(2025, 3, 3), "rabies shot");
+			journal.clear(1);
+		}
+
+		try (VisitJournal journal = new VisitJournal(file, applied -> 0);
+				VisitJournal other = new VisitJournal(this.dir.resolve("other.journal"), applied -> 0)) {
+			assertThat(journal.id()).isEqualTo(id);
+			assertThat(other.id()).isNotEqualTo(id);
+		}
+	}
+
+	@Test
+	void shouldLookUpAppliedSequenceOfItsOwnId() throws IOException {
+		Path file = this.dir.resolve("visits.journal");
+		String id;
+		try (VisitJournal journal = new VisitJournal(file, applied -> 0)) {
+			id = journal.id();
+		}
+
+		try (VisitJournal journal = new VisitJournal(file, applied -> applied.equals(id) ? 41 : 99)) {
+			assertThat(journal.append(6, 7, LocalDate.of(2025, 3, 4), "checkup").seq()).isEqualTo(42);
+		}
+	}
+
+	@Test
+	void shouldCoverEveryWrittenRecordWithOneForce() throws IOException {
+		try (VisitJournal journal = new VisitJournal(this.dir.resolve("visits.journal"), id -> 0)) {
+			journal.write(6, 7, LocalDate.of(2025, 3, 3), "rabies shot");
+			journal.write(6, 8, LocalDate.of(2025, 3, 3), "neutered");
+			assertThat(journal.forcedSeq()).isZero();
+
+			journal.force(1);
+
+			assertThat(journal.forcedSeq()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	void shouldOnlyClearOnceEveryRecordIsApplied() throws IOException {
+		Path file = this.dir.resolve("visits.journal");
+		try (VisitJournal journal = new VisitJournal(file, id -> 0)) {
+			journal.append(6, 7, LocalDate.of(2025, 3, 3), "rabies shot");
+			journal.append(6, 8, LocalDate.of(2025, 3, 3), "neutered");
+
+			assertThat(journal.clear(1)).isFalse();
+			assertThat(journal.clear(2)).isTrue();
+			assertThat(journal.clear(2)).isFalse();
+		}
+		try (VisitJournal journal = new VisitJournal(file, id -> 2)) {
+			assertThat(journal.entries()).isEmpty();
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link VisitSearchIndex} and {@link VisitTextAnalyzer}.
+ */
+class VisitSearchIndexTests {
+
+	private VisitSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		this.index = new VisitSearchIndex();
+		this.index.add(1, LocalDate.of(2023, 3, 1), "Dermatitis on the left ear");
+		this.index.add(2, LocalDate.of(2024, 5, 10), "Follow-up: dermatitis healing, dermatitis cream");
+		this.index.add(3, LocalDate.of(2024, 8, 2), "rabies shot");
+		this.index.add(4, LocalDate.of(2024, 11, 20), "Dermatitis-Kontrolle, Ohren gereinigt");
+		this.index.add(5, LocalDate.of(2024, 12, 1), "Прививки от бешенства");
+	}
+
+	@Test
+	void shouldStemPerLanguage() {
+		assertThat(VisitTextAnalyzer.stem("vaccinations", "en")).isEqualTo(VisitTextAnalyzer.stem("vaccination", "en"));
+		assertThat(VisitTextAnalyzer.stem("impfungen", "de")).isEqualTo(VisitTextAnalyzer.stem("impfung", "de"));
+		assertThat(VisitTextAnalyzer.stem("vacunas", "es")).isEqualTo(VisitTextAnalyzer.stem("vacuna", "es"));
+		assertThat(VisitTextAnalyzer.stem("прививки", "ru")).isEqualTo(VisitTextAnalyzer.stem("прививка", "ru"));
+		assertThat(VisitTextAnalyzer.stem("ear", "en")).isEqualTo("ear");
+	}
+
+	@Test
+	void shouldTokenizeAndFoldLatinAccentsOnly() {
+		assertThat(VisitTextAnalyzer.tokenize("Ohren-Spülung, 2x")).containsExactly("ohren", "spulung", "2x");
+		assertThat(VisitTextAnalyzer.tokenize("Свой ёж")).containsExactly("свой", "еж");
+	}
+
+	@Test
+	void shouldRankByTermFrequencyThenDate() {
+		List<VisitSearchIndex.Match> matches = this.index
+			.search(VisitTextAnalyzer.queryTerms("dermatitis", Locale.ENGLISH), null, null, 10);
+
+		assertThat(matches).extracting(VisitSearchIndex.Match::visitId).containsExactly(2, 4, 1);
+	}
+
+	@Test
+	void shouldFilterByDate() {
+		List<VisitSearchIndex.Match> matches = this.index.search(
+				VisitTextAnalyzer.queryTerms("dermatitis", Locale.ENGLISH), LocalDate.of(2024, 1, 1),
+				LocalDate.of(2024, 12, 31), 10);
+
+		assertThat(matches).extracting(VisitSearchIndex.Match::visitId).containsExactlyInAnyOrder(2, 4);
+	}
+
+	@Test
+	void shouldRequireAllTerms() {
+		assertThat(this.index.search(VisitTextAnalyzer.queryTerms("dermatitis ear", Locale.ENGLISH), null, null, 10))
+			.extracting(VisitSearchIndex.Match::visitId)
+			.containsExactly(1);
+		assertThat(this.index.search(VisitTextAnalyzer.queryTerms("dermatitis rabies", Locale.ENGLISH), null, null, 10))
+			.isEmpty();
+	}
+
+	@Test
+	void shouldStemQueryForSearcherLocale() {
+		assertThat(this.index.search(VisitTextAnalyzer.queryTerms("Ohr", Locale.GERMAN), null, null, 10))
+			.extracting(VisitSearchIndex.Match::visitId)
+			.containsExactly(4);
+		assertThat(this.index.search(VisitTextAnalyzer.queryTerms("прививка", Locale.ENGLISH), null, null, 10))
+			.extracting(VisitSearchIndex.Match::visitId)
+			.containsExactly(5);
+	}
+
+	@Test
+	void shouldAcceptBackdatedVisits() {
+		this.index.add(6, LocalDate.of(2020, 1, 1), "dermatitis");
+		this.index.add(6, LocalDate.of(2020, 1, 1), "dermatitis");
+
+		assertThat(this.index.size()).isEqualTo(6);
+		assertThat(this.index.search(VisitTextAnalyzer.queryTerms("dermatitis", Locale.ENGLISH), null,
+				LocalDate.of(2023, 12, 31), 10))
+			.extracting(VisitSearchIndex.Match::visitId)
+			.containsExactlyInAnyOrder(1, 6);
+	}
+
+	@Test
+	void shouldKeepPostingsCompact() {
+		VisitSearchIndex large = new VisitSearchIndex();
+		LocalDate day = LocalDate.of(2015, 1, 1);
+		for (int id = 1; id <= 10_000; id++) {
+			large.add(id, day.plusDays(id / 5), "checkup");
+		}
+		// one term per Latin language, about 3 bytes per posting
+		assertThat(large.postingsBytes()).isLessThan(3 * 10_000 * 4);
+		assertThat(large.search(VisitTextAnalyzer.queryTerms("checkups", Locale.ENGLISH), null, null, 3))
+			.extracting(VisitSearchIndex.Match::visitId)
+			.containsExactly(10_000, 9_999, 9_998);
+	}
+
+}
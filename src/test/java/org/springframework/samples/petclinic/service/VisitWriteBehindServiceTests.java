@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.Visit;
+import org.springframework.samples.petclinic.repository.OwnerRepository;
+import org.springframework.samples.petclinic.repository.VetRepository;
+import org.springframework.samples.petclinic.service.VisitJournal.Entry;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Integration test of {@link VisitWriteBehindService} against the sample data. Each test
+ * runs in a rolled back transaction that the flushes join, and flushes explicitly rather
+ * than on the background schedule.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Import({ OwnerSummaryService.class, VisitSearchService.class, ChangeFeedService.class })
+class VisitWriteBehindServiceTests {
+
+	// Jean Coleman and her cat Samantha
+	private static final int OWNER_ID = 6;
+
+	private static final int PET_ID = 7;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private OwnerSummaryService summaries;
+
+	@Autowired
+	private VisitSearchService visitSearch;
+
+	@Autowired
+	private ChangeFeedService changes;
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private VetRepository vets;
+
+	@TempDir
+	Path dir;
+
+	private VisitWriteBehindService service;
+
+	@AfterEach
+	void shutdown() throws Exception {
+		if (this.service != null) {
+			this.service.shutdown();
+		}
+	}
+
+	@Test
+	void shouldInsertJournaledVisitsWhenOwnerIsRead() throws Exception {
+		this.service = start(2);
+		int before = visitCount();
+		int changesBefore = visitChangeCount();
+
+		for (int i = 1; i <= 3; i++) {
+			this.service.submit(OWNER_ID, visit("checkup " + i));
+		}
+
+		assertThat(this.service.pendingCount()).isEqualTo(3);
+		assertThat(visitCount()).isEqualTo(before);
+		assertThat(journaled()).hasSize(3);
+
+		this.service.awaitOwner(OWNER_ID);
+
+		assertThat(this.service.pendingCount()).isZero();
+		assertThat(visitCount()).isEqualTo(before + 3);
+		assertThat(appliedSeq(journalId())).isEqualTo(3);
+		assertThat(visitChangeCount()).isEqualTo(changesBefore + 3);
+		assertThat(journaled()).isEmpty();
+	}
+
+	@Test
+	void shouldReplayOnlyUnappliedVisitsAfterCrash() throws Exception {
+		String id;
+		try (VisitJournal journal = new VisitJournal(this.dir.resolve("visits.journal"), applied -> 0)) {
+			id = journal.id();
+			journal.append(OWNER_ID, PET_ID, LocalDate.of(2025, 3, 3), "applied before the crash");
+			journal.append(OWNER_ID, PET_ID, LocalDate.of(2025, 3, 3), "journaled only");
+			journal.append(OWNER_ID, PET_ID, LocalDate.of(2025, 3, 3), "journaled only");
+		}
+		// the first visit was committed, but the journal was not cleared yet
+		this.jdbc.update("INSERT INTO visit_journal_checkpoint (journal_id, applied_seq) VALUES (?, 1)", id);
+		int before = visitCount();
+
+		this.service = start(100);
+
+		assertThat(visitCount()).isEqualTo(before + 2);
+		assertThat(this.jdbc.queryForObject("SELECT COUNT(*) FROM visits WHERE description = ?", Integer.class,
+				"applied before the crash"))
+			.isZero();
+		assertThat(appliedSeq(id)).isEqualTo(3);
+		assertThat(journaled()).isEmpty();
+
+		this.service.submit(OWNER_ID, visit("after restart"));
+		this.service.flush();
+		assertThat(appliedSeq(id)).isEqualTo(4);
+	}
+
+	@Test
+	void shouldKeepCheckpointsOfInstancesApart() throws Exception {
+		// another instance has applied three visits of its own journal
+		this.jdbc.update("INSERT INTO visit_journal_checkpoint (journal_id, applied_seq) VALUES (?, 3)",
+				"00000000-0000-0000-0000-000000000001");
+		int before = visitCount();
+
+		this.service = start(100);
+		this.service.submit(OWNER_ID, visit("first of this instance"));
+		this.service.submit(OWNER_ID, visit("second of this instance"));
+		this.service.flush();
+
+		assertThat(visitCount()).isEqualTo(before + 2);
+		assertThat(appliedSeq(journalId())).isEqualTo(2);
+		assertThat(appliedSeq("00000000-0000-0000-0000-000000000001")).isEqualTo(3);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void shouldSetAsideVisitsThatCanNeverBeInserted() throws Exception {
+		// committed for real, as a failed batch must roll back on its own
+		int before = visitCount();
+		long lastChange = this.jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM change_log", Long.class);
+		this.service = start(100);
+		try {
+			this.service.submit(OWNER_ID, visit("before"));
+			Visit deletedPet = visit("for a pet deleted in between");
+			deletedPet.setPetId(9999);
+			this.service.submit(OWNER_ID, deletedPet);
+			this.service.submit(OWNER_ID, visit("x".repeat(300)));
+			this.service.submit(OWNER_ID, visit("after"));
+
+			this.service.awaitOwner(OWNER_ID);
+
+			assertThat(this.service.pendingCount()).isZero();
+			assertThat(this.jdbc.queryForList("SELECT description FROM visits WHERE pet_id = ? AND visit_date = ?",
+					String.class, PET_ID, LocalDate.of(2025, 3, 3)))
+				.containsExactlyInAnyOrder("before", "after");
+			assertThat(this.jdbc.queryForList("SELECT seq FROM visit_dead_letter WHERE journal_id = ? ORDER BY seq",
+					Long.class, journalId()))
+				.containsExactly(2L, 3L);
+			assertThat(appliedSeq(journalId())).isEqualTo(4);
+			assertThat(journaled()).isEmpty();
+		}
+		finally {
+			// nothing rolls back outside a test transaction, so restore the sample data
+			this.jdbc.update("DELETE FROM visits WHERE pet_id = ? AND visit_date = ?", PET_ID,
+					LocalDate.of(2025, 3, 3));
+			this.jdbc.update("DELETE FROM visit_dead_letter");
+			this.jdbc.update("DELETE FROM visit_journal_checkpoint");
+			this.jdbc.update("DELETE FROM change_log WHERE id > ?", lastChange);
+			new TransactionTemplate(this.transactionManager)
+				.executeWithoutResult(status -> this.summaries.refresh(OWNER_ID));
+			assertThat(visitCount()).isEqualTo(before);
+		}
+	}
+
+	private VisitWriteBehindService start(int batchSize) throws Exception {
+		VisitWriteBehindService started = new VisitWriteBehindService(this.jdbc, this.transactionManager,
+				this.summaries, this.visitSearch, this.changes,
+				new ReadCoalescingService(this.owners, this.vets, new SimpleMeterRegistry()), true,
+				this.dir.resolve("visits.journal"), batchSize, Duration.ofHours(1));
+		started.recover();
+		return started;
+	}
+
+	private static Visit visit(String description) {
+		Visit visit = new Visit();
+		visit.setPetId(PET_ID);
+		visit.setDate(LocalDate.of(2025, 3, 3));
+		visit.setDescription(description);
+		return visit;
+	}
+
+	private int visitCount() {
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM visits WHERE pet_id = ?", Integer.class, PET_ID);
+	}
+
+	private int visitChangeCount() {
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM change_log WHERE entity = 'VISIT' AND owner_id = ?",
+				Integer.class, OWNER_ID);
+	}
+
+	private long appliedSeq(String journalId) {
+		return this.jdbc.queryForObject("SELECT applied_seq FROM visit_journal_checkpoint WHERE journal_id = ?",
+				Long.class, journalId);
+	}
+
+	private String journalId() throws IOException {
+		try (VisitJournal journal = new VisitJournal(this.dir.resolve("visits.journal"), applied -> 0)) {
+			return journal.id();
+		}
+	}
+
+	private List<Entry> journaled() throws IOException {
+		try (VisitJournal journal = new VisitJournal(this.dir.resolve("visits.journal"), applied -> 0)) {
+			return journal.entries();
+		}
+	}
+
+}